@@ -1,5 +1,6 @@
 package com.armadialogcreator.canvas;
 
+import com.armadialogcreator.util.UpdateListenerGroup;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import org.jetbrains.annotations.NotNull;
@@ -43,6 +44,19 @@ public interface CanvasComponent extends Region {
 	 */
 	void setGhost(boolean ghost);
 
+	/**
+	 @return the group that is updated with this component after the position or size of this component changed
+	 (from {@link #setPosition(int, int, int, int)}, {@link #translate(int, int)}, {@link #scale(int, int, int, int)}, etc)
+	 */
+	@NotNull UpdateListenerGroup<CanvasComponent> getPositionUpdateGroup();
+
+	/**
+	 @return the group that is updated with this component when it needs to be painted again and the position didn't change
+	 (background color, border, enabled, ghost, or anything else that changes what {@link #paint(GraphicsContext, CanvasContext)}
+	 paints)
+	 */
+	@NotNull UpdateListenerGroup<CanvasComponent> getRenderUpdateGroup();
+
 	/** Sorts such that smallest render priority is rendered first and highest render priority is rendered last */
 	Comparator<CanvasComponent> RENDER_PRIORITY_COMPARATOR = new Comparator<CanvasComponent>() {
 		@Override
@@ -0,0 +1,413 @@
+package com.armadialogcreator.canvas;
+
+import com.armadialogcreator.util.UpdateGroupListener;
+import com.armadialogcreator.util.UpdateListenerGroup;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ A uniform grid of the bounds of every {@link CanvasComponent} in a {@link UINode} tree, for finding the components at
+ a point or inside of an area without checking every node.
+ <p>
+ Each cell is {@link #cellSize} pixels wide and tall and lists the components that overlap it. A component that overlaps
+ more than {@link #MAX_CELLS} cells is kept in one list that every query checks, so that moving or scaling a large
+ component (like a background) doesn't update hundreds of cells.
+ <p>
+ The index is kept current from {@link CanvasComponent#getPositionUpdateGroup()} and from the
+ {@link UINode#getUpdateGroup()} of every node in the tree. Adding or removing a node only updates the cells of the
+ added or removed components. Moving a node only changes the z-order, which is recalculated with one iteration of the
+ tree on the next query.
+ <p>
+ {@link #getChangeUpdateGroup()} tells when an indexed component may look different on the canvas, which
+ {@link UICanvas} uses to repaint only the areas that changed.
+
+ @author K
+ @since 10/18/2026 */
+class CanvasSpatialIndex {
+	/** Default width and height of a cell in pixels */
+	static final int DEFAULT_CELL_SIZE = 64;
+	/** Components that overlap more cells than this are kept in {@link #large} */
+	private static final int MAX_CELLS = 48;
+
+	private final int cellSize;
+	/** Key is {@link #cellKey(int, int)} */
+	private final Map<Long, List<Entry>> cells = new HashMap<>();
+	/** Entries that overlap more than {@link #MAX_CELLS} cells */
+	private final List<Entry> large = new ArrayList<>();
+	private final Map<UINode, Entry> entries = new IdentityHashMap<>();
+	private final Map<CanvasComponent, Entry> entriesByComponent = new IdentityHashMap<>();
+	/** Nodes whose {@link UINode#getUpdateGroup()} has {@link #nodeChangeListener} */
+	private final Set<UINode> listenedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+	private UINode rootNode;
+	/** True if {@link Entry#order} needs to be recalculated */
+	private boolean orderStale = true;
+	/** Incremented for each query so that an entry in more than one cell is only checked once */
+	private int queryStamp = 0;
+	private final UpdateListenerGroup<CanvasComponent> changeUpdateGroup = new UpdateListenerGroup<>();
+
+	private final UpdateGroupListener<UINodeChange> nodeChangeListener = new UpdateGroupListener<UINodeChange>() {
+		@Override
+		public void update(@NotNull UpdateListenerGroup<UINodeChange> group, @NotNull UINodeChange data) {
+			switch (data.getType()) {
+				case AddChild: {
+					addTree(data.getNode());
+					break;
+				}
+				case RemoveChild: {
+					removeTree(data.getNode());
+					break;
+				}
+				case MoveChild: {
+					UINodeChange.MoveChild change = (UINodeChange.MoveChild) data;
+					if (!change.isEntryUpdate()) {
+						//the node may have moved from outside of this tree
+						addTree(data.getNode());
+					} else if (!isInTree(change.getNewParent())) {
+						removeTree(data.getNode());
+					} else {
+						//z-order changed
+						changedTree(data.getNode());
+					}
+					break;
+				}
+				default: {
+					throw new IllegalStateException(data.getType().name());
+				}
+			}
+			orderStale = true;
+		}
+	};
+
+	private final UpdateGroupListener<CanvasComponent> positionListener = new UpdateGroupListener<CanvasComponent>() {
+		@Override
+		public void update(@NotNull UpdateListenerGroup<CanvasComponent> group, @NotNull CanvasComponent component) {
+			Entry entry = entriesByComponent.get(component);
+			if (entry != null) {
+				removeFromCells(entry);
+				addToCells(entry);
+				changeUpdateGroup.update(component);
+			}
+		}
+	};
+
+	private final UpdateGroupListener<CanvasComponent> renderListener = new UpdateGroupListener<CanvasComponent>() {
+		@Override
+		public void update(@NotNull UpdateListenerGroup<CanvasComponent> group, @NotNull CanvasComponent component) {
+			if (entriesByComponent.containsKey(component)) {
+				changeUpdateGroup.update(component);
+			}
+		}
+	};
+
+	CanvasSpatialIndex() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/** @param cellSize width and height of a cell in pixels */
+	CanvasSpatialIndex(int cellSize) {
+		if (cellSize <= 0) {
+			throw new IllegalArgumentException("cellSize must be > 0: " + cellSize);
+		}
+		this.cellSize = cellSize;
+	}
+
+	/** Remove everything from the index and index every node of the given tree, or nothing if null */
+	void setRootNode(@Nullable UINode rootNode) {
+		clear();
+		this.rootNode = rootNode;
+		if (rootNode == null) {
+			return;
+		}
+		listen(rootNode);
+		for (UINode node : rootNode.deepIterateChildren()) {
+			addNode(node);
+		}
+		orderStale = true;
+	}
+
+	/** Remove everything from the index and remove all listeners that were added */
+	void clear() {
+		for (UINode node : listenedNodes) {
+			node.getUpdateGroup().removeListener(nodeChangeListener);
+		}
+		listenedNodes.clear();
+		for (Entry entry : entries.values()) {
+			entry.component.getPositionUpdateGroup().removeListener(positionListener);
+			entry.component.getRenderUpdateGroup().removeListener(renderListener);
+		}
+		entries.clear();
+		entriesByComponent.clear();
+		cells.clear();
+		large.clear();
+		rootNode = null;
+	}
+
+	/**
+	 @return the group that is updated with a component after it was added to or removed from the index, it moved or was
+	 resized, its z-order changed, or {@link CanvasComponent#getRenderUpdateGroup()} was updated
+	 */
+	@NotNull
+	UpdateListenerGroup<CanvasComponent> getChangeUpdateGroup() {
+		return changeUpdateGroup;
+	}
+
+	/** @return number of indexed components */
+	int size() {
+		return entries.size();
+	}
+
+	/**
+	 @return the enabled node whose component contains the point and is rendered last (on top),
+	 or null if no enabled component contains the point
+	 */
+	@Nullable
+	UINode getTopmostEnabledAt(int x, int y) {
+		updateOrder();
+		Entry top = null;
+		List<Entry> cell = cells.get(cellKey(Math.floorDiv(x, cellSize), Math.floorDiv(y, cellSize)));
+		if (cell != null) {
+			top = topmostAt(cell, x, y, null);
+		}
+		top = topmostAt(large, x, y, top);
+		return top == null ? null : top.node;
+	}
+
+	@Nullable
+	private static Entry topmostAt(@NotNull List<Entry> entries, int x, int y, @Nullable Entry top) {
+		for (Entry entry : entries) {
+			if (top != null && entry.order < top.order) {
+				continue;
+			}
+			CanvasComponent component = entry.component;
+			if (component.isEnabled() && component.containsPoint(x, y)) {
+				top = entry;
+			}
+		}
+		return top;
+	}
+
+	/**
+	 @param enabledOnly true if only nodes with an enabled component should be returned
+	 @return the nodes whose component overlaps the area, in the order they are rendered (first rendered is first)
+	 */
+	@NotNull
+	List<UINode> getIntersecting(@NotNull Region area, boolean enabledOnly) {
+		updateOrder();
+		int stamp = ++queryStamp;
+		List<Entry> found = new ArrayList<>();
+		int left = area.getLeftX();
+		int top = area.getTopY();
+		int right = area.getRightX();
+		int bottom = area.getBottomY();
+		int minCellX = Math.floorDiv(left, cellSize);
+		int maxCellX = Math.floorDiv(right, cellSize);
+		int minCellY = Math.floorDiv(top, cellSize);
+		int maxCellY = Math.floorDiv(bottom, cellSize);
+		if ((long) (maxCellX - minCellX + 1) * (maxCellY - minCellY + 1) > cells.size()) {
+			//the area covers more cells than there are occupied cells
+			for (List<Entry> cell : cells.values()) {
+				collectIntersecting(cell, left, top, right, bottom, enabledOnly, stamp, found);
+			}
+		} else {
+			for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+				for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+					List<Entry> cell = cells.get(cellKey(cellX, cellY));
+					if (cell != null) {
+						collectIntersecting(cell, left, top, right, bottom, enabledOnly, stamp, found);
+					}
+				}
+			}
+		}
+		collectIntersecting(large, left, top, right, bottom, enabledOnly, stamp, found);
+
+		found.sort((e1, e2) -> Integer.compare(e1.order, e2.order));
+		List<UINode> nodes = new ArrayList<>(found.size());
+		for (Entry entry : found) {
+			nodes.add(entry.node);
+		}
+		return nodes;
+	}
+
+	private static void collectIntersecting(@NotNull List<Entry> entries, int left, int top, int right, int bottom,
+											boolean enabledOnly, int stamp, @NotNull List<Entry> found) {
+		for (Entry entry : entries) {
+			if (entry.queryStamp == stamp) {
+				continue;
+			}
+			entry.queryStamp = stamp;
+			CanvasComponent c = entry.component;
+			if (enabledOnly && !c.isEnabled()) {
+				continue;
+			}
+			if (c.getLeftX() <= right && c.getRightX() >= left && c.getTopY() <= bottom && c.getBottomY() >= top) {
+				found.add(entry);
+			}
+		}
+	}
+
+	/** Index the node and all of its descendants */
+	private void addTree(@NotNull UINode node) {
+		addNode(node);
+		for (UINode child : node.deepIterateChildren()) {
+			addNode(child);
+		}
+	}
+
+	/** Remove the node and all of its descendants from the index */
+	private void removeTree(@NotNull UINode node) {
+		removeNode(node);
+		for (UINode child : node.deepIterateChildren()) {
+			removeNode(child);
+		}
+	}
+
+	/** Update {@link #changeUpdateGroup} for the component of the node and of all of its descendants */
+	private void changedTree(@NotNull UINode node) {
+		changedNode(node);
+		for (UINode child : node.deepIterateChildren()) {
+			changedNode(child);
+		}
+	}
+
+	private void changedNode(@NotNull UINode node) {
+		Entry entry = entries.get(node);
+		if (entry != null) {
+			changeUpdateGroup.update(entry.component);
+		}
+	}
+
+	private void addNode(@NotNull UINode node) {
+		listen(node);
+		CanvasComponent component = node.getComponent();
+		if (component == null || entries.containsKey(node)) {
+			return;
+		}
+		Entry entry = new Entry(node, component);
+		entries.put(node, entry);
+		entriesByComponent.put(component, entry);
+		component.getPositionUpdateGroup().addListener(positionListener);
+		component.getRenderUpdateGroup().addListener(renderListener);
+		addToCells(entry);
+		changeUpdateGroup.update(component);
+	}
+
+	private void removeNode(@NotNull UINode node) {
+		if (node != rootNode && listenedNodes.remove(node)) {
+			node.getUpdateGroup().removeListener(nodeChangeListener);
+		}
+		Entry entry = entries.remove(node);
+		if (entry == null) {
+			return;
+		}
+		entriesByComponent.remove(entry.component);
+		entry.component.getPositionUpdateGroup().removeListener(positionListener);
+		entry.component.getRenderUpdateGroup().removeListener(renderListener);
+		removeFromCells(entry);
+		changeUpdateGroup.update(entry.component);
+	}
+
+	/** @return true if the node is {@link #rootNode} or a descendant of it */
+	private boolean isInTree(@NotNull UINode node) {
+		UINode ancestor = node;
+		while (ancestor != null) {
+			if (ancestor == rootNode) {
+				return true;
+			}
+			UINode parent = ancestor.getParentNode();
+			if (parent == ancestor) {
+				return false;
+			}
+			ancestor = parent;
+		}
+		return false;
+	}
+
+	private void listen(@NotNull UINode node) {
+		if (listenedNodes.add(node)) {
+			node.getUpdateGroup().addListener(nodeChangeListener);
+		}
+	}
+
+	private void addToCells(@NotNull Entry entry) {
+		CanvasComponent c = entry.component;
+		entry.minCellX = Math.floorDiv(c.getLeftX(), cellSize);
+		entry.maxCellX = Math.floorDiv(c.getRightX(), cellSize);
+		entry.minCellY = Math.floorDiv(c.getTopY(), cellSize);
+		entry.maxCellY = Math.floorDiv(c.getBottomY(), cellSize);
+		if ((long) (entry.maxCellX - entry.minCellX + 1) * (entry.maxCellY - entry.minCellY + 1) > MAX_CELLS) {
+			entry.large = true;
+			large.add(entry);
+			return;
+		}
+		entry.large = false;
+		for (int cellY = entry.minCellY; cellY <= entry.maxCellY; cellY++) {
+			for (int cellX = entry.minCellX; cellX <= entry.maxCellX; cellX++) {
+				cells.computeIfAbsent(cellKey(cellX, cellY), k -> new ArrayList<>(4)).add(entry);
+			}
+		}
+	}
+
+	private void removeFromCells(@NotNull Entry entry) {
+		if (entry.large) {
+			large.remove(entry);
+			return;
+		}
+		for (int cellY = entry.minCellY; cellY <= entry.maxCellY; cellY++) {
+			for (int cellX = entry.minCellX; cellX <= entry.maxCellX; cellX++) {
+				long key = cellKey(cellX, cellY);
+				List<Entry> cell = cells.get(key);
+				if (cell == null) {
+					continue;
+				}
+				cell.remove(entry);
+				if (cell.isEmpty()) {
+					cells.remove(key);
+				}
+			}
+		}
+	}
+
+	/** Set {@link Entry#order} to the order the nodes are rendered in, if it is stale */
+	private void updateOrder() {
+		if (!orderStale || rootNode == null) {
+			return;
+		}
+		int order = 0;
+		for (UINode node : rootNode.deepIterateChildren()) {
+			Entry entry = entries.get(node);
+			if (entry != null) {
+				entry.order = order++;
+			}
+		}
+		orderStale = false;
+	}
+
+	private static long cellKey(int cellX, int cellY) {
+		return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+	}
+
+	private static class Entry {
+		final UINode node;
+		final CanvasComponent component;
+		/** Index in the order the nodes are rendered (a higher order is rendered on top) */
+		int order;
+		/** Cells that {@link #component} was added to */
+		int minCellX, maxCellX, minCellY, maxCellY;
+		/** True if in {@link #large} instead of the cells */
+		boolean large;
+		int queryStamp;
+
+		Entry(@NotNull UINode node, @NotNull CanvasComponent component) {
+			this.node = node;
+			this.component = component;
+		}
+	}
+}
@@ -61,8 +61,9 @@ public class DeepUINodeIterable implements Iterable<UINode> {
 		public UINode next() {
 			check();
 			UINode next = iterStack.peek().next();
+			checked = false;
 			if (next.getChildCount() > 0) {
-				iterStack.push(next.deepIterateChildren().iterator());
+				iterStack.push(next.iterateChildNodes().iterator());
 				depth++;
 			}
 			return next;
@@ -0,0 +1,101 @@
+package com.armadialogcreator.canvas;
+
+import javafx.scene.canvas.GraphicsContext;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ The areas of a {@link UICanvas} that need to be painted again on the next frame. Each area is a rectangle. When there
+ are more than {@link #MAX_RECTS} rectangles, they are merged into the one rectangle that contains them all so that
+ clipping and checking for intersections stays cheap.
+ <p>
+ This class isn't thread-safe.
+
+ @author K
+ @since 10/18/2026 */
+class DirtyRegion {
+	/** Max number of rectangles before they are merged into one */
+	static final int MAX_RECTS = 16;
+
+	private final List<Rect> rects = new ArrayList<>(MAX_RECTS);
+
+	/** Mark the area as dirty. Nothing happens if the area is empty. */
+	void add(int left, int top, int right, int bottom) {
+		if (right <= left || bottom <= top) {
+			return;
+		}
+		for (Rect rect : rects) {
+			if (rect.left <= left && rect.top <= top && rect.right >= right && rect.bottom >= bottom) {
+				return;
+			}
+		}
+		if (rects.size() < MAX_RECTS) {
+			rects.add(new Rect(left, top, right, bottom));
+			return;
+		}
+		Rect union = rects.get(0);
+		for (Rect rect : rects) {
+			union.union(rect.left, rect.top, rect.right, rect.bottom);
+		}
+		union.union(left, top, right, bottom);
+		rects.clear();
+		rects.add(union);
+	}
+
+	/** @return true if nothing is dirty */
+	boolean isEmpty() {
+		return rects.isEmpty();
+	}
+
+	void clear() {
+		rects.clear();
+	}
+
+	/** @return the sum of the areas of each rectangle. Rectangles that overlap are counted more than once. */
+	long getArea() {
+		long area = 0;
+		for (Rect rect : rects) {
+			area += (long) (rect.right - rect.left) * (rect.bottom - rect.top);
+		}
+		return area;
+	}
+
+	/** @return true if the area overlaps at least one of the dirty rectangles */
+	boolean intersects(int left, int top, int right, int bottom) {
+		for (Rect rect : rects) {
+			if (rect.left < right && rect.right > left && rect.top < bottom && rect.bottom > top) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Clip the GraphicsContext to the dirty rectangles. Surround this with {@link GraphicsContext#save()} and restore. */
+	void clip(@NotNull GraphicsContext gc) {
+		gc.beginPath();
+		for (Rect rect : rects) {
+			gc.rect(rect.left, rect.top, rect.right - rect.left, rect.bottom - rect.top);
+		}
+		gc.clip();
+	}
+
+	private static class Rect {
+		int left, top, right, bottom;
+
+		Rect(int left, int top, int right, int bottom) {
+			this.left = left;
+			this.top = top;
+			this.right = right;
+			this.bottom = bottom;
+		}
+
+		void union(int left, int top, int right, int bottom) {
+			this.left = Math.min(this.left, left);
+			this.top = Math.min(this.top, top);
+			this.right = Math.max(this.right, right);
+			this.bottom = Math.max(this.bottom, bottom);
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package com.armadialogcreator.canvas;
 
 
+import com.armadialogcreator.util.UpdateListenerGroup;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import org.jetbrains.annotations.NotNull;
@@ -30,6 +31,8 @@ public class SimpleCanvasComponent implements CanvasComponent {
 	private boolean isVisible = true;
 
 	private int renderPriority = 0;
+	private final UpdateListenerGroup<CanvasComponent> positionUpdateGroup = new UpdateListenerGroup<>();
+	private final UpdateListenerGroup<CanvasComponent> renderUpdateGroup = new UpdateListenerGroup<>();
 
 	public SimpleCanvasComponent(int x, int y, int width, int height) {
 		this.x1 = x;
@@ -46,6 +49,7 @@ public class SimpleCanvasComponent implements CanvasComponent {
 	@Override
 	public void setEnabled(boolean enabled) {
 		this.isEnabled = enabled;
+		renderUpdateGroup.update(this);
 	}
 
 	/**
@@ -86,6 +90,7 @@ public class SimpleCanvasComponent implements CanvasComponent {
 
 	public void setBackgroundColor(@NotNull Color paint) {
 		this.backgroundColor = paint;
+		renderUpdateGroup.update(this);
 	}
 
 	@NotNull
@@ -100,9 +105,22 @@ public class SimpleCanvasComponent implements CanvasComponent {
 
 	public void setBorder(@Nullable Border border) {
 		this.border = border;
+		renderUpdateGroup.update(this);
 	}
 
 
+	@Override
+	@NotNull
+	public UpdateListenerGroup<CanvasComponent> getPositionUpdateGroup() {
+		return positionUpdateGroup;
+	}
+
+	@Override
+	@NotNull
+	public UpdateListenerGroup<CanvasComponent> getRenderUpdateGroup() {
+		return renderUpdateGroup;
+	}
+
 	@Override
 	public int getRenderPriority() {
 		return renderPriority;
@@ -182,6 +200,7 @@ public class SimpleCanvasComponent implements CanvasComponent {
 		this.y1 = y1;
 		this.x2 = x2;
 		this.y2 = y2;
+		positionUpdateGroup.update(this);
 	}
 
 	/**
@@ -198,26 +217,31 @@ public class SimpleCanvasComponent implements CanvasComponent {
 		this.y1 = y1;
 		this.x2 = x1 + width;
 		this.y2 = y1 + height;
+		positionUpdateGroup.update(this);
 	}
 
 	@Override
 	public void setX1(int x1) {
 		this.x1 = x1;
+		positionUpdateGroup.update(this);
 	}
 
 	@Override
 	public void setY1(int y1) {
 		this.y1 = y1;
+		positionUpdateGroup.update(this);
 	}
 
 	@Override
 	public void setX2(int x2) {
 		this.x2 = x2;
+		positionUpdateGroup.update(this);
 	}
 
 	@Override
 	public void setY2(int y2) {
 		this.y2 = y2;
+		positionUpdateGroup.update(this);
 	}
 
 	@Override
@@ -245,6 +269,7 @@ public class SimpleCanvasComponent implements CanvasComponent {
 		this.y1 += dy;
 		this.x2 += dx;
 		this.y2 += dy;
+		positionUpdateGroup.update(this);
 	}
 
 	@Override
@@ -253,5 +278,6 @@ public class SimpleCanvasComponent implements CanvasComponent {
 		this.x2 = getRightX() + dxr;
 		this.y1 = getTopY() + dyt;
 		this.y2 = getBottomY() + dyb;
+		positionUpdateGroup.update(this);
 	}
 }
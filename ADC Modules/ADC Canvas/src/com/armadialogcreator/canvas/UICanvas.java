@@ -9,19 +9,28 @@ import javafx.collections.ObservableList;
 import javafx.event.EventHandler;
 import javafx.geometry.Point2D;
 import javafx.geometry.VPos;
+import javafx.scene.Scene;
+import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.ImagePattern;
+import javafx.scene.transform.Transform;
+import javafx.stage.Window;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  @author Kayler
@@ -56,15 +65,51 @@ public abstract class UICanvas<N extends UINode> extends AnchorPane {
 	protected final ObservableList<CanvasComponent> components = FXCollections.observableArrayList(new ArrayList<>());
 
 	private volatile boolean needPaint = false;
-	/** A synchronization lock for {@link #needPaint} to help prevent data races */
+	/**
+	 A synchronization lock for {@link #needPaint}, {@link #fullPaint}, {@link #dirtyRegion} and {@link #paintedBounds}
+	 to help prevent data races
+	 */
 	private final Object needPaintLock = new Object();
 	/** Set to true if {@link #requestPaint()} is not necessary and will always paint when {@link #timer} wants to */
 	protected boolean alwaysPaint = false;
+	/** True if the next paint should paint the whole canvas instead of only {@link #dirtyRegion} */
+	private boolean fullPaint = true;
+	/** Areas that changed since the last paint */
+	private DirtyRegion dirtyRegion = new DirtyRegion();
+	/** Areas being painted by a partial paint, or null if the whole canvas is being painted */
+	private DirtyRegion paintRegion = null;
+	/** The region that {@link #dirtyRegion} and {@link #paintRegion} swap with */
+	private DirtyRegion spareRegion = new DirtyRegion();
+	/**
+	 Bounds of each component (left, top, right, bottom) the last time it was painted. When a component moves, the
+	 area it was painted over needs to be painted again.
+	 */
+	private final Map<CanvasComponent, int[]> paintedBounds = new IdentityHashMap<>();
+	/** True if the last paint invoked {@link CanvasContext#paintLast(Function)} functions, which may paint anywhere */
+	private boolean paintedLast = false;
+
+	/** The background and the nodes not in the live layer, painted once while {@link #useLiveLayer()} is true */
+	private WritableImage staticLayer = null;
+	/** False if {@link #staticLayer} needs to be painted again */
+	private boolean staticLayerValid = false;
+	/** {@link #useLiveLayer()} at the last paint */
+	private boolean paintedLayered = false;
+	/** {@link #getOutputScaleX()} and {@link #getOutputScaleY()} at the last paint */
+	private double paintedScaleX = 1, paintedScaleY = 1;
+	/** The layer that is currently being painted */
+	private PaintLayer paintingLayer = PaintLayer.All;
+
+	/** Indexes the components of {@link #rootNode} and tells when they change */
+	final CanvasSpatialIndex spatialIndex = new CanvasSpatialIndex();
 
 	private final UpdateGroupListener renderUpdateGroupListener = (group, data) -> {
 		requestPaint();
 	};
 
+	private final UpdateGroupListener<CanvasComponent> componentChangeListener = (group, component) -> {
+		requestPaint(component);
+	};
+
 	public UICanvas(@NotNull Resolution resolution, @NotNull UINode rootNode) {
 		this.resolution = resolution;
 		resolution.getUpdateGroup().addListener(new UpdateGroupListener<Resolution>() {
@@ -91,9 +136,20 @@ public abstract class UICanvas<N extends UINode> extends AnchorPane {
 		components.addListener(new ListChangeListener<CanvasComponent>() {
 			@Override
 			public void onChanged(Change<? extends CanvasComponent> c) {
+				while (c.next()) {
+					for (CanvasComponent removed : c.getRemoved()) {
+						removed.getPositionUpdateGroup().removeListener(componentChangeListener);
+						removed.getRenderUpdateGroup().removeListener(componentChangeListener);
+					}
+					for (CanvasComponent added : c.getAddedSubList()) {
+						added.getPositionUpdateGroup().addListener(componentChangeListener);
+						added.getRenderUpdateGroup().addListener(componentChangeListener);
+					}
+				}
 				requestPaint();
 			}
 		});
+		spatialIndex.getChangeUpdateGroup().addListener(componentChangeListener);
 
 		//do this last
 		this.rootNode = rootNode;
@@ -128,8 +184,10 @@ public abstract class UICanvas<N extends UINode> extends AnchorPane {
 	private void setUINodeListeners(boolean add) {
 		if (add) {
 			this.rootNode.renderUpdateGroup().addListener(renderUpdateGroupListener);
+			spatialIndex.setRootNode(rootNode);
 		} else {
 			this.rootNode.renderUpdateGroup().removeListener(renderUpdateGroupListener);
+			spatialIndex.clear();
 		}
 	}
 
@@ -154,46 +212,282 @@ public abstract class UICanvas<N extends UINode> extends AnchorPane {
 	 <li>background</li>
 	 <li>{@link #getRootNode()}</li>
 	 <li>components inserted via {@link #addComponent(CanvasComponent)}</li>
+	 <li>{@link #paintForeground()}</li>
 	 </ol>
+	 If only {@link #requestPaint(CanvasComponent)} was used since the last paint, only the areas that changed are
+	 painted. The GraphicsContext is clipped to those areas and only the components that overlap them are painted
+	 (see {@link #isInPaintRegion(CanvasComponent)}).
+	 <p>
+	 While {@link #useLiveLayer()} is true, the background and the nodes that aren't in the live layer
+	 (see {@link #isInLiveLayer(CanvasComponent)}) are painted once and kept as an image. Each paint after draws that image
+	 instead of painting them again, then paints everything else.
 	 */
 	protected void paint() {
 		gc.setTextBaseline(VPos.TOP); //we actually need to run this with each call for some reason
+		if (!startPaint()) {
+			return;
+		}
+		if (paintedLayered && !staticLayerValid) {
+			paintStaticLayer();
+		}
+		paintingLayer = paintedLayered ? PaintLayer.Live : PaintLayer.All;
 		gc.save();
-		paintBackground();
+		if (paintRegion != null) {
+			paintRegion.clip(gc);
+		}
+		if (paintedLayered) {
+			gc.drawImage(staticLayer, 0, 0, canvas.getWidth(), canvas.getHeight());
+		} else {
+			paintBackground();
+		}
 		paintRootNode();
 		paintComponents();
+		if (paintRegion != null && !canvasContext.getPaintLast().isEmpty()) {
+			//paint last functions may paint outside of the dirty areas
+			gc.restore();
+			canvasContext.getPaintLast().clear();
+			endPaint();
+			synchronized (needPaintLock) {
+				fullPaint = true;
+			}
+			paint();
+			return;
+		}
+		paintedLast = !canvasContext.getPaintLast().isEmpty();
 		for (Function<GraphicsContext, Void> f : canvasContext.getPaintLast()) {
 			f.apply(gc);
 		}
 		canvasContext.getPaintLast().clear();
+		paintForeground();
 		gc.restore();
+		endPaint();
+	}
+
+	/** Paint the background and the nodes that aren't in the live layer and keep the result in {@link #staticLayer} */
+	private void paintStaticLayer() {
+		paintingLayer = PaintLayer.Static;
+		gc.save();
+		paintBackground();
+		paintRootNode();
+		gc.restore();
+		staticLayer = snapshot(canvas, staticLayer);
+		staticLayerValid = true;
+	}
+
+	/**
+	 Take a snapshot of the given canvas, scaled by the output scale of the window {@link #canvas} is in, so the image has as
+	 many pixels as the screen shows. Draw the image with the canvas's size as the width and height.
+
+	 @param reuse image of the last snapshot, or null. It is used again if it has the right size.
+	 @return the snapshot
+	 */
+	@NotNull
+	protected WritableImage snapshot(@NotNull Canvas of, @Nullable WritableImage reuse) {
+		double scaleX = getOutputScaleX();
+		double scaleY = getOutputScaleY();
+		if (reuse != null && (reuse.getWidth() != Math.ceil(of.getWidth() * scaleX) || reuse.getHeight() != Math.ceil(of.getHeight() * scaleY))) {
+			reuse = null;
+		}
+		SnapshotParameters parameters = new SnapshotParameters();
+		parameters.setTransform(Transform.scale(scaleX, scaleY));
+		return of.snapshot(parameters, reuse);
+	}
+
+	/** @return horizontal output scale of the window {@link #canvas} is in, or 1 if it isn't in a window */
+	protected double getOutputScaleX() {
+		Window window = getCanvasWindow();
+		return window == null ? 1 : window.getOutputScaleX();
+	}
+
+	/** @return vertical output scale of the window {@link #canvas} is in, or 1 if it isn't in a window */
+	protected double getOutputScaleY() {
+		Window window = getCanvasWindow();
+		return window == null ? 1 : window.getOutputScaleY();
+	}
+
+	@Nullable
+	private Window getCanvasWindow() {
+		Scene scene = canvas.getScene();
+		return scene == null ? null : scene.getWindow();
+	}
+
+	/**
+	 Decide if this paint is a full paint or a partial paint and set {@link #paintRegion}
+
+	 @return false if there is nothing to paint
+	 */
+	private boolean startPaint() {
+		synchronized (needPaintLock) {
+			boolean layered = useLiveLayer();
+			double scaleX = getOutputScaleX();
+			double scaleY = getOutputScaleY();
+			//images of the old scale would be blurry
+			boolean full = fullPaint || alwaysPaint || layered != paintedLayered || scaleX != paintedScaleX || scaleY != paintedScaleY;
+			paintedScaleX = scaleX;
+			paintedScaleY = scaleY;
+			if (full) {
+				staticLayerValid = false;
+			}
+			paintedLayered = layered;
+			full = full || paintedLast || needsFullPaint();
+			if (!full && dirtyRegion.isEmpty()) {
+				return false;
+			}
+			//painting more than half of the canvas with clipping isn't faster than painting all of it
+			if (full || dirtyRegion.getArea() * 2 >= (long) getCanvasWidth() * getCanvasHeight()) {
+				dirtyRegion.clear();
+				paintedBounds.clear();
+				paintRegion = null;
+			} else {
+				paintRegion = dirtyRegion;
+				dirtyRegion = spareRegion;
+				spareRegion = paintRegion;
+			}
+			fullPaint = false;
+			return true;
+		}
+	}
+
+	private void endPaint() {
+		if (paintRegion != null) {
+			paintRegion.clear();
+			paintRegion = null;
+		}
+		paintingLayer = PaintLayer.All;
 	}
 
 	/**
-	 Request a repaint.
+	 Return true if the next paint needs to paint the whole canvas because something will be painted that doesn't
+	 belong to a component. Default implementation returns false.
+	 */
+	protected boolean needsFullPaint() {
+		return false;
+	}
+
+	/**
+	 Return true if the nodes in the live layer (see {@link #isInLiveLayer(CanvasComponent)}) change often and the rest
+	 should be painted once and kept as an image. Default implementation returns false.
+	 */
+	protected boolean useLiveLayer() {
+		return false;
+	}
+
+	/**
+	 Return true if the component of a node in {@link #getRootNode()} is painted over the cached image of everything
+	 else while {@link #useLiveLayer()} is true. A live component is painted above every node that isn't live.
+	 Default implementation returns false.
+	 */
+	protected boolean isInLiveLayer(@NotNull CanvasComponent component) {
+		return false;
+	}
+
+	/** @return the layer that is being painted */
+	@NotNull
+	protected PaintLayer getPaintingLayer() {
+		return paintingLayer;
+	}
+
+	/**
+	 Request a repaint of the whole canvas.
 	 The paint operation won't happen until {@link #getTimer()} discovers the paint request.
 	 Therefore, multiple requests can be made and not have any performance impacts.
 	 <p>
 	 This method can be used across multiple threads.
+
+	 @see #requestPaint(CanvasComponent)
 	 */
 	public void requestPaint() {
 		synchronized (needPaintLock) {
 			needPaint = true;
+			fullPaint = true;
+		}
+	}
+
+	/**
+	 Request a repaint of the area where the component was last painted and the area where it is now.
+	 Invoked automatically for the components of {@link #getRootNode()} and the components added with
+	 {@link #addComponent(CanvasComponent)} when they move or when {@link CanvasComponent#getRenderUpdateGroup()}
+	 is updated.
+	 <p>
+	 This method can be used across multiple threads.
+
+	 @see #requestPaint()
+	 */
+	public void requestPaint(@NotNull CanvasComponent component) {
+		int overflow = getPaintOverflow(component);
+		synchronized (needPaintLock) {
+			needPaint = true;
+			if (fullPaint) {
+				return;
+			}
+			if (paintedLayered && !components.contains(component) && !isInLiveLayer(component)) {
+				//the component is in the cached image
+				fullPaint = true;
+				return;
+			}
+			int[] bounds = paintedBounds.get(component);
+			if (bounds != null) {
+				dirtyRegion.add(bounds[0], bounds[1], bounds[2], bounds[3]);
+			}
+			dirtyRegion.add(
+					component.getLeftX() - overflow, component.getTopY() - overflow,
+					component.getRightX() + overflow + 1, component.getBottomY() + overflow + 1
+			);
+		}
+	}
+
+	/**
+	 Get how many pixels the component may paint outside of its bounds on each side (for borders and effects).
+	 Default implementation returns the border thickness plus 1 for anti-aliasing.
+	 */
+	protected int getPaintOverflow(@NotNull CanvasComponent component) {
+		Border border = component.getBorder();
+		return (border != null ? border.getThickness() : 0) + 1;
+	}
+
+	/**
+	 @return true if the component overlaps an area being painted. Always true when the whole canvas is being painted.
+	 */
+	protected boolean isInPaintRegion(@NotNull CanvasComponent component) {
+		if (paintRegion == null) {
+			return true;
 		}
+		int overflow = getPaintOverflow(component);
+		return paintRegion.intersects(
+				component.getLeftX() - overflow, component.getTopY() - overflow,
+				component.getRightX() + overflow + 1, component.getBottomY() + overflow + 1
+		);
 	}
 
 	/**
 	 Paints all nodes in {@link #getRootNode()} and will iterate each child's child as well.
 	 Each component will get an individual render space (GraphicsContext attributes will not bleed through each component).
+	 Nodes whose component isn't in the area being painted (see {@link #isInPaintRegion(CanvasComponent)}) or isn't in
+	 the layer being painted (see {@link #getPaintingLayer()}) are skipped.
 	 */
 	protected void paintRootNode() {
-		paintNodes(rootNode);
+		forEachNodeToPaint(rootNode, this::isPainted, this::paintNode);
 	}
 
-	private void paintNodes(@NotNull UINode node) {
-		for (UINode child : node.deepIterateChildren()) {
-			paintNode(rootNode);
-			paintNodes(child);
+	/** @return true if the component is in the layer and the area being painted */
+	private boolean isPainted(@NotNull CanvasComponent component) {
+		if (paintingLayer != PaintLayer.All && isInLiveLayer(component) != (paintingLayer == PaintLayer.Live)) {
+			return false;
+		}
+		return isInPaintRegion(component);
+	}
+
+	/**
+	 Invoke paintNode once for each descendant of rootNode that has a component and whose component passes isPainted,
+	 in the order the nodes are rendered (depth first, parents before their children).
+	 */
+	static void forEachNodeToPaint(@NotNull UINode rootNode, @NotNull Predicate<CanvasComponent> isPainted,
+								   @NotNull Consumer<UINode> paintNode) {
+		for (UINode node : rootNode.deepIterateChildren()) {
+			CanvasComponent component = node.getComponent();
+			if (component != null && isPainted.test(component)) {
+				paintNode.accept(node);
+			}
 		}
 	}
 
@@ -205,10 +499,16 @@ public abstract class UICanvas<N extends UINode> extends AnchorPane {
 	protected void paintComponents() {
 		this.components.sort(CanvasComponent.RENDER_PRIORITY_COMPARATOR);
 		for (CanvasComponent component : components) {
-			paintComponent(component);
+			if (isInPaintRegion(component)) {
+				paintComponent(component);
+			}
 		}
 	}
 
+	/** Paint what is on top of everything else. Default implementation does nothing. */
+	protected void paintForeground() {
+	}
+
 	protected void paintBackground() {
 		gc.setFill(backgroundColor);
 		gc.fillRect(0, 0, this.canvas.getWidth(), this.canvas.getHeight());
@@ -233,6 +533,14 @@ public abstract class UICanvas<N extends UINode> extends AnchorPane {
 		gc.save();
 		component.paint(gc, canvasContext);
 		gc.restore();
+		int overflow = getPaintOverflow(component);
+		synchronized (needPaintLock) {
+			int[] bounds = paintedBounds.computeIfAbsent(component, c -> new int[4]);
+			bounds[0] = component.getLeftX() - overflow;
+			bounds[1] = component.getTopY() - overflow;
+			bounds[2] = component.getRightX() + overflow + 1;
+			bounds[3] = component.getBottomY() + overflow + 1;
+		}
 	}
 
 	/** Sets canvas background image and automatically repaints */
@@ -357,6 +665,16 @@ public abstract class UICanvas<N extends UINode> extends AnchorPane {
 		setUINodeListeners(false);
 	}
 
+	/** @see #getPaintingLayer() */
+	protected enum PaintLayer {
+		/** Everything is painted */
+		All,
+		/** The background and the nodes that aren't in the live layer are painted, to be kept as an image */
+		Static,
+		/** The nodes in the live layer and everything painted after the nodes are painted, over the kept image */
+		Live
+	}
+
 	/**
 	 Created by Kayler on 05/13/2016.
 	 */
@@ -383,9 +701,6 @@ public abstract class UICanvas<N extends UINode> extends AnchorPane {
 			if (event.getEventType() == MouseEvent.MOUSE_MOVED || event.getEventType() == MouseEvent.MOUSE_DRAGGED) {
 				canvas.mouseMoved(mousex, mousey);
 				canvas.setLastMousePosition(mousex, mousey);
-				if (mouseDown) {
-					this.canvas.requestPaint();
-				}
 			} else {
 				if (event.getEventType() == MouseEvent.MOUSE_PRESSED) {
 					mouseDown = true;
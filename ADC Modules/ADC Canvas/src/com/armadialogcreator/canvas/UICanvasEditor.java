@@ -8,17 +8,22 @@ import javafx.event.EventHandler;
 import javafx.geometry.Point2D;
 import javafx.geometry.VPos;
 import javafx.scene.Cursor;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.effect.DropShadow;
 import javafx.scene.effect.Effect;
+import javafx.scene.image.WritableImage;
 import javafx.scene.input.ContextMenuEvent;
 import javafx.scene.input.MouseButton;
 import javafx.scene.paint.Color;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  @author Kayler
@@ -74,6 +79,12 @@ public class UICanvasEditor extends UICanvas {
 
 	private final UpdateListenerGroup<UINode> doubleClickUpdateGroup = new UpdateListenerGroup<>();
 	private Effect selectionEffect;
+	/** True while selected nodes are being moved or scaled with the mouse */
+	private boolean dragging = false;
+	/** The background color, background image and grid. See {@link #getBackgroundLayer()} */
+	private WritableImage backgroundLayer;
+	/** Everything {@link #backgroundLayer} was painted with. When any of it changes, the layer is painted again. */
+	private List<Object> backgroundLayerKey;
 
 	public UICanvasEditor(@NotNull Resolution resolution, @NotNull UICanvasConfiguration configuration, @NotNull UINode rootNode) {
 		super(resolution, rootNode);
@@ -193,9 +204,42 @@ public class UICanvasEditor extends UICanvas {
 		selection.getSelected().removeIf(next -> next.getRootNode() != this.getRootNode());
 	}
 
-	/** Paint the canvas */
-	protected void paint() {
-		super.paint();
+	@Override
+	protected boolean needsFullPaint() {
+		if (selection.isSelecting()) {
+			return true;
+		}
+		//guide lines of selected nodes go across the canvas
+		return selection.numSelected() > 0
+				&& (keys.keyIsDown(keyMap.PREVENT_HORIZONTAL_MOVEMENT) || keys.keyIsDown(keyMap.PREVENT_VERTICAL_MOVEMENT));
+	}
+
+	@Override
+	protected boolean useLiveLayer() {
+		return dragging;
+	}
+
+	@Override
+	protected boolean isInLiveLayer(@NotNull CanvasComponent component) {
+		if (scaleNode != null && scaleNode.getComponent() == component) {
+			return true;
+		}
+		for (UINode node : selection.getSelected()) {
+			if (node.getComponent() == component) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected int getPaintOverflow(@NotNull CanvasComponent component) {
+		//selection 'shadow' offset and the radius of the selection effect
+		return super.getPaintOverflow(component) + 4 + 10;
+	}
+
+	@Override
+	protected void paintForeground() {
 		if (selection.isSelecting()) {
 			gc.save();
 			gc.setStroke(selectionColor);
@@ -210,10 +254,13 @@ public class UICanvasEditor extends UICanvas {
 
 	@Override
 	protected void paintRootNode() {
-		if (!absRegionComponent.alwaysRenderAtFront()) {
+		if (!absRegionComponent.alwaysRenderAtFront() && getPaintingLayer() != PaintLayer.Live) {
 			paintAbsRegionComponent();
 		}
 		super.paintRootNode();
+		if (getPaintingLayer() == PaintLayer.Static) {
+			return;
+		}
 		gc.save();
 		Iterator<UINode> iter = selection.getSelected().iterator();
 		while (iter.hasNext()) {
@@ -233,10 +280,43 @@ public class UICanvasEditor extends UICanvas {
 
 	@Override
 	protected void paintBackground() {
-		super.paintBackground();
+		gc.drawImage(getBackgroundLayer(), 0, 0, getCanvasWidth(), getCanvasHeight());
+	}
+
+	/**
+	 Get the background color, background image and grid as one image. The image is only painted again when the
+	 canvas size, the output scale (see {@link #getOutputScaleX()}), a color, the background image, the snap or the grid
+	 that is shown (see {@link #drawGrid(GraphicsContext)}) changed.
+	 */
+	@NotNull
+	private WritableImage getBackgroundLayer() {
+		int w = getCanvasWidth();
+		int h = getCanvasHeight();
+		double snap = calc.snapPercentage();
+		double alt = calc.alternateSnapPercentage();
+		List<Object> key = Arrays.asList(
+				w, h, backgroundColor, backgroundImage, getConfig().showGrid(), gridColor, keys.isShiftDown(),
+				getSnapPixelsWidthF(snap), getSnapPixelsHeightF(snap), getSnapPixelsWidthF(alt), getSnapPixelsHeightF(alt),
+				getConfig().viewportSnapEnabled(), resolution.getViewportX(), resolution.getViewportY(),
+				getOutputScaleX(), getOutputScaleY()
+		);
+		if (backgroundLayer != null && key.equals(backgroundLayerKey)) {
+			return backgroundLayer;
+		}
+		Canvas layerCanvas = new Canvas(w, h);
+		GraphicsContext g = layerCanvas.getGraphicsContext2D();
+		g.setFill(backgroundColor);
+		g.fillRect(0, 0, w, h);
+		if (backgroundImage != null) {
+			g.setFill(backgroundImage);
+			g.fillRect(0, 0, w, h);
+		}
 		if (getConfig().showGrid()) {
-			drawGrid();
+			drawGrid(g);
 		}
+		backgroundLayer = snapshot(layerCanvas, backgroundLayer);
+		backgroundLayerKey = key;
+		return backgroundLayer;
 	}
 
 	@Override
@@ -291,27 +371,27 @@ public class UICanvasEditor extends UICanvas {
 		}
 	}
 
-	private void drawGrid() {
+	private void drawGrid(@NotNull GraphicsContext gc) {
 		if (keys.isShiftDown()) {
 			double snap = calc.snapPercentage();
 			double alt = calc.alternateSnapPercentage();
 			//render such that the alternate is always more dominant
 			if (snap > alt) {
-				drawGrid(alt, true);
-				drawGrid(snap, false);
+				drawGrid(gc, alt, true);
+				drawGrid(gc, snap, false);
 			} else if (alt > snap) {
-				drawGrid(alt, false);
-				drawGrid(snap, true);
+				drawGrid(gc, alt, false);
+				drawGrid(gc, snap, true);
 			} else {
-				drawGrid(snap, false);
+				drawGrid(gc, snap, false);
 			}
 		} else {
-			drawGrid(calc.snapPercentage(), false);
+			drawGrid(gc, calc.snapPercentage(), false);
 		}
 
 	}
 
-	private void drawGrid(double snap, boolean light) {
+	private void drawGrid(@NotNull GraphicsContext gc, double snap, boolean light) {
 		double spacingX = getSnapPixelsWidthF(snap);
 		double spacingY = getSnapPixelsHeightF(snap);
 		if (spacingX <= 0 || spacingY <= 0) {
@@ -365,6 +445,7 @@ public class UICanvasEditor extends UICanvas {
 		lastMousePressTime = System.currentTimeMillis();
 		selection.setSelecting(false);
 		this.mouseButtonDown = mb;
+		dragging = false;
 
 		if (scaleNode != null && mb == MouseButton.PRIMARY) { //only select component that is being scaled to prevent multiple scaling
 			selection.removeAllAndAdd(scaleNode);
@@ -392,19 +473,12 @@ public class UICanvasEditor extends UICanvas {
 					}
 				}
 			}
-			for (UINode node : rootNode.deepIterateChildren()) {
-				if (node.getComponent() == null) {
-					continue;
-				}
-				if (!node.getComponent().isEnabled()) {
-					continue;
-				}
-				if (node.getComponent().containsPoint(mousex, mousey)) {
-					selection.removeAllAndAdd(node);
-					continue; //continue to make sure we right click on front most component
-				}
+			UINode node = spatialIndex.getTopmostEnabledAt(mousex, mousey);
+			if (node != null) {
+				selection.removeAllAndAdd(node);
+			} else {
+				selection.clearSelected();
 			}
-			selection.clearSelected();
 			return;
 		}
 		if (mouseOverNode != null) {
@@ -452,6 +526,7 @@ public class UICanvasEditor extends UICanvas {
 	 */
 	protected void mouseReleased(int mousex, int mousey, @NotNull MouseButton mb) {
 		this.mouseButtonDown = MouseButton.NONE;
+		dragging = false;
 		selection.setSelecting(false);
 		setContextMenu(null, mousex, mousey);
 		contextMenuControl = null;
@@ -479,6 +554,7 @@ public class UICanvasEditor extends UICanvas {
 		if (!basicMouseMovement(mousex, mousey)) {
 			return;//not dragging mouse
 		}
+		dragging = selection.numSelected() > 0 || scaleNode != null;
 		hasDoubleClickedCtrl = false; //force no double click so that when dragging after a double click, nothing happens
 		int dx = mousex - lastMousePosition.getX(); //change in x
 		int dy = mousey - lastMousePosition.getY(); //change in y
@@ -737,19 +813,7 @@ public class UICanvasEditor extends UICanvas {
 	private boolean basicMouseMovement(int mousex, int mousey) {
 
 		updateContextMenu();
-		mouseOverNode = null;
-
-		for (UINode node : rootNode.deepIterateChildren()) {
-			if (node.getComponent() == null) {
-				continue;
-			}
-			if (node.getComponent().isEnabled()) {
-				if (node.getComponent().containsPoint(mousex, mousey)) {
-					mouseOverNode = node;
-					break;
-				}
-			}
-		}
+		mouseOverNode = spatialIndex.getTopmostEnabledAt(mousex, mousey);
 
 		if (scaleNode == null) {
 			if (!selection.isSelecting() && mouseOverNode != null) {
@@ -770,16 +834,12 @@ public class UICanvasEditor extends UICanvas {
 		if (selection.isSelecting()) {
 			selection.selectTo(mousex, mousey);
 			selection.clearSelected();
-			for (UINode node : rootNode.deepIterateChildren()) {
-				if (node.getComponent() == null) {
-					continue;
-				}
-				if (node.getComponent().isEnabled()) {
-					if (selection.contains(node.getComponent())) {
-						selection.addToSelection(node);
-					}
+			for (UINode node : spatialIndex.getIntersecting(selection, true)) {
+				if (selection.contains(node.getComponent())) {
+					selection.addToSelection(node);
 				}
 			}
+			requestPaint(); //selection rectangle changed
 			return false;
 		}
 		return true;
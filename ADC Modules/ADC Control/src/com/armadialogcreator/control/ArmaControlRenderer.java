@@ -7,6 +7,8 @@ import com.armadialogcreator.core.ConfigPropertyKey;
 import com.armadialogcreator.core.ConfigPropertyLookup;
 import com.armadialogcreator.core.sv.*;
 import com.armadialogcreator.expression.Env;
+import com.armadialogcreator.expression.EnvDependencyGraph;
+import com.armadialogcreator.expression.ExpressionBatch;
 import com.armadialogcreator.util.*;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.input.MouseButton;
@@ -15,6 +17,10 @@ import javafx.scene.paint.Paint;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  Base class for JavaFX canvas rendering of arma controls
 
@@ -34,10 +40,22 @@ public class ArmaControlRenderer extends SimpleCanvasComponent implements Viewpo
 	protected final Env env;
 	private boolean disablePositionPropertyListener = false;
 	private boolean disableRecalc = false;
+	/**
+	 Registered with the env's {@link EnvDependencyGraph} (if there is one) for the identifiers the position expressions read.
+	 When they change, the position is recalculated and one render is requested.
+	 */
+	private final EnvDependencyGraph.Dependent positionDependent = new EnvDependencyGraph.Dependent() {
+		@Override
+		public void dependenciesChanged() {
+			updatePositionFromProperties();
+			updatePositionDependencies();
+			requestRender();
+		}
+	};
 	private final Runnable runnableRequestRender = new Runnable() {
 		@Override
 		public void run() {
-			myControl.getDisplay().renderUpdateGroup().update(UpdateListenerGroup.NoDataInstance);
+			getRenderUpdateGroup().update(ArmaControlRenderer.this);
 		}
 	};
 	/** Set by {@link #setMouseOver(int, int, boolean)} */
@@ -119,6 +137,7 @@ public class ArmaControlRenderer extends SimpleCanvasComponent implements Viewpo
 				} else {
 					throw new IllegalStateException("unmatched observer");
 				}
+				updatePositionDependencies();
 				requestRender();
 			}
 		};
@@ -154,6 +173,7 @@ public class ArmaControlRenderer extends SimpleCanvasComponent implements Viewpo
 		} else {
 			setHSilent((SVExpression) hProperty.getValue());
 		}
+		updatePositionDependencies();
 
 		initializing = false;
 	}
@@ -217,7 +237,11 @@ public class ArmaControlRenderer extends SimpleCanvasComponent implements Viewpo
 		if (x == null) {
 			return;
 		}
-		int newX1 = calcScreenX(x.toDouble());
+		setXSilent(x.toDouble());
+	}
+
+	private void setXSilent(double x) {
+		int newX1 = calcScreenX(x);
 		int oldX1 = x1;
 		int dx = newX1 - oldX1;
 		setX1Silent(newX1);
@@ -229,7 +253,11 @@ public class ArmaControlRenderer extends SimpleCanvasComponent implements Viewpo
 		if (y == null) {
 			return;
 		}
-		int newY1 = calcScreenY(y.toDouble());
+		setYSilent(y.toDouble());
+	}
+
+	private void setYSilent(double y) {
+		int newY1 = calcScreenY(y);
 		int oldY1 = y1;
 		int dy = newY1 - oldY1;
 		setY1Silent(newY1);
@@ -241,7 +269,11 @@ public class ArmaControlRenderer extends SimpleCanvasComponent implements Viewpo
 		if (width == null) {
 			return;
 		}
-		int w = calcScreenWidth(width.toDouble());
+		setWSilent(width.toDouble());
+	}
+
+	private void setWSilent(double width) {
+		int w = calcScreenWidth(width);
 		setX2Silent(getX1() + w);
 	}
 
@@ -250,7 +282,11 @@ public class ArmaControlRenderer extends SimpleCanvasComponent implements Viewpo
 		if (height == null) {
 			return;
 		}
-		int h = calcScreenHeight(height.toDouble());
+		setHSilent(height.toDouble());
+	}
+
+	private void setHSilent(double height) {
+		int h = calcScreenHeight(height);
 		setY2Silent(getY1() + h);
 	}
 
@@ -340,6 +376,7 @@ public class ArmaControlRenderer extends SimpleCanvasComponent implements Viewpo
 		wProperty.setValue(w);
 		hProperty.setValue(h);
 		this.disablePositionPropertyListener = false;
+		updatePositionDependencies();
 		requestRender();
 	}
 
@@ -453,6 +490,57 @@ public class ArmaControlRenderer extends SimpleCanvasComponent implements Viewpo
 	}
 
 	public void resolutionUpdate(@NotNull Resolution newResolution) {
+		updatePositionFromProperties();
+		resolutionUpdateGroup.update(newResolution);
+	}
+
+	/**
+	 @return true if the env has a {@link EnvDependencyGraph}, so the position is recalculated when an identifier the
+	 position expressions read changes (including {@link EnvDependencyGraph#NULAR_COMMANDS} when the resolution changes).
+	 The results of the other position expressions are reused.
+	 */
+	public boolean isPositionTracked() {
+		return env.getDependencyGraph() != null;
+	}
+
+	/**
+	 Add the x, y, w, and h expressions to the batch, in that order, so that {@link #resolutionUpdate(Resolution, ExpressionBatch.Result, int)}
+	 can use the results.
+
+	 @return the index of x in the batch, or -1 if not all of the position properties are expressions
+	 */
+	public int addPositionExpressions(@NotNull ExpressionBatch batch) {
+		if (!(xProperty.getValue() instanceof SVExpression && yProperty.getValue() instanceof SVExpression
+				&& wProperty.getValue() instanceof SVExpression && hProperty.getValue() instanceof SVExpression)) {
+			return -1;
+		}
+		int index = batch.add(((SVExpression) xProperty.getValue()).getCompiledExpression(), env);
+		batch.add(((SVExpression) yProperty.getValue()).getCompiledExpression(), env);
+		batch.add(((SVExpression) wProperty.getValue()).getCompiledExpression(), env);
+		batch.add(((SVExpression) hProperty.getValue()).getCompiledExpression(), env);
+		return index;
+	}
+
+	/**
+	 Same as {@link #resolutionUpdate(Resolution)}, but the position is set from results of a batch.
+	 If the index is -1 or any of the 4 results is an error, the properties are evaluated again one at a time.
+
+	 @param index value returned from {@link #addPositionExpressions(ExpressionBatch)}
+	 */
+	public void resolutionUpdate(@NotNull Resolution newResolution, @NotNull ExpressionBatch.Result positions, int index) {
+		if (index < 0 || !positions.isOk(index, 4)) {
+			resolutionUpdate(newResolution);
+			return;
+		}
+		setXSilent(positions.getValue(index));
+		setYSilent(positions.getValue(index + 1));
+		setWSilent(positions.getValue(index + 2));
+		setHSilent(positions.getValue(index + 3));
+		resolutionUpdateGroup.update(newResolution);
+	}
+
+	/** Set the renderer's position from the x, y, w, and h properties without updating the properties */
+	private void updatePositionFromProperties() {
 		if (xProperty.getValue() instanceof SVNumericValue) {
 			setXSilent((SVNumericValue) xProperty.getValue());
 		}
@@ -465,8 +553,21 @@ public class ArmaControlRenderer extends SimpleCanvasComponent implements Viewpo
 		if (hProperty.getValue() instanceof SVNumericValue) {
 			setHSilent((SVNumericValue) hProperty.getValue());
 		}
+	}
 
-		resolutionUpdateGroup.update(newResolution);
+	/** Register {@link #positionDependent} with the identifiers the position expressions read */
+	private void updatePositionDependencies() {
+		EnvDependencyGraph graph = env.getDependencyGraph();
+		if (graph == null) {
+			return;
+		}
+		List<String> identifiers = new ArrayList<>();
+		for (ConfigProperty property : new ConfigProperty[]{xProperty, yProperty, wProperty, hProperty}) {
+			if (property.getValue() instanceof SVExpression) {
+				Collections.addAll(identifiers, ((SVExpression) property.getValue()).getDependencies());
+			}
+		}
+		graph.setDependencies(positionDependent, identifiers);
 	}
 
 	@NotNull
@@ -1,6 +1,7 @@
 package com.armadialogcreator.control;
 
 import com.armadialogcreator.canvas.*;
+import com.armadialogcreator.expression.ExpressionBatch;
 import com.armadialogcreator.util.DataContext;
 import com.armadialogcreator.util.DoubleIterable;
 import com.armadialogcreator.util.Key;
@@ -8,6 +9,9 @@ import com.armadialogcreator.util.UpdateListenerGroup;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  Interface that specifies something that is displayable in preview and in Arma 3 (title, dialog, display)
 
@@ -83,17 +87,36 @@ public class ArmaDisplay implements UINode {
 		return bgControlNodes;
 	}
 
+	/**
+	 Update the position of every control (including controls inside groups). Controls whose position is tracked by the
+	 env's dependency graph (see {@link ArmaControlRenderer#isPositionTracked()}) reuse the results of their position
+	 expressions, except for the ones the graph recalculates, so they are updated directly. The position expressions of
+	 the other controls are evaluated in one {@link ExpressionBatch} before any of them is updated.
+	 */
 	public void resolutionUpdate(@NotNull Resolution newResolution) {
-		for (UINode node : bgControlNodes.deepIterateChildren()) {
-			if (node instanceof ArmaControl) {
-				((ArmaControl) node).resolutionUpdate(newResolution);
+		List<ArmaControl> controls = new ArrayList<>();
+		for (UINode node : new DoubleIterable<>(bgControlNodes.deepIterateChildren(), controlNodes.deepIterateChildren())) {
+			if (!(node instanceof ArmaControl)) {
+				continue;
 			}
-		}
-		for (UINode node : controlNodes.deepIterateChildren()) {
-			if (node instanceof ArmaControl) {
-				((ArmaControl) node).resolutionUpdate(newResolution);
+			ArmaControlRenderer renderer = ((ArmaControl) node).getRenderer();
+			if (renderer.isPositionTracked()) {
+				renderer.resolutionUpdate(newResolution);
+			} else {
+				controls.add((ArmaControl) node);
 			}
 		}
+
+		ExpressionBatch batch = new ExpressionBatch(0, controls.size() * 4);
+		int[] indexes = new int[controls.size()];
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = controls.get(i).getRenderer().addPositionExpressions(batch);
+		}
+		ExpressionBatch.Result positions = batch.evaluate();
+		for (int i = 0; i < indexes.length; i++) {
+			//the renderer is used directly since ArmaControlGroup would update its children again
+			controls.get(i).getRenderer().resolutionUpdate(newResolution, positions, indexes[i]);
+		}
 	}
 
 	@Override
@@ -2,7 +2,9 @@ package com.armadialogcreator.core.sv;
 
 import com.armadialogcreator.core.ConfigProperty;
 import com.armadialogcreator.core.PropertyType;
+import com.armadialogcreator.expression.CompiledExpression;
 import com.armadialogcreator.expression.Env;
+import com.armadialogcreator.expression.ExpressionBatch;
 import com.armadialogcreator.expression.ExpressionEvaluationException;
 import com.armadialogcreator.expression.ExpressionInterpreter;
 import com.armadialogcreator.expression.Value;
@@ -10,11 +12,11 @@ import com.armadialogcreator.lang.Lang;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ResourceBundle;
-import java.util.concurrent.TimeUnit;
 
 /**
  SVExpression value that is used for {@link ExpressionInterpreter} and is
  storable in {@link ConfigProperty}. Only {@link Value.NumVal} is allowed, thus {@link #getValue()} will only return {@link Value.NumVal}.
+ The expression is parsed once, when it is set, and evaluated on the calling thread with a {@link CompiledExpression}.
 
  @author Kayler
  @since 07/15/2016. */
@@ -22,7 +24,8 @@ public class SVExpression extends SerializableValue implements SVNumericValue {
 
 	private static final ResourceBundle bundle = Lang.getBundle("ExpressionBundle");
 
-	private static final ExpressionInterpreter SHARED_INTERPRETER = ExpressionInterpreter.newInstance();
+	/** Max number of steps an evaluation can take before it is given up */
+	private static final long MAX_EVALUATION_STEPS = 100_000;
 
 	public static final StringArrayConverter<SVExpression> CONVERTER = new StringArrayConverter<>() {
 
@@ -34,6 +37,7 @@ public class SVExpression extends SerializableValue implements SVNumericValue {
 
 	private final Env env;
 	private String exp;
+	private CompiledExpression compiled;
 
 	public SVExpression(@NotNull String exp, @NotNull Env env) throws ExpressionEvaluationException {
 		this.env = env;
@@ -41,6 +45,7 @@ public class SVExpression extends SerializableValue implements SVNumericValue {
 	}
 
 	public void setExpression(@NotNull String exp) throws ExpressionEvaluationException {
+		this.compiled = new CompiledExpression(exp, MAX_EVALUATION_STEPS);
 		this.exp = exp;
 		//check if valid
 		getValue();
@@ -53,12 +58,8 @@ public class SVExpression extends SerializableValue implements SVNumericValue {
 
 	@NotNull
 	public Value getValue() {
-		Value v = null; //do not cache because the environment may change;
-		try {
-			v = SHARED_INTERPRETER.evaluate(exp, env).get(4, TimeUnit.SECONDS);
-		} catch (InterruptedException ignore) {
-
-		}
+		//the result is only reused if the identifiers it read haven't changed in the env
+		Value v = compiled.evaluate(env);
 		if (v instanceof Value.NumVal) {
 			return v;
 		}
@@ -72,6 +73,26 @@ public class SVExpression extends SerializableValue implements SVNumericValue {
 		return env;
 	}
 
+	/** @return the expression with constant subtrees folded (see {@link CompiledExpression#getFoldedText()}) */
+	@NotNull
+	public String getFoldedExpression() {
+		return compiled.getFoldedText();
+	}
+
+	/** @return the compiled expression that {@link #getValue()} evaluates. Can be used with {@link ExpressionBatch}. */
+	@NotNull
+	public CompiledExpression getCompiledExpression() {
+		return compiled;
+	}
+
+	/**
+	 @return the identifiers the expression read the last time it was evaluated (see {@link CompiledExpression#getDependencies()})
+	 */
+	@NotNull
+	public String[] getDependencies() {
+		return compiled.getDependencies();
+	}
+
 	/** Returns {@link #getValue()} and casts it to {@link Value.NumVal} and returns {@link Value.NumVal#v()} */
 	public double getNumVal() {
 		Value.NumVal value = (Value.NumVal) getValue();
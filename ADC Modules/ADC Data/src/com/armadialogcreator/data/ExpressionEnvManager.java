@@ -3,17 +3,24 @@ package com.armadialogcreator.data;
 import com.armadialogcreator.application.ApplicationManager;
 import com.armadialogcreator.application.ApplicationStateSubscriber;
 import com.armadialogcreator.application.Project;
+import com.armadialogcreator.application.Workspace;
+import com.armadialogcreator.canvas.Resolution;
 import com.armadialogcreator.control.ArmaResolution;
 import com.armadialogcreator.core.Macro;
 import com.armadialogcreator.core.sv.SVNumericValue;
 import com.armadialogcreator.expression.Env;
+import com.armadialogcreator.expression.EnvDependencyGraph;
+import com.armadialogcreator.expression.ExpressionInterpreter;
 import com.armadialogcreator.expression.NularCommandValueProvider;
 import com.armadialogcreator.expression.SimpleEnv;
 import com.armadialogcreator.expression.Value;
 import com.armadialogcreator.util.ApplicationSingleton;
+import com.armadialogcreator.util.UpdateGroupListener;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  @author K
  @since 01/07/2019 */
@@ -26,16 +33,67 @@ public class ExpressionEnvManager implements ApplicationStateSubscriber {
 	}
 
 	private final MyEnv env = new MyEnv();
+	/** Notified when identifiers in {@link #env} or macros change */
+	private final EnvDependencyGraph dependencyGraph = new EnvDependencyGraph();
 	private CommandProvider commandProvider;
+	/** Resolution of {@link #commandProvider} */
+	private ArmaResolution resolution;
+	/** Version of {@link #commandProvider} that the dependency graph was last notified of */
+	private long nularCommandsVersion = Env.UNKNOWN_VERSION;
+	/** Notifies the dependency graph when the resolution changes the nular commands' values */
+	private final UpdateGroupListener<Resolution> resolutionListener = (group, newResolution) -> checkNularCommandsVersion();
+
+	private ExpressionEnvManager() {
+		env.setDependencyGraph(dependencyGraph);
+		MacroRegistry.instance.getMacroUpdateGroup().addListener((group, macroKey) -> env.macroChanged(macroKey));
+	}
 
 	@Override
 	public void projectClosed(@NotNull Project project) {
-		env.clearEnv();
+		dependencyGraph.batch(env::clearEnv);
+		env.macrosReplaced();
+		//the next project's macros expand to different text
+		ExpressionInterpreter.clearCache();
 	}
 
 	@Override
 	public void projectDataLoaded(@NotNull Project project) {
-		commandProvider = new CommandProvider(EditorManager.instance.getResolution());
+		setResolution(EditorManager.instance.getResolution());
+		env.macrosReplaced();
+	}
+
+	@Override
+	public void workspaceDataLoaded(@NotNull Workspace workspace) {
+		env.macrosReplaced();
+	}
+
+	@Override
+	public void workspaceClosed(@NotNull Workspace workspace) {
+		env.macrosReplaced();
+	}
+
+	/**
+	 Use the resolution for the nular commands (safeZoneX, getResolution, etc) of {@link #getEnv()}. When the resolution
+	 changes, only the dependents of {@link EnvDependencyGraph#NULAR_COMMANDS} in {@link #getDependencyGraph()} are notified.
+	 */
+	void setResolution(@NotNull ArmaResolution resolution) {
+		if (this.resolution != null) {
+			this.resolution.getUpdateGroup().removeListener(resolutionListener);
+		}
+		this.resolution = resolution;
+		commandProvider = new CommandProvider(resolution);
+		env.setUnaryCommandProvider(commandProvider);
+		resolution.getUpdateGroup().addListener(resolutionListener);
+		checkNularCommandsVersion();
+	}
+
+	/** Notify the dependency graph if the nular commands' values changed since it was last notified */
+	private void checkNularCommandsVersion() {
+		long version = commandProvider._getVersion();
+		if (version != nularCommandsVersion) {
+			nularCommandsVersion = version;
+			env.nularCommandsChanged();
+		}
 	}
 
 	@NotNull
@@ -48,10 +106,39 @@ public class ExpressionEnvManager implements ApplicationStateSubscriber {
 		return env;
 	}
 
+	/** @return the graph for {@link #getEnv()}, which is notified when identifiers in the env or macros change */
+	@NotNull
+	public EnvDependencyGraph getDependencyGraph() {
+		return dependencyGraph;
+	}
+
 	private final class MyEnv extends SimpleEnv {
+		/** Pseudo identifier whose version changes when whole sets of macros are replaced (a project or workspace loaded or closed) */
+		private static final String MACROS_REPLACED = "#macrosReplaced";
+
+		/** Change the version of the macro key and notify the dependency graph */
+		void macroChanged(@NotNull String macroKey) {
+			identifierChanged(macroKey);
+		}
+
+		/** Change the version of every macro key */
+		void macrosReplaced() {
+			identifierChanged(MACROS_REPLACED);
+		}
+
+		/**
+		 Notify the dependency graph that the nular commands' values changed.
+		 The version of {@link EnvDependencyGraph#NULAR_COMMANDS} comes from the command provider, so it isn't changed here.
+		 */
+		void nularCommandsChanged() {
+			identifierChanged(EnvDependencyGraph.NULAR_COMMANDS);
+		}
 
 		public void clearEnv() {
-			super.map.clear();
+			//remove() is used so that the versions change
+			for (String identifier : getMappedIdentifiers()) {
+				remove(identifier);
+			}
 		}
 
 		@Override
@@ -71,14 +158,54 @@ public class ExpressionEnvManager implements ApplicationStateSubscriber {
 
 			return null;
 		}
+
+		@Override
+		public long getVersion(@NotNull String identifier) {
+			if (super.getValue(identifier) != null || identifier.equalsIgnoreCase(EnvDependencyGraph.NULAR_COMMANDS)) {
+				return super.getVersion(identifier);
+			}
+			//a macro (or nothing). Versions only increase, so the max changes when either changes.
+			return Math.max(super.getVersion(identifier), super.getVersion(MACROS_REPLACED));
+		}
 	}
 
 	public static class CommandProvider implements NularCommandValueProvider {
+		/** Shared by all instances so that two providers never return the same version */
+		private static final AtomicLong nextVersion = new AtomicLong(1);
 
 		private ArmaResolution resolution;
+		private long version = nextVersion.getAndIncrement();
+		/** Resolution values at {@link #version} */
+		private int screenWidth, screenHeight, viewportWidth, viewportHeight;
+		private double uiScale;
 
 		public CommandProvider(@NotNull ArmaResolution resolution) {
 			this.resolution = resolution;
+			this.screenWidth = resolution.getScreenWidth();
+			this.screenHeight = resolution.getScreenHeight();
+			this.viewportWidth = resolution.getViewportWidth();
+			this.viewportHeight = resolution.getViewportHeight();
+			this.uiScale = resolution.getUIScaleValue();
+		}
+
+		/**
+		 The version changes when the screen size, viewport size or ui scale of the resolution changed (which is what every
+		 command's value is calculated from). It's checked when invoked instead of from the resolution's update group, so that
+		 it doesn't matter if the expressions are evaluated by listeners that were notified first.
+		 */
+		@Override
+		public synchronized long _getVersion() {
+			if (screenWidth != resolution.getScreenWidth() || screenHeight != resolution.getScreenHeight()
+					|| viewportWidth != resolution.getViewportWidth() || viewportHeight != resolution.getViewportHeight()
+					|| uiScale != resolution.getUIScaleValue()) {
+				screenWidth = resolution.getScreenWidth();
+				screenHeight = resolution.getScreenHeight();
+				viewportWidth = resolution.getViewportWidth();
+				viewportHeight = resolution.getViewportHeight();
+				uiScale = resolution.getUIScaleValue();
+				version = nextVersion.getAndIncrement();
+			}
+			return version;
 		}
 
 		@Override
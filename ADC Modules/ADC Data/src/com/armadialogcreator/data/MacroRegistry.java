@@ -2,12 +2,14 @@ package com.armadialogcreator.data;
 
 import com.armadialogcreator.application.*;
 import com.armadialogcreator.core.Macro;
+import com.armadialogcreator.core.sv.SerializableValue;
 import com.armadialogcreator.util.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,6 +19,9 @@ import java.util.Map;
 @ApplicationSingleton
 public class MacroRegistry implements Registry {
 
+	/** See {@link #getMacroUpdateGroup()}. Created before {@link #instance} so that macros can be watched right away. */
+	private static final UpdateListenerGroup<String> macroUpdateGroup = new UpdateListenerGroup<>();
+
 	public static final MacroRegistry instance = new MacroRegistry();
 	private static final Key<DataLevel> KEY_MACRO_DATA_LEVEL = new Key<>("MacroRegistry.dataLevel", null);
 
@@ -139,6 +144,15 @@ public class MacroRegistry implements Registry {
 		);
 	}
 
+	/**
+	 Get the update group that is notified with a macro's key whenever a macro is added, removed, or its value changes.
+	 When a macro's key changes, the group is notified with the old key and then the new key.
+	 */
+	@NotNull
+	public UpdateListenerGroup<String> getMacroUpdateGroup() {
+		return macroUpdateGroup;
+	}
+
 	public void removeMacro(@NotNull Macro macro) {
 		boolean remove = projectMacros.getMacros().remove(macro);
 		if (remove) {
@@ -175,6 +189,18 @@ public class MacroRegistry implements Registry {
 
 		protected final DataLevel myLevel;
 		private final ListObserver<Macro> macros = new ListObserver<>(new ArrayList<>());
+		/** Macros that {@link #keyListener} and {@link #valueListener} were added to, by their value observer */
+		private final Map<NotNullValueObserver<SerializableValue>, Macro> watched = new IdentityHashMap<>();
+		private final NotNullValueListener<String> keyListener = (observer, oldValue, newValue) -> {
+			macroUpdateGroup.update(oldValue);
+			macroUpdateGroup.update(newValue);
+		};
+		private final NotNullValueListener<SerializableValue> valueListener = (observer, oldValue, newValue) -> {
+			Macro m = watched.get(observer);
+			if (m != null) {
+				macroUpdateGroup.update(m.getKey());
+			}
+		};
 
 		protected Base(@NotNull DataLevel myLevel) {
 			this.myLevel = myLevel;
@@ -184,6 +210,7 @@ public class MacroRegistry implements Registry {
 						ListObserverChangeAdd<Macro> added = change.getAdded();
 						DataContext userData = added.getAdded().getUserData();
 						KEY_MACRO_DATA_LEVEL.put(userData, myLevel);
+						watch(added.getAdded());
 						break;
 					}
 					case Clear: {
@@ -191,12 +218,16 @@ public class MacroRegistry implements Registry {
 							DataContext userData = m.getUserData();
 							KEY_MACRO_DATA_LEVEL.put(userData, myLevel);
 						}
+						for (Macro m : new ArrayList<>(watched.values())) {
+							unwatch(m);
+						}
 						break;
 					}
 					case Remove: {
 						ListObserverChangeRemove<Macro> removed = change.getRemoved();
 						DataContext userData = removed.getRemoved().getUserData();
 						KEY_MACRO_DATA_LEVEL.put(userData, null);
+						unwatch(removed.getRemoved());
 						break;
 					}
 					case Set: {
@@ -205,6 +236,8 @@ public class MacroRegistry implements Registry {
 						KEY_MACRO_DATA_LEVEL.put(userData, null);
 						userData = set.getNew().getUserData();
 						KEY_MACRO_DATA_LEVEL.put(userData, myLevel);
+						unwatch(set.getOld());
+						watch(set.getNew());
 						break;
 					}
 					case Move: {
@@ -212,8 +245,10 @@ public class MacroRegistry implements Registry {
 						DataContext userData = moved.getMoved().getUserData();
 						if (moved.isSourceListChange()) {
 							KEY_MACRO_DATA_LEVEL.put(userData, null);
+							unwatch(moved.getMoved());
 						} else {
 							KEY_MACRO_DATA_LEVEL.put(userData, myLevel);
+							watch(moved.getMoved());
 						}
 						break;
 					}
@@ -224,6 +259,20 @@ public class MacroRegistry implements Registry {
 			});
 		}
 
+		private void watch(@NotNull Macro macro) {
+			watched.put(macro.getValueObserver(), macro);
+			macro.getKeyObserver().addListener(keyListener);
+			macro.getValueObserver().addListener(valueListener);
+			macroUpdateGroup.update(macro.getKey());
+		}
+
+		private void unwatch(@NotNull Macro macro) {
+			watched.remove(macro.getValueObserver());
+			macro.getKeyObserver().removeListener(keyListener);
+			macro.getValueObserver().removeListener(valueListener);
+			macroUpdateGroup.update(macro.getKey());
+		}
+
 		@Nullable
 		public Macro findMacroByName(@NotNull String className) {
 			for (Macro c : macros) {
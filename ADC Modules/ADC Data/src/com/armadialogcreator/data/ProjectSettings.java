@@ -9,12 +9,15 @@ public class ProjectSettings extends Settings {
 	public final ColorSetting AbsRegionColorSetting = new ColorSetting(255, 0, 0, 1);
 	public final ColorSetting EditorBackgroundSetting = new ColorSetting(255, 255, 255, 255);
 	public final ColorSetting EditorSelectionColorSetting = new ColorSetting(0, 147, 255, 255);
+	/** If true, expressions are exported with constant subtrees folded instead of how they were written */
+	public final BooleanSetting FoldExpressionsOnExportSetting = new BooleanSetting(false);
 
 	public ProjectSettings() {
 		settings.put("ShowCanvasGrid", ShowCanvasGridSetting);
 		settings.put("AbsRegionColor", AbsRegionColorSetting);
 		settings.put("EditorBackgroundColor", EditorBackgroundSetting);
 		settings.put("EditorSelectionColor", EditorSelectionColorSetting);
+		settings.put("FoldExpressionsOnExport", FoldExpressionsOnExportSetting);
 	}
 
 }
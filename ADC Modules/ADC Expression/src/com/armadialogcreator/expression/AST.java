@@ -5,6 +5,7 @@ import com.armadialogcreator.util.IndentedStringBuilder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -466,9 +467,11 @@ interface AST {
 
 		@Override
 		void toString(@NotNull IndentedStringBuilder sb) {
-			for (Expr e : exprs) {
-				e.toString(sb);
-				sb.append('^');
+			for (int i = 0; i < exprs.size(); i++) {
+				if (i > 0) {
+					sb.append(" ^ ");
+				}
+				exprs.get(i).toString(sb);
 			}
 		}
 	}
@@ -825,8 +828,9 @@ interface AST {
 		void toString(@NotNull IndentedStringBuilder sb) {
 			if (getLeft() != null) {
 				getLeft().toString(sb);
+				sb.append(" ");
 			}
-			sb.append(" count ");
+			sb.append("count ");
 			getRight().toString(sb);
 		}
 	}
@@ -926,6 +930,33 @@ interface AST {
 		}
 	}
 
+	/**
+	 A number computed by {@link ConstantFolder} from a constant subtree. Unlike {@link FloatExpr}, {@link #toString()} doesn't
+	 lose precision and negative numbers are put in parentheses, so the text can be parsed back into the same number.
+	 */
+	class FoldedExpr extends FloatExpr {
+
+		public FoldedExpr(double d) {
+			super(d);
+		}
+
+		@Override
+		void toString(@NotNull IndentedStringBuilder sb) {
+			double d = getValue();
+			String text = BigDecimal.valueOf(Math.abs(d)).stripTrailingZeros().toPlainString();
+			if (text.indexOf('.') < 0 && Math.abs(d) > Integer.MAX_VALUE) {
+				text += ".0"; //too big to be parsed as an integer
+			}
+			if (d < 0) {
+				sb.append("(-");
+				sb.append(text);
+				sb.append(")");
+			} else {
+				sb.append(text);
+			}
+		}
+	}
+
 	class StringExpr extends LiteralExpr {
 		private String s;
 
@@ -974,8 +1005,9 @@ interface AST {
 			for (Expr e : getItems()) {
 				e.toString(sb);
 				if (i != getItems().size() - 1) {
-					sb.append("', '");
+					sb.append(", ");
 				}
+				i++;
 			}
 			sb.append(']');
 		}
@@ -0,0 +1,77 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ A size bounded cache from source text to a parse (or compile) result. When the cache is full, the least recently used
+ entry is removed. Hits, misses and evictions are counted and can be read with {@link #getStats()}.
+ This class is thread-safe.
+
+ @author K
+ @since 10/18/2026 */
+class AstCache<T> {
+	private final String name;
+	private final int maxSize;
+	/** Access ordered, so the eldest entry is the least recently used. Guarded by itself. */
+	private final LinkedHashMap<String, T> map;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	AstCache(@NotNull String name, int maxSize) {
+		this.name = name;
+		this.maxSize = maxSize;
+		this.map = new LinkedHashMap<>(64, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+				if (size() > AstCache.this.maxSize) {
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/** @return the cached value for the text, or null if there isn't one */
+	@Nullable
+	T get(@NotNull String text) {
+		T v;
+		synchronized (map) {
+			v = map.get(text);
+		}
+		if (v == null) {
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return v;
+	}
+
+	void put(@NotNull String text, @NotNull T value) {
+		synchronized (map) {
+			map.put(text, value);
+		}
+	}
+
+	/** Remove all entries. The counts in {@link #getStats()} aren't reset. */
+	void clear() {
+		synchronized (map) {
+			map.clear();
+		}
+	}
+
+	@NotNull
+	ExpressionCacheStats getStats() {
+		int size;
+		synchronized (map) {
+			size = map.size();
+		}
+		return new ExpressionCacheStats(name, size, maxSize, hits.sum(), misses.sum(), evictions.sum());
+	}
+}
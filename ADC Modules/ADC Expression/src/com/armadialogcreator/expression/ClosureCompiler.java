@@ -0,0 +1,373 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ Compiles an {@link AST.Expr} or a list of {@link AST.Statement} into a tree of closures ({@link Program}), which is
+ {@link ExpressionInterpreter.Backend#Closure}. The program can be evaluated many times and by many threads.
+ <p>
+ Arithmetic subtrees (+, -, *, /, %, ^, unary +/-, min, max, abs) whose leaves are numbers, identifiers, or nular commands
+ are compiled to closures that work on primitive doubles, so only the result of the subtree is put in a {@link Value.NumVal}.
+ Each identifier gets a slot at compile time. The slot isn't bound to a value: every evaluation reads the identifier from
+ the {@link Env} the first time the slot is used, and again only after the env may have been changed (an assignment or a
+ loop). Results aren't kept between evaluations ({@link CompiledExpression} does that). If an identifier isn't a number,
+ the subtree is evaluated by the {@link ExpressionEvaluator} instead. Everything else (strings, arrays, code, loops, if, etc.) is evaluated by the
+ {@link ExpressionEvaluator}, so results and errors are always the same as {@link ExpressionInterpreter.Backend#TreeWalking}.
+
+ @author K
+ @since 10/18/2026 */
+class ClosureCompiler {
+	private final List<String> slotNames = new ArrayList<>();
+	/** False if anything was compiled that may change the env */
+	private boolean readOnly = true;
+
+	private ClosureCompiler() {
+	}
+
+	/** @return a program that evaluates the expression */
+	@NotNull
+	public static Program compile(@NotNull AST.Expr expr) {
+		ClosureCompiler compiler = new ClosureCompiler();
+		ValueNode root = compiler.compileExpr(expr);
+		return compiler.newProgram(root, null);
+	}
+
+	/** @return a program that evaluates the statements and returns the last statement's value */
+	@NotNull
+	public static Program compile(@NotNull List<AST.Statement> statements) {
+		ClosureCompiler compiler = new ClosureCompiler();
+		ValueNode[] nodes = new ValueNode[statements.size()];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = compiler.compileStatement(statements.get(i));
+		}
+		return compiler.newProgram(null, nodes);
+	}
+
+	@NotNull
+	private Program newProgram(@Nullable ValueNode expr, @Nullable ValueNode[] statements) {
+		return new Program(expr, statements, slotNames.toArray(new String[0]), readOnly);
+	}
+
+	@NotNull
+	private ValueNode compileStatement(@NotNull AST.Statement statement) {
+		AST.Assignment assignment = statement.getAssignment();
+		if (assignment != null) {
+			String var = assignment.getVar();
+			if (Arrays.binarySearch(ExpressionInterpreter.getSupportedCommands(), var) >= 0) {
+				//let the evaluator report the error
+				return fallback(statement);
+			}
+			ValueNode value = compileExpr(assignment.getExpr());
+			readOnly = false;
+			return f -> {
+				f.env.put(var, value.eval(f));
+				f.clearSlots();
+				return Value.Void;
+			};
+		}
+		if (statement.getExpr() != null) {
+			return compileExpr(statement.getExpr());
+		}
+		return fallback(statement);
+	}
+
+	@NotNull
+	private ValueNode compileExpr(@NotNull AST.Expr expr) {
+		if (expr instanceof AST.ParenExpr) {
+			return compileExpr(((AST.ParenExpr) expr).getExp());
+		}
+		if (expr instanceof AST.IntegerExpr) {
+			Value v = new Value.NumVal(((AST.IntegerExpr) expr).getValue());
+			return f -> v;
+		}
+		if (expr instanceof AST.FloatExpr) {
+			Value v = new Value.NumVal(((AST.FloatExpr) expr).getValue());
+			return f -> v;
+		}
+		if (expr instanceof AST.IdentifierExpr) {
+			String var = ((AST.IdentifierExpr) expr).getIdentifier();
+			if (var.equalsIgnoreCase("true")) {
+				return f -> Value.True;
+			}
+			if (var.equalsIgnoreCase("false")) {
+				return f -> Value.False;
+			}
+			int slot = slot(var);
+			return f -> {
+				Value v = f.getSlot(slot);
+				//let the evaluator report the error
+				return v != null ? v : f.fallback(expr);
+			};
+		}
+		if (isArithmetic(expr)) {
+			DoubleNode node = compileDouble(expr);
+			if (node != null) {
+				return f -> {
+					try {
+						return Value.NumVal.of(node.eval(f));
+					} catch (NotANumber e) {
+						//arithmetic subtrees don't change the env, so they can be evaluated again
+						return (Value) expr.accept(f.evaluator, f.env);
+					}
+				};
+			}
+		}
+		return fallback(expr);
+	}
+
+	/** @return the compiled subtree, or null if the subtree can't be evaluated with doubles */
+	@Nullable
+	private DoubleNode compileDouble(@NotNull AST.Expr expr) {
+		if (expr instanceof AST.ParenExpr) {
+			return compileDouble(((AST.ParenExpr) expr).getExp());
+		}
+		if (expr instanceof AST.IntegerExpr) {
+			double v = ((AST.IntegerExpr) expr).getValue();
+			return f -> v;
+		}
+		if (expr instanceof AST.FloatExpr) {
+			double v = ((AST.FloatExpr) expr).getValue();
+			return f -> v;
+		}
+		if (expr instanceof AST.IdentifierExpr) {
+			String var = ((AST.IdentifierExpr) expr).getIdentifier();
+			if (var.equalsIgnoreCase("true") || var.equalsIgnoreCase("false")) {
+				return null;
+			}
+			int slot = slot(var);
+			return f -> toDouble(f.getSlot(slot));
+		}
+		if (expr instanceof AST.UnaryCommand) {
+			//only reads the env or nular command provider
+			return f -> toDouble((Value) expr.accept(f.evaluator, f.env));
+		}
+		if (expr instanceof AST.UnaryExpr) {
+			AST.UnaryExpr unary = (AST.UnaryExpr) expr;
+			DoubleNode e = compileDouble(unary.getExpr());
+			if (e == null) {
+				return null;
+			}
+			if (unary.isAdd()) {
+				return e;
+			}
+			return f -> -e.eval(f);
+		}
+		if (expr instanceof AST.AbsExpr) {
+			DoubleNode e = compileDouble(((AST.AbsExpr) expr).getExpr());
+			return e == null ? null : f -> Math.abs(e.eval(f));
+		}
+		if (expr instanceof AST.ExponentExpr) {
+			List<AST.Expr> exprs = ((AST.ExponentExpr) expr).getExprs();
+			DoubleNode[] nodes = new DoubleNode[exprs.size()];
+			for (int i = 0; i < nodes.length; i++) {
+				nodes[i] = compileDouble(exprs.get(i));
+				if (nodes[i] == null) {
+					return null;
+				}
+			}
+			return f -> {
+				if (nodes.length == 0) {
+					return 0;
+				}
+				double result = nodes[0].eval(f);
+				for (int i = 1; i < nodes.length; i++) {
+					result = Math.pow(result, nodes[i].eval(f));
+				}
+				return result;
+			};
+		}
+		AST.Expr leftExpr, rightExpr;
+		if (expr instanceof AST.BinaryExpr) {
+			leftExpr = ((AST.BinaryExpr) expr).getLeft();
+			rightExpr = ((AST.BinaryExpr) expr).getRight();
+		} else if (expr instanceof AST.BinaryCommandExpr) {
+			leftExpr = ((AST.BinaryCommandExpr) expr).getLeft();
+			rightExpr = ((AST.BinaryCommandExpr) expr).getRight();
+		} else {
+			return null;
+		}
+		if (!isArithmetic(expr)) {
+			return null;
+		}
+		DoubleNode l = compileDouble(leftExpr);
+		DoubleNode r = l == null ? null : compileDouble(rightExpr);
+		if (r == null) {
+			return null;
+		}
+		if (expr instanceof AST.AddExpr) {
+			return f -> l.eval(f) + r.eval(f);
+		}
+		if (expr instanceof AST.SubExpr) {
+			return f -> l.eval(f) - r.eval(f);
+		}
+		if (expr instanceof AST.MultExpr) {
+			return f -> l.eval(f) * r.eval(f);
+		}
+		if (expr instanceof AST.DivExpr) {
+			return f -> l.eval(f) / r.eval(f);
+		}
+		if (expr instanceof AST.ModExpr) {
+			return f -> l.eval(f) % r.eval(f);
+		}
+		if (expr instanceof AST.MaxExpr) {
+			return f -> Math.max(l.eval(f), r.eval(f));
+		}
+		return f -> Math.min(l.eval(f), r.eval(f));
+	}
+
+	private static boolean isArithmetic(@NotNull AST.Expr expr) {
+		return expr instanceof AST.AddExpr || expr instanceof AST.SubExpr || expr instanceof AST.MultExpr
+				|| expr instanceof AST.DivExpr || expr instanceof AST.ModExpr || expr instanceof AST.ExponentExpr
+				|| expr instanceof AST.UnaryExpr || expr instanceof AST.AbsExpr
+				|| expr instanceof AST.MaxExpr || expr instanceof AST.MinExpr;
+	}
+
+	private static double toDouble(@Nullable Value v) {
+		if (v instanceof Value.NumVal) {
+			return ((Value.NumVal) v).v();
+		}
+		throw NotANumber.INSTANCE;
+	}
+
+	/** @return the slot for the identifier. Each identifier has one slot, no matter how many times it is used. */
+	private int slot(@NotNull String identifier) {
+		int slot = slotNames.indexOf(identifier);
+		if (slot >= 0) {
+			return slot;
+		}
+		slotNames.add(identifier);
+		return slotNames.size() - 1;
+	}
+
+	@NotNull
+	private ValueNode fallback(@NotNull AST.ASTNode node) {
+		//the evaluator may change the env (loops, count, select with code, etc)
+		readOnly = false;
+		return f -> f.fallback(node);
+	}
+
+	/** A compiled expression or list of statements */
+	static class Program {
+		private final ValueNode expr;
+		private final ValueNode[] statements;
+		private final String[] slotNames;
+		private final boolean readOnly;
+
+		private Program(@Nullable ValueNode expr, @Nullable ValueNode[] statements, @NotNull String[] slotNames, boolean readOnly) {
+			this.expr = expr;
+			this.statements = statements;
+			this.slotNames = slotNames;
+			this.readOnly = readOnly;
+		}
+
+		/**
+		 Evaluate the program. The same as {@link ExpressionEvaluator#evaluate(AST.Expr, Env)} or
+		 {@link ExpressionEvaluator#evaluate(List, Env)}.
+
+		 @param evaluator used for everything that wasn't compiled, as well as termination and step limits
+		 @throws ExpressionEvaluationException if the program couldn't be evaluated
+		 */
+		@NotNull
+		public Value evaluate(@NotNull ExpressionEvaluator evaluator, @NotNull Env env) {
+			Frame frame = new Frame(evaluator, env, slotNames);
+			try {
+				if (expr != null) {
+					return expr.eval(frame);
+				}
+				Value last = Value.Void;
+				evaluator.checkIfTerminated();
+				for (ValueNode statement : statements) {
+					evaluator.checkIfTerminated();
+					last = statement.eval(frame);
+				}
+				return last;
+			} catch (Exception ex) {
+				if (ex instanceof ExpressionEvaluationException) {
+					if (ex instanceof EndEvaluationException) {
+						return ((EndEvaluationException) ex).getReturnValue();
+					}
+					throw ex;
+				}
+				throw new ExpressionEvaluationException(null, ex.getMessage(), ex);
+			}
+		}
+
+		/**
+		 @return true if evaluating the program only reads the env, so it can be evaluated by many threads at once with the
+		 same env (if the env allows concurrent reads)
+		 */
+		boolean isReadOnly() {
+			return readOnly;
+		}
+
+		/** @return the identifiers that have slots */
+		@NotNull
+		String[] getSlotNames() {
+			return slotNames;
+		}
+	}
+
+	/** State for one evaluation of a {@link Program} */
+	private static class Frame {
+		private final ExpressionEvaluator evaluator;
+		private final Env env;
+		private final String[] slotNames;
+		/** Values read from the env. null means not read yet. */
+		private final Value[] slots;
+
+		Frame(@NotNull ExpressionEvaluator evaluator, @NotNull Env env, @NotNull String[] slotNames) {
+			this.evaluator = evaluator;
+			this.env = env;
+			this.slotNames = slotNames;
+			this.slots = new Value[slotNames.length];
+		}
+
+		/** @return the value of the identifier in the slot, or null if it isn't set in the env */
+		@Nullable
+		Value getSlot(int slot) {
+			Value v = slots[slot];
+			if (v == null) {
+				v = env.getValue(slotNames[slot]);
+				slots[slot] = v;
+			}
+			return v;
+		}
+
+		/** Forget all values read from the env since the env may have changed */
+		void clearSlots() {
+			Arrays.fill(slots, null);
+		}
+
+		/** Evaluate the node with {@link #evaluator}. The node may change the env, so the slots are cleared. */
+		@NotNull
+		Value fallback(@NotNull AST.ASTNode node) {
+			Value v = (Value) node.accept(evaluator, env);
+			clearSlots();
+			return v;
+		}
+	}
+
+	private interface ValueNode {
+		@NotNull Value eval(@NotNull Frame f);
+	}
+
+	private interface DoubleNode {
+		double eval(@NotNull Frame f);
+	}
+
+	/** Thrown when a value in an arithmetic subtree isn't a number */
+	private static class NotANumber extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		static final NotANumber INSTANCE = new NotANumber();
+
+		private NotANumber() {
+			super(null, null, false, false);
+		}
+	}
+}
@@ -0,0 +1,260 @@
+package com.armadialogcreator.expression;
+
+import com.armadialogcreator.util.KeyValue;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ An expression that is parsed and compiled once (see {@link ExpressionInterpreter.Backend#Closure}) and then evaluated
+ on the calling thread as many times as needed.
+ Like {@link ExpressionInterpreter#evaluate(String, Env)}, the text can't contain assignments or multiple expressions.
+ <p>
+ The result of the last evaluation is reused when the same {@link Env} instance is used and the
+ {@link Env#getVersion(String)} of each identifier the expression read hasn't changed. If the expression used the env's
+ {@link NularCommandValueProvider}, the version of {@link EnvDependencyGraph#NULAR_COMMANDS} is checked too.
+ Results aren't reused if the expression read an identifier with an unknown version or changed the env
+ (for example, in a for loop).
+ <p>
+ {@link #getDependencies()} can be used with an {@link EnvDependencyGraph} to find out when the result may change.
+ <p>
+ This class is thread-safe as long as the {@link Env} is.
+
+ @author K
+ @since 10/18/2026 */
+public class CompiledExpression {
+	private final String text;
+	private final ClosureCompiler.Program program;
+	private final long maxSteps;
+	private volatile Result lastResult;
+	private volatile String[] dependencies = new String[0];
+	private volatile String foldedText;
+
+	/**
+	 @param text expression text
+	 @param maxSteps max number of steps each evaluation can take (see {@link ExpressionEvaluator#ExpressionEvaluator(long)}),
+	 or a value &lt;= 0 for no limit
+	 @throws ExpressionEvaluationException if the text is empty or couldn't be parsed
+	 */
+	public CompiledExpression(@NotNull String text, long maxSteps) {
+		this.text = text;
+		this.program = ExpressionInterpreter.compileExpression(text);
+		this.maxSteps = maxSteps;
+	}
+
+	/** @return the expression text */
+	@NotNull
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 Evaluate the expression in the given env, or return the previous result if nothing it read has changed.
+
+	 @return the resulted {@link Value} instance
+	 @throws TerminateEvaluationException if the step limit was reached
+	 @throws ExpressionEvaluationException if the expression couldn't be evaluated
+	 */
+	@NotNull
+	public Value evaluate(@NotNull Env env) {
+		ExpressionProfiler profiler = ExpressionProfiler.instance;
+		Result result = this.lastResult;
+		if (result != null && result.isValid(env)) {
+			if (profiler.isEnabled()) {
+				profiler.reused(text);
+			}
+			return result.value;
+		}
+		RecordingEnv recordingEnv = new RecordingEnv(env);
+		ExpressionEvaluator evaluator = new ExpressionEvaluator(maxSteps);
+		Value v;
+		if (profiler.isEnabled()) {
+			v = profiler.profile(text, evaluator, () -> program.evaluate(evaluator, recordingEnv));
+		} else {
+			v = program.evaluate(evaluator, recordingEnv);
+		}
+		this.lastResult = recordingEnv.newResult(v);
+		this.dependencies = recordingEnv.getDependencies();
+		return v;
+	}
+
+	/**
+	 @return identifiers read by the last evaluation that wasn't reused (or an empty array if not evaluated yet).
+	 If the env's {@link NularCommandValueProvider} was used, {@link EnvDependencyGraph#NULAR_COMMANDS} is included.
+	 */
+	@NotNull
+	public String[] getDependencies() {
+		return dependencies.clone();
+	}
+
+	/**
+	 @return the expression text with constant subtrees folded (see {@link ConstantFolder}). For example,
+	 <code>safeZoneX + (1 * 2) / 40</code> is <code>safeZoneX + 0.05</code>. It evaluates to the same values as {@link #getText()}.
+	 */
+	@NotNull
+	public String getFoldedText() {
+		String foldedText = this.foldedText;
+		if (foldedText == null) {
+			foldedText = ExpressionInterpreter.parseExpression(text).toString();
+			this.foldedText = foldedText;
+		}
+		return foldedText;
+	}
+
+	/**
+	 Create a residual expression that only depends on the <code>varying</code> identifiers (and nular commands). Every other
+	 identifier whose value in the frozen env is a number is replaced by that number, and then constant subtrees are folded.
+
+	 @param frozen env with the values of identifiers that don't vary
+	 @param varying identifiers (case doesn't matter) that shouldn't be replaced
+	 @return the residual expression, which has the same max steps as this one
+	 */
+	@NotNull
+	public CompiledExpression partiallyEvaluate(@NotNull Env frozen, @NotNull Collection<String> varying) {
+		AST.Expr residual = ConstantFolder.partiallyEvaluate(ExpressionInterpreter.parseExpression(text), frozen, varying);
+		return new CompiledExpression(residual.toString(), maxSteps);
+	}
+
+	/** @return true if evaluating the expression can't change the env (see {@link ClosureCompiler.Program#isReadOnly()}) */
+	boolean isReadOnly() {
+		return program.isReadOnly();
+	}
+
+	/** Forget the previous result so that the next {@link #evaluate(Env)} evaluates the expression */
+	public void invalidate() {
+		lastResult = null;
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+
+	private static class Result {
+		private final Env env;
+		private final String[] identifiers;
+		private final long[] versions;
+		private final Value value;
+
+		public Result(@NotNull Env env, @NotNull String[] identifiers, @NotNull long[] versions, @NotNull Value value) {
+			this.env = env;
+			this.identifiers = identifiers;
+			this.versions = versions;
+			this.value = value;
+		}
+
+		public boolean isValid(@NotNull Env env) {
+			if (this.env != env) {
+				return false;
+			}
+			for (int i = 0; i < identifiers.length; i++) {
+				if (env.getVersion(identifiers[i]) != versions[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/** Records the identifiers that are read from an {@link Env} */
+	private static class RecordingEnv implements Env {
+		private final Env env;
+		/** Identifiers read, including {@link EnvDependencyGraph#NULAR_COMMANDS} if the provider was used */
+		private final List<String> identifiers = new ArrayList<>();
+		/** true if the evaluation did something that can't be tracked with versions */
+		private boolean untracked = false;
+
+		public RecordingEnv(@NotNull Env env) {
+			this.env = env;
+		}
+
+		/** @return the result to reuse, or null if it can't be reused */
+		@Nullable
+		public Result newResult(@NotNull Value value) {
+			if (untracked) {
+				return null;
+			}
+			String[] identifiers = new String[this.identifiers.size()];
+			long[] versions = new long[identifiers.length];
+			for (int i = 0; i < identifiers.length; i++) {
+				identifiers[i] = this.identifiers.get(i);
+				versions[i] = env.getVersion(identifiers[i]);
+				if (versions[i] == UNKNOWN_VERSION) {
+					return null;
+				}
+			}
+			return new Result(env, identifiers, versions, value);
+		}
+
+		@NotNull
+		public String[] getDependencies() {
+			return identifiers.toArray(new String[0]);
+		}
+
+		@Override
+		@Nullable
+		public Value getValue(@NotNull String identifier) {
+			record(identifier);
+			return env.getValue(identifier);
+		}
+
+		private void record(@NotNull String identifier) {
+			if (!identifiers.contains(identifier)) {
+				identifiers.add(identifier);
+			}
+		}
+
+		@Override
+		@Nullable
+		public Value put(@NotNull String identifier, @Nullable Value v) {
+			untracked = true;
+			return env.put(identifier, v);
+		}
+
+		@Override
+		@Nullable
+		public Value remove(@NotNull String identifier) {
+			untracked = true;
+			return env.remove(identifier);
+		}
+
+		@Override
+		@Nullable
+		public NularCommandValueProvider getUnaryCommandValueProvider() {
+			NularCommandValueProvider provider = env.getUnaryCommandValueProvider();
+			if (provider != null) {
+				record(EnvDependencyGraph.NULAR_COMMANDS);
+			}
+			return provider;
+		}
+
+		@Override
+		@NotNull
+		public String[] getMappedIdentifiers() {
+			untracked = true;
+			return env.getMappedIdentifiers();
+		}
+
+		@Override
+		public long getVersion(@NotNull String identifier) {
+			return env.getVersion(identifier);
+		}
+
+		@Override
+		@Nullable
+		public EnvDependencyGraph getDependencyGraph() {
+			return env.getDependencyGraph();
+		}
+
+		@Override
+		@NotNull
+		public Iterator<KeyValue<String, Value>> iterator() {
+			untracked = true;
+			return env.iterator();
+		}
+	}
+}
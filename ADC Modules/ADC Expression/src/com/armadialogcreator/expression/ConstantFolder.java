@@ -0,0 +1,340 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ Replaces constant arithmetic subtrees of an AST with {@link AST.FoldedExpr}s. A subtree is constant if it only has number
+ literals and +, -, *, /, %, ^, unary +/-, parentheses, min, max, and abs. For example, <code>safeZoneX + (1 * 2) / 40</code>
+ becomes <code>safeZoneX + 0.05</code>. Constant subtrees are computed with {@link ExpressionEvaluator}, so the results are exactly
+ the same. Subtrees that compute to infinity or NaN aren't folded.
+ <p>
+ {@link #partiallyEvaluate(AST.Expr, Env, Collection)} also replaces identifiers that don't vary with their numbers from a
+ frozen env, so the residual expression only depends on the identifiers that vary (and nular commands).
+ Identifiers inside code blocks are never replaced since the code may assign them (for example, <code>_x</code>).
+ <p>
+ ASTs are never mutated. Unchanged subtrees are shared with the original AST.
+
+ @author K
+ @since 10/18/2026 */
+class ConstantFolder {
+	private static final Env EMPTY_ENV = new SimpleEnv();
+
+	/** The frozen env, or null if only literals are folded */
+	private final Env frozen;
+	/** Lower case identifiers that vary */
+	private final Set<String> varying;
+
+	private ConstantFolder(@Nullable Env frozen, @NotNull Set<String> varying) {
+		this.frozen = frozen;
+		this.varying = varying;
+	}
+
+	/** @return the expression with constant subtrees folded, or the same instance if nothing could be folded */
+	@NotNull
+	public static AST.Expr fold(@NotNull AST.Expr expr) {
+		return new ConstantFolder(null, new HashSet<>()).foldExpr(expr, true);
+	}
+
+	/** @return the statements with constant subtrees folded, or the same instance if nothing could be folded */
+	@NotNull
+	public static List<AST.Statement> fold(@NotNull List<AST.Statement> statements) {
+		ConstantFolder folder = new ConstantFolder(null, new HashSet<>());
+		List<AST.Statement> folded = folder.foldStatements(statements);
+		return folded == null ? statements : folded;
+	}
+
+	/**
+	 Fold the expression and replace each identifier that isn't in <code>varying</code> with its number in the frozen env.
+	 Identifiers the env doesn't have, or whose values aren't numbers, are left as is.
+
+	 @param frozen env with the values of the identifiers that don't vary. It is only read during this method.
+	 @param varying identifiers (case doesn't matter) that vary and shouldn't be replaced
+	 @return the residual expression
+	 */
+	@NotNull
+	public static AST.Expr partiallyEvaluate(@NotNull AST.Expr expr, @NotNull Env frozen, @NotNull Collection<String> varying) {
+		Set<String> set = new HashSet<>();
+		for (String identifier : varying) {
+			set.add(identifier.toLowerCase());
+		}
+		return new ConstantFolder(frozen, set).foldExpr(expr, true);
+	}
+
+	/**
+	 @param substitute true if identifiers can be replaced with values from {@link #frozen}
+	 @return the folded expression, or the same instance if nothing changed
+	 */
+	@NotNull
+	private AST.Expr foldExpr(@NotNull AST.Expr expr, boolean substitute) {
+		if (isConstant(expr, substitute)) {
+			if (expr instanceof AST.IntegerExpr || expr instanceof AST.FloatExpr) {
+				return expr; //already a literal
+			}
+			Value v = evaluateConstant(expr);
+			if (v instanceof Value.NumVal && Double.isFinite(((Value.NumVal) v).v())) {
+				return new AST.FoldedExpr(((Value.NumVal) v).v());
+			}
+		}
+		return foldChildren(expr, substitute);
+	}
+
+	/** @return a copy of the expression with folded children, or the same instance if no child changed */
+	@NotNull
+	private AST.Expr foldChildren(@NotNull AST.Expr expr, boolean substitute) {
+		if (expr instanceof AST.ParenExpr) {
+			AST.Expr e = ((AST.ParenExpr) expr).getExp();
+			AST.Expr f = foldExpr(e, substitute);
+			return f == e ? expr : new AST.ParenExpr(f);
+		}
+		if (expr instanceof AST.UnaryExpr) {
+			AST.UnaryExpr unary = (AST.UnaryExpr) expr;
+			AST.Expr f = foldExpr(unary.getExpr(), substitute);
+			return f == unary.getExpr() ? expr : new AST.UnaryExpr(unary.isAdd(), f);
+		}
+		if (expr instanceof AST.AbsExpr) {
+			AST.Expr e = ((AST.AbsExpr) expr).getExpr();
+			AST.Expr f = foldExpr(e, substitute);
+			return f == e ? expr : new AST.AbsExpr(f);
+		}
+		if (expr instanceof AST.NotExpr) {
+			AST.Expr e = ((AST.NotExpr) expr).getExpr();
+			AST.Expr f = foldExpr(e, substitute);
+			return f == e ? expr : new AST.NotExpr(f);
+		}
+		if (expr instanceof AST.StrExpr) {
+			AST.Expr e = ((AST.StrExpr) expr).getExpr();
+			AST.Expr f = foldExpr(e, substitute);
+			return f == e ? expr : new AST.StrExpr(f);
+		}
+		if (expr instanceof AST.FormatExpr) {
+			AST.Expr e = ((AST.FormatExpr) expr).getExpr();
+			AST.Expr f = foldExpr(e, substitute);
+			return f == e ? expr : new AST.FormatExpr(f);
+		}
+		if (expr instanceof AST.ExponentExpr) {
+			List<AST.Expr> exprs = ((AST.ExponentExpr) expr).getExprs();
+			List<AST.Expr> folded = foldAll(exprs, substitute);
+			if (folded == null) {
+				return expr;
+			}
+			AST.ExponentExpr e = new AST.ExponentExpr(folded.get(0));
+			e.getExprs().addAll(folded.subList(1, folded.size()));
+			return e;
+		}
+		if (expr instanceof AST.BinaryExpr) {
+			AST.BinaryExpr binary = (AST.BinaryExpr) expr;
+			AST.Expr l = foldExpr(binary.getLeft(), substitute);
+			AST.Expr r = foldExpr(binary.getRight(), substitute);
+			if (l == binary.getLeft() && r == binary.getRight()) {
+				return expr;
+			}
+			if (expr instanceof AST.AddExpr) {
+				return new AST.AddExpr(l, r);
+			}
+			if (expr instanceof AST.SubExpr) {
+				return new AST.SubExpr(l, r);
+			}
+			if (expr instanceof AST.MultExpr) {
+				return new AST.MultExpr(l, r);
+			}
+			if (expr instanceof AST.DivExpr) {
+				return new AST.DivExpr(l, r);
+			}
+			if (expr instanceof AST.ModExpr) {
+				return new AST.ModExpr(l, r);
+			}
+			if (expr instanceof AST.CompExpr) {
+				return new AST.CompExpr(l, r, ((AST.CompExpr) expr).operatorForToString());
+			}
+			if (expr instanceof AST.BinLogicalExpr) {
+				return new AST.BinLogicalExpr(((AST.BinLogicalExpr) expr).getType(), l, r);
+			}
+			return expr;
+		}
+		if (expr instanceof AST.BinaryCommandExpr) {
+			AST.BinaryCommandExpr binary = (AST.BinaryCommandExpr) expr;
+			AST.Expr l = foldExpr(binary.getLeft(), substitute);
+			AST.Expr r = foldExpr(binary.getRight(), substitute);
+			if (l == binary.getLeft() && r == binary.getRight()) {
+				return expr;
+			}
+			if (expr instanceof AST.MaxExpr) {
+				return new AST.MaxExpr(l, r);
+			}
+			if (expr instanceof AST.MinExpr) {
+				return new AST.MinExpr(l, r);
+			}
+			if (expr instanceof AST.SelectExpr) {
+				return new AST.SelectExpr(l, r);
+			}
+			return expr;
+		}
+		if (expr instanceof AST.CountExpr) {
+			AST.CountExpr count = (AST.CountExpr) expr;
+			AST.Expr l = count.getLeft() == null ? null : foldExpr(count.getLeft(), substitute);
+			AST.Expr r = foldExpr(count.getRight(), substitute);
+			return l == count.getLeft() && r == count.getRight() ? expr : new AST.CountExpr(l, r);
+		}
+		if (expr instanceof AST.Array) {
+			List<AST.Expr> folded = foldAll(((AST.Array) expr).getItems(), substitute);
+			return folded == null ? expr : new AST.Array(folded);
+		}
+		if (expr instanceof AST.CodeExpr) {
+			List<AST.Statement> folded = foldStatements(((AST.CodeExpr) expr).getCode().getStatements());
+			return folded == null ? expr : new AST.CodeExpr(new AST.Code(folded));
+		}
+		if (expr instanceof AST.IfExpr) {
+			AST.IfExpr ifExpr = (AST.IfExpr) expr;
+			AST.Expr condition = foldExpr(ifExpr.getCondition(), substitute);
+			if (ifExpr.getArr() != null) {
+				AST.Expr arr = foldExpr(ifExpr.getArr(), substitute);
+				if (condition == ifExpr.getCondition() && arr == ifExpr.getArr()) {
+					return expr;
+				}
+				return new AST.IfExpr(condition, (AST.Array) arr);
+			}
+			AST.Expr trueCond = foldExpr(ifExpr.getTrueCond(), substitute);
+			AST.Expr falseCond = ifExpr.getFalseCond() == null ? null : foldExpr(ifExpr.getFalseCond(), substitute);
+			if (condition == ifExpr.getCondition() && trueCond == ifExpr.getTrueCond() && falseCond == ifExpr.getFalseCond()) {
+				return expr;
+			}
+			return new AST.IfExpr(condition, trueCond, falseCond, ifExpr.getType());
+		}
+		if (expr instanceof AST.ForVarExpr) {
+			AST.ForVarExpr forVar = (AST.ForVarExpr) expr;
+			AST.Expr from = foldExpr(forVar.getFromExpr(), substitute);
+			AST.Expr to = foldExpr(forVar.getToExpr(), substitute);
+			AST.Expr step = forVar.getStepExpr() == null ? null : foldExpr(forVar.getStepExpr(), substitute);
+			AST.Expr doCode = foldExpr(forVar.getDoCode(), substitute);
+			if (from == forVar.getFromExpr() && to == forVar.getToExpr() && step == forVar.getStepExpr() && doCode == forVar.getDoCode()) {
+				return expr;
+			}
+			return new AST.ForVarExpr(forVar.getVarExpr(), from, to, step, doCode);
+		}
+		if (expr instanceof AST.ForArrExpr) {
+			AST.ForArrExpr forArr = (AST.ForArrExpr) expr;
+			AST.Expr array = foldExpr(forArr.getArray(), substitute);
+			AST.Expr doCode = foldExpr(forArr.getDoCode(), substitute);
+			if (array == forArr.getArray() && doCode == forArr.getDoCode()) {
+				return expr;
+			}
+			return new AST.ForArrExpr(array, doCode);
+		}
+		if (substitute && expr instanceof AST.IdentifierExpr) {
+			Value.NumVal v = frozenNumber((AST.IdentifierExpr) expr);
+			return v == null ? expr : new AST.FoldedExpr(v.v());
+		}
+		//literals and nular commands
+		return expr;
+	}
+
+	/** @return the folded statements, or null if none of them changed */
+	@Nullable
+	private List<AST.Statement> foldStatements(@NotNull List<AST.Statement> statements) {
+		List<AST.Statement> folded = null;
+		for (int i = 0; i < statements.size(); i++) {
+			AST.Statement statement = statements.get(i);
+			AST.Statement f = statement;
+			//identifiers may be assigned by the statements, so they are never substituted
+			if (statement.getAssignment() != null) {
+				AST.Assignment assignment = statement.getAssignment();
+				AST.Expr e = foldExpr(assignment.getExpr(), false);
+				if (e != assignment.getExpr()) {
+					f = new AST.Statement(new AST.Assignment(assignment.getVar(), e));
+				}
+			} else if (statement.getExpr() != null) {
+				AST.Expr e = foldExpr(statement.getExpr(), false);
+				if (e != statement.getExpr()) {
+					f = new AST.Statement(e);
+				}
+			}
+			if (f != statement && folded == null) {
+				folded = new ArrayList<>(statements.subList(0, i));
+			}
+			if (folded != null) {
+				folded.add(f);
+			}
+		}
+		return folded;
+	}
+
+	/** @return the folded expressions, or null if none of them changed */
+	@Nullable
+	private List<AST.Expr> foldAll(@NotNull List<AST.Expr> exprs, boolean substitute) {
+		List<AST.Expr> folded = null;
+		for (int i = 0; i < exprs.size(); i++) {
+			AST.Expr e = exprs.get(i);
+			AST.Expr f = foldExpr(e, substitute);
+			if (f != e && folded == null) {
+				folded = new ArrayList<>(exprs.subList(0, i));
+			}
+			if (folded != null) {
+				folded.add(f);
+			}
+		}
+		return folded;
+	}
+
+	/** @return true if the subtree only has numbers and arithmetic */
+	private boolean isConstant(@NotNull AST.Expr expr, boolean substitute) {
+		if (expr instanceof AST.IntegerExpr || expr instanceof AST.FloatExpr) {
+			return true;
+		}
+		if (expr instanceof AST.IdentifierExpr) {
+			return substitute && frozenNumber((AST.IdentifierExpr) expr) != null;
+		}
+		if (expr instanceof AST.ParenExpr) {
+			return isConstant(((AST.ParenExpr) expr).getExp(), substitute);
+		}
+		if (expr instanceof AST.UnaryExpr) {
+			return isConstant(((AST.UnaryExpr) expr).getExpr(), substitute);
+		}
+		if (expr instanceof AST.AbsExpr) {
+			return isConstant(((AST.AbsExpr) expr).getExpr(), substitute);
+		}
+		if (expr instanceof AST.ExponentExpr) {
+			for (AST.Expr e : ((AST.ExponentExpr) expr).getExprs()) {
+				if (!isConstant(e, substitute)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		if (expr instanceof AST.AddExpr || expr instanceof AST.SubExpr || expr instanceof AST.MultExpr
+				|| expr instanceof AST.DivExpr || expr instanceof AST.ModExpr) {
+			AST.BinaryExpr binary = (AST.BinaryExpr) expr;
+			return isConstant(binary.getLeft(), substitute) && isConstant(binary.getRight(), substitute);
+		}
+		if (expr instanceof AST.MaxExpr || expr instanceof AST.MinExpr) {
+			AST.BinaryCommandExpr binary = (AST.BinaryCommandExpr) expr;
+			return isConstant(binary.getLeft(), substitute) && isConstant(binary.getRight(), substitute);
+		}
+		return false;
+	}
+
+	/** @return the identifier's number from {@link #frozen}, or null if it varies or isn't a number */
+	@Nullable
+	private Value.NumVal frozenNumber(@NotNull AST.IdentifierExpr expr) {
+		if (frozen == null || varying.contains(expr.getIdentifier().toLowerCase())) {
+			return null;
+		}
+		Value v = frozen.getValue(expr.getIdentifier());
+		return v instanceof Value.NumVal ? (Value.NumVal) v : null;
+	}
+
+	@Nullable
+	private Value evaluateConstant(@NotNull AST.Expr expr) {
+		try {
+			return new ExpressionEvaluator().evaluate(expr, frozen == null ? EMPTY_ENV : frozen);
+		} catch (ExpressionEvaluationException e) {
+			return null;
+		}
+	}
+}
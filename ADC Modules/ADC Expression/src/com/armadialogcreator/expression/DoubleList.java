@@ -0,0 +1,266 @@
+package com.armadialogcreator.expression;
+
+import com.armadialogcreator.util.ArmaPrecision;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ The list for {@link Value.DoubleArray}. Numbers are stored in a <code>double[]</code> until a value that isn't a
+ {@link Value.NumVal} is added. After that, every item is stored in an {@link ArrayList} as a {@link Value}.
+ <p>
+ The {@link Value.NumVal} that {@link #get(int)} returns for an index is kept until the list is structurally modified,
+ so iterating the same array many times (count, select, for each) only creates each {@link Value.NumVal} once.
+ <p>
+ A list created with {@link #view(int, int)} uses the numbers of the other list without copying them. Whichever list is
+ changed first copies the numbers it has.
+
+ @author K
+ @since 10/18/2026 */
+class DoubleList extends AbstractList<Value> implements RandomAccess {
+	/** The numbers, or null if the items were moved to {@link #values} */
+	private double[] numbers;
+	/** Index in {@link #numbers} of the first item */
+	private int offset;
+	/** Number of items in {@link #numbers} */
+	private int size;
+	/** true if {@link #numbers} is also used by another list, so it has to be copied before it is changed */
+	private boolean sharedNumbers;
+	/** The items after a value that isn't a number was added, or null if every item is in {@link #numbers} */
+	private ArrayList<Value> values;
+	/** {@link Value.NumVal} instances returned by {@link #get(int)}, or null if none were created since the last modification */
+	private Value[] boxes;
+
+	DoubleList(@NotNull double[] numbers, int size) {
+		this(numbers, 0, size);
+	}
+
+	private DoubleList(@NotNull double[] numbers, int offset, int size) {
+		Objects.checkFromIndexSize(offset, size, numbers.length);
+		this.numbers = numbers;
+		this.offset = offset;
+		this.size = size;
+	}
+
+	/** @return true if the items are still stored in a <code>double[]</code> */
+	boolean isNumeric() {
+		return values == null;
+	}
+
+	/**
+	 @return number at the given index
+	 @throws ClassCastException if the item isn't a {@link Value.NumVal}
+	 */
+	double getDouble(int i) {
+		if (values != null) {
+			return ((Value.NumVal) values.get(i)).v();
+		}
+		return numbers[offset + Objects.checkIndex(i, size)];
+	}
+
+	@Override
+	public Value get(int i) {
+		if (values != null) {
+			return values.get(i);
+		}
+		Objects.checkIndex(i, size);
+		Value[] b = boxes;
+		if (b == null) {
+			b = new Value[size];
+			boxes = b;
+		}
+		Value v = b[i];
+		if (v == null) {
+			v = Value.NumVal.of(numbers[offset + i]);
+			b[i] = v;
+		}
+		return v;
+	}
+
+	@Override
+	public int size() {
+		return values != null ? values.size() : size;
+	}
+
+	@Override
+	public Value set(int i, Value v) {
+		if (values == null && v instanceof Value.NumVal) {
+			Value old = get(i);
+			ensureCapacity(size);
+			numbers[i] = ((Value.NumVal) v).v();
+			boxes[i] = v;
+			return old;
+		}
+		return toValues().set(i, v);
+	}
+
+	@Override
+	public void add(int i, Value v) {
+		modCount++;
+		boxes = null;
+		if (values == null && v instanceof Value.NumVal) {
+			if (i < 0 || i > size) {
+				throw new IndexOutOfBoundsException("index:" + i + ", size:" + size);
+			}
+			ensureCapacity(size + 1);
+			System.arraycopy(numbers, i, numbers, i + 1, size - i);
+			numbers[i] = ((Value.NumVal) v).v();
+			size++;
+			return;
+		}
+		toValues().add(i, v);
+	}
+
+	@Override
+	public Value remove(int i) {
+		modCount++;
+		if (values != null) {
+			return values.remove(i);
+		}
+		Value old = get(i);
+		boxes = null;
+		ensureCapacity(size);
+		System.arraycopy(numbers, i + 1, numbers, i, size - i - 1);
+		size--;
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		modCount++;
+		boxes = null;
+		if (values != null) {
+			values.clear();
+		} else {
+			size = 0;
+		}
+	}
+
+	@Override
+	public boolean addAll(@NotNull Collection<? extends Value> c) {
+		if (values == null && c instanceof DoubleList && ((DoubleList) c).isNumeric()) {
+			DoubleList other = (DoubleList) c;
+			int otherSize = other.size;
+			ensureCapacity(size + otherSize);
+			System.arraycopy(other.numbers, other.offset, numbers, size, otherSize);
+			size += otherSize;
+			modCount++;
+			boxes = null;
+			return otherSize != 0;
+		}
+		return super.addAll(c);
+	}
+
+	@Override
+	public boolean removeAll(@NotNull Collection<?> c) {
+		if (values == null && c instanceof DoubleList && ((DoubleList) c).isNumeric()) {
+			DoubleList other = (DoubleList) c;
+			ensureCapacity(size);
+			int newSize = 0;
+			for (int i = 0; i < size; i++) {
+				if (!other.containsNumber(numbers[i])) {
+					numbers[newSize++] = numbers[i];
+				}
+			}
+			if (newSize == size) {
+				return false;
+			}
+			size = newSize;
+			modCount++;
+			boxes = null;
+			return true;
+		}
+		return super.removeAll(c);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (values == null && o instanceof DoubleList && ((DoubleList) o).isNumeric()) {
+			DoubleList other = (DoubleList) o;
+			if (other.size != size) {
+				return false;
+			}
+			for (int i = 0; i < size; i++) {
+				if (!ArmaPrecision.isEqualTo(numbers[offset + i], other.numbers[other.offset + i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return super.equals(o);
+	}
+
+	/** @return a list with the same items that shares nothing with this list */
+	@NotNull
+	DoubleList copy() {
+		if (values == null) {
+			return new DoubleList(Arrays.copyOfRange(numbers, offset, offset + size), size);
+		}
+		DoubleList copy = new DoubleList(new double[0], 0);
+		copy.numbers = null;
+		copy.values = new ArrayList<>(values);
+		return copy;
+	}
+
+	/**
+	 Only invoke when {@link #isNumeric()} is true
+
+	 @param from first index (inclusive)
+	 @param to last index (exclusive)
+	 @return a list of the numbers in the given range that uses the same <code>double[]</code>
+	 */
+	@NotNull
+	DoubleList view(int from, int to) {
+		Objects.checkFromToIndex(from, to, size);
+		DoubleList view = new DoubleList(numbers, offset + from, to - from);
+		view.sharedNumbers = true;
+		sharedNumbers = true;
+		return view;
+	}
+
+	/** Only invoke when {@link #isNumeric()} is true */
+	private boolean containsNumber(double d) {
+		for (int i = offset; i < offset + size; i++) {
+			if (ArmaPrecision.isEqualTo(numbers[i], d)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Make sure {@link #numbers} has room for the given number of items and can be changed. The first item is then at index 0. */
+	private void ensureCapacity(int capacity) {
+		if (sharedNumbers) {
+			numbers = Arrays.copyOfRange(numbers, offset, offset + Math.max(capacity, size));
+			offset = 0;
+			sharedNumbers = false;
+		} else if (numbers.length < capacity) {
+			numbers = Arrays.copyOf(numbers, Math.max(capacity, numbers.length + (numbers.length >> 1) + 1));
+		}
+	}
+
+	/** Move the numbers into {@link #values}, if they weren't already moved, and return {@link #values} */
+	@NotNull
+	private ArrayList<Value> toValues() {
+		if (values == null) {
+			ArrayList<Value> items = new ArrayList<>(Math.max(10, size + 1));
+			for (int i = 0; i < size; i++) {
+				items.add(get(i));
+			}
+			values = items;
+			numbers = null;
+			offset = 0;
+			sharedNumbers = false;
+			boxes = null;
+		}
+		return values;
+	}
+}
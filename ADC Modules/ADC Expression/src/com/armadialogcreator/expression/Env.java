@@ -14,6 +14,9 @@ import org.jetbrains.annotations.Nullable;
 public interface Env extends Iterable<KeyValue<String, Value>>, SimpleMap<String, Value> {
 	Key<Env> ENV = new Key<>("expression.env", null);
 
+	/** Returned by {@link #getVersion(String)} when changes to an identifier aren't tracked */
+	long UNKNOWN_VERSION = -1;
+
 	/** @return the value for the given identifier. If returns null, means identifier couldn't be resolved to a value. */
 	@Nullable
 	Value getValue(@NotNull String identifier);
@@ -43,5 +46,24 @@ public interface Env extends Iterable<KeyValue<String, Value>>, SimpleMap<String
 	/** @return all current mapped identifiers (identifiers that have non null values) */
 	@NotNull String[] getMappedIdentifiers();
 
+	/**
+	 Get a number that changes whenever the value for the identifier may have changed (including being mapped or unmapped).
+	 {@link CompiledExpression} uses this to reuse its result when none of the identifiers it read have changed.
+	 By default, returns {@link #UNKNOWN_VERSION}, which means results that read the identifier can't be reused.
+
+	 @return the version, or {@link #UNKNOWN_VERSION} if unknown
+	 */
+	default long getVersion(@NotNull String identifier) {
+		return UNKNOWN_VERSION;
+	}
+
+	/**
+	 @return the graph that is notified when identifiers in this env change, or null if changes aren't tracked.
+	 By default, returns null.
+	 */
+	@Nullable
+	default EnvDependencyGraph getDependencyGraph() {
+		return null;
+	}
 
 }
@@ -0,0 +1,160 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ Tracks which {@link Dependent}s (for example, a control's position properties) depend on which {@link Env} identifiers.
+ When identifiers change, only the dependents of those identifiers are notified.
+ <p>
+ Changes made inside {@link #batch(Runnable)} are collected and each dirty dependent is notified once, after the outermost batch
+ finishes. Changes made outside of a batch notify the dependents immediately. Identifiers aren't case sensitive.
+ <p>
+ Dependents are weakly referenced, so they don't need to be removed when they are no longer used.
+ This class isn't thread-safe.
+
+ @author K
+ @since 10/18/2026 */
+public class EnvDependencyGraph {
+	/** Identifier used for depending on the values of an {@link Env}'s {@link NularCommandValueProvider} */
+	public static final String NULAR_COMMANDS = "#nularCommands";
+
+	/** Identifier (lower case) to the dependents that depend on it */
+	private final Map<String, Set<Dependent>> dependentsMap = new HashMap<>();
+	/** Dependent to its identifiers (lower case) */
+	private final Map<Dependent, String[]> dependencies = new WeakHashMap<>();
+	private final Set<Dependent> dirty = Collections.newSetFromMap(new WeakHashMap<>());
+	private int batchDepth = 0;
+	private boolean flushing = false;
+
+	/**
+	 Set the identifiers the dependent depends on. The previous identifiers are replaced.
+
+	 @param dependent the dependent
+	 @param identifiers identifiers the dependent depends on. May have duplicates.
+	 */
+	public void setDependencies(@NotNull Dependent dependent, @NotNull Collection<String> identifiers) {
+		removeDependencies(dependent);
+		if (identifiers.isEmpty()) {
+			return;
+		}
+		Set<String> keys = new LinkedHashSet<>();
+		for (String identifier : identifiers) {
+			keys.add(identifier.toLowerCase());
+		}
+		for (String key : keys) {
+			dependentsMap.computeIfAbsent(key, k -> Collections.newSetFromMap(new WeakHashMap<>())).add(dependent);
+		}
+		dependencies.put(dependent, keys.toArray(new String[0]));
+	}
+
+	/** Remove the dependent from the graph. It won't be notified of changes. */
+	public void remove(@NotNull Dependent dependent) {
+		removeDependencies(dependent);
+		dirty.remove(dependent);
+	}
+
+	/** @return the identifiers (lower case) the dependent depends on */
+	@NotNull
+	public List<String> getDependencies(@NotNull Dependent dependent) {
+		String[] keys = dependencies.get(dependent);
+		return keys == null ? Collections.emptyList() : Arrays.asList(keys);
+	}
+
+	/** @return number of dependents that depend on the identifier */
+	public int getDependentCount(@NotNull String identifier) {
+		Set<Dependent> set = dependentsMap.get(identifier.toLowerCase());
+		return set == null ? 0 : set.size();
+	}
+
+	/** Mark the dependents of the identifier dirty. If not inside a {@link #batch(Runnable)}, they are notified immediately. */
+	public void identifierChanged(@NotNull String identifier) {
+		Set<Dependent> set = dependentsMap.get(identifier.toLowerCase());
+		if (set != null) {
+			dirty.addAll(set);
+		}
+		if (batchDepth == 0) {
+			flush();
+		}
+	}
+
+	/**
+	 Run the changes and then notify each dirty dependent once. Batches can be nested. Only the outermost batch notifies
+	 the dependents.
+	 */
+	public void batch(@NotNull Runnable changes) {
+		batchDepth++;
+		try {
+			changes.run();
+		} finally {
+			batchDepth--;
+		}
+		if (batchDepth == 0) {
+			flush();
+		}
+	}
+
+	/** @return true if the dependent is waiting to be notified */
+	public boolean isDirty(@NotNull Dependent dependent) {
+		return dirty.contains(dependent);
+	}
+
+	/**
+	 Notify all dirty dependents. Dependents that are marked dirty while being notified (for example, by changing the env)
+	 are notified after, once each round.
+	 */
+	public void flush() {
+		if (flushing) {
+			return; //the current flush will notify it
+		}
+		flushing = true;
+		try {
+			while (!dirty.isEmpty()) {
+				List<Dependent> notify = new ArrayList<>(dirty);
+				dirty.clear();
+				for (Dependent dependent : notify) {
+					dependent.dependenciesChanged();
+				}
+			}
+		} finally {
+			flushing = false;
+		}
+	}
+
+	private void removeDependencies(@NotNull Dependent dependent) {
+		String[] keys = dependencies.remove(dependent);
+		if (keys == null) {
+			return;
+		}
+		for (String key : keys) {
+			Set<Dependent> set = dependentsMap.get(key);
+			if (set == null) {
+				continue;
+			}
+			set.remove(dependent);
+			if (set.isEmpty()) {
+				dependentsMap.remove(key);
+			}
+		}
+	}
+
+	/**
+	 Something that depends on identifiers in an {@link Env}
+
+	 @author K
+	 @since 10/18/2026 */
+	public interface Dependent {
+		/** Invoked once per batch when at least one of the identifiers this depends on changed */
+		void dependenciesChanged();
+	}
+}
@@ -0,0 +1,261 @@
+package com.armadialogcreator.expression;
+
+import com.armadialogcreator.lang.Lang;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.ResourceBundle;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ Evaluates many (expression, {@link Env}) pairs at once and returns the numbers as a primitive <code>double[]</code>.
+ Each entry is evaluated with {@link CompiledExpression#evaluate(Env)}, so results that haven't changed are reused.
+ Errors (including results that aren't numbers) are reported per index in {@link Result} instead of being thrown.
+ <p>
+ Batches with fewer than {@link #PARALLEL_THRESHOLD} entries are evaluated on the calling thread.
+ Larger batches are split across the common {@link ForkJoinPool}, but only if every expression only reads its env
+ (no assignments, loops, count, etc). When split, each {@link Env} must allow concurrent reads.
+ <p>
+ This class isn't thread-safe, but the returned {@link Result} can be shared.
+
+ @author K
+ @since 10/18/2026 */
+public class ExpressionBatch {
+	/** Batches with fewer entries than this are always evaluated on the calling thread */
+	public static final int PARALLEL_THRESHOLD = 256;
+	/** Fewest entries a forked task will evaluate */
+	private static final int MIN_CHUNK_SIZE = 64;
+
+	private static final ResourceBundle bundle = Lang.getBundle("ExpressionBundle");
+
+	private final long maxSteps;
+	private CompiledExpression[] expressions;
+	private Env[] envs;
+	/** Errors from compiling text given to {@link #add(String, Env)}. null if there were none. */
+	private ExpressionEvaluationException[] compileErrors;
+	private int size = 0;
+
+	/**
+	 @param maxSteps max number of steps each expression given as text to {@link #add(String, Env)} can take
+	 (see {@link ExpressionEvaluator#ExpressionEvaluator(long)}), or a value &lt;= 0 for no limit
+	 */
+	public ExpressionBatch(long maxSteps) {
+		this(maxSteps, 16);
+	}
+
+	/**
+	 @param maxSteps see {@link #ExpressionBatch(long)}
+	 @param initialCapacity number of entries that can be added before the arrays need to grow
+	 */
+	public ExpressionBatch(long maxSteps, int initialCapacity) {
+		this.maxSteps = maxSteps;
+		initialCapacity = Math.max(1, initialCapacity);
+		expressions = new CompiledExpression[initialCapacity];
+		envs = new Env[initialCapacity];
+	}
+
+	/**
+	 Add an entry
+
+	 @return the index of the entry in {@link Result}
+	 */
+	public int add(@NotNull CompiledExpression expression, @NotNull Env env) {
+		ensureCapacity();
+		expressions[size] = expression;
+		envs[size] = env;
+		return size++;
+	}
+
+	/**
+	 Compile the text and add it as an entry. If the text couldn't be compiled, the error is reported for the entry's index.
+
+	 @return the index of the entry in {@link Result}
+	 */
+	public int add(@NotNull String text, @NotNull Env env) {
+		CompiledExpression expression;
+		try {
+			expression = new CompiledExpression(text, maxSteps);
+		} catch (ExpressionEvaluationException e) {
+			ensureCapacity();
+			if (compileErrors == null) {
+				compileErrors = new ExpressionEvaluationException[expressions.length];
+			}
+			compileErrors[size] = e;
+			envs[size] = env;
+			return size++;
+		}
+		return add(expression, env);
+	}
+
+	/** @return number of entries */
+	public int size() {
+		return size;
+	}
+
+	/** Remove all entries */
+	public void clear() {
+		Arrays.fill(expressions, 0, size, null);
+		Arrays.fill(envs, 0, size, null);
+		compileErrors = null;
+		size = 0;
+	}
+
+	/** Evaluate all entries. The batch can be evaluated again, and more entries can be added after. */
+	@NotNull
+	public Result evaluate() {
+		Result result = new Result(size);
+		if (compileErrors != null) {
+			for (int i = 0; i < size; i++) {
+				if (compileErrors[i] != null) {
+					result.setError(i, compileErrors[i]);
+				}
+			}
+		}
+		if (size >= PARALLEL_THRESHOLD && isReadOnly()) {
+			ForkJoinPool.commonPool().invoke(new EvaluateTask(result, 0, size));
+		} else {
+			evaluate(result, 0, size);
+		}
+		return result;
+	}
+
+	private boolean isReadOnly() {
+		for (int i = 0; i < size; i++) {
+			if (expressions[i] != null && !expressions[i].isReadOnly()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Evaluate entries in [from, to) */
+	private void evaluate(@NotNull Result result, int from, int to) {
+		for (int i = from; i < to; i++) {
+			CompiledExpression expression = expressions[i];
+			if (expression == null) {
+				continue; //compile error
+			}
+			try {
+				Value v = expression.evaluate(envs[i]);
+				if (v instanceof Value.NumVal) {
+					result.values[i] = ((Value.NumVal) v).v();
+				} else {
+					result.setError(i, new ExpressionEvaluationException(null,
+							String.format(bundle.getString("unexpected_value_expected_f"), v, expression.getText(), bundle.getString("number"))
+					));
+				}
+			} catch (ExpressionEvaluationException e) {
+				result.setError(i, e);
+			}
+		}
+	}
+
+	private void ensureCapacity() {
+		if (size < expressions.length) {
+			return;
+		}
+		int newLength = expressions.length * 2;
+		expressions = Arrays.copyOf(expressions, newLength);
+		envs = Arrays.copyOf(envs, newLength);
+		if (compileErrors != null) {
+			compileErrors = Arrays.copyOf(compileErrors, newLength);
+		}
+	}
+
+	private class EvaluateTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Result result;
+		private final int from, to;
+
+		public EvaluateTask(@NotNull Result result, int from, int to) {
+			this.result = result;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= MIN_CHUNK_SIZE * 2) {
+				evaluate(result, from, to);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new EvaluateTask(result, from, mid), new EvaluateTask(result, mid, to));
+		}
+	}
+
+	/**
+	 Results of {@link ExpressionBatch#evaluate()}. Index i is the result of the i-th added entry.
+
+	 @author K
+	 @since 10/18/2026 */
+	public static class Result {
+		private final double[] values;
+		/** null if there were no errors */
+		private volatile ExpressionEvaluationException[] errors;
+
+		private Result(int size) {
+			this.values = new double[size];
+		}
+
+		/** @return number of entries */
+		public int size() {
+			return values.length;
+		}
+
+		/**
+		 @return the values of all entries. Entries that have an error are {@link Double#NaN}.
+		 The array isn't copied.
+		 */
+		@NotNull
+		public double[] getValues() {
+			return values;
+		}
+
+		/** @return the value of the entry, or {@link Double#NaN} if the entry has an error */
+		public double getValue(int index) {
+			return values[index];
+		}
+
+		/** @return the error of the entry, or null if it was evaluated into a number */
+		@Nullable
+		public ExpressionEvaluationException getError(int index) {
+			ExpressionEvaluationException[] errors = this.errors;
+			return errors == null ? null : errors[index];
+		}
+
+		/** @return true if at least one entry has an error */
+		public boolean hasErrors() {
+			return errors != null;
+		}
+
+		/** @return true if none of the entries in [from, from + count) has an error */
+		public boolean isOk(int from, int count) {
+			ExpressionEvaluationException[] errors = this.errors;
+			if (errors == null) {
+				return true;
+			}
+			for (int i = from; i < from + count; i++) {
+				if (errors[i] != null) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void setError(int index, @NotNull ExpressionEvaluationException e) {
+			values[index] = Double.NaN;
+			if (errors == null) {
+				synchronized (this) {
+					if (errors == null) {
+						errors = new ExpressionEvaluationException[values.length];
+					}
+				}
+			}
+			errors[index] = e;
+		}
+	}
+}
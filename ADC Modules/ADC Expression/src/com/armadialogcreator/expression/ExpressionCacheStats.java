@@ -0,0 +1,77 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ Counts for one of the caches of parsed and compiled text in {@link ExpressionInterpreter}
+ at the time {@link ExpressionInterpreter#getCacheStats()} was invoked.
+
+ @author K
+ @since 10/18/2026 */
+public class ExpressionCacheStats {
+	private final String name;
+	private final int size;
+	private final int maxSize;
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+
+	ExpressionCacheStats(@NotNull String name, int size, int maxSize, long hits, long misses, long evictions) {
+		this.name = name;
+		this.size = size;
+		this.maxSize = maxSize;
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+	}
+
+	/** @return name of the cache */
+	@NotNull
+	public String getName() {
+		return name;
+	}
+
+	/** @return number of cached texts */
+	public int getSize() {
+		return size;
+	}
+
+	/** @return max number of cached texts before the least recently used text is evicted */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/** @return number of lookups that found a cached value */
+	public long getHits() {
+		return hits;
+	}
+
+	/** @return number of lookups that didn't find a cached value */
+	public long getMisses() {
+		return misses;
+	}
+
+	/** @return number of texts removed because the cache was full */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/** @return hits / (hits + misses), or 0 if there were no lookups */
+	public double getHitRate() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : hits / (double) lookups;
+	}
+
+	@Override
+	public String toString() {
+		return "ExpressionCacheStats{" +
+				"name='" + name + '\'' +
+				", size=" + size +
+				", maxSize=" + maxSize +
+				", hits=" + hits +
+				", misses=" + misses +
+				", evictions=" + evictions +
+				", hitRate=" + getHitRate() +
+				'}';
+	}
+}
@@ -19,8 +19,31 @@ import java.util.regex.Pattern;
  @since 07/14/2016 */
 class ExpressionEvaluator implements AST.Visitor<Value> {
 
-	private final ResourceBundle bundle = Lang.getBundle("ExpressionBundle");
+	private static final ResourceBundle bundle = Lang.getBundle("ExpressionBundle");
 	private final AtomicBoolean terminated = new AtomicBoolean(false);
+	/** Max number of steps before the evaluation is terminated, or a value &lt;= 0 for no limit */
+	private final long maxSteps;
+	/** Number of steps taken so far. Only accessed by the evaluating thread. */
+	private long steps = 0;
+	/** True if {@link #steps} is counted, which is only needed for a step limit or the {@link ExpressionProfiler} */
+	private final boolean countSteps;
+
+	/** Create an evaluator that can run for any number of steps */
+	public ExpressionEvaluator() {
+		this(0);
+	}
+
+	/**
+	 Create an evaluator that will throw a {@link TerminateEvaluationException} after <code>maxSteps</code> steps.
+	 A step is taken for each statement list (code block) that is executed and for each statement in it,
+	 so every loop iteration takes at least one step.
+
+	 @param maxSteps max number of steps, or a value &lt;= 0 for no limit
+	 */
+	public ExpressionEvaluator(long maxSteps) {
+		this.maxSteps = maxSteps;
+		this.countSteps = maxSteps > 0 || ExpressionProfiler.instance.isEnabled();
+	}
 
 	/**
 	 Terminate this evaluator immediately. This method is thread-safe.
@@ -30,10 +53,26 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 		terminated.set(true);
 	}
 
-	private void checkIfTerminated() {
+	/** Take a step and throw a {@link TerminateEvaluationException} if terminated or the step limit was reached */
+	void checkIfTerminated() {
 		if (terminated.get()) {
 			throw new TerminateEvaluationException();
 		}
+		if (!countSteps) {
+			return;
+		}
+		steps++;
+		if (maxSteps > 0 && steps > maxSteps) {
+			throw new TerminateEvaluationException(String.format(bundle.getString("step_limit_reached_f"), maxSteps));
+		}
+	}
+
+	/**
+	 @return number of steps taken so far. Steps are only counted when there is a step limit or the {@link ExpressionProfiler}
+	 was enabled when this evaluator was created, otherwise this is 0.
+	 */
+	public long getSteps() {
+		return steps;
 	}
 
 	/**
@@ -87,51 +126,32 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 
 	@Override
 	public Value visit(@NotNull AST.MaxExpr expr, @NotNull Env env) {
-		Value left = (Value) expr.getLeft().accept(this, env);
-		Value right = (Value) expr.getRight().accept(this, env);
-		if (left instanceof Value.NumVal) {
-			double leftN = getNumValValue(left);
-			if (right instanceof Value.NumVal) {
-				return new Value.NumVal(Math.max(leftN, getNumValValue(right)));
-			}
-			return unexpectedValueException(expr, right, expr.getRight(), numberTypeName());
-		}
-		return unexpectedValueException(expr, left, expr.getLeft(), numberTypeName());
+		return Value.NumVal.of(number(expr, env));
 	}
 
 	@Override
 	public Value visit(@NotNull AST.MinExpr expr, @NotNull Env env) {
-		Value left = (Value) expr.getLeft().accept(this, env);
-		Value right = (Value) expr.getRight().accept(this, env);
-		if (left instanceof Value.NumVal) {
-			double leftN = getNumValValue(left);
-			if (right instanceof Value.NumVal) {
-				return new Value.NumVal(Math.min(leftN, getNumValValue(right)));
-			}
-			return unexpectedValueException(expr, right, expr.getRight(), numberTypeName());
-		}
-		return unexpectedValueException(expr, left, expr.getLeft(), numberTypeName());
+		return Value.NumVal.of(number(expr, env));
 	}
 
 	@Override
 	public Value visit(@NotNull AST.AddExpr expr, @NotNull Env env) {
+		if (isNumeric(expr.getLeft())) {
+			return Value.NumVal.of(number(expr, env));
+		}
 		Value left = (Value) expr.getLeft().accept(this, env);
-		Value right = (Value) expr.getRight().accept(this, env);
 		if (left instanceof Value.NumVal) {
-			double leftN = getNumValValue(left);
-			if (right instanceof Value.NumVal) {
-				return new Value.NumVal(leftN + getNumValValue(right));
-			}
-			return unexpectedValueException(expr, right, expr.getRight(), numberTypeName());
-		} else if (left instanceof Value.StringLiteral) {
+			return Value.NumVal.of(getNumValValue(left) + number(expr, expr.getRight(), env));
+		}
+		Value right = (Value) expr.getRight().accept(this, env);
+		if (left instanceof Value.StringLiteral) {
 			if (right instanceof Value.StringLiteral) {
 				return new Value.StringLiteral(((Value.StringLiteral) left).getValue() + ((Value.StringLiteral) right).getValue());
 			}
 			return unexpectedValueException(expr, right, expr.getRight(), stringTypeName());
 		} else if (left instanceof Value.Array) {
 			if (right instanceof Value.Array) {
-				((Value.Array) left).getItems().addAll(((Value.Array) right).getItems());
-				return left;
+				return ((Value.Array) left).concat((Value.Array) right);
 			}
 			return unexpectedValueException(expr, right, expr.getRight(), arrayTypeName());
 		}
@@ -140,19 +160,17 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 
 	@Override
 	public Value visit(@NotNull AST.SubExpr expr, @NotNull Env env) {
+		if (isNumeric(expr.getLeft())) {
+			return Value.NumVal.of(number(expr, env));
+		}
 		Value left = (Value) expr.getLeft().accept(this, env);
-		Value right = (Value) expr.getRight().accept(this, env);
-
 		if (left instanceof Value.NumVal) {
-			double leftN = getNumValValue(left);
-			if (right instanceof Value.NumVal) {
-				return new Value.NumVal(leftN - getNumValValue(right));
-			}
-			return unexpectedValueException(expr, right, expr.getRight(), numberTypeName());
-		} else if (left instanceof Value.Array) {
+			return Value.NumVal.of(getNumValValue(left) - number(expr, expr.getRight(), env));
+		}
+		Value right = (Value) expr.getRight().accept(this, env);
+		if (left instanceof Value.Array) {
 			if (right instanceof Value.Array) {
-				((Value.Array) left).getItems().removeAll(((Value.Array) right).getItems());
-				return left;
+				return ((Value.Array) left).remove((Value.Array) right);
 			}
 			return unexpectedValueException(expr, right, expr.getRight(), arrayTypeName());
 		}
@@ -161,79 +179,133 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 
 	@Override
 	public Value visit(@NotNull AST.MultExpr expr, @NotNull Env env) {
-		Value left = (Value) expr.getLeft().accept(this, env);
-		Value right = (Value) expr.getRight().accept(this, env);
-		if (left instanceof Value.NumVal) {
-			double leftN = getNumValValue(left);
-			if (right instanceof Value.NumVal) {
-				return new Value.NumVal(leftN * getNumValValue(right));
-			}
-			return unexpectedValueException(expr, right, expr.getRight(), numberTypeName());
-		}
-		return unexpectedValueException(expr, left, expr.getLeft(), numberTypeName());
+		return Value.NumVal.of(number(expr, env));
 	}
 
 	@Override
 	public Value visit(@NotNull AST.DivExpr expr, @NotNull Env env) {
-		Value left = (Value) expr.getLeft().accept(this, env);
-		Value right = (Value) expr.getRight().accept(this, env);
-		if (left instanceof Value.NumVal) {
-			double leftN = getNumValValue(left);
-			if (right instanceof Value.NumVal) {
-				return new Value.NumVal(leftN / getNumValValue(right));
-			}
-			return unexpectedValueException(expr, right, expr.getRight(), numberTypeName());
-		}
-		return unexpectedValueException(expr, left, expr.getLeft(), numberTypeName());
+		return Value.NumVal.of(number(expr, env));
 	}
 
 	@Override
 	public Value visit(@NotNull AST.ModExpr expr, @NotNull Env env) {
-		Value left = (Value) expr.getLeft().accept(this, env);
-		Value right = (Value) expr.getRight().accept(this, env);
-		if (left instanceof Value.NumVal) {
-			double leftN = getNumValValue(left);
-			if (right instanceof Value.NumVal) {
-				return new Value.NumVal(leftN % getNumValValue(right));
-			}
-			return unexpectedValueException(expr, right, expr.getRight(), numberTypeName());
-		}
-		return unexpectedValueException(expr, left, expr.getLeft(), numberTypeName());
+		return Value.NumVal.of(number(expr, env));
 	}
 
 	@Override
 	public Value visit(@NotNull AST.ExponentExpr expr, @NotNull Env env) {
-		double result = 0;
-		boolean didFirst = false;
+		return Value.NumVal.of(number(expr, env));
+	}
 
-		for (AST.Expr e : expr.getExprs()) {
-			Value v = (Value) e.accept(this, env);
-			if (v instanceof Value.NumVal) {
+	@Override
+	public Value visit(@NotNull AST.UnaryExpr expr, @NotNull Env env) {
+		return Value.NumVal.of(number(expr, env));
+	}
+
+	/**
+	 Returns true if the given expression will always be a number (or an error).
+	 Such an expression can be evaluated with {@link #number(AST.Expr, Env)}.
+	 */
+	private static boolean isNumeric(@NotNull AST.Expr expr) {
+		while (expr instanceof AST.ParenExpr) {
+			expr = ((AST.ParenExpr) expr).getExp();
+		}
+		if (expr instanceof AST.AddExpr) {
+			return isNumeric(((AST.AddExpr) expr).getLeft());
+		}
+		if (expr instanceof AST.SubExpr) {
+			return isNumeric(((AST.SubExpr) expr).getLeft());
+		}
+		return expr instanceof AST.IntegerExpr || expr instanceof AST.FloatExpr
+				|| expr instanceof AST.MultExpr || expr instanceof AST.DivExpr || expr instanceof AST.ModExpr
+				|| expr instanceof AST.MaxExpr || expr instanceof AST.MinExpr || expr instanceof AST.ExponentExpr
+				|| expr instanceof AST.UnaryExpr || expr instanceof AST.AbsExpr;
+	}
+
+	/**
+	 Evaluates an expression where {@link #isNumeric(AST.Expr)} is true without creating a {@link Value.NumVal}
+	 for it or any of its arithmetic operands.
+	 */
+	private double number(@NotNull AST.Expr expr, @NotNull Env env) {
+		while (expr instanceof AST.ParenExpr) {
+			expr = ((AST.ParenExpr) expr).getExp();
+		}
+		if (expr instanceof AST.IntegerExpr) {
+			return ((AST.IntegerExpr) expr).getValue();
+		}
+		if (expr instanceof AST.FloatExpr) {
+			return ((AST.FloatExpr) expr).getValue();
+		}
+		if (expr instanceof AST.AddExpr) {
+			AST.AddExpr e = (AST.AddExpr) expr;
+			return number(e, e.getLeft(), env) + number(e, e.getRight(), env);
+		}
+		if (expr instanceof AST.SubExpr) {
+			AST.SubExpr e = (AST.SubExpr) expr;
+			return number(e, e.getLeft(), env) - number(e, e.getRight(), env);
+		}
+		if (expr instanceof AST.MultExpr) {
+			AST.MultExpr e = (AST.MultExpr) expr;
+			return number(e, e.getLeft(), env) * number(e, e.getRight(), env);
+		}
+		if (expr instanceof AST.DivExpr) {
+			AST.DivExpr e = (AST.DivExpr) expr;
+			return number(e, e.getLeft(), env) / number(e, e.getRight(), env);
+		}
+		if (expr instanceof AST.ModExpr) {
+			AST.ModExpr e = (AST.ModExpr) expr;
+			return number(e, e.getLeft(), env) % number(e, e.getRight(), env);
+		}
+		if (expr instanceof AST.MaxExpr) {
+			AST.MaxExpr e = (AST.MaxExpr) expr;
+			return Math.max(number(e, e.getLeft(), env), number(e, e.getRight(), env));
+		}
+		if (expr instanceof AST.MinExpr) {
+			AST.MinExpr e = (AST.MinExpr) expr;
+			return Math.min(number(e, e.getLeft(), env), number(e, e.getRight(), env));
+		}
+		if (expr instanceof AST.ExponentExpr) {
+			AST.ExponentExpr e = (AST.ExponentExpr) expr;
+			double result = 0;
+			boolean didFirst = false;
+			for (AST.Expr item : e.getExprs()) {
+				double v = number(e, item, env);
 				if (!didFirst) {
-					result = ((Value.NumVal) v).v();
+					result = v;
 					didFirst = true;
 				} else {
-					result = Math.pow(result, ((Value.NumVal) v).v());
+					result = Math.pow(result, v);
 				}
-			} else {
-				return unexpectedValueException(expr, v, e, numberTypeName());
 			}
+			return result;
 		}
-
-		return new Value.NumVal(result);
+		if (expr instanceof AST.UnaryExpr) {
+			AST.UnaryExpr e = (AST.UnaryExpr) expr;
+			double v = number(e, e.getExpr(), env);
+			return e.isAdd() ? +v : -v;
+		}
+		if (expr instanceof AST.AbsExpr) {
+			AST.AbsExpr e = (AST.AbsExpr) expr;
+			return Math.abs(number(e, e.getExpr(), env));
+		}
+		throw new IllegalArgumentException("not numeric: " + expr);
 	}
 
-	@Override
-	public Value visit(@NotNull AST.UnaryExpr expr, @NotNull Env env) {
-		Value val = (Value) expr.getExpr().accept(this, env);
-		if (val instanceof Value.NumVal) {
-			Value.NumVal v = (Value.NumVal) val;
-			if (expr.isAdd()) {
-				return new Value.NumVal(+v.v());
-			}
-			return new Value.NumVal(-v.v());
+	/**
+	 Evaluates an operand of <code>parent</code> that must be a number. Arithmetic operands are evaluated with
+	 {@link #number(AST.Expr, Env)}, so no {@link Value.NumVal} is created for them.
+
+	 @throws ExpressionEvaluationException if the operand isn't a number
+	 */
+	private double number(@NotNull AST.Expr parent, @NotNull AST.Expr operand, @NotNull Env env) {
+		if (isNumeric(operand)) {
+			return number(operand, env);
 		}
-		return unexpectedValueException(expr, val, expr.getExpr(), numberTypeName());
+		Value v = (Value) operand.accept(this, env);
+		if (!(v instanceof Value.NumVal)) {
+			unexpectedValueException(parent, v, operand, numberTypeName());
+		}
+		return getNumValValue(v);
 	}
 
 	@Override
@@ -268,12 +340,12 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 
 	@Override
 	public Value visit(@NotNull AST.IntegerExpr expr, @NotNull Env env) {
-		return new Value.NumVal(expr.getValue());
+		return Value.NumVal.of(expr.getValue());
 	}
 
 	@Override
 	public Value visit(@NotNull AST.FloatExpr expr, @NotNull Env env) {
-		return new Value.NumVal(expr.getValue());
+		return Value.NumVal.of(expr.getValue());
 	}
 
 	@Override
@@ -395,11 +467,34 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 
 	@Override
 	public Value visit(@NotNull AST.Array array, @NotNull Env env) {
-		List<Value> values = new ArrayList<>();
-		for (AST.Expr e : array.getItems()) {
-			values.add((Value) e.accept(this, env));
+		List<AST.Expr> items = array.getItems();
+		if (items.isEmpty()) {
+			return new Value.Array(new ArrayList<>());
+		}
+		//arrays of only numbers are stored in a double[] until an item isn't a number
+		double[] numbers = new double[items.size()];
+		for (int i = 0; i < numbers.length; i++) {
+			AST.Expr e = items.get(i);
+			if (isNumeric(e)) {
+				numbers[i] = number(e, env);
+				continue;
+			}
+			Value v = (Value) e.accept(this, env);
+			if (v instanceof Value.NumVal) {
+				numbers[i] = getNumValValue(v);
+				continue;
+			}
+			List<Value> values = new ArrayList<>(numbers.length);
+			for (int j = 0; j < i; j++) {
+				values.add(Value.NumVal.of(numbers[j]));
+			}
+			values.add(v);
+			for (int j = i + 1; j < numbers.length; j++) {
+				values.add((Value) items.get(j).accept(this, env));
+			}
+			return new Value.Array(values);
 		}
-		return new Value.Array(values);
+		return new Value.DoubleArray(numbers);
 	}
 
 	@Override
@@ -443,9 +538,21 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 			Value.Array leftArr = (Value.Array) left;
 			if (right instanceof Value.Code) {
 				//[] select {}
-				List<Value> newItems = new ArrayList<>();
-
 				Value.Code rightCode = (Value.Code) right;
+				if (leftArr instanceof Value.DoubleArray && ((Value.DoubleArray) leftArr).isNumeric()) {
+					Value.DoubleArray numbers = (Value.DoubleArray) leftArr;
+					double[] selected = new double[numbers.length()];
+					int selectedCount = 0;
+					for (int i = 0; i < numbers.length(); i++) {
+						env.put("_x", numbers.get(i));
+						if (rightCode.exec(env) == Value.True) {
+							selected[selectedCount++] = numbers.getDouble(i);
+						}
+					}
+					return new Value.DoubleArray(selected, selectedCount);
+				}
+
+				List<Value> newItems = new ArrayList<>();
 				for (Value v : leftArr) {
 					env.put("_x", v);
 					if (rightCode.exec(env) == Value.True) {
@@ -496,14 +603,14 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 					indexOutOfBounds(expr, leftArr.toString(), "count", count, 0, 10000000);
 				}
 
-				return new Value.Array(leftArr.getItems().subList(start, Math.min(count, leftArr.length())));
+				return leftArr.slice(start, Math.min(count, leftArr.length()));
 			}
 			if (right instanceof Value.NumVal) {
 				int rightIndex = (int) Math.round(((Value.NumVal) right).v());
 				if (rightIndex < 0 || rightIndex >= leftArr.length()) {
 					indexOutOfBounds(expr, leftArr.toString(), "index", rightIndex, 0, leftArr.length() - 1);
 				}
-				return leftArr.getItems().get(rightIndex);
+				return leftArr.get(rightIndex);
 			}
 			unexpectedValueException(expr, right, expr.getRight(),
 					codeTypeName() + "," + boolTypeName() + "," + arrayTypeName() + "," + numberTypeName()
@@ -514,56 +621,31 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 
 	@Override
 	public Value visit(@NotNull AST.CompExpr expr, @NotNull Env env) {
-		Value left = (Value) expr.getLeft().accept(this, env);
-		Value right = (Value) expr.getRight().accept(this, env);
 		switch (expr.getOperator()) {
 			case Equal: {
+				Value left = (Value) expr.getLeft().accept(this, env);
+				Value right = (Value) expr.getRight().accept(this, env);
 				return Value.BoolVal.get(left.equals(right));
 			}
 			case NotEqual: {
+				Value left = (Value) expr.getLeft().accept(this, env);
+				Value right = (Value) expr.getRight().accept(this, env);
 				return Value.BoolVal.get(!left.equals(right));
 			}
 			case LessThan: {
-				if (!(left instanceof Value.NumVal)) {
-					unexpectedValueException(expr, left, expr.getLeft(), numberTypeName());
-				}
-				if (!(right instanceof Value.NumVal)) {
-					unexpectedValueException(expr, right, expr.getRight(), numberTypeName());
-				}
-				return Value.BoolVal.get(getNumValValue(left) < getNumValValue(right));
+				return Value.BoolVal.get(number(expr, expr.getLeft(), env) < number(expr, expr.getRight(), env));
 			}
 			case LessThanOrEqual: {
-				if (!(left instanceof Value.NumVal)) {
-					unexpectedValueException(expr, left, expr.getLeft(), numberTypeName());
-				}
-				if (!(right instanceof Value.NumVal)) {
-					unexpectedValueException(expr, right, expr.getRight(), numberTypeName());
-				}
-				double leftN = getNumValValue(left);
-				double rightN = getNumValValue(right);
+				double leftN = number(expr, expr.getLeft(), env);
+				double rightN = number(expr, expr.getRight(), env);
 				return Value.BoolVal.get(leftN < rightN || ArmaPrecision.isEqualTo(leftN, rightN));
 			}
 			case GreaterThan: {
-				if (!(left instanceof Value.NumVal)) {
-					unexpectedValueException(expr, left, expr.getLeft(), numberTypeName());
-				}
-				if (!(right instanceof Value.NumVal)) {
-					unexpectedValueException(expr, right, expr.getRight(), numberTypeName());
-				}
-				double leftN = getNumValValue(left);
-				double rightN = getNumValValue(right);
-				return Value.BoolVal.get(leftN > rightN);
+				return Value.BoolVal.get(number(expr, expr.getLeft(), env) > number(expr, expr.getRight(), env));
 			}
 			case GreaterThanOrEqual: {
-				if (!(left instanceof Value.NumVal)) {
-					unexpectedValueException(expr, left, expr.getLeft(), numberTypeName());
-				}
-				if (!(right instanceof Value.NumVal)) {
-					unexpectedValueException(expr, right, expr.getRight(), numberTypeName());
-				}
-
-				double leftN = getNumValValue(left);
-				double rightN = getNumValValue(right);
+				double leftN = number(expr, expr.getLeft(), env);
+				double rightN = number(expr, expr.getRight(), env);
 				return Value.BoolVal.get(leftN > rightN || ArmaPrecision.isEqualTo(leftN, rightN));
 			}
 		}
@@ -578,26 +660,12 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 		}
 		String var = ((Value.StringLiteral) varVal).getValue();
 
-		Value fromVal = (Value) expr.getFromExpr().accept(this, env);
-		if (!(fromVal instanceof Value.NumVal)) {
-			unexpectedValueException(expr, fromVal, expr.getFromExpr(), numberTypeName());
-		}
-		double from = getNumValValue(fromVal);
-
-		Value toVal = (Value) expr.getToExpr().accept(this, env);
-		if (!(toVal instanceof Value.NumVal)) {
-			unexpectedValueException(expr, toVal, expr.getToExpr(), numberTypeName());
-		}
-
-		double to = getNumValValue(toVal);
+		double from = number(expr, expr.getFromExpr(), env);
+		double to = number(expr, expr.getToExpr(), env);
 
 		double step = 1;
 		if (expr.getStepExpr() != null) {
-			Value stepVal = (Value) expr.getStepExpr().accept(this, env);
-			if (!(stepVal instanceof Value.NumVal)) {
-				unexpectedValueException(expr, stepVal, expr.getStepExpr(), numberTypeName());
-			}
-			step = getNumValValue(stepVal);
+			step = number(expr, expr.getStepExpr(), env);
 		}
 
 		Value.Code code;
@@ -612,7 +680,7 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 		double i = from;
 
 		while ((i <= to && step > 0) || i >= to && step < 0) {
-			env.put(var, new Value.NumVal(i));
+			env.put(var, Value.NumVal.of(i));
 			code.exec(env);
 			i += step;
 		}
@@ -688,7 +756,7 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 					}
 				}
 
-				return new Value.NumVal(count);
+				return Value.NumVal.of(count);
 			} else {
 				unexpectedValueException(expr, left, expr.getLeft(), codeTypeName());
 			}
@@ -708,7 +776,7 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 			unexpectedValueException(expr, right, expr.getRight(), stringTypeName() + "," + arrayTypeName());
 		}
 
-		return new Value.NumVal(count);
+		return Value.NumVal.of(count);
 	}
 
 	@Override
@@ -775,12 +843,7 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 
 	@Override
 	public Value visit(@NotNull AST.AbsExpr expr, @NotNull Env env) {
-		Value v = (Value) expr.getExpr().accept(this, env);
-		if (!(v instanceof Value.NumVal)) {
-			unexpectedValueException(expr, v, expr.getExpr(), numberTypeName());
-		}
-		double absV = Math.abs(((Value.NumVal) v).v());
-		return new Value.NumVal(absV);
+		return Value.NumVal.of(number(expr, env));
 	}
 
 	@Override
@@ -800,7 +863,7 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 
 		Value.StringLiteral formatString = (Value.StringLiteral) array.get(0);
 
-		String result = getStringFromFormat(expr, formatString.getValue(), array.getItems());
+		String result = getStringFromFormat(expr, formatString.getValue(), array.items());
 
 		return new Value.StringLiteral(result);
 	}
@@ -930,6 +993,6 @@ class ExpressionEvaluator implements AST.Visitor<Value> {
 		throw new ExpressionEvaluationException(errorNode, String.format(bundle.getString("index_out_of_bounds_f"), varName, source, index, lowerBound, upperBound));
 	}
 
-	private final Pattern stringPattern = Pattern.compile("(\"\")|('')");
+	private static final Pattern stringPattern = Pattern.compile("(\"\")|('')");
 
 }
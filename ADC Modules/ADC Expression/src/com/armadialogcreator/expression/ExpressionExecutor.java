@@ -0,0 +1,135 @@
+package com.armadialogcreator.expression;
+
+import com.armadialogcreator.util.ADCExecutors;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ The thread pool shared by all {@link ExpressionInterpreter} instances for evaluations that don't run on the calling thread.
+ Threads are daemons and are only created when evaluations are submitted. Idle threads stop after
+ {@link #KEEP_ALIVE_SECONDS}.
+ <p>
+ Since the pool is shared, evaluations that may never end should be given a step limit
+ (see {@link ExpressionInterpreter#evaluate(String, Env, long)}) or be terminated when they aren't needed anymore.
+ <p>
+ Queue depth and latency metrics are available for finding out if evaluations are waiting for threads.
+
+ @author K
+ @since 10/18/2026 */
+public class ExpressionExecutor {
+	public static final ExpressionExecutor instance = new ExpressionExecutor();
+
+	/** Number of seconds an idle thread waits for an evaluation before it stops */
+	public static final long KEEP_ALIVE_SECONDS = 30;
+
+	private final ThreadPoolExecutor executor;
+
+	private final LongAdder completedCount = new LongAdder();
+	private final LongAdder totalQueueNanos = new LongAdder();
+	private final LongAdder totalRunNanos = new LongAdder();
+	private final AtomicLong maxQueueNanos = new AtomicLong();
+
+	private ExpressionExecutor() {
+		int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+		executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				new EvaluatorThreadFactory()
+		);
+		executor.allowCoreThreadTimeOut(true);
+		ADCExecutors.registerExecutorService(executor);
+	}
+
+	/**
+	 Submit a task to the pool. The time spent in the queue and running is recorded.
+
+	 @return the future for the task
+	 */
+	@NotNull
+	public <T> Future<T> submit(@NotNull Callable<T> task) {
+		long submitted = System.nanoTime();
+		return executor.submit(new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				long started = System.nanoTime();
+				long queued = started - submitted;
+				totalQueueNanos.add(queued);
+				maxQueueNanos.accumulateAndGet(queued, Math::max);
+				try {
+					return task.call();
+				} finally {
+					totalRunNanos.add(System.nanoTime() - started);
+					completedCount.increment();
+				}
+			}
+		});
+	}
+
+	/** @return max number of evaluations that can run at once */
+	public int getMaxThreads() {
+		return executor.getMaximumPoolSize();
+	}
+
+	/** @return number of submitted evaluations that are waiting for a thread */
+	public int getQueueDepth() {
+		return executor.getQueue().size();
+	}
+
+	/** @return number of evaluations that are running right now */
+	public int getActiveCount() {
+		return executor.getActiveCount();
+	}
+
+	/** @return number of evaluations that finished (successfully or not) */
+	public long getCompletedCount() {
+		return completedCount.sum();
+	}
+
+	/** @return average time (in nanoseconds) evaluations waited for a thread, or 0 if none finished */
+	public long getAverageQueueNanos() {
+		long count = completedCount.sum();
+		return count == 0 ? 0 : totalQueueNanos.sum() / count;
+	}
+
+	/** @return longest time (in nanoseconds) an evaluation waited for a thread */
+	public long getMaxQueueNanos() {
+		return maxQueueNanos.get();
+	}
+
+	/** @return average time (in nanoseconds) evaluations took to run, or 0 if none finished */
+	public long getAverageRunNanos() {
+		long count = completedCount.sum();
+		return count == 0 ? 0 : totalRunNanos.sum() / count;
+	}
+
+	@Override
+	public String toString() {
+		return "ExpressionExecutor{" +
+				"maxThreads=" + getMaxThreads() +
+				", queueDepth=" + getQueueDepth() +
+				", active=" + getActiveCount() +
+				", completed=" + getCompletedCount() +
+				", avgQueueNanos=" + getAverageQueueNanos() +
+				", maxQueueNanos=" + getMaxQueueNanos() +
+				", avgRunNanos=" + getAverageRunNanos() +
+				'}';
+	}
+
+	private static class EvaluatorThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(@NotNull Runnable r) {
+			Thread t = new Thread(r, "ExpressionExecutor-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
@@ -1,21 +1,28 @@
 package com.armadialogcreator.expression;
 
 import com.armadialogcreator.lang.Lang;
-import com.armadialogcreator.util.ADCExecutors;
 import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
 import org.antlr.v4.runtime.misc.IntervalSet;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.function.Function;
 
 /**
  Evaluates simple mathematical expressions and some things of Arma 3's scripting language SQF.
  Order of operations is supported as well as identifier lookup.<br>
- All evaluations are done inside a thread pool and in new evaluators.
+ Evaluations with {@link #evaluate(String, Env)} and {@link #evaluateStatements(String, Env)} are done inside the
+ {@link ExpressionExecutor} pool (shared by all interpreters) and in new evaluators.
+ {@link #evaluateNow(String, Env, long)} and {@link #evaluateStatementsNow(String, Env, long)} evaluate
+ on the calling thread. Either way, a step limit can be used to stop runaway code instead of terminating it from another thread.<br>
+ Parsed text is cached (shared by all interpreters), so evaluating the same text again only needs to evaluate the AST.
+ How the AST is evaluated depends on the interpreter's {@link Backend}.
 
  @author Kayler
  @since 07/14/2016. */
@@ -32,6 +39,54 @@ public class ExpressionInterpreter {
 		Arrays.sort(supportedCommands);
 	}
 
+	/** Used by {@link #warmUp()}. Each text is parsed as an expression. */
+	private static final String[] WARM_UP_EXPRESSIONS = {
+			"safeZoneX + safeZoneW * 0.5 - (0.1 * 3) / 2",
+			"safeZoneY + (safeZoneH - 4 * (0.04 * safeZoneH)) max 0.1 min 1",
+			"-0.5 + +1 % 2 ^ 2",
+			"abs -1.5e2",
+			"(getResolution select 2) * 0.5",
+			"[1, 'a', \"b\", [2.5, x]] select 0",
+			"str 1",
+			"format ['%1', 2]",
+			"{_x > 0} count [1, 2]",
+			"not true && false || !(1 == 2) and (1 != 2) or (1 >= 2) or (1 <= 2) or (1 < 2)",
+			"if (a > 0) then {1} else {2}",
+			"for [{_i = 0}, {_i < 2}, {_i = _i + 1}] do {}",
+			"for '_i' from 0 to 10 step 2 do {}",
+			"for [1, 0x1F] do {_x}"
+	};
+	/** Used by {@link #warmUp()}. Each text is parsed as statements. */
+	private static final String[] WARM_UP_STATEMENTS = {
+			"x = 1; y = x + 2; x * y;",
+			"if (true) exitWith {1}; 2"
+	};
+
+	/**
+	 Max number of steps for {@link #evaluate(String, Env)} and {@link #evaluateStatements(String, Env)}, so that a script
+	 that never ends can't keep a thread of the shared {@link ExpressionExecutor} forever
+	 */
+	public static final long DEFAULT_MAX_STEPS = 10_000_000;
+
+	private static final ANTLRErrorStrategy BAIL_STRATEGY = new BailErrorStrategy();
+	/** Lexer and parser for each thread that parses */
+	private static final ThreadLocal<ThreadParser> threadParsers = ThreadLocal.withInitial(ThreadParser::new);
+
+	/**
+	 Max number of texts kept in each cache. Macros expand to the same text in many controls,
+	 so a project rarely has more distinct texts than this.
+	 */
+	private static final int MAX_CACHED_ASTS = 2048;
+
+	/** Expression text to parsed expression. The AST is never mutated after it is parsed, so it can be shared. */
+	private static final AstCache<AST.Expr> expressionCache = new AstCache<>("expressions", MAX_CACHED_ASTS);
+	/** Statements text to parsed statements */
+	private static final AstCache<List<AST.Statement>> statementsCache = new AstCache<>("statements", MAX_CACHED_ASTS);
+	/** Expression text to compiled expression. Only used by {@link Backend#Closure}. */
+	private static final AstCache<ClosureCompiler.Program> compiledExpressionCache = new AstCache<>("compiledExpressions", MAX_CACHED_ASTS);
+	/** Statements text to compiled statements. Only used by {@link Backend#Closure}. */
+	private static final AstCache<ClosureCompiler.Program> compiledStatementsCache = new AstCache<>("compiledStatements", MAX_CACHED_ASTS);
+
 	/**
 	 Will return an array of all supported commands. This array is used to make sure the user isn't
 	 assigning values to these commands through {@link Env#put(String, Value)}.
@@ -41,29 +96,51 @@ public class ExpressionInterpreter {
 		return supportedCommands;
 	}
 
-	/** Get a new instance of the interpreter */
+	/** Get a new instance of the interpreter that uses {@link Backend#TreeWalking} */
 	@NotNull
 	public static ExpressionInterpreter newInstance() {
 		return new ExpressionInterpreter();
 	}
 
-	/** Thread pool with all executing evaluators */
-	private final ExecutorService threadPool = Executors.newFixedThreadPool(2);
+	/** Get a new instance of the interpreter that uses the given backend */
+	@NotNull
+	public static ExpressionInterpreter newInstance(@NotNull Backend backend) {
+		return new ExpressionInterpreter(backend);
+	}
+
+	private boolean shutdown = false;
 
 	/** Queue of all running/queued {@link ExpressionEvaluator} instances */
 	private final LinkedBlockingQueue<ExpressionEvaluator> evaluatorsQ = new LinkedBlockingQueue<>();
 
+	private final Backend backend;
+
 	public ExpressionInterpreter() {
-		ADCExecutors.registerExecutorService(threadPool);
+		this(Backend.TreeWalking);
+	}
+
+	public ExpressionInterpreter(@NotNull Backend backend) {
+		this.backend = backend;
+	}
+
+	@NotNull
+	public Backend getBackend() {
+		return backend;
 	}
 
 	/**
-	 Shutdown this interpreter and prevent reuse. Be sure to shutdown interpreters that aren't being used anymore!
-	 If you don't, the application will take serious performance hits over time. This method will also invoke {@link #terminateAll()}
+	 Shutdown this interpreter and prevent reuse. This method will also invoke {@link #terminateAll()}.
+	 The shared {@link ExpressionExecutor} isn't shut down.
 	 */
 	public synchronized void shutdownAndDisable() {
 		terminateAll();
-		threadPool.shutdownNow();
+		shutdown = true;
+	}
+
+	private void checkNotShutdown() {
+		if (shutdown) {
+			throw new IllegalStateException("can't use a shutdown interpreter");
+		}
 	}
 
 	/**
@@ -90,7 +167,8 @@ public class ExpressionInterpreter {
 	 Evaluate the given expression String in the given environment. This method will create a new evaluator.
 	 This method will throw errors if the given string contains assignments
 	 or multiple expressions separated by semicolons.<br><br>
-	 This method is a non-blocking method and is executed on the interpreter's thread pool.
+	 This method is a non-blocking method and is executed on the shared {@link ExpressionExecutor}.
+	 The evaluation is terminated after {@link #DEFAULT_MAX_STEPS} steps.
 
 	 @param exp expression text to evaluate
 	 @param env environment that holds information on all identifiers. Please consider thread safety of this environment
@@ -98,48 +176,34 @@ public class ExpressionInterpreter {
 	 @return a {@link Future} class that contains the resulted {@link Value} instance
 	 */
 	@NotNull
-	public synchronized FutureEvaluatedValue evaluate(@Nullable String exp, @NotNull Env env) {
+	public FutureEvaluatedValue evaluate(@Nullable String exp, @NotNull Env env) {
+		return evaluate(exp, env, DEFAULT_MAX_STEPS);
+	}
+
+	/**
+	 Same as {@link #evaluate(String, Env)}, but the evaluation is terminated after the given number of steps.
+
+	 @param maxSteps max number of steps the evaluation can take (see {@link ExpressionEvaluator#ExpressionEvaluator(long)}),
+	 or a value &lt;= 0 for no limit
+	 */
+	@NotNull
+	public synchronized FutureEvaluatedValue evaluate(@Nullable String exp, @NotNull Env env, long maxSteps) {
 		//this method is synchronized so that no new evaluators can be created if terminateAll() is invoked
 
-		if (threadPool.isShutdown()) {
-			throw new IllegalStateException("can't use a shutdown interpreter");
-		}
+		checkNotShutdown();
 
-		ExpressionEvaluator evaluator = new ExpressionEvaluator();
+		ExpressionEvaluator evaluator = new ExpressionEvaluator(maxSteps);
 
 		evaluatorsQ.add(evaluator);
 
-		Future<Value> future = threadPool.submit(new Callable<Value>() {
+		Future<Value> future = ExpressionExecutor.instance.submit(new Callable<Value>() {
 			@Override
 			public Value call() throws Exception {
-				if (exp == null || exp.trim().length() == 0) {
-					throw new ExpressionEvaluationException(null, Lang.ApplicationBundle().getString("Expression.error_no_input"));
-				}
-				ExpressionLexer l = getLexer(exp);
-				ExpressionParser p = getParser(new CommonTokenStream(l));
-
-				//prevent ANTLR printing to the console when the expression is invalid
-				l.getErrorListeners().clear();
-				p.getErrorListeners().clear();
-
-				p.addErrorListener(ErrorListener.INSTANCE);
-				p.setErrorHandler(ErrorStrategy.INSTANCE);
-				l.addErrorListener(ErrorListener.INSTANCE);
-
-
-				AST.Expr e;
 				try {
-					e = p.expression().ast;
-				} catch (Exception ex) {
-					if (ex instanceof ExpressionEvaluationException) {
-						throw ex;
-					}
-					throw new ExpressionEvaluationException(null, ex.getMessage(), ex);
+					return evaluateExpression(exp, env, evaluator);
+				} finally {
+					evaluatorsQ.remove(evaluator);
 				}
-				Value v = evaluator.evaluate(e, env);
-				evaluatorsQ.remove(evaluator);
-
-				return v;
 			}
 		});
 		return new FutureEvaluatedValue(this, evaluator, future);
@@ -148,7 +212,7 @@ public class ExpressionInterpreter {
 	/**
 	 Evaluate the given statements as a String in the given environment.
 	 This method will create a new evaluator.<br><br>
-	 This method is a blocking method.
+	 This method is a blocking method. The evaluation is terminated after {@link #DEFAULT_MAX_STEPS} steps.
 
 	 @param statements statements text to evaluate
 	 @param env environment that holds information on all identifiers. Please consider thread safety of this environment
@@ -157,49 +221,123 @@ public class ExpressionInterpreter {
 	 {@link #terminateAll()} or {@link FutureEvaluatedValue#cancel(boolean)}
 	 */
 	@NotNull
-	public synchronized FutureEvaluatedValue evaluateStatements(@Nullable String statements, @NotNull Env env) {
+	public FutureEvaluatedValue evaluateStatements(@Nullable String statements, @NotNull Env env) {
+		return evaluateStatements(statements, env, DEFAULT_MAX_STEPS);
+	}
+
+	/**
+	 Same as {@link #evaluateStatements(String, Env)}, but the evaluation is terminated after the given number of steps.
+
+	 @param maxSteps max number of steps the evaluation can take (see {@link ExpressionEvaluator#ExpressionEvaluator(long)}),
+	 or a value &lt;= 0 for no limit
+	 */
+	@NotNull
+	public synchronized FutureEvaluatedValue evaluateStatements(@Nullable String statements, @NotNull Env env, long maxSteps) {
 		//this method is synchronized so that no new evaluators can be created if terminateAll() is invoked
 
-		if (threadPool.isShutdown()) {
-			throw new IllegalStateException("can't use a shutdown interpreter");
-		}
+		checkNotShutdown();
 
-		ExpressionEvaluator evaluator = new ExpressionEvaluator();
+		ExpressionEvaluator evaluator = new ExpressionEvaluator(maxSteps);
 		evaluatorsQ.add(evaluator);
-		Future<Value> future = threadPool.submit(new Callable<Value>() {
+		Future<Value> future = ExpressionExecutor.instance.submit(new Callable<Value>() {
 			@Override
 			public Value call() throws Exception {
-				if (statements == null || statements.trim().length() == 0) {
-					throw new ExpressionEvaluationException(null, Lang.ApplicationBundle().getString("Expression.error_no_input"));
-				}
-				ExpressionLexer l = getLexer(statements);
-				ExpressionParser p = getParser(new CommonTokenStream(l));
-
-				//prevent ANTLR printing to the console when the expression is invalid
-				l.getErrorListeners().clear();
-				p.getErrorListeners().clear();
-
-				p.addErrorListener(ErrorListener.INSTANCE);
-				p.setErrorHandler(ErrorStrategy.INSTANCE);
-				l.addErrorListener(ErrorListener.INSTANCE);
-
-
 				try {
-					List<AST.Statement> statementList = p.statements().lst;
-					Value v = evaluateStatements(statementList, env, evaluator);
+					return evaluateStatements(statements, env, evaluator);
+				} finally {
 					evaluatorsQ.remove(evaluator);
-					return v;
-				} catch (Exception e) {
-					if (e instanceof ExpressionEvaluationException) {
-						throw e;
-					}
-					throw new ExpressionEvaluationException(null, e.getMessage(), e);
 				}
 			}
 		});
 		return new FutureEvaluatedValue(this, evaluator, future);
 	}
 
+	/**
+	 Evaluate the given expression String in the given environment on the calling thread.
+	 Like {@link #evaluate(String, Env)}, the string can't contain assignments or multiple expressions.
+
+	 @param exp expression text to evaluate
+	 @param env environment that holds information on all identifiers
+	 @param maxSteps max number of steps the evaluation can take (see {@link ExpressionEvaluator#ExpressionEvaluator(long)}),
+	 or a value &lt;= 0 for no limit
+	 @return the resulted {@link Value} instance
+	 @throws TerminateEvaluationException if the step limit was reached or {@link #terminateAll()} was invoked
+	 @throws ExpressionEvaluationException if the expression couldn't be evaluated
+	 */
+	@NotNull
+	public Value evaluateNow(@Nullable String exp, @NotNull Env env, long maxSteps) {
+		ExpressionEvaluator evaluator = newSynchronousEvaluator(maxSteps);
+		try {
+			return evaluateExpression(exp, env, evaluator);
+		} finally {
+			evaluatorsQ.remove(evaluator);
+		}
+	}
+
+	/**
+	 Evaluate the given statements as a String in the given environment on the calling thread.
+
+	 @param statements statements text to evaluate
+	 @param env environment that holds information on all identifiers
+	 @param maxSteps max number of steps the evaluation can take (see {@link ExpressionEvaluator#ExpressionEvaluator(long)}),
+	 or a value &lt;= 0 for no limit
+	 @return the resulted {@link Value} instance from the last {@link AST.Statement}
+	 @throws TerminateEvaluationException if the step limit was reached or {@link #terminateAll()} was invoked
+	 @throws ExpressionEvaluationException if the statements couldn't be evaluated
+	 */
+	@NotNull
+	public Value evaluateStatementsNow(@Nullable String statements, @NotNull Env env, long maxSteps) {
+		ExpressionEvaluator evaluator = newSynchronousEvaluator(maxSteps);
+		try {
+			return evaluateStatements(statements, env, evaluator);
+		} finally {
+			evaluatorsQ.remove(evaluator);
+		}
+	}
+
+	@NotNull
+	private synchronized ExpressionEvaluator newSynchronousEvaluator(long maxSteps) {
+		//synchronized so that no new evaluators can be created if terminateAll() is invoked
+		checkNotShutdown();
+		ExpressionEvaluator evaluator = new ExpressionEvaluator(maxSteps);
+		evaluatorsQ.add(evaluator);
+		return evaluator;
+	}
+
+	@NotNull
+	private Value evaluateExpression(@Nullable String exp, @NotNull Env env, @NotNull ExpressionEvaluator evaluator) {
+		ExpressionProfiler profiler = ExpressionProfiler.instance;
+		if (exp != null && profiler.isEnabled()) {
+			return profiler.profile(exp, evaluator, () -> evaluateExpressionText(exp, env, evaluator));
+		}
+		return evaluateExpressionText(exp, env, evaluator);
+	}
+
+	@NotNull
+	private Value evaluateExpressionText(@Nullable String exp, @NotNull Env env, @NotNull ExpressionEvaluator evaluator) {
+		if (backend == Backend.Closure) {
+			return compileExpression(exp).evaluate(evaluator, env);
+		}
+		return evaluator.evaluate(parseExpression(exp), env);
+	}
+
+	@NotNull
+	private Value evaluateStatements(@Nullable String statements, @NotNull Env env, @NotNull ExpressionEvaluator evaluator) {
+		ExpressionProfiler profiler = ExpressionProfiler.instance;
+		if (statements != null && profiler.isEnabled()) {
+			return profiler.profile(statements, evaluator, () -> evaluateStatementsText(statements, env, evaluator));
+		}
+		return evaluateStatementsText(statements, env, evaluator);
+	}
+
+	@NotNull
+	private Value evaluateStatementsText(@Nullable String statements, @NotNull Env env, @NotNull ExpressionEvaluator evaluator) {
+		if (backend == Backend.Closure) {
+			return compileStatements(statements).evaluate(evaluator, env);
+		}
+		return evaluateStatements(parseStatements(statements), env, evaluator);
+	}
+
 	/**
 	 Evaluate the given statements as a list of {@link AST.Statement} in the given environment.<br>
 	 This will not be executed on a new thread and thus will be a blocking call.
@@ -222,16 +360,200 @@ public class ExpressionInterpreter {
 		}
 	}
 
+	/**
+	 Parse the given expression text, or get the cached AST if the same text was parsed before.
+	 Constant subtrees are folded with {@link ConstantFolder}, so they aren't evaluated each time.
+
+	 @throws ExpressionEvaluationException if the text is empty or couldn't be parsed
+	 */
 	@NotNull
-	private ExpressionParser getParser(CommonTokenStream stream) {
-		return new ExpressionParser(stream);
+	static AST.Expr parseExpression(@Nullable String exp) {
+		checkInput(exp);
+		AST.Expr e = expressionCache.get(exp);
+		if (e != null) {
+			return e;
+		}
+		try {
+			AST.Expr parsed = parse(exp, p -> p.expression().ast);
+			e = ConstantFolder.fold(parsed);
+		} catch (Exception ex) {
+			if (ex instanceof ExpressionEvaluationException) {
+				throw ex;
+			}
+			throw new ExpressionEvaluationException(null, ex.getMessage(), ex);
+		}
+		expressionCache.put(exp, e);
+		return e;
+	}
+
+	/**
+	 Parse the given statements text, or get the cached AST if the same text was parsed before.
+	 Constant subtrees are folded with {@link ConstantFolder}.
+
+	 @throws ExpressionEvaluationException if the text is empty or couldn't be parsed
+	 */
+	@NotNull
+	static List<AST.Statement> parseStatements(@Nullable String statements) {
+		checkInput(statements);
+		List<AST.Statement> lst = statementsCache.get(statements);
+		if (lst != null) {
+			return lst;
+		}
+		try {
+			List<AST.Statement> parsed = parse(statements, p -> p.statements().lst);
+			lst = Collections.unmodifiableList(ConstantFolder.fold(parsed));
+		} catch (Exception ex) {
+			if (ex instanceof ExpressionEvaluationException) {
+				throw ex;
+			}
+			throw new ExpressionEvaluationException(null, ex.getMessage(), ex);
+		}
+		statementsCache.put(statements, lst);
+		return lst;
 	}
 
+	/**
+	 Compile the given expression text with {@link ClosureCompiler}, or get the cached program if the same text was compiled before
+
+	 @throws ExpressionEvaluationException if the text is empty or couldn't be parsed
+	 */
 	@NotNull
-	private ExpressionLexer getLexer(String s) {
-		return new ExpressionLexer(new ANTLRInputStream(s));
+	static ClosureCompiler.Program compileExpression(@Nullable String exp) {
+		AST.Expr e = parseExpression(exp);
+		ClosureCompiler.Program program = compiledExpressionCache.get(exp);
+		if (program == null) {
+			program = ClosureCompiler.compile(e);
+			compiledExpressionCache.put(exp, program);
+		}
+		return program;
 	}
 
+	/**
+	 Compile the given statements text with {@link ClosureCompiler}, or get the cached program if the same text was compiled before
+
+	 @throws ExpressionEvaluationException if the text is empty or couldn't be parsed
+	 */
+	@NotNull
+	static ClosureCompiler.Program compileStatements(@Nullable String statements) {
+		List<AST.Statement> lst = parseStatements(statements);
+		ClosureCompiler.Program program = compiledStatementsCache.get(statements);
+		if (program == null) {
+			program = ClosureCompiler.compile(lst);
+			compiledStatementsCache.put(statements, program);
+		}
+		return program;
+	}
+
+	private static void checkInput(@Nullable String text) {
+		if (text == null || text.trim().length() == 0) {
+			throw new ExpressionEvaluationException(null, Lang.ApplicationBundle().getString("Expression.error_no_input"));
+		}
+	}
+
+	/** Remove all cached ASTs and compiled programs. This can be invoked from any thread. */
+	public static void clearCache() {
+		expressionCache.clear();
+		statementsCache.clear();
+		compiledExpressionCache.clear();
+		compiledStatementsCache.clear();
+	}
+
+	/**
+	 Get the hit, miss and eviction counts of the caches for parsed expressions, parsed statements,
+	 compiled expressions and compiled statements (in that order). Counts are since the application started.
+
+	 @return a snapshot for each cache
+	 */
+	@NotNull
+	public static List<ExpressionCacheStats> getCacheStats() {
+		return List.of(
+				expressionCache.getStats(),
+				statementsCache.getStats(),
+				compiledExpressionCache.getStats(),
+				compiledStatementsCache.getStats()
+		);
+	}
+
+	/** How an interpreter evaluates parsed text */
+	public enum Backend {
+		/** {@link ExpressionEvaluator} walks the AST */
+		TreeWalking,
+		/**
+		 The AST is compiled once into closures by {@link ClosureCompiler}. Arithmetic is done with primitive doubles and
+		 identifiers are read from slots. The results are the same as {@link #TreeWalking}.
+		 */
+		Closure
+	}
+
+	/**
+	 Parse representative expressions and statements so that the DFA cache (shared by all parsers) is filled before
+	 the first real evaluation needs it. The parsed text isn't cached. This can be invoked from any thread.
+	 */
+	public static void warmUp() {
+		for (String exp : WARM_UP_EXPRESSIONS) {
+			parse(exp, p -> p.expression().ast);
+		}
+		for (String statements : WARM_UP_STATEMENTS) {
+			parse(statements, p -> p.statements().lst);
+		}
+	}
+
+	/**
+	 Parse the text with the calling thread's lexer and parser. {@link PredictionMode#SLL} is tried first, which is faster and
+	 succeeds for almost all input. If it fails, the text is parsed again with {@link PredictionMode#LL} so that the result
+	 (or the syntax error) is the same as if only LL was used.
+
+	 @param rule parses the text with the given parser and returns the result
+	 @throws ParseCancellationException if the text couldn't be lexed or parsed
+	 @throws RecognitionException if the text couldn't be parsed
+	 */
+	@NotNull
+	private static <T> T parse(@NotNull String text, @NotNull Function<ExpressionParser, T> rule) {
+		ThreadParser threadParser = threadParsers.get();
+		try {
+			return rule.apply(threadParser.reset(text, PredictionMode.SLL, BAIL_STRATEGY));
+		} catch (ParseCancellationException e) {
+			//the text may be valid, but SLL isn't powerful enough for it, or the text has a syntax error
+			return rule.apply(threadParser.reset(text, PredictionMode.LL, ErrorStrategy.INSTANCE));
+		} finally {
+			threadParser.release();
+		}
+	}
+
+	/** A lexer and parser that are reused by one thread */
+	private static class ThreadParser {
+		private final ExpressionLexer lexer = new ExpressionLexer(null);
+		private final CommonTokenStream tokens = new CommonTokenStream(lexer);
+		private final ExpressionParser parser = new ExpressionParser(tokens);
+		/** Input given to the lexer by {@link #release()}. A stream keeps its position, so it isn't shared between threads. */
+		private final CharStream emptyInput = CharStreams.fromString("");
+
+		public ThreadParser() {
+			//prevent ANTLR printing to the console when the expression is invalid
+			lexer.getErrorListeners().clear();
+			parser.getErrorListeners().clear();
+
+			parser.addErrorListener(ErrorListener.INSTANCE);
+			lexer.addErrorListener(ErrorListener.INSTANCE);
+		}
+
+		@NotNull
+		public ExpressionParser reset(@NotNull String text, @NotNull PredictionMode mode, @NotNull ANTLRErrorStrategy errorStrategy) {
+			lexer.setInputStream(CharStreams.fromString(text));
+			tokens.setTokenSource(lexer);
+			parser.setTokenStream(tokens);
+			parser.getInterpreter().setPredictionMode(mode);
+			parser.setErrorHandler(errorStrategy);
+			return parser;
+		}
+
+		/** Drop references to the last parsed text */
+		public void release() {
+			lexer.setInputStream(emptyInput);
+			tokens.setTokenSource(lexer);
+			parser.setTokenStream(tokens);
+		}
+	}
 
 	private static class ErrorStrategy extends DefaultErrorStrategy {
 
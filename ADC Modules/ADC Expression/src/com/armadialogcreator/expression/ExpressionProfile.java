@@ -0,0 +1,130 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ What {@link ExpressionProfiler} recorded for one text, at the time {@link ExpressionProfiler#getProfiles()} was invoked.
+
+ @author K
+ @since 10/18/2026 */
+public class ExpressionProfile {
+	private final String text;
+	private final long count;
+	private final long reusedCount;
+	private final long errorCount;
+	private final long totalNanos;
+	private final long maxNanos;
+	/** Most recent run times, sorted */
+	private final long[] recentNanos;
+	private final long totalSteps;
+	private final long allocatedBytes;
+
+	ExpressionProfile(@NotNull String text, long count, long reusedCount, long errorCount, long totalNanos, long maxNanos,
+					  @NotNull long[] recentNanos, long totalSteps, long allocatedBytes) {
+		this.text = text;
+		this.count = count;
+		this.reusedCount = reusedCount;
+		this.errorCount = errorCount;
+		this.totalNanos = totalNanos;
+		this.maxNanos = maxNanos;
+		this.recentNanos = recentNanos;
+		this.totalSteps = totalSteps;
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	/** @return the expression or statements text */
+	@NotNull
+	public String getText() {
+		return text;
+	}
+
+	/** @return number of evaluations */
+	public long getCount() {
+		return count;
+	}
+
+	/** @return number of times {@link CompiledExpression} reused a previous result instead of evaluating */
+	public long getReusedCount() {
+		return reusedCount;
+	}
+
+	/** @return number of evaluations that threw an exception (including terminated evaluations) */
+	public long getErrorCount() {
+		return errorCount;
+	}
+
+	/** @return run time of all evaluations, in nanoseconds */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/** @return average run time of an evaluation in nanoseconds, or 0 if there were no evaluations */
+	public long getAverageNanos() {
+		return count == 0 ? 0 : totalNanos / count;
+	}
+
+	/** @return longest run time of an evaluation, in nanoseconds */
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	/**
+	 Get a percentile of the run times of the most recent {@link ExpressionProfiler#LATENCY_SAMPLES} evaluations.
+
+	 @param percentile from 0 to 100 (50 for the median)
+	 @return the run time in nanoseconds, or 0 if there were no evaluations
+	 */
+	public long getPercentileNanos(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("percentile must be from 0 to 100: " + percentile);
+		}
+		if (recentNanos.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(percentile / 100 * recentNanos.length) - 1;
+		return recentNanos[Math.max(0, index)];
+	}
+
+	/** @return number of steps taken by all evaluations */
+	public long getTotalSteps() {
+		return totalSteps;
+	}
+
+	/** @return average number of steps taken by an evaluation, or 0 if there were no evaluations */
+	public double getAverageSteps() {
+		return count == 0 ? 0 : totalSteps / (double) count;
+	}
+
+	/**
+	 @return about how many bytes were allocated by all evaluations, or -1 if the JVM can't measure it
+	 (see {@link ExpressionProfiler#isAllocationMeasured()})
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/** @return {@link #getAllocatedBytes()} / {@link #getCount()}, or -1 if not measured and 0 if there were no evaluations */
+	public long getAverageAllocatedBytes() {
+		if (allocatedBytes < 0) {
+			return -1;
+		}
+		return count == 0 ? 0 : allocatedBytes / count;
+	}
+
+	@Override
+	public String toString() {
+		return "ExpressionProfile{" +
+				"text='" + text + '\'' +
+				", count=" + count +
+				", reusedCount=" + reusedCount +
+				", errorCount=" + errorCount +
+				", totalNanos=" + totalNanos +
+				", averageNanos=" + getAverageNanos() +
+				", p50Nanos=" + getPercentileNanos(50) +
+				", p99Nanos=" + getPercentileNanos(99) +
+				", maxNanos=" + maxNanos +
+				", totalSteps=" + totalSteps +
+				", allocatedBytes=" + allocatedBytes +
+				'}';
+	}
+}
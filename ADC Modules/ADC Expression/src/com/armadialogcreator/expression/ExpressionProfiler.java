@@ -0,0 +1,180 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ Records how many times each expression (or statements) text is evaluated, how long the evaluations take, how many
+ steps (see {@link ExpressionEvaluator#getSteps()}) they take and about how many bytes they allocate.
+ Evaluations from {@link ExpressionInterpreter} and {@link CompiledExpression} are recorded, including the ones done for
+ {@link ExpressionBatch}.
+ <p>
+ The profiler is disabled by default. When it is disabled, an evaluation only checks {@link #isEnabled()}.
+ When enabled, each evaluation reads the clock and the thread's allocated bytes twice.
+ <p>
+ This class is thread-safe.
+
+ @author K
+ @since 10/18/2026 */
+public class ExpressionProfiler {
+	public static final ExpressionProfiler instance = new ExpressionProfiler();
+
+	/** Number of most recent run times kept for each text. Percentiles are computed from these. */
+	public static final int LATENCY_SAMPLES = 128;
+	/** Max number of texts profiled at once. Texts first evaluated after this many are recorded aren't recorded. */
+	public static final int MAX_TEXTS = 4096;
+
+	private volatile boolean enabled = false;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private ExpressionProfiler() {
+	}
+
+	/** @return true if evaluations are being recorded */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/** Start or stop recording evaluations. What was already recorded is kept. */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/** Remove everything that was recorded */
+	public void reset() {
+		entries.clear();
+	}
+
+	/** @return a snapshot of each recorded text, with the highest total run time first */
+	@NotNull
+	public List<ExpressionProfile> getProfiles() {
+		List<ExpressionProfile> profiles = new ArrayList<>(entries.size());
+		for (Map.Entry<String, Entry> e : entries.entrySet()) {
+			profiles.add(e.getValue().snapshot(e.getKey()));
+		}
+		profiles.sort((p1, p2) -> Long.compare(p2.getTotalNanos(), p1.getTotalNanos()));
+		return profiles;
+	}
+
+	/** @return true if {@link ExpressionProfile#getAllocatedBytes()} is measured on this JVM */
+	public static boolean isAllocationMeasured() {
+		return Allocation.bean != null;
+	}
+
+	/**
+	 Run the evaluation and record it for the text. Only invoke when {@link #isEnabled()} is true.
+
+	 @param evaluator the evaluator used by the evaluation, for reading the number of steps taken
+	 @return the evaluation's result
+	 */
+	@NotNull
+	Value profile(@NotNull String text, @NotNull ExpressionEvaluator evaluator, @NotNull Supplier<Value> evaluation) {
+		long bytes = Allocation.allocatedBytes();
+		long start = System.nanoTime();
+		boolean error = true;
+		try {
+			Value v = evaluation.get();
+			error = false;
+			return v;
+		} finally {
+			long nanos = System.nanoTime() - start;
+			long allocated = bytes < 0 ? -1 : Allocation.allocatedBytes() - bytes;
+			Entry entry = getEntry(text);
+			if (entry != null) {
+				entry.record(nanos, evaluator.getSteps(), allocated, error);
+			}
+		}
+	}
+
+	/** Record that a previous result was reused for the text instead of evaluating it. Only invoke when enabled. */
+	void reused(@NotNull String text) {
+		Entry entry = getEntry(text);
+		if (entry != null) {
+			entry.reused.increment();
+		}
+	}
+
+	private Entry getEntry(@NotNull String text) {
+		Entry entry = entries.get(text);
+		if (entry != null || entries.size() >= MAX_TEXTS) {
+			return entry;
+		}
+		return entries.computeIfAbsent(text, t -> new Entry());
+	}
+
+	private static class Entry {
+		final LongAdder count = new LongAdder();
+		final LongAdder reused = new LongAdder();
+		final LongAdder errors = new LongAdder();
+		final LongAdder totalNanos = new LongAdder();
+		final AtomicLong maxNanos = new AtomicLong();
+		final LongAdder steps = new LongAdder();
+		final LongAdder allocatedBytes = new LongAdder();
+		/** Ring of the most recent run times */
+		final AtomicLongArray samples = new AtomicLongArray(LATENCY_SAMPLES);
+		final AtomicLong sampleCount = new AtomicLong();
+
+		void record(long nanos, long steps, long allocated, boolean error) {
+			count.increment();
+			if (error) {
+				errors.increment();
+			}
+			totalNanos.add(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+			this.steps.add(steps);
+			if (allocated > 0) {
+				allocatedBytes.add(allocated);
+			}
+			samples.set((int) (sampleCount.getAndIncrement() % LATENCY_SAMPLES), nanos);
+		}
+
+		@NotNull
+		ExpressionProfile snapshot(@NotNull String text) {
+			long[] recent = new long[(int) Math.min(sampleCount.get(), LATENCY_SAMPLES)];
+			for (int i = 0; i < recent.length; i++) {
+				recent[i] = samples.get(i);
+			}
+			Arrays.sort(recent);
+			return new ExpressionProfile(
+					text, count.sum(), reused.sum(), errors.sum(), totalNanos.sum(), maxNanos.get(), recent, steps.sum(),
+					isAllocationMeasured() ? allocatedBytes.sum() : -1
+			);
+		}
+	}
+
+	/** Reads the current thread's allocated bytes, if the JVM supports it */
+	private static class Allocation {
+		static final com.sun.management.ThreadMXBean bean = getBean();
+
+		private static com.sun.management.ThreadMXBean getBean() {
+			try {
+				ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+				if (bean instanceof com.sun.management.ThreadMXBean) {
+					com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+					if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+						return sunBean;
+					}
+				}
+			} catch (LinkageError | RuntimeException ignore) {
+				//the management modules aren't available
+			}
+			return null;
+		}
+
+		/** @return bytes allocated by the current thread so far, or -1 if not supported */
+		static long allocatedBytes() {
+			return bean == null ? -1 : bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+	}
+}
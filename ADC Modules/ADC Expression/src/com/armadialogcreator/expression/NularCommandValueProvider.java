@@ -37,6 +37,18 @@ public interface NularCommandValueProvider {
 
 	@NotNull Value getResolution();
 
+	/**
+	 Get a number that changes whenever a value returned by this provider may have changed. {@link SimpleEnv} returns it
+	 as the version of {@link EnvDependencyGraph#NULAR_COMMANDS} so that {@link CompiledExpression} can reuse results that
+	 used nular commands. A version should also never be returned by a different provider, since an env's provider can be
+	 replaced.
+	 <p>
+	 Default implementation returns {@link Env#UNKNOWN_VERSION}, which means results that used nular commands aren't reused.
+	 */
+	default long _getVersion() {
+		return Env.UNKNOWN_VERSION;
+	}
+
 	/**
 	 A helper method for {@link #getResolution()}.
 
@@ -51,13 +63,6 @@ public interface NularCommandValueProvider {
 			double aspectRatio,
 			double uiScale
 	) {
-		return new Value.Array(
-				new Value.NumVal(width),
-				new Value.NumVal(height),
-				new Value.NumVal(viewportWidth),
-				new Value.NumVal(viewportHeight),
-				new Value.NumVal(aspectRatio),
-				new Value.NumVal(uiScale)
-		);
+		return new Value.DoubleArray(width, height, viewportWidth, viewportHeight, aspectRatio, uiScale);
 	}
 }
@@ -0,0 +1,195 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ An immutable list of {@link Value} stored in a tree where each node has {@link #WIDTH} children and the items are in the
+ leaves. The last leaf (the tail) is kept outside of the tree.
+ <p>
+ {@link #append(Value)} and {@link #appendAll(List)} return a new vector that shares every node of this vector except
+ the tail and the nodes on the path to the last leaf, so appending is O(log n) and the old vector stays the same.
+ {@link #get(int)} is also O(log n) (at most 4 levels for a million items). {@link #subList(int, int)} is a view and
+ creates no copy.
+ <p>
+ Mutating methods throw {@link UnsupportedOperationException}.
+
+ @author K
+ @since 10/18/2026 */
+final class PersistentVector extends AbstractList<Value> implements RandomAccess {
+	private static final int BITS = 5;
+	/** Number of children per node and max number of items in a leaf */
+	static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+	private static final Object[] EMPTY_ROOT = new Object[WIDTH];
+
+	static final PersistentVector EMPTY = new PersistentVector(0, BITS, EMPTY_ROOT, new Object[0]);
+
+	private final int size;
+	/** Bits to shift an index for the root's child index */
+	private final int shift;
+	/** Nodes are Object[]. Leaves are Object[] of {@link Value}. */
+	private final Object[] root;
+	/** Items after {@link #tailOffset()}. The array length is always the number of items in it. */
+	private final Object[] tail;
+
+	private PersistentVector(int size, int shift, @NotNull Object[] root, @NotNull Object[] tail) {
+		this.size = size;
+		this.shift = shift;
+		this.root = root;
+		this.tail = tail;
+	}
+
+	/** @return a vector with the given items, or the list itself if it is a {@link PersistentVector} */
+	@NotNull
+	static PersistentVector of(@NotNull List<? extends Value> items) {
+		if (items instanceof PersistentVector) {
+			return (PersistentVector) items;
+		}
+		return EMPTY.appendAll(items);
+	}
+
+	@Override
+	public Value get(int i) {
+		Objects.checkIndex(i, size);
+		return (Value) leafFor(i)[i & MASK];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/** @return a new vector with the item added to the end */
+	@NotNull
+	PersistentVector append(@NotNull Value v) {
+		int inTail = tail.length;
+		if (inTail < WIDTH) {
+			Object[] newTail = Arrays.copyOf(tail, inTail + 1);
+			newTail[inTail] = v;
+			return new PersistentVector(size + 1, shift, root, newTail);
+		}
+		return pushTail(new Object[]{v});
+	}
+
+	/** @return a new vector with the items added to the end */
+	@NotNull
+	PersistentVector appendAll(@NotNull List<? extends Value> items) {
+		int count = items.size();
+		if (count == 0) {
+			return this;
+		}
+		Iterator<? extends Value> iter = items.iterator();
+		//fill the tail first
+		int inTail = Math.min(WIDTH - tail.length, count);
+		Object[] newTail = Arrays.copyOf(tail, tail.length + inTail);
+		for (int i = tail.length; i < newTail.length; i++) {
+			newTail[i] = iter.next();
+		}
+		PersistentVector v = new PersistentVector(size + inTail, shift, root, newTail);
+		//then add the rest a leaf at a time
+		int left = count - inTail;
+		while (left > 0) {
+			Object[] leaf = new Object[Math.min(WIDTH, left)];
+			for (int i = 0; i < leaf.length; i++) {
+				leaf[i] = iter.next();
+			}
+			v = v.pushTail(leaf);
+			left -= leaf.length;
+		}
+		return v;
+	}
+
+	@NotNull
+	@Override
+	public Iterator<Value> iterator() {
+		return new Iterator<>() {
+			private int i = 0;
+			private Object[] leaf;
+
+			@Override
+			public boolean hasNext() {
+				return i < size;
+			}
+
+			@Override
+			public Value next() {
+				if (i >= size) {
+					throw new NoSuchElementException();
+				}
+				if ((i & MASK) == 0 || leaf == null) {
+					leaf = leafFor(i);
+				}
+				return (Value) leaf[i++ & MASK];
+			}
+		};
+	}
+
+	/** @return index of the first item in {@link #tail} */
+	private int tailOffset() {
+		return size - tail.length;
+	}
+
+	@NotNull
+	private Object[] leafFor(int i) {
+		if (i >= tailOffset()) {
+			return tail;
+		}
+		Object[] node = root;
+		for (int level = shift; level > 0; level -= BITS) {
+			node = (Object[]) node[(i >>> level) & MASK];
+		}
+		return node;
+	}
+
+	/**
+	 Only invoke when {@link #tail} is full.
+
+	 @return a new vector where the full tail was moved into the tree and the tail is <code>newTail</code>
+	 */
+	@NotNull
+	private PersistentVector pushTail(@NotNull Object[] newTail) {
+		Object[] newRoot;
+		int newShift = shift;
+		if ((size >>> BITS) > (1 << shift)) {
+			//the tree is full, so add a level
+			newRoot = new Object[WIDTH];
+			newRoot[0] = root;
+			newRoot[1] = newPath(shift, tail);
+			newShift += BITS;
+		} else {
+			newRoot = pushTail(shift, root, tail);
+		}
+		return new PersistentVector(size + newTail.length, newShift, newRoot, newTail);
+	}
+
+	@NotNull
+	private Object[] pushTail(int level, @NotNull Object[] parent, @NotNull Object[] leaf) {
+		int childIndex = ((size - 1) >>> level) & MASK;
+		Object[] copy = parent.clone();
+		if (level == BITS) {
+			copy[childIndex] = leaf;
+		} else {
+			Object[] child = (Object[]) parent[childIndex];
+			copy[childIndex] = child != null ? pushTail(level - BITS, child, leaf) : newPath(level - BITS, leaf);
+		}
+		return copy;
+	}
+
+	@NotNull
+	private static Object[] newPath(int level, @NotNull Object[] leaf) {
+		if (level == 0) {
+			return leaf;
+		}
+		Object[] node = new Object[WIDTH];
+		node[0] = newPath(level - BITS, leaf);
+		return node;
+	}
+}
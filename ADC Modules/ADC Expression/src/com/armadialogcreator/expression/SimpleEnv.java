@@ -11,13 +11,23 @@ import java.util.Map;
 /**
  A simple implementation of {@link Env} that allows for adding identifiers to the env and removing identifiers from the env.
  All identifiers case don't matter (i.e. AAA==aaa)
+ <p>
+ Versions ({@link #getVersion(String)}) are tracked for all identifiers put and removed with {@link #put(String, Value)} and
+ {@link #remove(String)}. Subclasses that change {@link #map} directly or whose values come from somewhere else should
+ invoke {@link #identifierChanged(String)} or override {@link #getVersion(String)}.
+ The version of {@link EnvDependencyGraph#NULAR_COMMANDS} is {@link NularCommandValueProvider#_getVersion()}.
+ If a {@link EnvDependencyGraph} is set, it is notified of those changes too.
 
  @author Kayler
  @since 07/15/2016. */
 public class SimpleEnv implements Env {
 	/** Map for identifiers to values */
 	protected final HashMap<String, Value> map = new HashMap<>();
+	/** Identifier (lower case) to its version. Identifiers that were never put or removed have version 0. */
+	private final HashMap<String, Long> versions = new HashMap<>();
+	private long nextVersion = 1;
 	private NularCommandValueProvider unaryCommandProvider;
+	private EnvDependencyGraph dependencyGraph;
 
 	public SimpleEnv() {
 
@@ -29,12 +39,47 @@ public class SimpleEnv implements Env {
 
 	@Override
 	public Value put(@NotNull String identifier, Value v) {
-		return map.put(identifier.toLowerCase(), v);
+		Value old = map.put(identifier.toLowerCase(), v);
+		identifierChanged(identifier);
+		return old;
 	}
 
 	@Override
 	public Value remove(@NotNull String identifier) {
-		return map.remove(identifier.toLowerCase());
+		Value old = map.remove(identifier.toLowerCase());
+		identifierChanged(identifier);
+		return old;
+	}
+
+	/**
+	 Change the version of the identifier and notify the {@link EnvDependencyGraph} (if set) without changing {@link #map}.
+	 For identifiers whose values don't come from {@link #map}.
+	 */
+	protected void identifierChanged(@NotNull String identifier) {
+		String key = identifier.toLowerCase();
+		versions.put(key, nextVersion++);
+		if (dependencyGraph != null) {
+			dependencyGraph.identifierChanged(key);
+		}
+	}
+
+	@Override
+	public long getVersion(@NotNull String identifier) {
+		if (identifier.equalsIgnoreCase(EnvDependencyGraph.NULAR_COMMANDS)) {
+			return unaryCommandProvider == null ? UNKNOWN_VERSION : unaryCommandProvider._getVersion();
+		}
+		return versions.getOrDefault(identifier.toLowerCase(), 0L);
+	}
+
+	/** Set the graph that is notified when identifiers are put or removed, or null to not notify a graph */
+	public void setDependencyGraph(@Nullable EnvDependencyGraph dependencyGraph) {
+		this.dependencyGraph = dependencyGraph;
+	}
+
+	@Override
+	@Nullable
+	public EnvDependencyGraph getDependencyGraph() {
+		return dependencyGraph;
 	}
 
 	public void setUnaryCommandProvider(@Nullable NularCommandValueProvider unaryCommandProvider) {
@@ -69,12 +69,37 @@ public interface Value {
 	}
 
 	class NumVal implements Value {
+		private static final int CACHE_LOW = -128;
+		private static final int CACHE_HIGH = 1024;
+		private static final NumVal[] cache = new NumVal[CACHE_HIGH - CACHE_LOW + 1];
+
+		static {
+			for (int i = 0; i < cache.length; i++) {
+				cache[i] = new NumVal(i + CACHE_LOW);
+			}
+		}
+
 		private final double val;
 
 		public NumVal(double v) {
 			val = v;
 		}
 
+		/**
+		 Get a {@link NumVal} for the given number. Whole numbers from -128 to 1024 (loop counters, indexes, counts, etc)
+		 are cached, so no instance is created for them. -0 isn't cached.
+
+		 @return a cached instance or a new instance
+		 */
+		@NotNull
+		public static NumVal of(double v) {
+			int i = (int) v;
+			if (i == v && i >= CACHE_LOW && i <= CACHE_HIGH && (i != 0 || Double.doubleToRawLongBits(v) == 0L)) {
+				return cache[i - CACHE_LOW];
+			}
+			return new NumVal(v);
+		}
+
 		@Override
 		public boolean equals(Object o) {
 			if (o == this) {
@@ -152,18 +177,31 @@ public interface Value {
 
 	/**
 	 An array with the underlying data being a list.
+	 <p>
+	 {@link #concat(Array)}, {@link #remove(Array)} and {@link #slice(int, int)} don't change the array. They return a new
+	 array that shares items with this one (see {@link PersistentVector}), so building an array by concatenating in a loop
+	 doesn't copy the whole array for each iteration. Shared items are copied the first time {@link #getItems()} is invoked
+	 on an array that shares them, so the returned list can always be changed.
 
 	 @author Kayler
 	 @since 5/24/2017
 	 */
 	class Array implements Value, Iterable<Value> {
-		private final List<Value> items;
+		private List<Value> items;
+		/** true if {@link #items} may be shared with another array or can't be changed, so {@link #getItems()} copies it */
+		private boolean shared;
 
 		/** Construct an array with the internal data equal to items */
 		public Array(@NotNull List<Value> items) {
 			this.items = items;
 		}
 
+		/** Construct an array with the internal data equal to items, which are copied by {@link #getItems()} if shared is true */
+		private Array(@NotNull List<Value> items, boolean shared) {
+			this.items = items;
+			this.shared = shared;
+		}
+
 		/** Construct an array with the internal data equal to items */
 		public Array(@NotNull Value... items) {
 			this.items = Arrays.asList(items);
@@ -174,11 +212,65 @@ public interface Value {
 			items = new ArrayList<>();
 		}
 
+		/**
+		 @return the internal data. If it is shared with another array (see {@link #concat(Array)} and {@link #slice(int, int)}),
+		 it is copied first, so changing the list never changes another array.
+		 */
 		@NotNull
 		public List<Value> getItems() {
+			if (shared) {
+				items = copyItems();
+				shared = false;
+			}
 			return items;
 		}
 
+		/** @return the internal data without copying it. The list must not be changed. */
+		@NotNull
+		List<Value> items() {
+			return items;
+		}
+
+		/** @return a new list with the items that {@link #getItems()} uses when the items are shared */
+		@NotNull
+		List<Value> copyItems() {
+			return new ArrayList<>(items);
+		}
+
+		/** @return a new array with the items of this array followed by the items of <code>other</code> */
+		@NotNull
+		public Array concat(@NotNull Array other) {
+			return new Array(PersistentVector.of(items).appendAll(other.items), true);
+		}
+
+		/** @return a new array with the items of this array that aren't equal to an item in <code>other</code> */
+		@NotNull
+		public Array remove(@NotNull Array other) {
+			List<Value> otherItems = other.items;
+			List<Value> kept = new ArrayList<>(items.size());
+			for (Value v : items) {
+				if (!otherItems.contains(v)) {
+					kept.add(v);
+				}
+			}
+			if (kept.size() == items.size()) {
+				return this;
+			}
+			return new Array(kept);
+		}
+
+		/**
+		 @param from first index (inclusive)
+		 @param to last index (exclusive)
+		 @return an array of the items in the given range. The items aren't copied, so both arrays copy them before
+		 {@link #getItems()} returns them.
+		 */
+		@NotNull
+		public Array slice(int from, int to) {
+			shared = true;
+			return new Array(items.subList(from, to), true);
+		}
+
 		@Override
 		public boolean equals(Object o) {
 			if (o == this) {
@@ -223,6 +315,116 @@ public interface Value {
 		}
 	}
 
+	/**
+	 An {@link Array} of numbers. The numbers are stored in a <code>double[]</code> instead of a list of {@link NumVal},
+	 so they can be read with {@link #getDouble(int)} without creating a {@link NumVal} for each one.
+	 <p>
+	 {@link #getItems()} is a view of the numbers and will create a {@link NumVal} (see {@link NumVal#of(double)}) for each
+	 item it returns. If something other than a {@link NumVal} is added to the list, the array will switch to storing
+	 {@link Value} instances and {@link #isNumeric()} will return false.
+	 <p>
+	 {@link #concat(Array)} only returns a {@link DoubleArray} if the result has at most {@link PersistentVector#WIDTH}
+	 numbers or the other array is at least as long as this one. Otherwise, the result is put in a {@link PersistentVector}
+	 so that appending in a loop doesn't copy every number each time. {@link #slice(int, int)} returns a {@link DoubleArray}
+	 that uses the same numbers until either array is changed.
+
+	 @author K
+	 @since 10/18/2026
+	 */
+	class DoubleArray extends Array {
+		/** Construct an array with the given numbers. The array isn't copied. */
+		public DoubleArray(@NotNull double... numbers) {
+			this(numbers, numbers.length);
+		}
+
+		/** Construct an array with the first <code>length</code> numbers of the given array. The array isn't copied. */
+		public DoubleArray(@NotNull double[] numbers, int length) {
+			super(new DoubleList(numbers, length));
+		}
+
+		private DoubleArray(@NotNull DoubleList list) {
+			super(list);
+		}
+
+		@NotNull
+		private DoubleList list() {
+			return (DoubleList) items();
+		}
+
+		@NotNull
+		@Override
+		public Array concat(@NotNull Array other) {
+			int length = length() + other.length();
+			boolean copy = length <= PersistentVector.WIDTH || other.length() >= length();
+			if (copy && isNumeric() && other instanceof DoubleArray && ((DoubleArray) other).isNumeric()) {
+				double[] numbers = new double[length];
+				for (int i = 0; i < length; i++) {
+					numbers[i] = i < length() ? getDouble(i) : ((DoubleArray) other).getDouble(i - length());
+				}
+				return new DoubleArray(numbers);
+			}
+			return super.concat(other);
+		}
+
+		@NotNull
+		@Override
+		public Array remove(@NotNull Array other) {
+			if (isNumeric() && other instanceof DoubleArray && ((DoubleArray) other).isNumeric()) {
+				DoubleArray kept = new DoubleArray(toDoubleArray());
+				return kept.list().removeAll(other.items()) ? kept : this;
+			}
+			return super.remove(other);
+		}
+
+		@NotNull
+		@Override
+		public Array slice(int from, int to) {
+			if (isNumeric()) {
+				return new DoubleArray(list().view(from, to));
+			}
+			return super.slice(from, to);
+		}
+
+		@NotNull
+		@Override
+		List<Value> copyItems() {
+			return list().copy();
+		}
+
+		/** @return true if every item is a number and is stored without a {@link NumVal} */
+		public boolean isNumeric() {
+			return list().isNumeric();
+		}
+
+		/**
+		 @return the number at the given index
+		 @throws ClassCastException if the item isn't a {@link NumVal}
+		 */
+		public double getDouble(int i) {
+			return list().getDouble(i);
+		}
+
+		/** @return a copy of the numbers */
+		@NotNull
+		public double[] toDoubleArray() {
+			return toDoubleArray(0, length());
+		}
+
+		/**
+		 @param from first index (inclusive)
+		 @param to last index (exclusive)
+		 @return a copy of the numbers in the given range
+		 */
+		@NotNull
+		public double[] toDoubleArray(int from, int to) {
+			double[] copy = new double[to - from];
+			for (int i = 0; i < copy.length; i++) {
+				copy[i] = getDouble(from + i);
+			}
+			return copy;
+		}
+	}
+
 	/** Only instance of {@link Void} */
 	Void Void = new Void();
 
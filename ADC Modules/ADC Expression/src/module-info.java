@@ -7,6 +7,9 @@ module ADC.Expression {
 
 	requires annotations;
 	requires antlr4.runtime;
+	requires java.management;
+	//only for measuring allocations in ExpressionProfiler, which is skipped if the module isn't there
+	requires static jdk.management;
 
 	exports com.armadialogcreator.expression;
 }
\ No newline at end of file
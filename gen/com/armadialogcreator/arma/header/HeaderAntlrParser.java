@@ -89,6 +89,10 @@ public class HeaderAntlrParser extends Parser {
 	@Override
 	public ATN getATN() { return _ATN; }
 
+
+		/** Identifiers and values are interned in this table so that each distinct text is only stored once per parse */
+		HeaderSymbolTable symbols = new HeaderSymbolTable();
+
 	public HeaderAntlrParser(TokenStream input) {
 		super(input);
 		_interp = new ParserATNSimulator(this,_ATN,_decisionToDFA,_sharedContextCache);
@@ -210,7 +214,7 @@ public class HeaderAntlrParser extends Parser {
 				match(Colon);
 				setState(27);
 				((Header_classContext)_localctx).ex = match(Identifier);
-				((Header_classContext)_localctx).extendText =  (((Header_classContext)_localctx).ex!=null?((Header_classContext)_localctx).ex.getText():null);
+				((Header_classContext)_localctx).extendText =  symbols.intern((((Header_classContext)_localctx).ex!=null?((Header_classContext)_localctx).ex.getText():null));
 				}
 			}
 
@@ -243,8 +247,9 @@ public class HeaderAntlrParser extends Parser {
 			setState(41);
 			match(Semicolon);
 
-			        _localctx.ast.setClassName((((Header_classContext)_localctx).cn!=null?((Header_classContext)_localctx).cn.getText():null));
+			        _localctx.ast.setClassName(symbols.intern((((Header_classContext)_localctx).cn!=null?((Header_classContext)_localctx).cn.getText():null)));
 			        _localctx.ast.setExtendClassName(_localctx.extendText);
+			        _localctx.ast.trimToSize();
 			    
 			}
 		}
@@ -361,7 +366,7 @@ public class HeaderAntlrParser extends Parser {
 				match(Equal);
 				setState(57);
 				match(Semicolon);
-				 ((AssignmentContext)_localctx).ast =  new AST.HeaderAssignmentNode((((AssignmentContext)_localctx).varName!=null?((AssignmentContext)_localctx).varName.getText():null), null); 
+				 ((AssignmentContext)_localctx).ast =  new AST.HeaderAssignmentNode(symbols.intern((((AssignmentContext)_localctx).varName!=null?((AssignmentContext)_localctx).varName.getText():null)), null); 
 				}
 				break;
 			case 2:
@@ -375,7 +380,7 @@ public class HeaderAntlrParser extends Parser {
 				((AssignmentContext)_localctx).val = value();
 				setState(62);
 				match(Semicolon);
-				 ((AssignmentContext)_localctx).ast =  new AST.HeaderAssignmentNode((((AssignmentContext)_localctx).varName!=null?((AssignmentContext)_localctx).varName.getText():null), ((AssignmentContext)_localctx).val.ast); 
+				 ((AssignmentContext)_localctx).ast =  new AST.HeaderAssignmentNode(symbols.intern((((AssignmentContext)_localctx).varName!=null?((AssignmentContext)_localctx).varName.getText():null)), ((AssignmentContext)_localctx).val.ast); 
 				}
 				break;
 			}
@@ -436,7 +441,7 @@ public class HeaderAntlrParser extends Parser {
 			((Arr_assignmentContext)_localctx).val = array();
 			setState(71);
 			match(Semicolon);
-			 ((Arr_assignmentContext)_localctx).ast =  new AST.HeaderArrayAssignmentNode((((Arr_assignmentContext)_localctx).varName!=null?((Arr_assignmentContext)_localctx).varName.getText():null), ((Arr_assignmentContext)_localctx).val.ast, (((Arr_assignmentContext)_localctx).eq!=null?((Arr_assignmentContext)_localctx).eq.getText():null).equals("+=")); 
+			 ((Arr_assignmentContext)_localctx).ast =  new AST.HeaderArrayAssignmentNode(symbols.intern((((Arr_assignmentContext)_localctx).varName!=null?((Arr_assignmentContext)_localctx).varName.getText():null)), ((Arr_assignmentContext)_localctx).val.ast, (((Arr_assignmentContext)_localctx).eq!=null?((Arr_assignmentContext)_localctx).eq.getText():null).equals("+=")); 
 			}
 		}
 		catch (RecognitionException re) {
@@ -562,7 +567,7 @@ public class HeaderAntlrParser extends Parser {
 				{
 				setState(88);
 				((Array_helperContext)_localctx).v = value();
-				 _localctx.items.add(new AST.HeaderArrayItemNode(((Array_helperContext)_localctx).v.ast)); 
+				 _localctx.items.add(((Array_helperContext)_localctx).v.ast); 
 				}
 				break;
 			case LBrace:
@@ -614,7 +619,7 @@ public class HeaderAntlrParser extends Parser {
 				{
 				setState(96);
 				((ValueContext)_localctx).s = match(String);
-				 ((ValueContext)_localctx).ast =  new AST.HeaderValueNode((((ValueContext)_localctx).s!=null?((ValueContext)_localctx).s.getText():null)); 
+				 ((ValueContext)_localctx).ast =  new AST.HeaderValueNode(symbols.intern((((ValueContext)_localctx).s!=null?((ValueContext)_localctx).s.getText():null))); 
 				}
 				break;
 			case 2:
@@ -622,7 +627,7 @@ public class HeaderAntlrParser extends Parser {
 				{
 				setState(98);
 				((ValueContext)_localctx).eq = equation();
-				 ((ValueContext)_localctx).ast =  new AST.HeaderValueNode((((ValueContext)_localctx).eq!=null?_input.getText(((ValueContext)_localctx).eq.start,((ValueContext)_localctx).eq.stop):null)); 
+				 ((ValueContext)_localctx).ast =  new AST.HeaderValueNode(symbols.intern((((ValueContext)_localctx).eq!=null?_input.getText(((ValueContext)_localctx).eq.start,((ValueContext)_localctx).eq.stop):null))); 
 				}
 				break;
 			}
@@ -2,6 +2,7 @@ package com.armadialogcreator;
 
 import com.armadialogcreator.application.ApplicationManager;
 import com.armadialogcreator.application.ApplicationStateSubscriber;
+import com.armadialogcreator.expression.ExpressionInterpreter;
 import com.armadialogcreator.gui.main.ADCWindow;
 import com.armadialogcreator.gui.main.AskSaveProjectDialog;
 import com.armadialogcreator.img.icons.ADCIcons;
@@ -106,6 +107,8 @@ public final class ArmaDialogCreator extends Application implements ApplicationS
 	@Override
 	public void init() throws Exception {
 		ApplicationManager.instance.initializeADC();
+		//fill the expression parser's DFA cache before the first project is loaded
+		ExpressionInterpreter.warmUp();
 
 		Thread t = new Thread(() -> {
 			int progress = 0;
@@ -4,6 +4,7 @@ import com.armadialogcreator.util.IndentedStringBuilder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -32,6 +33,8 @@ interface AST {
 	}
 
 	class HeaderAssignmentNode extends ASTNode implements HeaderAssignment {
+		/** Used for all assignments without a value (<code>x = ;</code>) */
+		private static final HeaderValue EMPTY_VALUE = new BasicHeaderValue("\"\"");
 
 		private final String varName;
 		private final HeaderValue value;
@@ -39,7 +42,7 @@ interface AST {
 		public HeaderAssignmentNode(@NotNull String varName, @Nullable HeaderValue value) {
 			this.varName = varName;
 			if (value == null) {
-				this.value = new BasicHeaderValue("\"\"");
+				this.value = EMPTY_VALUE;
 			} else {
 				this.value = value;
 			}
@@ -103,6 +106,10 @@ interface AST {
 		private final List<HeaderArrayItem> items;
 
 		public HeaderArrayNode(List<HeaderArrayItem> items) {
+			if (items instanceof ArrayList) {
+				//the array is done being parsed
+				((ArrayList<?>) items).trimToSize();
+			}
 			this.items = items;
 		}
 
@@ -169,6 +176,12 @@ interface AST {
 			this.extendClassName = extendClassName;
 		}
 
+		/** Invoked by the parsers once the class is done being parsed so that its lists don't use more memory than needed */
+		public void trimToSize() {
+			assignments.trimToSize();
+			nestedClasses.trimToSize();
+		}
+
 		@NotNull
 		@Override
 		public HeaderAssignmentList getAssignments() {
@@ -211,7 +224,11 @@ interface AST {
 		}
 	}
 
-	class HeaderValueNode extends ASTNode implements HeaderValue {
+	/**
+	 A value that is also its own array item (the same way {@link HeaderArray} is),
+	 so that array items don't need a {@link HeaderArrayItemNode} wrapper.
+	 */
+	class HeaderValueNode extends ASTNode implements HeaderValue, HeaderArrayItem {
 
 		private final String content;
 
@@ -225,9 +242,21 @@ interface AST {
 			return content;
 		}
 
+		@Override
+		@NotNull
+		public HeaderValue getValue() {
+			return this;
+		}
+
 		@Override
 		public boolean equals(Object o) {
-			return o == this || o instanceof HeaderValue && this.equalsValue((HeaderValue) o);
+			if (o == this) {
+				return true;
+			}
+			if (o instanceof HeaderValue) {
+				return this.equalsValue((HeaderValue) o);
+			}
+			return o instanceof HeaderArrayItem && this.arrayItemEquals((HeaderArrayItem) o);
 		}
 	}
 }
@@ -78,6 +78,11 @@ public class DefineMacroContent implements HeaderMacroContent {
 			return false;
 		}
 
+		@Override
+		public int hashCode() {
+			return 31 * Arrays.hashCode(params) + text.hashCode();
+		}
+
 		@Override
 		public String toString() {
 			return "ParameterDefineValue{" +
@@ -113,6 +118,11 @@ public class DefineMacroContent implements HeaderMacroContent {
 			return false;
 		}
 
+		@Override
+		public int hashCode() {
+			return text.hashCode();
+		}
+
 		@Override
 		public String toString() {
 			return "StringDefineValue{" +
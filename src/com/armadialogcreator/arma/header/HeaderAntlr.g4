@@ -3,6 +3,11 @@
 
 grammar HeaderAntlr;
 
+@members {
+	/** Identifiers and values are interned in this table so that each distinct text is only stored once per parse */
+	HeaderSymbolTable symbols = new HeaderSymbolTable();
+}
+
 root_class[HeaderFile file] returns [AST.HeaderClassNode ast] locals[ArrayList<HeaderClass> nested, ArrayList<HeaderAssignment> assigns, String extendText]
     @init{
         $nested = new ArrayList<>();
@@ -22,7 +27,7 @@ header_class[HeaderClass parentClass] returns [AST.HeaderClassNode ast] locals[A
         $ast = new AST.HeaderClassNode($parentClass, $assigns, $nested);
     }
     :
-    Class cn=Identifier (Colon ex=Identifier {$extendText = $ex.text;})?
+    Class cn=Identifier (Colon ex=Identifier {$extendText = symbols.intern($ex.text);})?
     (
         LBrace
         (
@@ -32,8 +37,9 @@ header_class[HeaderClass parentClass] returns [AST.HeaderClassNode ast] locals[A
     )?
     Semicolon
     {
-        $ast.setClassName($cn.text);
+        $ast.setClassName(symbols.intern($cn.text));
         $ast.setExtendClassName($extendText);
+        $ast.trimToSize();
     }
     ;
 
@@ -45,13 +51,13 @@ header_class_helper[HeaderClass parentClass, ArrayList<HeaderClass> nested, Arra
 
 
 assignment returns [AST.HeaderAssignmentNode ast]:
-    varName=Identifier Equal Semicolon { $ast = new AST.HeaderAssignmentNode($varName.text, null); }
-    | varName=Identifier Equal val=value Semicolon { $ast = new AST.HeaderAssignmentNode($varName.text, $val.ast); }
+    varName=Identifier Equal Semicolon { $ast = new AST.HeaderAssignmentNode(symbols.intern($varName.text), null); }
+    | varName=Identifier Equal val=value Semicolon { $ast = new AST.HeaderAssignmentNode(symbols.intern($varName.text), $val.ast); }
     ;
 
 arr_assignment returns [AST.HeaderArrayAssignmentNode ast]:
     varName=Identifier BacketPair eq=(PlusEqual | Equal) val=array Semicolon
-    { $ast = new AST.HeaderArrayAssignmentNode($varName.text, $val.ast, $eq.text.equals("+=")); }
+    { $ast = new AST.HeaderArrayAssignmentNode(symbols.intern($varName.text), $val.ast, $eq.text.equals("+=")); }
     ;
 
 array returns [AST.HeaderArrayNode ast] locals[ArrayList<HeaderArrayItem> items] @init{ $items = new ArrayList<>(); }:
@@ -64,13 +70,13 @@ array returns [AST.HeaderArrayNode ast] locals[ArrayList<HeaderArrayItem> items]
     ;
 
 array_helper [ArrayList<HeaderArrayItem> items]:
-    v=value  { $items.add(new AST.HeaderArrayItemNode($v.ast)); }
+    v=value  { $items.add($v.ast); }
     | a=array { $items.add($a.ast); }
     ;
 
 value returns [AST.HeaderValueNode ast]:
-    s=String { $ast = new AST.HeaderValueNode($s.text); }
-    | eq=equation { $ast = new AST.HeaderValueNode($eq.text); }
+    s=String { $ast = new AST.HeaderValueNode(symbols.intern($s.text)); }
+    | eq=equation { $ast = new AST.HeaderValueNode(symbols.intern($eq.text)); }
     ;
 
 //match as much as possible. Don't worry about correctness because it will be dealt with later.
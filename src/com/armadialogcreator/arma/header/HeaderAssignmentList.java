@@ -3,6 +3,7 @@ package com.armadialogcreator.arma.header;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -11,13 +12,47 @@ import java.util.List;
  @since 04/30/2017 */
 public class HeaderAssignmentList implements Iterable<HeaderAssignment> {
 	private final List<HeaderAssignment> assignList;
+	/** Built via {@link #buildIndex()}. If null, lookups are a linear search. */
+	private HeaderNameIndex<HeaderAssignment> caseSensitiveIndex, caseInsensitiveIndex;
 
 	public HeaderAssignmentList(@NotNull List<HeaderAssignment> assignmentList) {
 		this.assignList = assignmentList;
 	}
 
+	/** Invoked once the underlying list won't change anymore so that it doesn't use more memory than needed */
+	void trimToSize() {
+		if (assignList instanceof ArrayList) {
+			((ArrayList<?>) assignList).trimToSize();
+		}
+	}
+
+	/**
+	 Index the assignments by variable name so that {@link #getByVarName(String, boolean)} doesn't need to search the list.
+	 This should only be invoked once the underlying list won't change anymore (after parsing is done).
+	 */
+	void buildIndex() {
+		if (assignList.size() < HeaderNameIndex.MIN_INDEXED_SIZE) {
+			//a linear search is about as fast, and doesn't use any memory
+			this.caseSensitiveIndex = null;
+			this.caseInsensitiveIndex = null;
+			return;
+		}
+		HeaderNameIndex<HeaderAssignment> sensitive = new HeaderNameIndex<>(true, assignList.size());
+		HeaderNameIndex<HeaderAssignment> insensitive = new HeaderNameIndex<>(false, assignList.size());
+		for (HeaderAssignment ha : assignList) {
+			sensitive.putIfAbsent(ha.getVariableName(), ha);
+			insensitive.putIfAbsent(ha.getVariableName(), ha);
+		}
+		this.caseSensitiveIndex = sensitive;
+		this.caseInsensitiveIndex = insensitive;
+	}
+
 	@Nullable
 	public HeaderAssignment getByVarName(@NotNull String varName, boolean caseSensitive) {
+		HeaderNameIndex<HeaderAssignment> index = caseSensitive ? caseSensitiveIndex : caseInsensitiveIndex;
+		if (index != null) {
+			return index.get(varName);
+		}
 		for (HeaderAssignment ha : assignList) {
 			if (caseSensitive) {
 				if (ha.getVariableName().equals(varName)) {
@@ -0,0 +1,197 @@
+package com.armadialogcreator.arma.header;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ Preprocesses and parses many independent root header files at once with {@link HeaderParser#parse(HeaderFileTextProvider, File, HeaderParser.Backend)}.
+ Each file gets its own {@link HeaderParser} and {@link Preprocessor}, so macros defined in one file never leak into another.
+ Files that are #include'd by more than one root file are shared through the {@link HeaderIncludeCache}, which only hands out
+ results that nothing can modify.
+ <p>
+ The files are parsed on a bounded thread pool and each {@link FileResult} is given to a {@link Listener} as soon
+ as its file is done. The listener is always invoked on the thread that invoked {@link #parseAll(List, Listener)}.
+
+ @author K
+ @since 10/18/2026 */
+public class HeaderBatchParser {
+	private final File tempDirectory;
+	private int threadCount = Math.max(1, Runtime.getRuntime().availableProcessors());
+	private HeaderParser.Backend backend = HeaderParser.getDefaultBackend();
+
+	/**
+	 @param tempDirectory directory used for temporary files. Files with the same name get their own sub directory.
+	 */
+	public HeaderBatchParser(@NotNull File tempDirectory) {
+		this.tempDirectory = tempDirectory;
+	}
+
+	/** @return max number of files that are parsed at the same time. Default is the number of available processors. */
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	/** @param threadCount max number of files that are parsed at the same time */
+	public void setThreadCount(int threadCount) {
+		if (threadCount <= 0) {
+			throw new IllegalArgumentException("threadCount must be > 0");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/** @return the {@link HeaderParser.Backend} used for each file. Default is {@link HeaderParser#getDefaultBackend()} */
+	@NotNull
+	public HeaderParser.Backend getBackend() {
+		return backend;
+	}
+
+	/** @param backend the {@link HeaderParser.Backend} used for each file */
+	public void setBackend(@NotNull HeaderParser.Backend backend) {
+		this.backend = backend;
+	}
+
+	/**
+	 Parse all of the given files. A file that couldn't be parsed doesn't stop the other files from being parsed.
+
+	 @param files root files to parse
+	 @param listener invoked for each file as it finishes (in the order they finish), or null
+	 @return a result for each file, in the same order as <code>files</code>
+	 @throws InterruptedException when the calling thread was interrupted. Files that haven't finished are cancelled.
+	 */
+	@NotNull
+	public List<FileResult> parseAll(@NotNull List<File> files, @Nullable Listener listener) throws InterruptedException {
+		FileResult[] results = new FileResult[files.size()];
+		if (files.isEmpty()) {
+			return Collections.emptyList();
+		}
+		ExecutorService threadPool = Executors.newFixedThreadPool(Math.min(threadCount, files.size()), r -> {
+			Thread t = new Thread(r, "HeaderBatchParser");
+			t.setDaemon(true);
+			return t;
+		});
+		try {
+			CompletionService<FileResult> completionService = new ExecutorCompletionService<>(threadPool);
+			Map<String, Integer> fileNameCounts = new HashMap<>();
+			for (int i = 0; i < files.size(); i++) {
+				File file = files.get(i);
+				//preprocessed results can be written to the temp directory by file name, so don't let files with the same name collide
+				int sameNameCount = fileNameCounts.merge(file.getName(), 1, Integer::sum) - 1;
+				File fileTempDirectory = sameNameCount == 0 ? tempDirectory : new File(tempDirectory, "batch" + sameNameCount);
+				final int index = i;
+				completionService.submit(() -> parseFile(index, file, fileTempDirectory));
+			}
+			for (int i = 0; i < results.length; i++) {
+				FileResult result;
+				try {
+					result = completionService.take().get();
+				} catch (ExecutionException e) {
+					//parseFile catches everything
+					throw new IllegalStateException(e.getCause());
+				}
+				results[result.getIndex()] = result;
+				if (listener != null) {
+					listener.fileParsed(result);
+				}
+			}
+		} finally {
+			threadPool.shutdownNow();
+		}
+		return Arrays.asList(results);
+	}
+
+	@NotNull
+	private FileResult parseFile(int index, @NotNull File file, @NotNull File fileTempDirectory) {
+		long start = System.nanoTime();
+		try {
+			HeaderParseResult result = HeaderParser.parse(HeaderFileTextProvider.forFile(file), fileTempDirectory, backend);
+			return new FileResult(index, file, result, null, System.nanoTime() - start);
+		} catch (Exception e) {
+			return new FileResult(index, file, null, e, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 Receives results from {@link HeaderBatchParser#parseAll(List, Listener)}
+
+	 @author K
+	 @since 10/18/2026 */
+	public interface Listener {
+		/**
+		 Invoked when a file has been parsed, or failed to parse
+
+		 @param result the result
+		 */
+		void fileParsed(@NotNull FileResult result);
+	}
+
+	/**
+	 The result of parsing one file in {@link HeaderBatchParser#parseAll(List, Listener)}
+
+	 @author K
+	 @since 10/18/2026 */
+	public static class FileResult {
+		private final int index;
+		private final File file;
+		private final HeaderParseResult result;
+		private final Exception error;
+		private final long parseTimeNanos;
+
+		private FileResult(int index, @NotNull File file, @Nullable HeaderParseResult result, @Nullable Exception error, long parseTimeNanos) {
+			this.index = index;
+			this.file = file;
+			this.result = result;
+			this.error = error;
+			this.parseTimeNanos = parseTimeNanos;
+		}
+
+		/** @return the index of the file in the list given to {@link HeaderBatchParser#parseAll(List, Listener)} */
+		public int getIndex() {
+			return index;
+		}
+
+		/** @return the root file that was parsed */
+		@NotNull
+		public File getFile() {
+			return file;
+		}
+
+		/** @return the result, or null if the file couldn't be parsed */
+		@Nullable
+		public HeaderParseResult getResult() {
+			return result;
+		}
+
+		/**
+		 @return the reason the file couldn't be parsed (usually a {@link HeaderParseException} or {@link java.io.IOException}),
+		 or null if it was parsed
+		 */
+		@Nullable
+		public Exception getError() {
+			return error;
+		}
+
+		/** @return true if the file was parsed */
+		public boolean isSuccess() {
+			return result != null;
+		}
+
+		/** @return nanoseconds it took to preprocess and parse the file (not including time waiting for a thread) */
+		public long getParseTimeNanos() {
+			return parseTimeNanos;
+		}
+
+		/** @return milliseconds it took to preprocess and parse the file (not including time waiting for a thread) */
+		public long getParseTimeMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(parseTimeNanos);
+		}
+
+		@Override
+		public String toString() {
+			return file.getName() + " (" + getParseTimeMillis() + "ms" + (error == null ? "" : ", " + error) + ")";
+		}
+	}
+}
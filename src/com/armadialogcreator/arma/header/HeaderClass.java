@@ -41,13 +41,7 @@ public interface HeaderClass extends HeaderItem {
 	 */
 	@NotNull
 	default List<HeaderAssignment> getAssignmentsIncludingInherited(boolean caseSensitive, @NotNull List<HeaderAssignment> addTo) {
-		for (HeaderAssignment assignment : getAssignments()) {
-			addTo.add(assignment);
-		}
-		HeaderClass extendClass = getOwnerFile().getExtendClass(this, caseSensitive);
-		if (extendClass != null) {
-			extendClass.getAssignmentsIncludingInherited(caseSensitive, addTo);
-		}
+		addTo.addAll(getOwnerFile().getAssignmentsIncludingInherited(this, caseSensitive));
 		return addTo;
 	}
 
@@ -74,13 +68,7 @@ public interface HeaderClass extends HeaderItem {
 	 */
 	@NotNull
 	default List<HeaderClass> getNestedClassesIncludingInherited(boolean caseSensitive, @NotNull List<HeaderClass> addTo) {
-		for (HeaderClass headerClass : getNestedClasses()) {
-			addTo.add(headerClass);
-		}
-		HeaderClass extendClass = getOwnerFile().getExtendClass(this, caseSensitive);
-		if (extendClass != null) {
-			extendClass.getNestedClassesIncludingInherited(caseSensitive, addTo);
-		}
+		addTo.addAll(getOwnerFile().getNestedClassesIncludingInherited(this, caseSensitive));
 		return addTo;
 	}
 
@@ -3,6 +3,7 @@ package com.armadialogcreator.arma.header;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -15,6 +16,8 @@ import java.util.List;
 public class HeaderClassList implements Iterable<HeaderClass> {
 	private HeaderClass ownerClass;
 	private final List<HeaderClass> classList;
+	/** Built via {@link #buildIndex()}. If null, lookups are a linear search. */
+	private HeaderNameIndex<HeaderClass> caseSensitiveIndex, caseInsensitiveIndex;
 
 	/**
 	 Create a immutable list of {@link HeaderClass} instances (the underlying list is not copied)
@@ -57,6 +60,10 @@ public class HeaderClassList implements Iterable<HeaderClass> {
 	 */
 	@Nullable
 	public HeaderClass getByName(@NotNull String className, boolean caseSensitive) {
+		HeaderNameIndex<HeaderClass> index = caseSensitive ? caseSensitiveIndex : caseInsensitiveIndex;
+		if (index != null) {
+			return index.get(className);
+		}
 		for (HeaderClass hc : classList) {
 			if (hc.classNameEquals(className, caseSensitive)) {
 				return hc;
@@ -65,6 +72,34 @@ public class HeaderClassList implements Iterable<HeaderClass> {
 		return null;
 	}
 
+	/** Invoked once the underlying list won't change anymore so that it doesn't use more memory than needed */
+	void trimToSize() {
+		if (classList instanceof ArrayList) {
+			((ArrayList<?>) classList).trimToSize();
+		}
+	}
+
+	/**
+	 Index the classes by name so that {@link #getByName(String, boolean)} doesn't need to search the list.
+	 This should only be invoked once the underlying list won't change anymore (after parsing is done).
+	 */
+	void buildIndex() {
+		if (classList.size() < HeaderNameIndex.MIN_INDEXED_SIZE) {
+			//a linear search is about as fast, and doesn't use any memory
+			this.caseSensitiveIndex = null;
+			this.caseInsensitiveIndex = null;
+			return;
+		}
+		HeaderNameIndex<HeaderClass> sensitive = new HeaderNameIndex<>(true, classList.size());
+		HeaderNameIndex<HeaderClass> insensitive = new HeaderNameIndex<>(false, classList.size());
+		for (HeaderClass hc : classList) {
+			sensitive.putIfAbsent(hc.getClassName(), hc);
+			insensitive.putIfAbsent(hc.getClassName(), hc);
+		}
+		this.caseSensitiveIndex = sensitive;
+		this.caseInsensitiveIndex = insensitive;
+	}
+
 	/**
 	 Finds a {@link HeaderClass} by iteratively searching through descendant {@link HeaderClassList} instances.
 	 Searching is done iterative calls to {@link #getByName(String, boolean)}
@@ -5,9 +5,7 @@ import com.armadialogcreator.util.SGAS;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 import java.util.function.Function;
 
 /**
@@ -16,11 +14,12 @@ import java.util.function.Function;
  @since 03/19/2017 */
 public class HeaderFile {
 	private final String filePath;
-	private final List<HeaderAssignment> assignmentsMutable = new LinkedList<>();
+	private final List<HeaderAssignment> assignmentsMutable = new ArrayList<>();
 	private final HeaderAssignmentList assignments = new HeaderAssignmentList(assignmentsMutable);
-	private final List<HeaderClass> classesMutable = new LinkedList<>();
+	private final List<HeaderClass> classesMutable = new ArrayList<>();
 	private final HeaderClassList classes = new HeaderClassList(null, classesMutable);
-	private final HashMap<HeaderClass, HeaderClass> inheritanceHelper = new HashMap<>();
+	private final InheritanceTable caseSensitiveTable = new InheritanceTable(true);
+	private final InheritanceTable caseInsensitiveTable = new InheritanceTable(false);
 
 	protected HeaderFile(@NotNull String filePath) {
 		this.filePath = filePath;
@@ -100,20 +99,12 @@ public class HeaderFile {
 		if (start.getOwnerFile() != this) {
 			throw new IllegalArgumentException("start is not a member of this file");
 		}
-		HeaderClass cursor = start;
-		while (true) {
-			HeaderAssignment a = cursor.getAssignments().getByVarName(varName, caseSensitive);
-			if (a != null) {
-				return a;
-			}
-
-			HeaderClass extendClass = getInherited(cursor, caseSensitive);
-
-			if (extendClass == null) {
-				return null;
-			}
-
-			cursor = extendClass;
+		InheritanceTable table = getTable(caseSensitive);
+		try {
+			return resolve(start, table, table.assignments, HeaderClass::getAssignments, HeaderAssignment::getVariableName).get(varName);
+		} catch (HeaderClassNotFoundException e) {
+			//the assignment may still exist before the missing class in the inheritance chain
+			return searchChain(start, table, hc -> hc.getAssignments().getByVarName(varName, caseSensitive));
 		}
 	}
 
@@ -132,20 +123,12 @@ public class HeaderFile {
 		if (start.getOwnerFile() != this) {
 			throw new IllegalArgumentException("start is not a member of this file");
 		}
-		HeaderClass cursor = start;
-		while (true) {
-			HeaderClass hc = cursor.getNestedClasses().getByName(className, caseSensitive);
-			if (hc != null) {
-				return hc;
-			}
-
-			HeaderClass extendClass = getInherited(cursor, caseSensitive);
-
-			if (extendClass == null) {
-				return null;
-			}
-
-			cursor = extendClass;
+		InheritanceTable table = getTable(caseSensitive);
+		try {
+			return resolve(start, table, table.nestedClasses, HeaderClass::getNestedClasses, HeaderClass::getClassName).get(className);
+		} catch (HeaderClassNotFoundException e) {
+			//the class may still exist before the missing class in the inheritance chain
+			return searchChain(start, table, hc -> hc.getNestedClasses().getByName(className, caseSensitive));
 		}
 	}
 
@@ -161,40 +144,216 @@ public class HeaderFile {
 		if (headerClass.getOwnerFile() != this) {
 			throw new IllegalArgumentException("headerClass is not a member of this file");
 		}
-		return getInherited(headerClass, caseSensitive);
+		return getInherited(headerClass, getTable(caseSensitive));
+	}
+
+	/**
+	 @return the assignments of <code>headerClass</code> followed by all inherited assignments. The list is cached and can't be modified.
+	 @see HeaderClass#getAssignmentsIncludingInherited(boolean)
+	 */
+	@NotNull
+	List<HeaderAssignment> getAssignmentsIncludingInherited(@NotNull HeaderClass headerClass, boolean caseSensitive) {
+		if (headerClass.getOwnerFile() != this) {
+			throw new IllegalArgumentException("headerClass is not a member of this file");
+		}
+		InheritanceTable table = getTable(caseSensitive);
+		return resolveList(headerClass, table, table.assignmentLists, HeaderClass::getAssignments);
+	}
+
+	/**
+	 @return the nested classes of <code>headerClass</code> followed by all inherited nested classes. The list is cached and can't be modified.
+	 @see HeaderClass#getNestedClassesIncludingInherited(boolean)
+	 */
+	@NotNull
+	List<HeaderClass> getNestedClassesIncludingInherited(@NotNull HeaderClass headerClass, boolean caseSensitive) {
+		if (headerClass.getOwnerFile() != this) {
+			throw new IllegalArgumentException("headerClass is not a member of this file");
+		}
+		InheritanceTable table = getTable(caseSensitive);
+		return resolveList(headerClass, table, table.nestedClassLists, HeaderClass::getNestedClasses);
+	}
+
+	/**
+	 Index the assignments and nested classes of every class in the file by name.
+	 This is invoked by {@link HeaderParser} once the file has been fully parsed, and again by {@link HeaderIncrementalParser}
+	 each time the file's classes change (which also forgets all memoized inheritance lookups).
+	 */
+	void buildIndex() {
+		caseSensitiveTable.clear();
+		caseInsensitiveTable.clear();
+		assignments.buildIndex();
+		classes.buildIndex();
+		traverseDownwards(hc -> {
+			hc.getAssignments().buildIndex();
+			hc.getNestedClasses().buildIndex();
+			return true;
+		});
+	}
+
+	@NotNull
+	private InheritanceTable getTable(boolean caseSensitive) {
+		return caseSensitive ? caseSensitiveTable : caseInsensitiveTable;
 	}
 
 	@Nullable
-	private HeaderClass getInherited(@NotNull HeaderClass subClass, boolean caseSensitive) {
+	private HeaderClass getInherited(@NotNull HeaderClass subClass, @NotNull InheritanceTable table) {
 		if (subClass.getExtendClassName() == null) {
 			return null;
 		}
+		HeaderClass extendClass = table.extendClasses.get(subClass);
+		if (extendClass != null) {
+			return extendClass;
+		}
 		final String classNameToFind = subClass.getExtendClassName();
-		return inheritanceHelper.computeIfAbsent(subClass, (hc) -> {
-
-			//the root class (which the HeaderFile uses for getting its classes and assignmetns)
-			//will still be available in the heirarchy, so this will work
-			SGAS<HeaderClass> extendClassRef = new SGAS<>();
-
-			hc.traverseUpwards((parent) -> {
-				if (parent.classNameEquals(classNameToFind, caseSensitive)) {
-					extendClassRef.setValue(parent);
-					return false;
-				}
-				HeaderClass c = parent.getNestedClasses().getByName(classNameToFind, caseSensitive);
-				if (c != null) {
-					extendClassRef.setValue(c);
-					return false;
-				}
-				return true;
-			});
-
-			if (extendClassRef.getValue() == null) {
-				throw new HeaderClassNotFoundException("", classNameToFind);
-			}
+		final boolean caseSensitive = table.caseSensitive;
+
+		//the root class (which the HeaderFile uses for getting its classes and assignmetns)
+		//will still be available in the heirarchy, so this will work
+		SGAS<HeaderClass> extendClassRef = new SGAS<>();
 
-			return extendClassRef.getValue();
+		subClass.traverseUpwards((parent) -> {
+			if (parent.classNameEquals(classNameToFind, caseSensitive)) {
+				extendClassRef.setValue(parent);
+				return false;
+			}
+			HeaderClass c = parent.getNestedClasses().getByName(classNameToFind, caseSensitive);
+			if (c != null) {
+				extendClassRef.setValue(c);
+				return false;
+			}
+			return true;
 		});
+
+		if (extendClassRef.getValue() == null) {
+			throw new HeaderClassNotFoundException("", classNameToFind);
+		}
+
+		table.extendClasses.put(subClass, extendClassRef.getValue());
+		return extendClassRef.getValue();
+	}
+
+	/**
+	 Search each class in the inheritance chain of <code>start</code>, one at a time, without using the memoized results.
+
+	 @return the first non null result of <code>search</code>
+	 @throws HeaderClassNotFoundException when the result wasn't found before reaching a missing extend class
+	 */
+	@Nullable
+	private <T> T searchChain(@NotNull HeaderClass start, @NotNull InheritanceTable table, @NotNull Function<HeaderClass, T> search) {
+		Set<HeaderClass> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		HeaderClass cursor = start;
+		while (cursor != null && visited.add(cursor)) {
+			T result = search.apply(cursor);
+			if (result != null) {
+				return result;
+			}
+			cursor = getInherited(cursor, table);
+		}
+		return null;
+	}
+
+	/**
+	 Get the inheritance chain of <code>start</code> (start, start's extend class, that class's extend class, etc),
+	 stopping at the first class that is in <code>memo</code>. The chain also stops if a class would be visited twice.
+
+	 @return the classes in the chain that aren't in memo, in order
+	 */
+	@NotNull
+	private List<HeaderClass> getUnresolvedChain(@NotNull HeaderClass start, @NotNull InheritanceTable table, @NotNull Map<HeaderClass, ?> memo) {
+		List<HeaderClass> chain = new ArrayList<>();
+		Set<HeaderClass> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		HeaderClass cursor = start;
+		while (cursor != null && !memo.containsKey(cursor) && visited.add(cursor)) {
+			chain.add(cursor);
+			cursor = getInherited(cursor, table);
+		}
+		return chain;
+	}
+
+	/**
+	 Get (and memoize) a name index of the items in <code>start</code> and all items inherited by <code>start</code>.
+	 Items declared closer to <code>start</code> in the inheritance chain take priority.
+	 */
+	@NotNull
+	private <T> HeaderNameIndex<T> resolve(@NotNull HeaderClass start, @NotNull InheritanceTable table,
+										   @NotNull Map<HeaderClass, HeaderNameIndex<T>> memo,
+										   @NotNull Function<HeaderClass, Iterable<T>> getItems, @NotNull Function<T, String> getName) {
+		HeaderNameIndex<T> resolved = memo.get(start);
+		if (resolved != null) {
+			return resolved;
+		}
+		List<HeaderClass> chain = getUnresolvedChain(start, table, memo);
+		HeaderClass last = chain.get(chain.size() - 1);
+		HeaderClass lastExtend = getInherited(last, table);
+		HeaderNameIndex<T> inherited = lastExtend == null ? null : memo.get(lastExtend);
+
+		//build from the top of the chain down so that each class can reuse its extend class's index
+		for (int i = chain.size() - 1; i >= 0; i--) {
+			HeaderClass hc = chain.get(i);
+			HeaderNameIndex<T> index = new HeaderNameIndex<>(table.caseSensitive, inherited == null ? 8 : inherited.size() + 8);
+			for (T item : getItems.apply(hc)) {
+				index.putIfAbsent(getName.apply(item), item);
+			}
+			if (inherited != null) {
+				index.putAllIfAbsent(inherited);
+			}
+			memo.put(hc, index);
+			inherited = index;
+		}
+		return inherited;
+	}
+
+	/**
+	 Get (and memoize) a list of the items in <code>start</code> followed by the items inherited by <code>start</code>.
+	 */
+	@NotNull
+	private <T> List<T> resolveList(@NotNull HeaderClass start, @NotNull InheritanceTable table, @NotNull Map<HeaderClass, List<T>> memo,
+									@NotNull Function<HeaderClass, Iterable<T>> getItems) {
+		List<T> resolved = memo.get(start);
+		if (resolved != null) {
+			return resolved;
+		}
+		List<HeaderClass> chain = getUnresolvedChain(start, table, memo);
+		HeaderClass last = chain.get(chain.size() - 1);
+		HeaderClass lastExtend = getInherited(last, table);
+		List<T> inherited = lastExtend == null ? null : memo.get(lastExtend);
+
+		for (int i = chain.size() - 1; i >= 0; i--) {
+			HeaderClass hc = chain.get(i);
+			ArrayList<T> list = new ArrayList<>();
+			for (T item : getItems.apply(hc)) {
+				list.add(item);
+			}
+			if (inherited != null) {
+				list.addAll(inherited);
+			}
+			list.trimToSize();
+			inherited = Collections.unmodifiableList(list);
+			memo.put(hc, inherited);
+		}
+		return inherited;
+	}
+
+	/** Memoized inheritance lookups for either case sensitive or case insensitive class names */
+	private static class InheritanceTable {
+		private final boolean caseSensitive;
+		private final HashMap<HeaderClass, HeaderClass> extendClasses = new HashMap<>();
+		private final HashMap<HeaderClass, HeaderNameIndex<HeaderAssignment>> assignments = new HashMap<>();
+		private final HashMap<HeaderClass, HeaderNameIndex<HeaderClass>> nestedClasses = new HashMap<>();
+		private final HashMap<HeaderClass, List<HeaderAssignment>> assignmentLists = new HashMap<>();
+		private final HashMap<HeaderClass, List<HeaderClass>> nestedClassLists = new HashMap<>();
+
+		public InheritanceTable(boolean caseSensitive) {
+			this.caseSensitive = caseSensitive;
+		}
+
+		public void clear() {
+			extendClasses.clear();
+			assignments.clear();
+			nestedClasses.clear();
+			assignmentLists.clear();
+			nestedClassLists.clear();
+		}
 	}
 
 	@NotNull
@@ -0,0 +1,151 @@
+package com.armadialogcreator.arma.header;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ The structural differences between two versions of a {@link HeaderFile}'s top level classes and assignments,
+ as well as the #define macros that changed. Created by {@link HeaderIncrementalParser}.
+ <p>
+ Items are matched by name (case sensitive). An item whose text didn't change is the same instance in both versions
+ and isn't in the diff.
+
+ @author K
+ @since 10/18/2026 */
+public class HeaderFileDiff {
+	private final List<Change<HeaderClass>> classChanges = new ArrayList<>();
+	private final List<Change<HeaderAssignment>> assignmentChanges = new ArrayList<>();
+	private final List<String> macroChanges = new ArrayList<>();
+	private int reusedCount;
+	private int reparsedCount;
+	private int expandedLineCount;
+
+	/** @return changes to the top level classes, in the order they are in the file (removed classes are last) */
+	@NotNull
+	public List<Change<HeaderClass>> getClassChanges() {
+		return Collections.unmodifiableList(classChanges);
+	}
+
+	/** @return changes to the top level assignments, in the order they are in the file (removed assignments are last) */
+	@NotNull
+	public List<Change<HeaderAssignment>> getAssignmentChanges() {
+		return Collections.unmodifiableList(assignmentChanges);
+	}
+
+	/**
+	 @return keys of the #define macros that were added, removed, or have a different template text.
+	 The keys are the same as {@link HeaderParseResult#getDefineMacros()}.
+	 */
+	@NotNull
+	public List<String> getMacroChanges() {
+		return Collections.unmodifiableList(macroChanges);
+	}
+
+	/** @return number of top level classes and assignments that were kept from the previous version without parsing them */
+	public int getReusedCount() {
+		return reusedCount;
+	}
+
+	/** @return number of top level classes and assignments that were parsed */
+	public int getReparsedCount() {
+		return reparsedCount;
+	}
+
+	/** @return number of lines of the file whose macros were expanded. Lines that weren't expanded kept their previous results. */
+	public int getExpandedLineCount() {
+		return expandedLineCount;
+	}
+
+	/** @return true if nothing changed */
+	public boolean isEmpty() {
+		return classChanges.isEmpty() && assignmentChanges.isEmpty() && macroChanges.isEmpty();
+	}
+
+	@NotNull
+	List<Change<HeaderClass>> getClassChangesMutable() {
+		return classChanges;
+	}
+
+	@NotNull
+	List<Change<HeaderAssignment>> getAssignmentChangesMutable() {
+		return assignmentChanges;
+	}
+
+	@NotNull
+	List<String> getMacroChangesMutable() {
+		return macroChanges;
+	}
+
+	void setCounts(int reusedCount, int reparsedCount, int expandedLineCount) {
+		this.reusedCount = reusedCount;
+		this.reparsedCount = reparsedCount;
+		this.expandedLineCount = expandedLineCount;
+	}
+
+	@Override
+	public String toString() {
+		return "HeaderFileDiff{" +
+				"classChanges=" + classChanges +
+				", assignmentChanges=" + assignmentChanges +
+				", macroChanges=" + macroChanges +
+				", reusedCount=" + reusedCount +
+				", reparsedCount=" + reparsedCount +
+				", expandedLineCount=" + expandedLineCount +
+				'}';
+	}
+
+	public enum ChangeType {
+		Added, Removed, Changed
+	}
+
+	/**
+	 A top level class or assignment that was added, removed, or changed
+
+	 @author K
+	 @since 10/18/2026 */
+	public static class Change<T extends HeaderItem> {
+		private final ChangeType type;
+		private final String name;
+		private final T oldItem;
+		private final T newItem;
+
+		Change(@NotNull String name, @Nullable T oldItem, @Nullable T newItem) {
+			this.name = name;
+			this.oldItem = oldItem;
+			this.newItem = newItem;
+			this.type = oldItem == null ? ChangeType.Added : newItem == null ? ChangeType.Removed : ChangeType.Changed;
+		}
+
+		@NotNull
+		public ChangeType getType() {
+			return type;
+		}
+
+		/** @return the class name or assignment variable name */
+		@NotNull
+		public String getName() {
+			return name;
+		}
+
+		/** @return the item before the change, or null if it was added */
+		@Nullable
+		public T getOldItem() {
+			return oldItem;
+		}
+
+		/** @return the item after the change, or null if it was removed */
+		@Nullable
+		public T getNewItem() {
+			return newItem;
+		}
+
+		@Override
+		public String toString() {
+			return type + " " + name;
+		}
+	}
+}
@@ -3,8 +3,15 @@ package com.armadialogcreator.arma.header;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 /**
@@ -17,6 +24,34 @@ public interface HeaderFileTextProvider {
 	 */
 	@NotNull Scanner newTextScanner() throws IOException;
 
+	/**
+	 Get the lines of text for the header file. By default, this wraps {@link #newTextScanner()}.
+
+	 @return an unused {@link TextLines} instance that will be used to read the text for the header file
+	 @throws IOException if the lines couldn't be read
+	 */
+	@NotNull
+	default TextLines newTextLines() throws IOException {
+		Scanner scanner = newTextScanner();
+		return new TextLines() {
+			@Override
+			public boolean hasNextLine() {
+				return scanner.hasNextLine();
+			}
+
+			@Override
+			@NotNull
+			public CharSequence nextLine() {
+				return scanner.nextLine();
+			}
+
+			@Override
+			public void close() {
+				scanner.close();
+			}
+		};
+	}
+
 	/** @return the File name this instance represents. This should not return a path! */
 	@NotNull String getFileName();
 
@@ -26,6 +61,20 @@ public interface HeaderFileTextProvider {
 	/** @return he length, in bytes, of the file */
 	long getFileLength();
 
+	/**
+	 @return the time the file was last modified (milliseconds since the epoch), or -1 if unknown.
+	 If unknown, the file's preprocessed results won't be stored in a {@link HeaderIncludeCache}.
+	 */
+	default long getLastModified() {
+		return -1;
+	}
+
+	/** @return a path that uniquely identifies the file. By default, returns {@link #getFilePath()} */
+	@NotNull
+	default String getCanonicalPath() {
+		return getFilePath();
+	}
+
 	/**
 	 Used for getting text for an #include.
 	 The path is relative to the file that this {@link HeaderFileTextProvider} represents.
@@ -36,6 +85,40 @@ public interface HeaderFileTextProvider {
 	 */
 	@Nullable HeaderFileTextProvider resolvePath(@NotNull String path);
 
+	/**
+	 Get a {@link HeaderFileTextProvider} for the given file. Files that are at least {@link MappedFileInput#MIN_FILE_LENGTH}
+	 bytes will use {@link MappedFileInput}. Smaller files will use {@link BasicFileInput}.
+
+	 @param file the file
+	 @return the provider
+	 */
+	@NotNull
+	static HeaderFileTextProvider forFile(@NotNull File file) {
+		if (file.length() >= MappedFileInput.MIN_FILE_LENGTH) {
+			return new MappedFileInput(file);
+		}
+		return new BasicFileInput(file);
+	}
+
+	/**
+	 Lines of text for a header file. Line terminators are the same as {@link Scanner#nextLine()}
+	 and aren't included in the returned lines.
+	 */
+	interface TextLines extends Closeable {
+		/** @return true if there is another line, false if the end of the text has been reached */
+		boolean hasNextLine();
+
+		/**
+		 @return the next line. The returned {@link CharSequence} is only guaranteed to be valid
+		 until this instance is closed, so use {@link CharSequence#toString()} if the line needs to be kept.
+		 @throws NoSuchElementException if there are no more lines
+		 */
+		@NotNull CharSequence nextLine();
+
+		@Override
+		void close() throws IOException;
+	}
+
 	/**
 	 A basic {@link File} implementation for {@link HeaderFileTextProvider}
 	 */
@@ -47,6 +130,12 @@ public interface HeaderFileTextProvider {
 			this.file = file;
 		}
 
+		/** @return the file this instance reads */
+		@NotNull
+		public File getFile() {
+			return file;
+		}
+
 		@Override
 		@NotNull
 		public Scanner newTextScanner() throws IOException {
@@ -70,6 +159,17 @@ public interface HeaderFileTextProvider {
 			return file.length();
 		}
 
+		@Override
+		public long getLastModified() {
+			return file.lastModified();
+		}
+
+		@Override
+		@NotNull
+		public String getCanonicalPath() {
+			return HeaderIncludeCache.getCanonicalPath(file);
+		}
+
 		@Override
 		@Nullable
 		public HeaderFileTextProvider resolvePath(@NotNull String path) {
@@ -77,7 +177,124 @@ public interface HeaderFileTextProvider {
 			if (f == null) {
 				return null;
 			}
-			return new BasicFileInput(f);
+			return forFile(f);
+		}
+	}
+
+	/**
+	 A {@link File} implementation for {@link HeaderFileTextProvider} meant for large files.
+	 The file is memory mapped and decoded once with the platform's default charset (the same one {@link Scanner} uses),
+	 and each line returned by {@link #newTextLines()} is a view of the decoded text rather than a new String.
+	 */
+	class MappedFileInput extends BasicFileInput {
+		/** {@link HeaderFileTextProvider#forFile(File)} uses this class for files that are at least this many bytes */
+		public static final long MIN_FILE_LENGTH = 256 * 1024;
+
+		public MappedFileInput(@NotNull File file) {
+			super(file);
+		}
+
+		@Override
+		@NotNull
+		public TextLines newTextLines() throws IOException {
+			return new CharBufferLines(decode());
+		}
+
+		@NotNull
+		private CharBuffer decode() throws IOException {
+			try (FileChannel channel = FileChannel.open(getFile().toPath(), StandardOpenOption.READ)) {
+				long size = channel.size();
+				if (size > Integer.MAX_VALUE) {
+					throw new IOException("file is too large to map: " + getFile());
+				}
+				ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+				//malformed input is replaced
+				return Charset.defaultCharset().decode(mapped);
+			}
+		}
+	}
+
+	/**
+	 Text for a file that may not have been saved yet (for example, a file that is being edited).
+	 #include's are still resolved relative to the file. The text is never stored in a {@link HeaderIncludeCache}.
+	 */
+	class TextInput extends BasicFileInput {
+		private final CharSequence text;
+
+		/**
+		 @param file the file the text is for
+		 @param text the file's text
+		 */
+		public TextInput(@NotNull File file, @NotNull CharSequence text) {
+			super(file);
+			this.text = text;
+		}
+
+		@Override
+		@NotNull
+		public Scanner newTextScanner() {
+			return new Scanner(text.toString());
+		}
+
+		@Override
+		@NotNull
+		public TextLines newTextLines() {
+			return new CharBufferLines(CharBuffer.wrap(text));
+		}
+
+		@Override
+		public long getFileLength() {
+			return text.length();
+		}
+
+		@Override
+		public long getLastModified() {
+			return -1;
+		}
+	}
+
+	/** Splits a {@link CharBuffer} into lines without copying any text */
+	class CharBufferLines implements TextLines {
+		private CharBuffer text;
+		private int pos = 0;
+
+		/** @param text the text. Only the chars between the buffer's position and limit are used. */
+		public CharBufferLines(@NotNull CharBuffer text) {
+			this.text = text.slice();
+		}
+
+		@Override
+		public boolean hasNextLine() {
+			return text != null && pos < text.length();
+		}
+
+		@Override
+		@NotNull
+		public CharSequence nextLine() {
+			if (!hasNextLine()) {
+				throw new NoSuchElementException();
+			}
+			final CharBuffer text = this.text;
+			final int len = text.length();
+			final int start = pos;
+			int end = start;
+			while (end < len) {
+				char c = text.get(end);
+				if (c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029' || c == '\u0085') {
+					break;
+				}
+				end++;
+			}
+			pos = end + 1;
+			if (end + 1 < len && text.get(end) == '\r' && text.get(end + 1) == '\n') {
+				pos++;
+			}
+			return text.subSequence(start, end);
+		}
+
+		@Override
+		public void close() {
+			text = null;
 		}
 	}
 }
@@ -0,0 +1,332 @@
+package com.armadialogcreator.arma.header;
+
+import com.armadialogcreator.arma.header.DefineMacroContent.DefineValue;
+import com.armadialogcreator.arma.header.DefineMacroContent.ParameterDefineValue;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ Caches the preprocessed results of #include'd files so that including the same file again (in the same
+ {@link HeaderParser#parse(HeaderFileTextProvider, File)} invocation or a later one) doesn't preprocess the file again.
+ <p>
+ A result is keyed by the file's canonical path, last modified time, length, and the macros that were defined before the
+ #include. The key keeps a copy of the defined macros, so a result is only used when they are equal, not just when their
+ hashes are. A result stores the preprocessed text, the changes the file made to the defined macros,
+ and the {@link HeaderMacro} instances that were discovered. Results for files that use __EVAL or __EXEC are never cached
+ because their output may depend on things other than the defined macros.
+ <p>
+ When the memory budget is exceeded, the least recently used results are removed. All methods are thread safe.
+
+ @author K
+ @since 10/18/2026 */
+public class HeaderIncludeCache {
+	/** The cache that is used by default by all {@link HeaderParser} instances. Has a memory budget of 32MB. */
+	public static final HeaderIncludeCache instance = new HeaderIncludeCache(32 * 1024 * 1024);
+
+	private final LinkedHashMap<Key, CachedInclude> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long memoryBudget;
+	private long memoryUsed = 0;
+
+	/**
+	 @param memoryBudget approximate max number of bytes the cache can use
+	 */
+	public HeaderIncludeCache(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 Remove all cached results for the given file, as well as all results of files that #include the given file.
+
+	 @param file the file that has changed
+	 */
+	public void invalidate(@NotNull File file) {
+		invalidate(getCanonicalPath(file));
+	}
+
+	/**
+	 Remove all cached results for the given file, as well as all results of files that #include the given file.
+
+	 @param canonicalPath the canonical path of the file that has changed
+	 @see HeaderFileTextProvider#getCanonicalPath()
+	 */
+	public synchronized void invalidate(@NotNull String canonicalPath) {
+		Iterator<Map.Entry<Key, CachedInclude>> iter = entries.entrySet().iterator();
+		while (iter.hasNext()) {
+			Map.Entry<Key, CachedInclude> entry = iter.next();
+			for (FileStamp stamp : entry.getValue().files) {
+				if (stamp.canonicalPath.equals(canonicalPath)) {
+					memoryUsed -= memory(entry);
+					iter.remove();
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 Remove all cached results where the file, or a file it #include's, has been modified since the result was cached.
+	 Results that are out of date are never used, so this is only for freeing memory.
+
+	 @return the number of results removed
+	 */
+	public synchronized int removeStale() {
+		int removed = 0;
+		Iterator<Map.Entry<Key, CachedInclude>> iter = entries.entrySet().iterator();
+		while (iter.hasNext()) {
+			Map.Entry<Key, CachedInclude> entry = iter.next();
+			if (!entry.getValue().isUpToDate()) {
+				memoryUsed -= memory(entry);
+				iter.remove();
+				removed++;
+			}
+		}
+		return removed;
+	}
+
+	/** Remove all cached results */
+	public synchronized void clear() {
+		entries.clear();
+		memoryUsed = 0;
+	}
+
+	/** @return number of cached results */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/** @return approximate number of bytes used by all cached results */
+	public synchronized long getMemoryUsed() {
+		return memoryUsed;
+	}
+
+	/** @return approximate max number of bytes the cache can use */
+	public synchronized long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	/** Set the approximate max number of bytes the cache can use. If the cache is over the budget, results will be removed. */
+	public synchronized void setMemoryBudget(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+		removeOverBudget();
+	}
+
+	/** @return the cached result, or null if nothing is cached or the result is out of date */
+	@Nullable
+	synchronized CachedInclude get(@NotNull Key key) {
+		CachedInclude include = entries.get(key);
+		if (include == null) {
+			return null;
+		}
+		if (!include.isUpToDate()) {
+			entries.remove(key);
+			memoryUsed -= key.memory + include.memory;
+			return null;
+		}
+		return include;
+	}
+
+	synchronized void put(@NotNull Key key, @NotNull CachedInclude include) {
+		if (key.memory + include.memory > memoryBudget) {
+			return;
+		}
+		CachedInclude old = entries.put(key, include);
+		if (old != null) {
+			memoryUsed -= key.memory + old.memory;
+		}
+		memoryUsed += key.memory + include.memory;
+		removeOverBudget();
+	}
+
+	private void removeOverBudget() {
+		Iterator<Map.Entry<Key, CachedInclude>> iter = entries.entrySet().iterator();
+		while (memoryUsed > memoryBudget && iter.hasNext()) {
+			memoryUsed -= memory(iter.next());
+			iter.remove();
+		}
+	}
+
+	private static long memory(@NotNull Map.Entry<Key, CachedInclude> entry) {
+		return entry.getKey().memory + entry.getValue().memory;
+	}
+
+	/**
+	 @param stamp the file being #include'd
+	 @param defined the macros defined before the #include. The key keeps a copy.
+	 @return a key
+	 */
+	@NotNull
+	static Key newKey(@NotNull FileStamp stamp, @NotNull Map<String, DefineValue> defined) {
+		return new Key(stamp, new HashMap<>(defined), fingerprint(defined));
+	}
+
+	/**
+	 @return an order independent hash of all keys and values in <code>defined</code>. Different maps can have the same
+	 fingerprint, so it is only used to quickly tell keys apart.
+	 */
+	static long fingerprint(@NotNull Map<String, DefineValue> defined) {
+		long fingerprint = defined.size();
+		for (Map.Entry<String, DefineValue> entry : defined.entrySet()) {
+			DefineValue value = entry.getValue();
+			int valueHash = value.getResultTemplateText().hashCode();
+			if (value instanceof ParameterDefineValue) {
+				valueHash = valueHash * 31 + Arrays.hashCode(((ParameterDefineValue) value).getParams());
+			}
+			fingerprint += mix(((long) entry.getKey().hashCode() << 32) ^ (valueHash & 0xffffffffL));
+		}
+		return fingerprint;
+	}
+
+	/** MurmurHash3 64 bit finalizer */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	@NotNull
+	static String getCanonicalPath(@NotNull File file) {
+		try {
+			return file.getCanonicalPath();
+		} catch (IOException e) {
+			return file.getAbsolutePath();
+		}
+	}
+
+	static final class Key {
+		private final String canonicalPath;
+		private final long lastModified;
+		private final long length;
+		private final Map<String, DefineValue> defines;
+		private final long definesFingerprint;
+		/** Approximate number of bytes used by {@link #defines} */
+		private final long memory;
+
+		private Key(@NotNull FileStamp stamp, @NotNull Map<String, DefineValue> defines, long definesFingerprint) {
+			this.canonicalPath = stamp.canonicalPath;
+			this.lastModified = stamp.lastModified;
+			this.length = stamp.length;
+			this.defines = defines;
+			this.definesFingerprint = definesFingerprint;
+			//the keys and values are shared with the preprocessor, so only count the map's entries
+			this.memory = 64 + defines.size() * 48L;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (o == this) {
+				return true;
+			}
+			if (o instanceof Key) {
+				Key other = (Key) o;
+				return lastModified == other.lastModified && length == other.length
+						&& definesFingerprint == other.definesFingerprint && canonicalPath.equals(other.canonicalPath)
+						&& defines.equals(other.defines);
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(canonicalPath, lastModified, length, definesFingerprint);
+		}
+	}
+
+	/** The state of a file at the time it was preprocessed */
+	static final class FileStamp {
+		private final HeaderFileTextProvider file;
+		private final String canonicalPath;
+		private final long lastModified;
+		private final long length;
+
+		private FileStamp(@NotNull HeaderFileTextProvider file, long lastModified) {
+			this.file = file;
+			this.canonicalPath = file.getCanonicalPath();
+			this.lastModified = lastModified;
+			this.length = file.getFileLength();
+		}
+
+		/** @return a stamp, or null if the file's last modified time is unknown */
+		@Nullable
+		static FileStamp of(@NotNull HeaderFileTextProvider file) {
+			long lastModified = file.getLastModified();
+			if (lastModified < 0) {
+				return null;
+			}
+			return new FileStamp(file, lastModified);
+		}
+
+		/** @return true if the file hasn't changed since this stamp was created */
+		boolean isUpToDate() {
+			return file.getLastModified() == lastModified && file.getFileLength() == length;
+		}
+	}
+
+	/** The preprocessed results of an #include'd file */
+	static final class CachedInclude {
+		private final String text;
+		private final List<FileStamp> files;
+		private final Map<String, DefineValue> defineChanges;
+		private final List<HeaderMacro> macros;
+		private final long memory;
+
+		/**
+		 @param text the preprocessed text
+		 @param files the #include'd file and all files it #include's
+		 @param defineChanges changes made to the defined macros. A null value means the macro was undefined.
+		 @param macros macros discovered, in order
+		 */
+		CachedInclude(@NotNull String text, @NotNull List<FileStamp> files, @NotNull LinkedHashMap<String, DefineValue> defineChanges,
+					  @NotNull List<HeaderMacro> macros) {
+			this.text = text;
+			this.files = Collections.unmodifiableList(new ArrayList<>(files));
+			this.defineChanges = Collections.unmodifiableMap(new LinkedHashMap<>(defineChanges));
+			this.macros = Collections.unmodifiableList(new ArrayList<>(macros));
+
+			long memory = 64 + text.length() * 2L + files.size() * 64L + macros.size() * 48L;
+			for (Map.Entry<String, DefineValue> entry : defineChanges.entrySet()) {
+				memory += 64 + entry.getKey().length() * 2L;
+				if (entry.getValue() != null) {
+					memory += entry.getValue().getResultTemplateText().length() * 2L;
+				}
+			}
+			this.memory = memory;
+		}
+
+		@NotNull
+		String getText() {
+			return text;
+		}
+
+		@NotNull
+		List<FileStamp> getFiles() {
+			return files;
+		}
+
+		/** @return changes made to the defined macros. A null value means the macro was undefined. */
+		@NotNull
+		Map<String, DefineValue> getDefineChanges() {
+			return defineChanges;
+		}
+
+		@NotNull
+		List<HeaderMacro> getMacros() {
+			return macros;
+		}
+
+		boolean isUpToDate() {
+			for (FileStamp stamp : files) {
+				if (!stamp.isUpToDate()) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
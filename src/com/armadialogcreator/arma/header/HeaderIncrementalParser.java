@@ -0,0 +1,860 @@
+package com.armadialogcreator.arma.header;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.Function;
+
+import static com.armadialogcreator.arma.header.HeaderLexer.*;
+
+/**
+ Keeps a {@link HeaderFile} up to date as its text is edited, without parsing everything again.
+ <p>
+ The preprocessed text is split into top level {@link Segment}s, one for each top level class or assignment, and each segment
+ knows which lines of the file it came from and which macros it used (see {@link HeaderSourceMap}). When the text is edited,
+ only the segments that overlap the edited lines are expanded and parsed again (with {@link HeaderRecursiveDescentParser}).
+ When a #define is edited, only the segments that use the macro are. The #define's, #ifdef's and #include's of the rest of the
+ file are still processed so that each line sees the right macros, but #include'd files come from the {@link HeaderIncludeCache}
+ and the other lines are written as is. A segment whose preprocessed text is the same as an affected segment of the previous
+ version keeps its old {@link HeaderClass} or {@link HeaderAssignment} instance.
+ <p>
+ If the edit could change more than that (it adds or removes a macro, a block comment, or the text uses __EVAL or __EXEC),
+ the whole file is expanded again, and segments are reused by comparing their preprocessed text with all previous segments.
+ <p>
+ Each update returns a {@link HeaderFileDiff} of what changed. If an update fails, the previous version is kept.
+ This class isn't thread safe.
+
+ @author K
+ @since 10/18/2026 */
+public class HeaderIncrementalParser {
+	private final File file;
+	private final File tempDirectory;
+	private final HeaderFile headerFile;
+	private final ArrayList<HeaderClass> rootClasses = new ArrayList<>();
+	private final ArrayList<HeaderAssignment> rootAssignments = new ArrayList<>();
+	/** Owns all top level classes and assignments, across all versions, so that they can find each other */
+	private final AST.HeaderClassNode root;
+
+	/** True once a version has been parsed */
+	private boolean parsed;
+	private String text = "";
+	/** Index in {@link #text} of the start of each line */
+	private int[] lineStarts = {0};
+	private HeaderSourceMap sourceMap = new HeaderSourceMap();
+	private List<Segment> segments = Collections.emptyList();
+	private List<MacroSegment> macroSegments = Collections.emptyList();
+	private List<HeaderMacro> macros = Collections.emptyList();
+	private Map<String, String> defineMacros = Collections.emptyMap();
+
+	/**
+	 @param file the header file. Nothing is read until {@link #parse()} or {@link #update(String)} is invoked.
+	 @param tempDirectory a directory used for temporary files
+	 */
+	public HeaderIncrementalParser(@NotNull File file, @NotNull File tempDirectory) {
+		if (tempDirectory.exists() && !tempDirectory.isDirectory()) {
+			throw new IllegalArgumentException("tempDirectory is not a directory");
+		}
+		this.file = file;
+		this.tempDirectory = tempDirectory;
+		this.headerFile = new HeaderFile(file.getAbsolutePath());
+		this.root = new AST.HeaderClassNode(headerFile, rootAssignments, rootClasses);
+	}
+
+	/**
+	 Read the file's text and update to it
+
+	 @return the differences from the previous version
+	 */
+	@NotNull
+	public HeaderFileDiff parse() throws IOException, HeaderParseException {
+		return update(new String(Files.readAllBytes(file.toPath()), Charset.defaultCharset()));
+	}
+
+	/**
+	 Replace part of the current text and update to the new text
+
+	 @param offset index in {@link #getText()} where the replaced text starts
+	 @param length number of chars to replace
+	 @param replacement the new text
+	 @return the differences from the previous version
+	 */
+	@NotNull
+	public HeaderFileDiff applyDelta(int offset, int length, @NotNull String replacement) throws IOException, HeaderParseException {
+		if (offset < 0 || length < 0 || offset + length > text.length()) {
+			throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", text length=" + text.length());
+		}
+		String newText = text.substring(0, offset) + replacement + text.substring(offset + length);
+		return update(newText, offset, length, replacement.length());
+	}
+
+	/**
+	 Update to the given text. Only the part of the text between the first and last char that changed is treated as edited.
+
+	 @param newText the file's new text. The file itself isn't read or written, but #include's are resolved relative to it.
+	 @return the differences from the previous version
+	 */
+	@NotNull
+	public HeaderFileDiff update(@NotNull String newText) throws IOException, HeaderParseException {
+		int max = Math.min(text.length(), newText.length());
+		int prefix = 0;
+		while (prefix < max && text.charAt(prefix) == newText.charAt(prefix)) {
+			prefix++;
+		}
+		int suffix = 0;
+		while (suffix < max - prefix && text.charAt(text.length() - 1 - suffix) == newText.charAt(newText.length() - 1 - suffix)) {
+			suffix++;
+		}
+		return update(newText, prefix, text.length() - prefix - suffix, newText.length() - prefix - suffix);
+	}
+
+	/**
+	 @param offset index where the edit starts, in both {@link #text} and newText
+	 @param oldLength number of chars of {@link #text} that were replaced
+	 @param newLength number of chars of newText that replaced them
+	 */
+	@NotNull
+	private HeaderFileDiff update(@NotNull String newText, int offset, int oldLength, int newLength) throws IOException, HeaderParseException {
+		if (parsed) {
+			if (oldLength == 0 && newLength == 0) {
+				HeaderFileDiff diff = new HeaderFileDiff();
+				diff.setCounts(segments.size(), 0, 0);
+				return diff;
+			}
+			HeaderFileDiff diff = updateAffected(newText, offset, oldLength, newLength);
+			if (diff != null) {
+				return diff;
+			}
+		}
+		return updateAll(newText);
+	}
+
+	/** Expand and parse the whole file */
+	@NotNull
+	private HeaderFileDiff updateAll(@NotNull String newText) throws IOException, HeaderParseException {
+		HeaderParserContext context = newContext();
+		HeaderSourceMap newSourceMap = new HeaderSourceMap();
+		HeaderParser.TextBuffer preprocessed = preprocess(newText, context, newSourceMap);
+
+		char[] chars = preprocessed.getChars();
+		List<Segment> newSegments = split(chars, 0, preprocessed.size(), 1, 0);
+		for (Segment segment : newSegments) {
+			segment.setSource(newSourceMap);
+		}
+		return commit(newText, lineStarts(newText), context, newSourceMap, chars, newSegments, newSegments, segments, 0,
+				newSourceMap.getLineCount()
+		);
+	}
+
+	/**
+	 Expand and parse only the segments that the edit affects
+
+	 @return the differences, or null if the edit could affect more than that and the whole file needs to be parsed
+	 */
+	@Nullable
+	private HeaderFileDiff updateAffected(@NotNull String newText, int offset, int oldLength, int newLength) throws IOException {
+		if (sourceMap.isEvaluated()) {
+			return null;
+		}
+		if (offset > 0 && text.charAt(offset - 1) == '\r') {
+			//a \r\n may have been split
+			offset--;
+			oldLength++;
+			newLength++;
+		}
+		int[] newLineStarts = lineStarts(newText);
+		Edit edit = new Edit(lineOf(lineStarts, offset), lineOf(lineStarts, offset + oldLength), lineOf(newLineStarts, offset + newLength));
+
+		//lines to expand again, in new line numbers
+		BitSet expandLines = new BitSet();
+		String changedMacro = null;
+		int changedMacroIndex = -1;
+		if (isTextEdit(edit, newText, newLineStarts)) {
+			expandLines.set(edit.firstLine, edit.newLastLine + 1);
+		} else {
+			changedMacroIndex = findEditedDefine(edit, newText, newLineStarts);
+			if (changedMacroIndex < 0) {
+				return null;
+			}
+			changedMacro = ((DefineMacroContent) sourceMap.getMacroRanges().get(changedMacroIndex).macro.getContent()).getDefinedVar();
+		}
+
+		Set<Segment> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Segment segment : segments) {
+			//#include'd files may have changed, which the cache will know
+			boolean affect = segment.hasInclude;
+			affect |= changedMacro != null && segment.dependencies.contains(changedMacro);
+			affect |= edit.lineDelta() != 0 && segment.startLine > edit.oldLastLine && segment.dependencies.contains("__LINE__");
+			if (affect) {
+				affected.add(segment);
+				expandLines.set(edit.newLine(segment.startLine, true), edit.newLine(segment.endLine, false) + 1);
+			}
+		}
+		//segments that share a line with an expanded line need to be split and parsed again
+		boolean grown = true;
+		while (grown) {
+			grown = false;
+			for (Segment segment : segments) {
+				if (affected.contains(segment)) {
+					continue;
+				}
+				int start = edit.newLine(segment.startLine, true);
+				int end = edit.newLine(segment.endLine, false);
+				int next = expandLines.nextSetBit(start);
+				if (next >= 0 && next <= end) {
+					affected.add(segment);
+					expandLines.set(start, end + 1);
+					grown = true;
+				}
+			}
+		}
+
+		HeaderParserContext context = newContext();
+		HeaderSourceMap newSourceMap = new HeaderSourceMap(expandLines);
+		HeaderParser.TextBuffer preprocessed;
+		try {
+			preprocessed = preprocess(newText, context, newSourceMap);
+		} catch (HeaderParseException e) {
+			//let the full update report it
+			return null;
+		}
+		if (newSourceMap.isEvaluated() || newSourceMap.getLineCount() != lineCount(newText, newLineStarts)
+				|| !sameMacros(sourceMap.getMacroRanges(), newSourceMap.getMacroRanges(), changedMacroIndex)) {
+			return null;
+		}
+		char[] chars = preprocessed.getChars();
+		int[] outputLineStarts = outputLineStarts(chars, preprocessed.size(), newSourceMap.getOutputLineCount());
+		if (outputLineStarts == null) {
+			return null;
+		}
+
+		List<Segment> newSegments = new ArrayList<>();
+		List<Segment> parseSegments = new ArrayList<>();
+		int rangeStart = expandLines.nextSetBit(0);
+		while (rangeStart >= 0) {
+			int rangeEnd = expandLines.nextClearBit(rangeStart) - 1;
+			byte startKind = newSourceMap.getLineKind(rangeStart);
+			byte endKind = newSourceMap.getLineKind(rangeEnd);
+			if (startKind == HeaderSourceMap.COMMENT || startKind == HeaderSourceMap.COMMENT_END
+					|| endKind == HeaderSourceMap.COMMENT_START || endKind == HeaderSourceMap.COMMENT) {
+				//can't split in the middle of a block comment
+				return null;
+			}
+			int firstOutputLine = newSourceMap.getFirstOutputLine(rangeStart);
+			int lastOutputLine = newSourceMap.getFirstOutputLine(rangeEnd + 1) - 1;
+			if (firstOutputLine <= lastOutputLine) {
+				int start = outputLineStarts[firstOutputLine - 1];
+				List<Segment> split;
+				try {
+					split = split(chars, start, outputLineStarts[lastOutputLine], firstOutputLine, start);
+				} catch (HeaderParseException e) {
+					return null;
+				}
+				for (Segment segment : split) {
+					if (!segment.terminated) {
+						return null;
+					}
+					segment.setSource(newSourceMap);
+					parseSegments.add(segment);
+				}
+			}
+			rangeStart = expandLines.nextSetBit(rangeEnd + 1);
+		}
+
+		List<Segment> previous = new ArrayList<>(affected.size());
+		int keptCount = 0;
+		for (Segment segment : segments) {
+			if (affected.contains(segment)) {
+				previous.add(segment);
+			} else {
+				newSegments.add(segment.moved(edit.newLine(segment.startLine, true), edit.newLine(segment.endLine, false)));
+				keptCount++;
+			}
+		}
+		newSegments.addAll(parseSegments);
+		//stable, so segments that came from the same line stay in order
+		newSegments.sort(Comparator.comparingInt(segment -> segment.startLine));
+
+		try {
+			return commit(newText, newLineStarts, context, newSourceMap, chars, newSegments, parseSegments, previous, keptCount,
+					expandLines.cardinality()
+			);
+		} catch (HeaderParseException e) {
+			return null;
+		}
+	}
+
+	/**
+	 Parse the new segments and make them the current version
+
+	 @param newSegments all segments of the new version, in order
+	 @param parseSegments the segments in newSegments that don't have an item yet
+	 @param previous segments of the previous version whose items can be reused by segments in parseSegments with the same text.
+	 All other segments of the previous version are in newSegments.
+	 @param keptCount number of segments in newSegments that were kept from the previous version
+	 @param expandedLineCount number of lines that were expanded
+	 */
+	@NotNull
+	private HeaderFileDiff commit(@NotNull String newText, @NotNull int[] newLineStarts, @NotNull HeaderParserContext context,
+								  @NotNull HeaderSourceMap newSourceMap, @NotNull char[] chars, @NotNull List<Segment> newSegments,
+								  @NotNull List<Segment> parseSegments, @NotNull List<Segment> previous, int keptCount,
+								  int expandedLineCount) throws HeaderParseException {
+		//reuse the items of segments that haven't changed
+		HashMap<String, ArrayDeque<Segment>> oldByText = new HashMap<>();
+		for (Segment segment : previous) {
+			oldByText.computeIfAbsent(segment.text, k -> new ArrayDeque<>()).add(segment);
+		}
+		Set<Segment> reused = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<HeaderItem> parsedItems = new ArrayList<>();
+		int reusedCount = keptCount;
+		for (Segment segment : parseSegments) {
+			ArrayDeque<Segment> sameText = oldByText.get(segment.text);
+			Segment old = sameText == null ? null : sameText.poll();
+			if (old != null) {
+				segment.item = old.item;
+				reused.add(old);
+				reusedCount++;
+				continue;
+			}
+			ArrayList<HeaderClass> nested = new ArrayList<>(1);
+			ArrayList<HeaderAssignment> assigns = new ArrayList<>(1);
+			new HeaderRecursiveDescentParser(chars, segment.start, segment.end, segment.outputLine, segment.lineStart).parseMembers(root, nested, assigns);
+			segment.item = nested.isEmpty() ? assigns.get(0) : nested.get(0);
+			parsedItems.add(segment.item);
+		}
+
+		//everything parsed, so the new version can replace the old one
+		HeaderFileDiff diff = new HeaderFileDiff();
+		List<HeaderItem> removedItems = new ArrayList<>();
+		for (Segment segment : previous) {
+			if (!reused.contains(segment)) {
+				removedItems.add(segment.item);
+			}
+		}
+		diffItems(removedItems, parsedItems, HeaderClass.class, HeaderClass::getClassName, diff.getClassChangesMutable());
+		diffItems(removedItems, parsedItems, HeaderAssignment.class, HeaderAssignment::getVariableName, diff.getAssignmentChangesMutable());
+		Map<String, String> newDefineMacros = HeaderParser.getDefineMacros(context.getMacros());
+		diffMacros(defineMacros, newDefineMacros, diff.getMacroChangesMutable());
+		diff.setCounts(reusedCount, parsedItems.size(), expandedLineCount);
+
+		rootClasses.clear();
+		rootAssignments.clear();
+		for (Segment segment : newSegments) {
+			if (segment.item instanceof HeaderClass) {
+				rootClasses.add((HeaderClass) segment.item);
+			} else {
+				rootAssignments.add((HeaderAssignment) segment.item);
+			}
+		}
+		headerFile.getClassesMutable().clear();
+		headerFile.getClassesMutable().addAll(rootClasses);
+		headerFile.getAssignmentsMutable().clear();
+		headerFile.getAssignmentsMutable().addAll(rootAssignments);
+		root.getNestedClasses().buildIndex();
+		root.getAssignments().buildIndex();
+		headerFile.buildIndex();
+
+		List<MacroSegment> newMacroSegments = new ArrayList<>(newSourceMap.getMacroRanges().size());
+		for (HeaderSourceMap.MacroRange range : newSourceMap.getMacroRanges()) {
+			newMacroSegments.add(new MacroSegment(range.macro, range.startLine, range.endLine));
+		}
+
+		this.parsed = true;
+		this.text = newText;
+		this.lineStarts = newLineStarts;
+		this.sourceMap = newSourceMap;
+		this.segments = Collections.unmodifiableList(newSegments);
+		this.macroSegments = Collections.unmodifiableList(newMacroSegments);
+		this.macros = Collections.unmodifiableList(context.getMacros());
+		this.defineMacros = Collections.unmodifiableMap(newDefineMacros);
+		return diff;
+	}
+
+	/** @return the file. The same instance is updated by each update. */
+	@NotNull
+	public HeaderFile getFile() {
+		return headerFile;
+	}
+
+	/** @return the current text (before preprocessing) */
+	@NotNull
+	public String getText() {
+		return text;
+	}
+
+	/** @return the top level segments of the current version, in the order they are in the preprocessed text */
+	@NotNull
+	public List<Segment> getSegments() {
+		return segments;
+	}
+
+	/**
+	 @return the lines of each macro in the current version, in the same order as {@link #getMacros()}.
+	 Macros of #include'd files are on the line of the #include.
+	 */
+	@NotNull
+	public List<MacroSegment> getMacroSegments() {
+		return macroSegments;
+	}
+
+	/** @return all macros discovered in the current version (#include, #ifdef, #else, #define, etc) */
+	@NotNull
+	public List<HeaderMacro> getMacros() {
+		return macros;
+	}
+
+	/** @return the #define macros of the current version. See {@link HeaderParseResult#getDefineMacros()} */
+	@NotNull
+	public Map<String, String> getDefineMacros() {
+		return defineMacros;
+	}
+
+	@NotNull
+	private HeaderParserContext newContext() throws FileNotFoundException {
+		if (!tempDirectory.exists() && !tempDirectory.mkdirs()) {
+			throw new FileNotFoundException(tempDirectory.getAbsolutePath());
+		}
+		return new HeaderParserContext(tempDirectory);
+	}
+
+	@NotNull
+	private HeaderParser.TextBuffer preprocess(@NotNull String newText, @NotNull HeaderParserContext context,
+											   @NotNull HeaderSourceMap newSourceMap) throws IOException, HeaderParseException {
+		HeaderParser.TextBuffer preprocessed = new HeaderParser.TextBuffer(Math.max(32, newText.length()));
+		try {
+			Preprocessor preprocessor = new Preprocessor(new HeaderFileTextProvider.TextInput(file, newText), context);
+			preprocessor.setSourceMap(newSourceMap);
+			preprocessor.run(preprocessed);
+		} catch (HeaderParseException | IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new HeaderParseException(e);
+		}
+		return preprocessed;
+	}
+
+	/**
+	 @return true if the edit only changed lines that are written to the preprocessed text, and doesn't add or remove a macro
+	 or block comment. Then, the lines around the edit are the same kind as before.
+	 */
+	private boolean isTextEdit(@NotNull Edit edit, @NotNull String newText, @NotNull int[] newLineStarts) {
+		for (int line = edit.firstLine; line <= edit.oldLastLine; line++) {
+			if (sourceMap.getLineKind(line) != HeaderSourceMap.TEXT) {
+				return false;
+			}
+		}
+		return !hasMacroOrComment(text, lineStarts, edit.firstLine, edit.oldLastLine)
+				&& !hasMacroOrComment(newText, newLineStarts, edit.firstLine, edit.newLastLine);
+	}
+
+	/**
+	 @return index in {@link HeaderSourceMap#getMacroRanges()} of the #define that the edit is inside of, or -1 if the edit isn't
+	 inside a single #define or the edited lines aren't a #define of the same macro anymore
+	 */
+	private int findEditedDefine(@NotNull Edit edit, @NotNull String newText, @NotNull int[] newLineStarts) {
+		List<HeaderSourceMap.MacroRange> ranges = sourceMap.getMacroRanges();
+		int found = -1;
+		for (int i = 0; i < ranges.size(); i++) {
+			HeaderSourceMap.MacroRange range = ranges.get(i);
+			if (range.root && range.startLine <= edit.firstLine && edit.oldLastLine <= range.endLine) {
+				found = i;
+				break;
+			}
+		}
+		if (found < 0 || ranges.get(found).macro.getMacroType() != HeaderMacro.MacroType.Define) {
+			return -1;
+		}
+		HeaderSourceMap.MacroRange range = ranges.get(found);
+		int newEndLine = range.endLine + edit.lineDelta();
+		if (newEndLine < range.startLine) {
+			return -1;
+		}
+
+		//same as how the Preprocessor reads a #define
+		StringBuilder macroBuilder = new StringBuilder();
+		for (int line = range.startLine; line <= newEndLine; line++) {
+			int start = lineStart(newLineStarts, line, newText.length());
+			int end = lineEnd(newText, newLineStarts, line);
+			boolean continued = end > start && newText.charAt(end - 1) == '\\';
+			if (continued != (line < newEndLine)) {
+				return -1;
+			}
+			macroBuilder.append(newText, start, end);
+		}
+		String macroText = macroBuilder.toString().trim();
+		if (!macroText.startsWith("#define ")) {
+			return -1;
+		}
+		String macroContent = macroText.substring("#define ".length());
+		for (int i = 0; i < macroContent.length(); i++) {
+			char c = macroContent.charAt(i);
+			if (c == ' ' || c == '\t' || c == '(') {
+				String definedVar = macroContent.substring(0, i);
+				return definedVar.equals(((DefineMacroContent) range.macro.getContent()).getDefinedVar()) ? found : -1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 @return true if both lists have the same macros in the same order, except the macro at the given index,
+	 which may be different
+	 */
+	private static boolean sameMacros(@NotNull List<HeaderSourceMap.MacroRange> oldMacros, @NotNull List<HeaderSourceMap.MacroRange> newMacros,
+									  int changedIndex) {
+		if (oldMacros.size() != newMacros.size()) {
+			return false;
+		}
+		for (int i = 0; i < oldMacros.size(); i++) {
+			if (i != changedIndex && !oldMacros.get(i).macro.equals(newMacros.get(i).macro)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** @return true if any of the given lines starts a macro or has a block comment */
+	private static boolean hasMacroOrComment(@NotNull String text, @NotNull int[] lineStarts, int firstLine, int lastLine) {
+		int start = lineStart(lineStarts, firstLine, text.length());
+		int end = lineStart(lineStarts, lastLine + 1, text.length());
+		boolean lineStart = true;
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			if (c == '#' && lineStart) {
+				return true;
+			}
+			if (i + 1 < end && (c == '/' && text.charAt(i + 1) == '*' || c == '*' && text.charAt(i + 1) == '/')) {
+				return true;
+			}
+			if (isLineTerminator(c)) {
+				lineStart = true;
+			} else if (!Character.isWhitespace(c)) {
+				lineStart = false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 @return index of the start of each line, with the same line terminators as {@link HeaderFileTextProvider}.
+	 If the text ends with a line terminator, the last index is the text's length.
+	 */
+	@NotNull
+	static int[] lineStarts(@NotNull String text) {
+		int[] starts = new int[16];
+		int count = 1;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (!isLineTerminator(c)) {
+				continue;
+			}
+			if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+				i++;
+			}
+			if (count == starts.length) {
+				starts = Arrays.copyOf(starts, count * 2);
+			}
+			starts[count++] = i + 1;
+		}
+		return Arrays.copyOf(starts, count);
+	}
+
+	private static boolean isLineTerminator(char c) {
+		return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029' || c == '\u0085';
+	}
+
+	/** @return number of lines that {@link HeaderFileTextProvider} would read */
+	private static int lineCount(@NotNull String text, @NotNull int[] lineStarts) {
+		return lineStarts[lineStarts.length - 1] == text.length() ? lineStarts.length - 1 : lineStarts.length;
+	}
+
+	/** @return the line (first line is 1) that the given index is on */
+	private static int lineOf(@NotNull int[] lineStarts, int index) {
+		int i = Arrays.binarySearch(lineStarts, index);
+		return i >= 0 ? i + 1 : -i - 1;
+	}
+
+	/** @return index of the start of the given line, or textLength if there is no such line */
+	private static int lineStart(@NotNull int[] lineStarts, int line, int textLength) {
+		return line - 1 < lineStarts.length ? lineStarts[line - 1] : textLength;
+	}
+
+	/** @return index of the end of the given line, not including the line terminator */
+	private static int lineEnd(@NotNull String text, @NotNull int[] lineStarts, int line) {
+		int start = lineStart(lineStarts, line, text.length());
+		int end = lineStart(lineStarts, line + 1, text.length());
+		if (end > start && isLineTerminator(text.charAt(end - 1))) {
+			end--;
+			if (end > start && text.charAt(end) == '\n' && text.charAt(end - 1) == '\r') {
+				end--;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 @return index of the start of each line of preprocessed text, plus the index after the last line,
+	 or null if the text doesn't have the given number of lines
+	 */
+	@Nullable
+	private static int[] outputLineStarts(@NotNull char[] chars, int length, int lineCount) {
+		int[] starts = new int[lineCount + 1];
+		int count = 1;
+		for (int i = 0; i < length; i++) {
+			if (chars[i] != '\n') {
+				continue;
+			}
+			if (count > lineCount) {
+				return null;
+			}
+			starts[count++] = i + 1;
+		}
+		return count == lineCount + 1 && starts[lineCount] == length ? starts : null;
+	}
+
+	/**
+	 Split preprocessed text into top level classes and assignments. A segment ends at the first <code>;</code> that isn't
+	 inside braces, which is where {@link HeaderRecursiveDescentParser} ends a class or assignment. Stray <code>\</code> and
+	 <code>;</code> tokens between segments are skipped, same as the parser does. Syntax errors are left for the parser to report.
+
+	 @param start index of the first char to split
+	 @param end index after the last char to split
+	 @param line line of the preprocessed text that start is on (first line is 1)
+	 @param lineStart index of the start of that line
+	 */
+	@NotNull
+	static List<Segment> split(@NotNull char[] text, int start, int end, int line, int lineStart) throws HeaderParseException {
+		HeaderLexer lexer = new HeaderLexer(text, start, end, line, lineStart);
+		List<Segment> segments = new ArrayList<>();
+		int token = lexer.next();
+		while (token != EOF) {
+			if (token == BSLASH || token == SEMICOLON) {
+				token = lexer.next();
+				continue;
+			}
+			int segmentStart = lexer.getTokenStart();
+			int startLine = lexer.getTokenLine();
+			int segmentLineStart = segmentStart - lexer.getTokenColumn();
+			int depth = 0;
+			while (token != EOF) {
+				if (token == LBRACE) {
+					depth++;
+				} else if (token == RBRACE) {
+					depth--;
+				} else if (token == SEMICOLON && depth <= 0) {
+					break;
+				}
+				token = lexer.next();
+			}
+			//if the segment isn't terminated, the parser will report it
+			boolean terminated = token != EOF;
+			int segmentEnd = terminated ? lexer.getTokenEnd() : end;
+			segments.add(new Segment(new String(text, segmentStart, segmentEnd - segmentStart), segmentStart, segmentEnd, startLine,
+					segmentLineStart, lexer.getTokenLine(), terminated
+			));
+			if (terminated) {
+				token = lexer.next();
+			}
+		}
+		return segments;
+	}
+
+	private static <T extends HeaderItem> void diffItems(@NotNull List<HeaderItem> removedItems, @NotNull List<HeaderItem> parsedItems,
+														 @NotNull Class<T> type, @NotNull Function<T, String> getName,
+														 @NotNull List<HeaderFileDiff.Change<T>> changes) {
+		LinkedHashMap<String, ArrayDeque<T>> removedByName = new LinkedHashMap<>();
+		for (HeaderItem item : removedItems) {
+			if (type.isInstance(item)) {
+				T t = type.cast(item);
+				removedByName.computeIfAbsent(getName.apply(t), k -> new ArrayDeque<>()).add(t);
+			}
+		}
+		for (HeaderItem item : parsedItems) {
+			if (!type.isInstance(item)) {
+				continue;
+			}
+			T t = type.cast(item);
+			String name = getName.apply(t);
+			ArrayDeque<T> sameName = removedByName.get(name);
+			T old = sameName == null ? null : sameName.poll();
+			changes.add(new HeaderFileDiff.Change<>(name, old, t));
+		}
+		for (Map.Entry<String, ArrayDeque<T>> entry : removedByName.entrySet()) {
+			for (T old : entry.getValue()) {
+				changes.add(new HeaderFileDiff.Change<>(entry.getKey(), old, null));
+			}
+		}
+	}
+
+	private static void diffMacros(@NotNull Map<String, String> oldMacros, @NotNull Map<String, String> newMacros, @NotNull List<String> changes) {
+		TreeSet<String> changed = new TreeSet<>();
+		for (Map.Entry<String, String> entry : newMacros.entrySet()) {
+			if (!entry.getValue().equals(oldMacros.get(entry.getKey()))) {
+				changed.add(entry.getKey());
+			}
+		}
+		for (String key : oldMacros.keySet()) {
+			if (!newMacros.containsKey(key)) {
+				changed.add(key);
+			}
+		}
+		changes.addAll(changed);
+	}
+
+	/**
+	 A top level class or assignment
+
+	 @author K
+	 @since 10/18/2026 */
+	public static class Segment {
+		private final String text;
+		/** Where the segment is in the preprocessed text of the version it was split from */
+		private final int start, end, outputLine, lineStart, outputEndLine;
+		private final boolean terminated;
+		private int startLine, endLine;
+		private Set<String> dependencies = Collections.emptySet();
+		private boolean hasInclude;
+		private HeaderItem item;
+
+		private Segment(@NotNull String text, int start, int end, int outputLine, int lineStart, int outputEndLine, boolean terminated) {
+			this.text = text;
+			this.start = start;
+			this.end = end;
+			this.outputLine = outputLine;
+			this.lineStart = lineStart;
+			this.outputEndLine = outputEndLine;
+			this.terminated = terminated;
+		}
+
+		/** Set the file lines of the segment, and the macros those lines use */
+		private void setSource(@NotNull HeaderSourceMap sourceMap) {
+			startLine = sourceMap.getSourceLine(outputLine);
+			endLine = sourceMap.getSourceLine(outputEndLine);
+			dependencies = Collections.unmodifiableSet(sourceMap.getDependencies(startLine, endLine));
+			hasInclude = sourceMap.hasInclude(startLine, endLine);
+		}
+
+		/** @return a copy of this segment that is on different lines of the file */
+		@NotNull
+		private Segment moved(int newStartLine, int newEndLine) {
+			Segment moved = new Segment(text, start, end, outputLine, lineStart, outputEndLine, terminated);
+			moved.startLine = newStartLine;
+			moved.endLine = newEndLine;
+			moved.dependencies = dependencies;
+			moved.hasInclude = hasInclude;
+			moved.item = item;
+			return moved;
+		}
+
+		/** @return the {@link HeaderClass} or {@link HeaderAssignment} */
+		@NotNull
+		public HeaderItem getItem() {
+			return item;
+		}
+
+		/** @return the line of the file (before preprocessing) that the segment starts on (first line is 1) */
+		public int getStartLine() {
+			return startLine;
+		}
+
+		/** @return the line of the file (before preprocessing) that the segment ends on (first line is 1) */
+		public int getEndLine() {
+			return endLine;
+		}
+
+		/**
+		 @return the macros that the segment's lines use. The segment is expanded again when one of them is edited.
+		 Macros used inside #include'd files aren't included, since segments with an #include are always expanded again.
+		 */
+		@NotNull
+		public Set<String> getMacroDependencies() {
+			return dependencies;
+		}
+
+		/** @return the preprocessed text of the segment */
+		@NotNull
+		public String getText() {
+			return text;
+		}
+
+		@Override
+		public String toString() {
+			return "Segment{lines " + startLine + "-" + endLine + ", " + item + "}";
+		}
+	}
+
+	/**
+	 The lines of the file that a macro is on
+
+	 @author K
+	 @since 10/18/2026 */
+	public static class MacroSegment {
+		private final HeaderMacro macro;
+		private final int startLine, endLine;
+
+		private MacroSegment(@NotNull HeaderMacro macro, int startLine, int endLine) {
+			this.macro = macro;
+			this.startLine = startLine;
+			this.endLine = endLine;
+		}
+
+		@NotNull
+		public HeaderMacro getMacro() {
+			return macro;
+		}
+
+		/** @return the line the macro starts on (first line is 1) */
+		public int getStartLine() {
+			return startLine;
+		}
+
+		/** @return the line the macro ends on, which is after {@link #getStartLine()} if the macro is continued with <code>\</code> */
+		public int getEndLine() {
+			return endLine;
+		}
+
+		@Override
+		public String toString() {
+			return "MacroSegment{lines " + startLine + "-" + endLine + ", " + macro + "}";
+		}
+	}
+
+	/** Lines of an edit. Lines before {@link #firstLine} are the same in both versions. */
+	private static class Edit {
+		final int firstLine;
+		/** Last line of the previous version that was edited. Lines after it are the same as the lines after {@link #newLastLine}. */
+		final int oldLastLine;
+		final int newLastLine;
+
+		Edit(int firstLine, int oldLastLine, int newLastLine) {
+			this.firstLine = firstLine;
+			this.oldLastLine = oldLastLine;
+			this.newLastLine = newLastLine;
+		}
+
+		/** @return how many lines were added (or removed, if negative) */
+		int lineDelta() {
+			return newLastLine - oldLastLine;
+		}
+
+		/**
+		 @param oldLine line of the previous version
+		 @param start true if the line is the start of a range, false if it is the end
+		 @return the line in the new version. An edited line is mapped to the start or end of the edit.
+		 */
+		int newLine(int oldLine, boolean start) {
+			if (oldLine > oldLastLine) {
+				return oldLine + lineDelta();
+			}
+			if (oldLine >= firstLine) {
+				return start ? firstLine : newLastLine;
+			}
+			return oldLine;
+		}
+	}
+}
@@ -0,0 +1,417 @@
+package com.armadialogcreator.arma.header;
+
+import com.armadialogcreator.lang.Lang;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ResourceBundle;
+
+/**
+ A hand written lexer for preprocessed header files that is used by {@link HeaderRecursiveDescentParser}.
+ The tokens are the same as the ones in HeaderAntlr.g4. Instead of creating a token object (and a String) for each token,
+ the lexer only records where the current token starts and ends in the text.
+ <p>
+ Whitespace and comments are skipped. Characters that can't start a token (such as a <code>#</code> left over
+ from a macro that wasn't defined) are dropped, the same way the ANTLR lexer recovers from them.
+ A <code>//</code> comment with nothing after it is a comment (the ANTLR lexer turns it into 2 <code>/</code> tokens).
+
+ @author K
+ @since 10/18/2026 */
+class HeaderLexer {
+	public static final int EOF = 0;
+	public static final int STRING = 1;
+	public static final int CLASS = 2;
+	public static final int COMMA = 3;
+	public static final int COLON = 4;
+	public static final int SEMICOLON = 5;
+	public static final int PLUS_EQUAL = 6;
+	public static final int EQUAL = 7;
+	public static final int LBRACE = 8;
+	public static final int RBRACE = 9;
+	public static final int BRACKET_PAIR = 10;
+	public static final int PLUS = 11;
+	public static final int MINUS = 12;
+	public static final int STAR = 13;
+	public static final int FSLASH = 14;
+	public static final int LPAREN = 15;
+	public static final int RPAREN = 16;
+	public static final int BSLASH = 17;
+	public static final int IDENTIFIER = 18;
+	public static final int NUMBER = 19;
+
+	private static final ResourceBundle bundle = Lang.getBundle("HeaderParserBundle");
+
+	private final char[] text;
+	private final int length;
+	private int pos;
+	private int line;
+	private int lineStart;
+
+	private int tokenType = EOF;
+	private int tokenStart;
+	private int tokenEnd;
+	private int tokenLine = 1;
+	private int tokenColumn = 0;
+
+	/**
+	 @param text the text to tokenize. The array isn't copied.
+	 @param length number of chars in <code>text</code> to use
+	 */
+	public HeaderLexer(@NotNull char[] text, int length) {
+		this(text, 0, length, 1, 0);
+		if (length > 0 && text[0] == '\uFEFF') {
+			pos = 1; //skip byte order mark
+		}
+	}
+
+	/**
+	 Tokenize part of a text. Line and column numbers are the same as if the whole text was tokenized.
+
+	 @param text the text to tokenize. The array isn't copied.
+	 @param start index of the first char to use
+	 @param end index after the last char to use
+	 @param line the line that <code>start</code> is on (first line is 1)
+	 @param lineStart index of the first char of the line that <code>start</code> is on
+	 */
+	public HeaderLexer(@NotNull char[] text, int start, int end, int line, int lineStart) {
+		if (start < 0 || end < start || end > text.length) {
+			throw new IllegalArgumentException("range out of bounds");
+		}
+		this.text = text;
+		this.length = end;
+		this.pos = start;
+		this.line = line;
+		this.lineStart = lineStart;
+		this.tokenStart = start;
+		this.tokenEnd = start;
+	}
+
+	/**
+	 Advance to the next token
+
+	 @return the type of the token (one of the constants in this class)
+	 @throws HeaderParseException when the text couldn't be tokenized
+	 */
+	public int next() throws HeaderParseException {
+		int type;
+		do {
+			skipWhitespaceAndComments();
+			type = nextToken();
+		} while (type < 0);
+		return type;
+	}
+
+	/** @return the token type, or -1 if an unrecognized char was dropped */
+	private int nextToken() throws HeaderParseException {
+		tokenStart = pos;
+		tokenLine = line;
+		tokenColumn = pos - lineStart;
+		if (pos >= length) {
+			tokenEnd = pos;
+			return tokenType = EOF;
+		}
+		final char c = text[pos];
+		int type;
+		int end = pos + 1;
+		switch (c) {
+			case '"': //intentional fall through
+			case '\'': {
+				end = scanString(pos);
+				type = STRING;
+				break;
+			}
+			case ',': {
+				type = COMMA;
+				break;
+			}
+			case ':': {
+				type = COLON;
+				break;
+			}
+			case ';': {
+				type = SEMICOLON;
+				break;
+			}
+			case '=': {
+				type = EQUAL;
+				break;
+			}
+			case '{': {
+				type = LBRACE;
+				break;
+			}
+			case '}': {
+				type = RBRACE;
+				break;
+			}
+			case '+': {
+				if (end < length && text[end] == '=') {
+					end++;
+					type = PLUS_EQUAL;
+				} else {
+					type = PLUS;
+				}
+				break;
+			}
+			case '-': {
+				type = MINUS;
+				break;
+			}
+			case '*': {
+				type = STAR;
+				break;
+			}
+			case '/': {
+				type = FSLASH;
+				break;
+			}
+			case '(': {
+				type = LPAREN;
+				break;
+			}
+			case ')': {
+				type = RPAREN;
+				break;
+			}
+			case '\\': {
+				type = BSLASH;
+				break;
+			}
+			case '[': {
+				if (end < length && text[end] == ']') {
+					end++;
+					type = BRACKET_PAIR;
+					break;
+				}
+				return dropUnrecognized(2);
+			}
+			default: {
+				if (isDigit(c) || (c == '.' && end < length && isDigit(text[end]))) {
+					end = scanNumber(pos);
+					type = NUMBER;
+				} else if (isIdentifierStartAt(pos)) {
+					end = scanIdentifier(pos);
+					type = isClassKeyword(pos, end) ? CLASS : IDENTIFIER;
+				} else {
+					//a '.' that isn't followed by a digit is dropped along with the next char
+					return dropUnrecognized(c == '.' ? 2 : 1);
+				}
+			}
+		}
+		pos = end;
+		tokenEnd = end;
+		return tokenType = type;
+	}
+
+	/** @return the type of the current token */
+	public int getTokenType() {
+		return tokenType;
+	}
+
+	/** @return the index in the text where the current token starts */
+	public int getTokenStart() {
+		return tokenStart;
+	}
+
+	/** @return the index in the text after the current token's last char */
+	public int getTokenEnd() {
+		return tokenEnd;
+	}
+
+	/** @return the line the current token starts on (first line is 1) */
+	public int getTokenLine() {
+		return tokenLine;
+	}
+
+	/** @return the column the current token starts on (first column is 0) */
+	public int getTokenColumn() {
+		return tokenColumn;
+	}
+
+	/** @return a new String of the current token's text */
+	@NotNull
+	public String getTokenText() {
+		return new String(text, tokenStart, tokenEnd - tokenStart);
+	}
+
+	/** @return the text that was passed in the constructor */
+	@NotNull
+	public char[] getText() {
+		return text;
+	}
+
+	/**
+	 Create an exception where the message contains the line and column of the current token
+
+	 @param message error message
+	 @return the exception
+	 */
+	@NotNull
+	public HeaderParseException error(@NotNull String message) {
+		return new HeaderParseException(String.format(bundle.getString("Error.HeaderParser.parse_error_wrapper_f"), tokenLine, tokenColumn, message));
+	}
+
+	/**
+	 Drop chars that don't make a token. The ANTLR lexer drops the chars it read while trying to match a token,
+	 plus the char that didn't match, so the same is done here.
+
+	 @param count number of chars to drop
+	 @return -1
+	 */
+	private int dropUnrecognized(int count) {
+		pos = Math.min(length, pos + count);
+		return -1;
+	}
+
+	private void skipWhitespaceAndComments() throws HeaderParseException {
+		final char[] text = this.text;
+		final int length = this.length;
+		int p = pos;
+		while (p < length) {
+			char c = text[p];
+			if (c == '\n') {
+				p++;
+				line++;
+				lineStart = p;
+				continue;
+			}
+			if (c == ' ' || c == '\t' || c == '\r') {
+				p++;
+				continue;
+			}
+			if (c == '/' && p + 1 < length) {
+				char next = text[p + 1];
+				if (next == '/') {
+					p += 2;
+					while (p < length && text[p] != '\n' && text[p] != '\r') {
+						p++;
+					}
+					continue;
+				}
+				if (next == '*') {
+					tokenLine = line;
+					tokenColumn = p - lineStart;
+					p += 2;
+					while (true) {
+						if (p + 1 >= length) {
+							throw error(String.format(bundle.getString("Error.HeaderParser.expected_got_f"), "*/",
+									bundle.getString("Error.HeaderParser.eof")));
+						}
+						if (text[p] == '*' && text[p + 1] == '/') {
+							p += 2;
+							break;
+						}
+						if (text[p] == '\n') {
+							line++;
+							lineStart = p + 1;
+						}
+						p++;
+					}
+					continue;
+				}
+			}
+			break;
+		}
+		pos = p;
+	}
+
+	/** @return the index after the string's last quote. Adjacent strings with the same quote char are one token. */
+	private int scanString(int start) throws HeaderParseException {
+		final char quote = text[start];
+		int p = start;
+		while (p < length && text[p] == quote) {
+			p++;
+			while (p < length && text[p] != quote) {
+				if (text[p] == '\n') {
+					line++;
+					lineStart = p + 1;
+				}
+				p++;
+			}
+			if (p >= length) {
+				throw error(String.format(bundle.getString("Error.HeaderParser.expected_got_f"), quote,
+						bundle.getString("Error.HeaderParser.eof")));
+			}
+			p++; //closing quote
+		}
+		return p;
+	}
+
+	/** @return the index after the number's last char */
+	private int scanNumber(int start) {
+		int p = start;
+		if (text[p] == '0' && p + 2 < length && (text[p + 1] == 'x' || text[p + 1] == 'X') && isHexDigit(text[p + 2])) {
+			p += 2;
+			while (p < length && isHexDigit(text[p])) {
+				p++;
+			}
+			return p;
+		}
+		while (p < length && isDigit(text[p])) {
+			p++;
+		}
+		if (p + 1 < length && text[p] == '.' && isDigit(text[p + 1])) {
+			p++;
+			while (p < length && isDigit(text[p])) {
+				p++;
+			}
+		}
+		if (p < length && (text[p] == 'e' || text[p] == 'E')) {
+			int e = p + 1;
+			if (e < length && (text[e] == '+' || text[e] == '-')) {
+				e++;
+			}
+			if (e < length && isDigit(text[e])) {
+				while (e < length && isDigit(text[e])) {
+					e++;
+				}
+				p = e;
+			}
+		}
+		return p;
+	}
+
+	/** @return the index after the identifier's last char */
+	private int scanIdentifier(int start) {
+		int p = start + Character.charCount(Character.codePointAt(text, start, length));
+		while (p < length) {
+			char c = text[p];
+			if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '_' || c == '$') {
+				p++;
+				continue;
+			}
+			if (c <= 0xFF) {
+				break;
+			}
+			int cp = Character.codePointAt(text, p, length);
+			if (!Character.isJavaIdentifierPart(cp)) {
+				break;
+			}
+			p += Character.charCount(cp);
+		}
+		return p;
+	}
+
+	private boolean isIdentifierStartAt(int index) {
+		char c = text[index];
+		if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$') {
+			return true;
+		}
+		if (c <= 0xFF) {
+			return false;
+		}
+		return Character.isJavaIdentifierStart(Character.codePointAt(text, index, length));
+	}
+
+	private boolean isClassKeyword(int start, int end) {
+		return end - start == 5 && text[start] == 'c' && text[start + 1] == 'l' && text[start + 2] == 'a'
+				&& text[start + 3] == 's' && text[start + 4] == 's';
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isHexDigit(char c) {
+		return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+	}
+}
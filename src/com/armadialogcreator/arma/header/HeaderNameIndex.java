@@ -0,0 +1,87 @@
+package com.armadialogcreator.arma.header;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ A hash index of names (class names or assignment variable names) to items. When the same name is added more than once,
+ the first item is kept so that lookups match a linear search from the start of a list.
+ <p>
+ Case insensitive names are matched exactly like {@link String#equalsIgnoreCase(String)}.
+
+ @author K
+ @since 10/18/2026 */
+class HeaderNameIndex<T> {
+	/** Lists with fewer items than this aren't indexed. Searching a short list is about as fast as a hash lookup, and an index costs memory for every class. */
+	static final int MIN_INDEXED_SIZE = 32;
+
+	private final boolean caseSensitive;
+	private final HashMap<String, T> map;
+
+	/**
+	 @param caseSensitive true if names are matched with case sensitivity
+	 @param expectedSize expected number of names
+	 */
+	public HeaderNameIndex(boolean caseSensitive, int expectedSize) {
+		this.caseSensitive = caseSensitive;
+		this.map = new HashMap<>(Math.max(4, (int) (expectedSize / 0.75f) + 1));
+	}
+
+	/** Add the item only if the name hasn't been added yet */
+	public void putIfAbsent(@NotNull String name, @NotNull T item) {
+		map.putIfAbsent(key(name), item);
+	}
+
+	/** Add all items of <code>other</code> whose names haven't been added yet */
+	public void putAllIfAbsent(@NotNull HeaderNameIndex<T> other) {
+		if (other.caseSensitive != caseSensitive) {
+			throw new IllegalArgumentException("case sensitivity doesn't match");
+		}
+		for (Map.Entry<String, T> entry : other.map.entrySet()) {
+			map.putIfAbsent(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/** @return the item for the name, or null if there isn't one */
+	@Nullable
+	public T get(@NotNull String name) {
+		return map.get(key(name));
+	}
+
+	public int size() {
+		return map.size();
+	}
+
+	@NotNull
+	private String key(@NotNull String name) {
+		return caseSensitive ? name : ignoreCaseKey(name);
+	}
+
+	/**
+	 @return a key where two names have the same key if and only if {@link String#equalsIgnoreCase(String)} is true for them.
+	 For performance, the name itself is returned if it has no upper case chars.
+	 */
+	@NotNull
+	static String ignoreCaseKey(@NotNull String name) {
+		final int len = name.length();
+		int i = 0;
+		for (; i < len; i++) {
+			char c = name.charAt(i);
+			if (c >= 0x80 || (c >= 'A' && c <= 'Z')) {
+				break;
+			}
+		}
+		if (i == len) {
+			return name;
+		}
+		char[] chars = name.toCharArray();
+		for (; i < len; i++) {
+			//same per char comparison that String.equalsIgnoreCase does
+			chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+		}
+		return new String(chars);
+	}
+}
@@ -1,16 +1,23 @@
 package com.armadialogcreator.arma.header;
 
 import com.armadialogcreator.lang.Lang;
+import com.armadialogcreator.util.ADCExecutors;
 import com.armadialogcreator.util.CharSequenceReader;
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.atn.ATNConfigSet;
 import org.antlr.v4.runtime.dfa.DFA;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.CharArrayWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  A parser for Arma 3 header files (.h, .hh, etc)
@@ -24,8 +31,28 @@ public class HeaderParser {
 	private static final char EOT = 3; //end of text
 	private static final String S_EOT = bundle.getString("Error.HeaderParser.eot");
 
+	/**
+	 Root files larger than this (in bytes) are preprocessed into a temporary file before parsing.
+	 Everything else is preprocessed in memory, at the same time as parsing, with a {@link PreprocessorPipe}.
+	 */
+	private static final long MAX_IN_MEMORY_FILE_LENGTH = 16 * 1024 * 1024;
+
+	/** Threads that run the {@link Preprocessor} while the parser reads its output */
+	private static final ExecutorService preprocessThreadPool = Executors.newCachedThreadPool(r -> {
+		Thread t = new Thread(r, "HeaderParser-Preprocessor");
+		t.setDaemon(true);
+		return t;
+	});
+
+	static {
+		ADCExecutors.registerExecutorService(preprocessThreadPool);
+	}
+
+	private static volatile Backend defaultBackend = Backend.Antlr;
+
 	private final HeaderFileTextProvider parsingFile;
 	private final HeaderParserContext parserContext;
+	private Backend backend = defaultBackend;
 
 	protected HeaderParser(@NotNull HeaderFileTextProvider parsingFile, @NotNull File tempDirectory) throws IOException {
 		this.parsingFile = parsingFile;
@@ -48,7 +75,7 @@ public class HeaderParser {
 	 */
 	@NotNull
 	public static HeaderParseResult parse(@NotNull File parsingFile, @NotNull File tempDirectory) throws IOException, HeaderParseException {
-		return parse(new HeaderFileTextProvider.BasicFileInput(parsingFile), tempDirectory);
+		return parse(HeaderFileTextProvider.forFile(parsingFile), tempDirectory);
 	}
 
 	/**
@@ -61,11 +88,35 @@ public class HeaderParser {
 	 */
 	@NotNull
 	public static HeaderParseResult parse(@NotNull HeaderFileTextProvider parsingFile, @NotNull File tempDirectory) throws IOException, HeaderParseException {
+		return parse(parsingFile, tempDirectory, defaultBackend);
+	}
+
+	/**
+	 Create a new header parser, preprocess the header file, parse the file with the given {@link Backend},
+	 and return a {@link HeaderParseResult} instance containing the results.
+
+	 @param parsingFile the header file to parse
+	 @param tempDirectory a directory
+	 @param backend the parser to use
+	 @return the result
+	 */
+	@NotNull
+	public static HeaderParseResult parse(@NotNull HeaderFileTextProvider parsingFile, @NotNull File tempDirectory, @NotNull Backend backend) throws IOException, HeaderParseException {
 		HeaderParser p = new HeaderParser(parsingFile, tempDirectory);
+		p.setBackend(backend);
 		HeaderFile file = p.parse();
 
+		return new HeaderParseResult(file, getDefineMacros(p.getMacros()));
+	}
+
+	/**
+	 @param macros macros discovered by the preprocessor
+	 @return the #define macros as a map (see {@link HeaderParseResult#getDefineMacros()})
+	 */
+	@NotNull
+	static Map<String, String> getDefineMacros(@NotNull List<HeaderMacro> macros) {
 		Map<String, String> defineMacros = new HashMap<>();
-		for (HeaderMacro macro : p.getMacros()) {
+		for (HeaderMacro macro : macros) {
 			if (!(macro.getContent() instanceof DefineMacroContent)) {
 				continue;
 			}
@@ -91,7 +142,29 @@ public class HeaderParser {
 				defineMacros.put(define.getDefinedVar(), stringDefineValue.getResultTemplateText());
 			}
 		}
-		return new HeaderParseResult(file, defineMacros);
+		return defineMacros;
+	}
+
+	/** @return the {@link Backend} that new {@link HeaderParser} instances use. By default, {@link Backend#Antlr} */
+	@NotNull
+	public static Backend getDefaultBackend() {
+		return defaultBackend;
+	}
+
+	/** Set the {@link Backend} that new {@link HeaderParser} instances use */
+	public static void setDefaultBackend(@NotNull Backend backend) {
+		defaultBackend = backend;
+	}
+
+	/** @return the {@link Backend} used for parsing the preprocessed text */
+	@NotNull
+	public Backend getBackend() {
+		return backend;
+	}
+
+	/** Set the {@link Backend} used for parsing the preprocessed text */
+	public void setBackend(@NotNull Backend backend) {
+		this.backend = backend;
 	}
 
 	/** @return the header file path being parsed (.h, .hh, etc) */
@@ -125,23 +198,72 @@ public class HeaderParser {
 		HeaderFile headerFile = new HeaderFile(parsingFile.getFilePath());
 
 		Preprocessor pre = new Preprocessor(parsingFile, parserContext);
-		Preprocessor.PreprocessorFileReader fileContentStream = pre.run();
 
-		parseText(headerFile, fileContentStream);
+		if (backend == Backend.RecursiveDescent) {
+			//the parser needs all of the text, so preprocess everything first
+			TextBuffer text = new TextBuffer((int) Math.max(32, Math.min(parsingFile.getFileLength(), MAX_IN_MEMORY_FILE_LENGTH)));
+			pre.run(text);
+			HeaderRecursiveDescentParser p = new HeaderRecursiveDescentParser(text.getChars(), text.size());
+			addRootClass(headerFile, p.parseRoot(headerFile));
+			return headerFile;
+		}
+
+		if (this.parsingFile.getFileLength() > MAX_IN_MEMORY_FILE_LENGTH) {
+			Preprocessor.PreprocessorFileReader fileContentStream = pre.run();
+			parseText(headerFile, getLexer(fileContentStream));
+			return headerFile;
+		}
+
+		PreprocessorPipe pipe = new PreprocessorPipe();
+		Future<Void> preprocessTask = preprocessThreadPool.submit(() -> {
+			try {
+				pre.run(pipe.getWriter());
+			} catch (Throwable t) {
+				pipe.fail(t);
+				throw t;
+			}
+			return null;
+		});
+
+		try {
+			HeaderAntlrLexer l = new HeaderAntlrLexer(pipe.newCharStream(this.parsingFile.getFileName()));
+			//the char stream doesn't keep all text in memory, so tokens need their own copy
+			l.setTokenFactory(new CommonTokenFactory(true));
+			parseText(headerFile, l);
+		} catch (Exception e) {
+			Throwable preprocessError = pipe.getWriterError();
+			pipe.getReader().close();
+			if (preprocessError instanceof Exception) {
+				//the parser failed because the preprocessor failed
+				throw (Exception) preprocessError;
+			}
+			throw e;
+		}
+
+		try {
+			//parsing is done, so the preprocessor is done too (or about to be)
+			preprocessTask.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
 
 		return headerFile;
 	}
 
-	private void parseText(@NotNull HeaderFile parsingFile, @NotNull Preprocessor.PreprocessorFileReader fileContentStream) throws HeaderParseException {
-		HeaderAntlrLexer l = getLexer(fileContentStream);
+	private void parseText(@NotNull HeaderFile parsingFile, @NotNull HeaderAntlrLexer l) throws HeaderParseException {
 		HeaderAntlrParser p = getParser(new CommonTokenStream(l));
 		l.getErrorListeners().clear();
 		p.getErrorListeners().clear();
 
 		p.addErrorListener(HeaderParserErrorListener.INSTANCE);
 
-		AST.HeaderClassNode rootClass = p.root_class(parsingFile).ast;
+		addRootClass(parsingFile, p.root_class(parsingFile).ast);
+	}
 
+	private void addRootClass(@NotNull HeaderFile parsingFile, @NotNull AST.HeaderClassNode rootClass) {
 		for (HeaderClass hc : rootClass.getNestedClasses()) {
 			parsingFile.getClassesMutable().add(hc);
 		}
@@ -150,6 +272,8 @@ public class HeaderParser {
 			parsingFile.getAssignmentsMutable().add(ha);
 		}
 
+		parsingFile.buildIndex();
+
 	}
 
 	protected String expected(char exp, char got) {
@@ -174,7 +298,7 @@ public class HeaderParser {
 	}
 
 	@NotNull
-	private HeaderAntlrLexer getLexer(@NotNull Preprocessor.PreprocessorFileReader r) {
+	private HeaderAntlrLexer getLexer(@NotNull Reader r) {
 		try {
 			return new HeaderAntlrLexer(CharStreams.fromReader(r));
 		} catch (IOException e) {
@@ -183,6 +307,30 @@ public class HeaderParser {
 	}
 
 
+	/** The parsers that can turn preprocessed text into a {@link HeaderFile} */
+	public enum Backend {
+		/** The parser generated from HeaderAntlr.g4. Syntax errors are silently recovered from. */
+		Antlr,
+		/**
+		 A hand written lexer and recursive descent parser that don't allocate a token object per token.
+		 The preprocessor output is kept in memory and parsed once preprocessing is done.
+		 Syntax errors throw a {@link HeaderParseException}.
+		 */
+		RecursiveDescent
+	}
+
+	/** Gives access to the buffer so that the parser doesn't need to copy it */
+	static class TextBuffer extends CharArrayWriter {
+		public TextBuffer(int initialSize) {
+			super(initialSize);
+		}
+
+		@NotNull
+		public char[] getChars() {
+			return buf;
+		}
+	}
+
 	public static class HeaderParserErrorListener extends BaseErrorListener {
 		public static final HeaderParserErrorListener INSTANCE = new HeaderParserErrorListener();
 
@@ -2,6 +2,7 @@ package com.armadialogcreator.arma.header;
 
 import com.armadialogcreator.util.DataContext;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -15,6 +16,7 @@ import java.util.List;
 class HeaderParserContext extends DataContext {
 	private final List<HeaderMacro> macroList = new ArrayList<>();
 	private File tempDirectory;
+	private HeaderIncludeCache includeCache = HeaderIncludeCache.instance;
 
 	/**
 	 @param tempDirectory a directory used for making temporary files
@@ -36,4 +38,15 @@ class HeaderParserContext extends DataContext {
 	public File getTempDirectory() {
 		return tempDirectory;
 	}
+
+	/** @return the cache for #include'd files, or null if #include results shouldn't be cached. Default is {@link HeaderIncludeCache#instance} */
+	@Nullable
+	public HeaderIncludeCache getIncludeCache() {
+		return includeCache;
+	}
+
+	/** @param includeCache the cache for #include'd files, or null to not cache #include results */
+	public void setIncludeCache(@Nullable HeaderIncludeCache includeCache) {
+		this.includeCache = includeCache;
+	}
 }
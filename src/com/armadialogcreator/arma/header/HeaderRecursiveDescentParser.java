@@ -0,0 +1,282 @@
+package com.armadialogcreator.arma.header;
+
+import com.armadialogcreator.lang.Lang;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ResourceBundle;
+
+import static com.armadialogcreator.arma.header.HeaderLexer.*;
+
+/**
+ A hand written recursive descent parser for preprocessed header files. It builds the same AST that HeaderAntlr.g4 does,
+ and since the grammar only needs one token of look ahead (two for assignments), no adaptive prediction is needed.
+ <p>
+ Values are the concatenated text of their tokens, without whitespace and comments (same as the ANTLR parser).
+ Identifiers and values are interned in a {@link HeaderSymbolTable}.
+ Stray <code>\</code> and <code>;</code> tokens where a class or assignment is expected are skipped, since the preprocessor
+ leaves the line continuations of multi line macros in its output and macro invocations are often followed by a <code>;</code>.
+ Otherwise, unlike the ANTLR parser,
+ which silently recovers from syntax errors, this parser throws a {@link HeaderParseException}.
+
+ @author K
+ @see HeaderParser.Backend#RecursiveDescent
+ @since 10/18/2026 */
+class HeaderRecursiveDescentParser {
+	private static final ResourceBundle bundle = Lang.getBundle("HeaderParserBundle");
+
+	private final HeaderLexer lexer;
+	private final char[] text;
+	private int token;
+	/** Identifiers and values, so that each distinct text is only stored once per parse */
+	private final HeaderSymbolTable symbols = new HeaderSymbolTable();
+	/** Reused for building value text */
+	private char[] valueBuffer = new char[64];
+
+	/**
+	 @param text preprocessed text. The array isn't copied.
+	 @param length number of chars in <code>text</code> to use
+	 */
+	public HeaderRecursiveDescentParser(@NotNull char[] text, int length) {
+		this.lexer = new HeaderLexer(text, length);
+		this.text = text;
+	}
+
+	/**
+	 Parse part of a text. See {@link HeaderLexer#HeaderLexer(char[], int, int, int, int)} for the parameters.
+	 */
+	public HeaderRecursiveDescentParser(@NotNull char[] text, int start, int end, int line, int lineStart) {
+		this.lexer = new HeaderLexer(text, start, end, line, lineStart);
+		this.text = text;
+	}
+
+	/**
+	 Parse the whole text
+
+	 @param file the file that will own the root class
+	 @return the root class
+	 @throws HeaderParseException when the text couldn't be parsed
+	 */
+	@NotNull
+	public AST.HeaderClassNode parseRoot(@NotNull HeaderFile file) throws HeaderParseException {
+		ArrayList<HeaderClass> nested = new ArrayList<>();
+		ArrayList<HeaderAssignment> assigns = new ArrayList<>();
+		AST.HeaderClassNode root = new AST.HeaderClassNode(file, assigns, nested);
+		parseMembers(root, nested, assigns);
+		return root;
+	}
+
+	/**
+	 Parse the whole text as members of <code>parentClass</code>
+
+	 @param parentClass the class that will own the parsed classes and assignments
+	 @param nested list to add parsed classes to
+	 @param assigns list to add parsed assignments to
+	 @throws HeaderParseException when the text couldn't be parsed
+	 */
+	public void parseMembers(@NotNull HeaderClass parentClass, @NotNull List<HeaderClass> nested,
+							 @NotNull List<HeaderAssignment> assigns) throws HeaderParseException {
+		token = lexer.next();
+		while (token != EOF) {
+			parseClassMember(parentClass, nested, assigns);
+		}
+	}
+
+	private void parseClassMember(@NotNull HeaderClass parentClass, @NotNull List<HeaderClass> nested,
+								  @NotNull List<HeaderAssignment> assigns) throws HeaderParseException {
+		switch (token) {
+			case CLASS: {
+				nested.add(parseClass(parentClass));
+				break;
+			}
+			case IDENTIFIER: {
+				assigns.add(parseAssignment());
+				break;
+			}
+			case BSLASH: //line continuation left over from a macro
+			case SEMICOLON: { //empty statement
+				token = lexer.next();
+				break;
+			}
+			default: {
+				throw unexpected();
+			}
+		}
+	}
+
+	@NotNull
+	private AST.HeaderClassNode parseClass(@NotNull HeaderClass parentClass) throws HeaderParseException {
+		token = lexer.next(); //class
+		String className = expectIdentifier();
+		String extendClassName = null;
+		if (token == COLON) {
+			token = lexer.next();
+			extendClassName = expectIdentifier();
+		}
+
+		ArrayList<HeaderClass> nested = new ArrayList<>();
+		ArrayList<HeaderAssignment> assigns = new ArrayList<>();
+		AST.HeaderClassNode node = new AST.HeaderClassNode(parentClass, assigns, nested);
+		node.setClassName(className);
+		node.setExtendClassName(extendClassName);
+
+		if (token == LBRACE) {
+			token = lexer.next();
+			while (token != RBRACE) {
+				if (token == EOF) {
+					throw expected("}");
+				}
+				parseClassMember(node, nested, assigns);
+			}
+			token = lexer.next();
+		}
+		expect(SEMICOLON, ";");
+		node.trimToSize();
+		return node;
+	}
+
+	@NotNull
+	private HeaderAssignment parseAssignment() throws HeaderParseException {
+		String varName = internToken();
+		token = lexer.next();
+		if (token == BRACKET_PAIR) {
+			token = lexer.next();
+			boolean concat;
+			if (token == PLUS_EQUAL) {
+				concat = true;
+			} else if (token == EQUAL) {
+				concat = false;
+			} else {
+				throw expected("=");
+			}
+			token = lexer.next();
+			AST.HeaderArrayNode array = parseArray();
+			expect(SEMICOLON, ";");
+			return new AST.HeaderArrayAssignmentNode(varName, array, concat);
+		}
+		expect(EQUAL, "=");
+		if (token == SEMICOLON) {
+			token = lexer.next();
+			return new AST.HeaderAssignmentNode(varName, null);
+		}
+		AST.HeaderValueNode value = parseValue();
+		expect(SEMICOLON, ";");
+		return new AST.HeaderAssignmentNode(varName, value);
+	}
+
+	@NotNull
+	private AST.HeaderArrayNode parseArray() throws HeaderParseException {
+		if (token != LBRACE) {
+			throw expected("{");
+		}
+		token = lexer.next();
+		ArrayList<HeaderArrayItem> items = new ArrayList<>();
+		if (token != RBRACE) {
+			while (true) {
+				if (token == LBRACE) {
+					items.add(parseArray());
+				} else {
+					items.add(parseValue());
+				}
+				if (token != COMMA) {
+					break;
+				}
+				token = lexer.next();
+			}
+		}
+		expect(RBRACE, "}");
+		return new AST.HeaderArrayNode(items);
+	}
+
+	/** A value is a string, or an "equation", which is one or more tokens that can't end a value */
+	@NotNull
+	private AST.HeaderValueNode parseValue() throws HeaderParseException {
+		if (!isValueToken(token)) {
+			throw unexpected();
+		}
+		int start = lexer.getTokenStart();
+		int end = lexer.getTokenEnd();
+		token = lexer.next();
+		if (!isValueToken(token)) {
+			//most values are a single token
+			return new AST.HeaderValueNode(symbols.intern(text, start, end));
+		}
+		char[] buf = valueBuffer;
+		int length = 0;
+		while (true) {
+			int tokenLength = end - start;
+			if (length + tokenLength > buf.length) {
+				buf = valueBuffer = Arrays.copyOf(buf, Math.max(buf.length * 2, length + tokenLength));
+			}
+			System.arraycopy(text, start, buf, length, tokenLength);
+			length += tokenLength;
+			if (!isValueToken(token)) {
+				break;
+			}
+			start = lexer.getTokenStart();
+			end = lexer.getTokenEnd();
+			token = lexer.next();
+		}
+		return new AST.HeaderValueNode(symbols.intern(buf, 0, length));
+	}
+
+	@NotNull
+	private String internToken() {
+		return symbols.intern(text, lexer.getTokenStart(), lexer.getTokenEnd());
+	}
+
+	private static boolean isValueToken(int token) {
+		switch (token) {
+			case STRING:
+			case PLUS:
+			case MINUS:
+			case STAR:
+			case FSLASH:
+			case LPAREN:
+			case RPAREN:
+			case NUMBER:
+			case IDENTIFIER:
+			case BSLASH: {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@NotNull
+	private String expectIdentifier() throws HeaderParseException {
+		if (token != IDENTIFIER) {
+			throw expected("identifier");
+		}
+		String s = internToken();
+		token = lexer.next();
+		return s;
+	}
+
+	private void expect(int tokenType, @NotNull String tokenText) throws HeaderParseException {
+		if (token != tokenType) {
+			throw expected(tokenText);
+		}
+		token = lexer.next();
+	}
+
+	@NotNull
+	private HeaderParseException expected(@NotNull String expected) {
+		return lexer.error(String.format(bundle.getString("Error.HeaderParser.expected_got_f"), expected, currentTokenText()));
+	}
+
+	@NotNull
+	private HeaderParseException unexpected() {
+		return lexer.error(String.format(bundle.getString("Error.HeaderParser.unexpected_f"), currentTokenText()));
+	}
+
+	@NotNull
+	private String currentTokenText() {
+		if (token == EOF) {
+			return bundle.getString("Error.HeaderParser.eof");
+		}
+		return lexer.getTokenText();
+	}
+}
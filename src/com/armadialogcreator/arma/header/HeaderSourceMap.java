@@ -0,0 +1,190 @@
+package com.armadialogcreator.arma.header;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ Where the preprocessed text of a header file came from. Filled in by {@link Preprocessor} when one is given with
+ {@link Preprocessor#setSourceMap(HeaderSourceMap)}, and used by {@link HeaderIncrementalParser} to only expand and parse
+ the lines that an edit affects.
+ <p>
+ All lines are lines of the root file (first line is 1). Everything that comes from an #include'd file belongs to the
+ line of the root file's #include.
+
+ @author K
+ @since 10/18/2026 */
+class HeaderSourceMap {
+	/** A line that is written to the preprocessed text, with its macros expanded */
+	static final byte TEXT = 0;
+	/** A line of a macro (#define, #include, etc), including lines continued with <code>\</code> */
+	static final byte DIRECTIVE = 1;
+	/** A line that isn't written because it is inside an #ifdef or #ifndef that is false */
+	static final byte INACTIVE = 2;
+	/** A line where a block comment starts and doesn't end */
+	static final byte COMMENT_START = 3;
+	/** A line that is entirely inside a block comment */
+	static final byte COMMENT = 4;
+	/** A line where a block comment that started on a previous line ends */
+	static final byte COMMENT_END = 5;
+
+	private byte[] lineKinds = new byte[64];
+	private int lineCount;
+	/** Kind of a line that would be added at the end of the file */
+	private byte endKind = TEXT;
+
+	/** Root file line for each line of the preprocessed text */
+	private int[] outputLines = new int[64];
+	private int outputLineCount;
+
+	private final BitSet includeLines = new BitSet();
+	private final HashMap<Integer, Set<String>> dependencies = new HashMap<>();
+	private final List<MacroRange> macroRanges = new ArrayList<>();
+	private boolean evaluated;
+
+	/** Root file lines whose macros are expanded, or null if all lines are */
+	private final BitSet expandLines;
+
+	/** Record where all lines came from, and expand the macros of all lines */
+	HeaderSourceMap() {
+		this(null);
+	}
+
+	/**
+	 @param expandLines the root file lines whose macros are expanded, or null if all lines are. Other lines are written as is,
+	 so the preprocessed text has the same lines, but only the expanded lines have the right text.
+	 */
+	HeaderSourceMap(@Nullable BitSet expandLines) {
+		this.expandLines = expandLines;
+	}
+
+	/** @return true if the macros of the given root file line are expanded */
+	boolean isExpanded(int line) {
+		return expandLines == null || expandLines.get(line);
+	}
+
+	void setLineKind(int line, byte kind) {
+		if (line >= lineKinds.length) {
+			lineKinds = Arrays.copyOf(lineKinds, Math.max(line + 1, lineKinds.length * 2));
+		}
+		lineKinds[line] = kind;
+		lineCount = Math.max(lineCount, line);
+	}
+
+	void setEndKind(byte endKind) {
+		this.endKind = endKind;
+	}
+
+	/** @return the kind of the given root file line ({@link #TEXT}, {@link #DIRECTIVE}, etc) */
+	byte getLineKind(int line) {
+		return line >= 1 && line <= lineCount ? lineKinds[line] : endKind;
+	}
+
+	/** @return number of root file lines that were preprocessed */
+	int getLineCount() {
+		return lineCount;
+	}
+
+	/** <code>count</code> lines of preprocessed text were written for the given root file line */
+	void addOutputLines(int line, int count) {
+		if (outputLineCount + count > outputLines.length) {
+			outputLines = Arrays.copyOf(outputLines, Math.max(outputLineCount + count, outputLines.length * 2));
+		}
+		Arrays.fill(outputLines, outputLineCount, outputLineCount + count, line);
+		outputLineCount += count;
+	}
+
+	/** @return number of lines in the preprocessed text */
+	int getOutputLineCount() {
+		return outputLineCount;
+	}
+
+	/** @return the root file line of the given preprocessed line (first line is 1) */
+	int getSourceLine(int outputLine) {
+		if (outputLineCount == 0) {
+			return 1;
+		}
+		return outputLines[Math.max(0, Math.min(outputLine, outputLineCount) - 1)];
+	}
+
+	/** @return the first preprocessed line (first line is 1) that came from a root file line at or after the given line */
+	int getFirstOutputLine(int sourceLine) {
+		int low = 0, high = outputLineCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (outputLines[mid] < sourceLine) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low + 1;
+	}
+
+	void addInclude(int line) {
+		includeLines.set(line);
+	}
+
+	/** @return true if any of the given root file lines has an #include */
+	boolean hasInclude(int startLine, int endLine) {
+		int next = includeLines.nextSetBit(startLine);
+		return next >= 0 && next <= endLine;
+	}
+
+	/** The given macro was used on the given root file line. Macros used by #include'd files aren't recorded. */
+	void addDependency(int line, @NotNull String macro) {
+		dependencies.computeIfAbsent(line, k -> new HashSet<>(4)).add(macro);
+	}
+
+	/** @return all macros used on the given root file lines */
+	@NotNull
+	Set<String> getDependencies(int startLine, int endLine) {
+		Set<String> all = null;
+		for (int line = startLine; line <= endLine; line++) {
+			Set<String> used = dependencies.get(line);
+			if (used == null) {
+				continue;
+			}
+			if (all == null) {
+				all = new HashSet<>(used);
+			} else {
+				all.addAll(used);
+			}
+		}
+		return all == null ? Collections.emptySet() : all;
+	}
+
+	void addMacro(@NotNull HeaderMacro macro, int startLine, int endLine, boolean root) {
+		macroRanges.add(new MacroRange(macro, startLine, endLine, root));
+	}
+
+	/** @return the macros, in the order they were discovered */
+	@NotNull
+	List<MacroRange> getMacroRanges() {
+		return macroRanges;
+	}
+
+	/** An __EVAL or __EXEC was evaluated, so the preprocessed text depends on more than the lines and macros */
+	void setEvaluated() {
+		evaluated = true;
+	}
+
+	boolean isEvaluated() {
+		return evaluated;
+	}
+
+	static class MacroRange {
+		final HeaderMacro macro;
+		final int startLine, endLine;
+		/** true if the macro is in the root file, false if it is in an #include'd file */
+		final boolean root;
+
+		MacroRange(@NotNull HeaderMacro macro, int startLine, int endLine, boolean root) {
+			this.macro = macro;
+			this.startLine = startLine;
+			this.endLine = endLine;
+			this.root = root;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package com.armadialogcreator.arma.header;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ A per parse table of identifiers and values, so that text which appears many times in a header file
+ (such as <code>idc</code>, <code>"RobotoCondensed"</code>, or <code>0.04 * safezoneH</code>) is only stored once.
+ Unlike {@link String#intern()}, the Strings can be garbage collected along with the parse results.
+ <p>
+ Text can be looked up straight from a char array, so a new String is only created the first time the text is seen.
+
+ @author K
+ @since 10/18/2026 */
+class HeaderSymbolTable {
+	private String[] table = new String[256];
+	private int size = 0;
+
+	/** @return a String that equals <code>s</code> (or null if <code>s</code> is null). The same instance is returned for equal Strings. */
+	public String intern(@Nullable String s) {
+		if (s == null) {
+			return null;
+		}
+		final int hash = s.hashCode();
+		String[] table = this.table;
+		int mask = table.length - 1;
+		int i = hash & mask;
+		while (true) {
+			String existing = table[i];
+			if (existing == null) {
+				add(i, s);
+				return s;
+			}
+			if (existing.hashCode() == hash && existing.equals(s)) {
+				return existing;
+			}
+			i = (i + 1) & mask;
+		}
+	}
+
+	/** @return a String of the chars in the range. The same instance is returned for equal text. */
+	@NotNull
+	public String intern(@NotNull char[] text, int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + text[i]; //same as String.hashCode()
+		}
+		String[] table = this.table;
+		int mask = table.length - 1;
+		int i = hash & mask;
+		while (true) {
+			String existing = table[i];
+			if (existing == null) {
+				String s = new String(text, start, end - start);
+				add(i, s);
+				return s;
+			}
+			if (existing.hashCode() == hash && rangeEquals(existing, text, start, end)) {
+				return existing;
+			}
+			i = (i + 1) & mask;
+		}
+	}
+
+	/** @return number of distinct Strings in the table */
+	public int size() {
+		return size;
+	}
+
+	private void add(int index, @NotNull String s) {
+		table[index] = s;
+		size++;
+		if (size * 2 > table.length) {
+			rehash();
+		}
+	}
+
+	private void rehash() {
+		String[] old = table;
+		String[] table = new String[old.length * 2];
+		int mask = table.length - 1;
+		for (String s : old) {
+			if (s == null) {
+				continue;
+			}
+			int i = s.hashCode() & mask;
+			while (table[i] != null) {
+				i = (i + 1) & mask;
+			}
+			table[i] = s;
+		}
+		this.table = table;
+	}
+
+	private static boolean rangeEquals(@NotNull String s, @NotNull char[] text, int start, int end) {
+		if (s.length() != end - start) {
+			return false;
+		}
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) != text[start + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,190 @@
+package com.armadialogcreator.arma.header;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ A hand written tokenizer used by {@link Preprocessor} for locating macro references inside a line of text.
+ This replaces the regex that was previously used to find macro references. Each reference is of the form
+ <code>[before]identifier[(parameters)]</code>, where before is one of:
+ <ul>
+ <li>nothing, when the identifier is at the very start of the text ({@link #BEFORE_NONE})</li>
+ <li><code>##</code> ({@link #BEFORE_GLUE})</li>
+ <li><code>#</code> ({@link #BEFORE_QUOTE})</li>
+ <li>any other character that isn't an identifier character or <code>#</code> ({@link #BEFORE_CHAR})</li>
+ </ul>
+ An identifier character is one of <code>[a-zA-Z_0-9$]</code>. The character after the reference must not be an identifier character.
+ <p>
+ Parameters are matched the same way the old regex did it. The parameters are everything between the opening paren and the
+ last <code>)</code> before the first <code>;</code> (as long as the <code>)</code> isn't followed by an identifier character).
+ If there is no such <code>)</code>, the text up to the first <code>)</code> is used as long as there is no <code>(</code> in between.
+ Parameters must have at least 1 character between the parenthesis.
+
+ @author K
+ @since 10/18/2026 */
+class MacroReferenceScanner {
+	/** The identifier is at index 0 and nothing precedes it */
+	public static final int BEFORE_NONE = 0;
+	/** A non identifier character precedes the identifier */
+	public static final int BEFORE_CHAR = 1;
+	/** A <code>#</code> precedes the identifier */
+	public static final int BEFORE_QUOTE = 2;
+	/** A <code>##</code> precedes the identifier */
+	public static final int BEFORE_GLUE = 3;
+
+	private final CharSequence text;
+	private final boolean scanParams;
+	private int pos = 0;
+
+	private int start;
+	private int identStart;
+	private int identEnd;
+	private int paramsEnd;
+	private int beforeType;
+
+	/**
+	 @param text text to scan
+	 @param scanParams true if parameters that follow an identifier should be matched, false if only identifiers should be matched
+	 */
+	public MacroReferenceScanner(@NotNull CharSequence text, boolean scanParams) {
+		this.text = text;
+		this.scanParams = scanParams;
+	}
+
+	/**
+	 Find the next macro reference, starting at the end of the last found reference.
+
+	 @return true if a reference was found, false if there are no more references
+	 */
+	public boolean find() {
+		final int len = text.length();
+		int p = pos;
+		while (p < len) {
+			char c = text.charAt(p);
+			if (isIdentifierChar(c)) {
+				if (p == 0) {
+					setFound(0, 0, BEFORE_NONE);
+					return true;
+				}
+				p++;
+				continue;
+			}
+			if (p + 1 >= len) {
+				break;
+			}
+			char next = text.charAt(p + 1);
+			if (c == '#') {
+				if (next == '#') {
+					if (p + 2 < len && isIdentifierChar(text.charAt(p + 2))) {
+						setFound(p, p + 2, BEFORE_GLUE);
+						return true;
+					}
+				} else if (isIdentifierChar(next)) {
+					setFound(p, p + 1, BEFORE_QUOTE);
+					return true;
+				}
+			} else if (isIdentifierChar(next)) {
+				setFound(p, p + 1, BEFORE_CHAR);
+				return true;
+			}
+			p++;
+		}
+		pos = len;
+		return false;
+	}
+
+	private void setFound(int start, int identStart, int beforeType) {
+		this.start = start;
+		this.identStart = identStart;
+		this.beforeType = beforeType;
+
+		final int len = text.length();
+		int i = identStart + 1;
+		while (i < len && isIdentifierChar(text.charAt(i))) {
+			i++;
+		}
+		this.identEnd = i;
+		this.paramsEnd = -1;
+		if (scanParams && i < len && text.charAt(i) == '(') {
+			this.paramsEnd = findParamsEnd(i + 1);
+		}
+		this.pos = end();
+	}
+
+	/** @return the index after the closing paren, or -1 if the parameters couldn't be matched */
+	private int findParamsEnd(int paramsStart) {
+		final int len = text.length();
+		int limit = paramsStart;
+		while (limit < len && text.charAt(limit) != ';') {
+			limit++;
+		}
+		//use last ) before the first ;
+		for (int j = limit - 1; j > paramsStart; j--) {
+			if (text.charAt(j) == ')' && isEndOfReference(j + 1)) {
+				return j + 1;
+			}
+		}
+		//use first ) if there is no ( before it (; is allowed)
+		int j = paramsStart;
+		while (j < len) {
+			char c = text.charAt(j);
+			if (c == '(' || c == ')') {
+				break;
+			}
+			j++;
+		}
+		if (j > paramsStart && j < len && text.charAt(j) == ')' && isEndOfReference(j + 1)) {
+			return j + 1;
+		}
+		return -1;
+	}
+
+	private boolean isEndOfReference(int index) {
+		return index >= text.length() || !isIdentifierChar(text.charAt(index));
+	}
+
+	/** @return the index where the reference starts (this includes the "before" text) */
+	public int start() {
+		return start;
+	}
+
+	/** @return the index after the reference (after the identifier, or after the closing paren if there are parameters) */
+	public int end() {
+		return paramsEnd >= 0 ? paramsEnd : identEnd;
+	}
+
+	/** @return the index where the identifier starts */
+	public int identifierStart() {
+		return identStart;
+	}
+
+	/** @return the index after the identifier's last character */
+	public int identifierEnd() {
+		return identEnd;
+	}
+
+	/** @return true if the reference had parameters */
+	public boolean hasParameters() {
+		return paramsEnd >= 0;
+	}
+
+	/** @return the parameters text, including the parenthesis, or null if {@link #hasParameters()} is false */
+	public String parametersText() {
+		return paramsEnd >= 0 ? text.subSequence(identEnd, paramsEnd).toString() : null;
+	}
+
+	/** @return one of the BEFORE_ constants in this class */
+	public int beforeType() {
+		return beforeType;
+	}
+
+	/** @return the identifier for the reference */
+	@NotNull
+	public String identifier() {
+		return text.subSequence(identStart, identEnd).toString();
+	}
+
+	/** @return true if the char matches <code>[a-zA-Z_0-9$]</code> */
+	public static boolean isIdentifierChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '$';
+	}
+}
@@ -8,24 +8,19 @@ import com.armadialogcreator.data.olddata.HeaderConversionException;
 import com.armadialogcreator.expression.Env;
 import com.armadialogcreator.expression.ExpressionInterpreter;
 import com.armadialogcreator.expression.SimpleEnv;
+import com.armadialogcreator.expression.TerminateEvaluationException;
 import com.armadialogcreator.expression.Value;
 import com.armadialogcreator.lang.Lang;
 import com.armadialogcreator.util.ScreenDimension;
 import com.armadialogcreator.util.UTF8FileReader;
 import com.armadialogcreator.util.UTF8FileWriter;
-import org.intellij.lang.annotations.RegExp;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.nio.CharBuffer;
+import java.util.*;
 import java.util.Map.Entry;
-import java.util.ResourceBundle;
-import java.util.Scanner;
-import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  @author Kayler
@@ -33,33 +28,6 @@ import java.util.regex.Pattern;
  @since 03/21/2017 */
 class Preprocessor {
 
-	@RegExp
-	private final String beforeMacro = "^|##|#|[^#a-zA-Z_0-9$]";
-	@RegExp
-	private final String afterMacro = "$|##|#|[^#a-zA-Z_0-9$]";
-	private final Pattern macroReferencePattern = Pattern.compile(
-			String.format(
-					//using ?= so that the pattern doesn't consume tokens (consuming will prevent a future pattern match)
-					"(?<BEFORE>%s)(?<MACRO>%s)(?<PARAMS>%s)?(?=%s)",
-					beforeMacro,
-					"[a-zA-Z_0-9$]+", //identifier
-
-					// Parameters: allow for everything in between (), except ';'
-					// OR allow everything in between () except '(' and ')'
-					"\\(([^;]+|[^()]+)\\)",
-					afterMacro
-			)
-	);
-
-	private final Pattern macroParamOutputTextPattern = Pattern.compile(
-			String.format(
-					"(?<BEFORE>%s)(?<PARAM>%s)(?=%s)",
-					beforeMacro, //before
-					"[a-zA-Z_0-9$]+", //identifier
-					afterMacro //after
-			)
-	);
-
 	/** The file where the preprocessing began */
 	private final HeaderFileTextProvider processFile;
 	/** Provided via {@link HeaderParser} */
@@ -69,31 +37,50 @@ class Preprocessor {
 	/** Bundle to get things from */
 	private final ResourceBundle bundle = Lang.getBundle("arma.header.HeaderParserBundle");
 
-	/** Stream to write the fully preprocessed results to. This is currently a {@link FileOutputStream} for {@link #temporaryFullyPreprocessedResultFile} */
-	private final Writer writer;
-	private final File temporaryFullyPreprocessedResultFile;
+	/**
+	 When the current file's output reaches this many chars, it will be written to {@link #writer}
+	 instead of waiting for the end of the file or an #include. This lets the output be consumed while preprocessing is still happening.
+	 */
+	private static final int OUTPUT_CHUNK_LENGTH = 8192;
+
+	/** Stream to write the fully preprocessed results to. Set in {@link #run(Writer)} */
+	private Writer writer;
 	protected final LinkedList<String> processingFiles = new LinkedList<>();
 	protected final LinkedList<String> processedFiles = new LinkedList<>();
 	protected final LinkedList<PreprocessState> preprocessStack = new LinkedList<>();
 	protected final HashMap<String, DefineValue> defined = new HashMap<>();
 	private final Env preprocessorEnv = new PreprocessorEnv();
 
+	/**
+	 Max number of steps an __EVAL or __EXEC can take before giving up (see {@link ExpressionInterpreter#evaluateNow(String, Env, long)}).
+	 This replaces waiting on another thread with a timeout, so results don't depend on how busy the machine is.
+	 */
+	static final long MAX_EVALUATION_STEPS = 1_000_000;
+
 	private final ExpressionInterpreter expressionInterpreter = ExpressionInterpreter.newInstance();
 
+	/** #include'd files that are currently being preprocessed and will be stored in {@link HeaderParserContext#getIncludeCache()} */
+	private final LinkedList<IncludeCapture> includeCaptures = new LinkedList<>();
+
+	/** Where to record where the output comes from, or null. See {@link #setSourceMap(HeaderSourceMap)} */
+	private HeaderSourceMap sourceMap;
+	/** Root file line that the macro currently being processed starts on. Only used with {@link #sourceMap} */
+	private int macroStartLine;
+
 	/**
 	 Create a new, one time use, preprocessor for header files.
-	 This will wrap processFile in a {@link HeaderFileTextProvider.BasicFileInput} instance
+	 This will wrap processFile with {@link HeaderFileTextProvider#forFile(File)}
 
 	 @param processFile The file to fully preprocess
 	 @param parserContext context to use
 	 */
 	public Preprocessor(@NotNull File processFile, @NotNull HeaderParserContext parserContext) throws IOException {
-		this(new HeaderFileTextProvider.BasicFileInput(processFile), parserContext);
+		this(HeaderFileTextProvider.forFile(processFile), parserContext);
 	}
 
 	/**
 	 Create a new, one time use, preprocessor for header files.
-	 This will wrap processFile in a {@link HeaderFileTextProvider.BasicFileInput} instance
+	 This will wrap processFile with {@link HeaderFileTextProvider#forFile(File)}
 
 	 @param processFile the {@link HeaderFileTextProvider} that will be used to retrieve text from a file and fully preprocess it
 	 @param parserContext context to use
@@ -101,6 +88,29 @@ class Preprocessor {
 	public Preprocessor(@NotNull HeaderFileTextProvider processFile, @NotNull HeaderParserContext parserContext) throws IOException {
 		this.processFile = processFile;
 		this.parserContext = parserContext;
+	}
+
+
+	/**
+	 Record where each line of the output comes from in the given map, and only expand the macros of the lines the map
+	 asks for. Must be invoked before the preprocessor is run.
+	 */
+	void setSourceMap(@Nullable HeaderSourceMap sourceMap) {
+		this.sourceMap = sourceMap;
+	}
+
+	/**
+	 Run the preprocessor, write the output to a temporary file, and get a stream to read the preprocesed output
+
+	 @return preprocessed output
+	 @throws Exception when error occurred
+	 @see #run(Writer)
+	 */
+	@NotNull
+	public Preprocessor.PreprocessorFileReader run() throws Exception {
+		if (preprocessed) {
+			throw new IllegalStateException("preprocessor already run");
+		}
 
 		File preprocessedResults = new File(parserContext.getTempDirectory().getAbsolutePath() + "/" + processFile.getFileName() + ".preprocessed");
 		preprocessedResults.createNewFile();
@@ -108,24 +118,31 @@ class Preprocessor {
 			throw new IOException("Couldn't create the .preprocessed result file");
 		}
 
-		temporaryFullyPreprocessedResultFile = preprocessedResults;
+		UTF8FileWriter fileWriter = new UTF8FileWriter(preprocessedResults);
+		try {
+			run(fileWriter);
+		} catch (Exception e) {
+			fileWriter.close();
+			throw e;
+		}
 
-		writer = new UTF8FileWriter(temporaryFullyPreprocessedResultFile);
+		return new PreprocessorFileReader(preprocessedResults);
 	}
 
-
 	/**
-	 Run the preprocessor and get a stream to read the preprocesed output
+	 Run the preprocessor and write the output to the given writer. If preprocessing completes without error,
+	 the writer will be closed. If an error occurs, the writer is left open.
 
-	 @return preprocessed output
+	 @param output where to write the preprocessed output
 	 @throws Exception when error occurred
+	 @see PreprocessorPipe
 	 */
-	@NotNull
-	public Preprocessor.PreprocessorFileReader run() throws Exception {
+	public void run(@NotNull Writer output) throws Exception {
 		if (preprocessed) {
 			throw new IllegalStateException("preprocessor already run");
 		}
 		preprocessed = true;
+		writer = output;
 
 		//setup macros that are predefined
 		//https://community.bistudio.com/wiki/PreProcessor_Commands
@@ -147,15 +164,15 @@ class Preprocessor {
 			defined.put("__EXEC", new ParameterDefineValue(new String[]{"a"}, "a"));// equivalent to #define __EXEC(a) a
 		}
 
-		StringBuilderReference br = new StringBuilderReference(new StringBuilder(0));
-		processNow(processFile, null, br);
+		try {
+			StringBuilderReference br = new StringBuilderReference(new StringBuilder(0));
+			processNow(processFile, null, br);
+		} finally {
+			expressionInterpreter.shutdownAndDisable();
+		}
 
 		writer.flush();
 		writer.close();
-
-		expressionInterpreter.shutdownAndDisable();
-
-		return new PreprocessorFileReader(temporaryFullyPreprocessedResultFile);
 	}
 
 	/**
@@ -185,7 +202,8 @@ class Preprocessor {
 		writer.flush();
 
 		// Create a new builder for the new file.
-		StringBuilder textContent = new StringBuilder((int) toProcess.getFileLength());
+		//the builder is written to the writer every OUTPUT_CHUNK_LENGTH chars, so no need to make it as big as the file
+		StringBuilder textContent = new StringBuilder((int) Math.min(toProcess.getFileLength(), OUTPUT_CHUNK_LENGTH * 2));
 		builderReference.setBuilder(textContent);
 
 		//update state and place the toProcess file on the processing files stack
@@ -216,8 +234,15 @@ class Preprocessor {
 	 @throws Exception when error occurred
 	 */
 	private void doProcess(@NotNull HeaderFileTextProvider processFile, @NotNull StringBuilderReference fileContent) throws Exception {
-		Scanner scan = processFile.newTextScanner();
-		String line;
+		try (HeaderFileTextProvider.TextLines scan = processFile.newTextLines()) {
+			doProcess(processFile, scan, fileContent);
+		}
+	}
+
+	private void doProcess(@NotNull HeaderFileTextProvider processFile, @NotNull HeaderFileTextProvider.TextLines scan,
+						   @NotNull StringBuilderReference fileContent) throws Exception {
+		//lines are CharSequence so that providers can give views of their text rather than a new String per line
+		CharSequence line = "";
 
 		int ifCount = 0; //>0 if current line is inside (#ifdef or #ifndef) and before #endif
 		boolean useIfTrueCond = false; //true if everything before #else should be added, false if everything after #else should be added
@@ -228,6 +253,7 @@ class Preprocessor {
 		int ifType = IF_UNSET;
 
 		while (scan.hasNextLine()) {
+			writeIfFull(fileContent);
 			incrementLineNumber();
 			line = scan.nextLine();
 
@@ -242,11 +268,14 @@ class Preprocessor {
 				} else {
 					write = true;
 				}
-				if (write) {
+				if (!write) {
+					setLineKind(HeaderSourceMap.INACTIVE);
+				} else {
+					setLineKind(HeaderSourceMap.TEXT);
 
 					//exclude preprocessing comments
-					int indexOfLineComment = line.indexOf("//");
-					int indexOfBlockComment = line.indexOf("/*");
+					int indexOfLineComment = indexOf(line, "//", 0);
+					int indexOfBlockComment = indexOf(line, "/*", 0);
 					final boolean hasLineComment = indexOfLineComment >= 0;
 					final boolean hasBlockComment = indexOfBlockComment >= 0;
 					if (hasLineComment && (!hasBlockComment || indexOfLineComment < indexOfBlockComment)) {
@@ -256,20 +285,20 @@ class Preprocessor {
 						if (indexOfLineComment == 0) {
 							fileContent.append(line);
 						} else {
-							preprocessText(line.substring(0, indexOfLineComment), fileContent);
-							fileContent.append(line.substring(indexOfLineComment));
+							preprocessLine(line.subSequence(0, indexOfLineComment), fileContent);
+							fileContent.append(line, indexOfLineComment, line.length());
 						}
-						fileContent.append('\n');
+						newLine(fileContent);
 
 					} else if (hasBlockComment && (!hasLineComment || indexOfBlockComment < indexOfLineComment)) {
 						//if line block comment comes before a line comment, let the block comment take priority
 
 						//is block comment
-						int end = line.indexOf("*/");
+						int end = indexOf(line, "*/", 0);
 						boolean endOfCommentOnSameLine = end >= 0;
 
 						if (indexOfBlockComment > 0 && endOfCommentOnSameLine) {
-							preprocessText(line.substring(0, indexOfBlockComment), fileContent);
+							preprocessLine(line.subSequence(0, indexOfBlockComment), fileContent);
 						}
 
 						if (endOfCommentOnSameLine) {
@@ -278,12 +307,16 @@ class Preprocessor {
 						}
 
 						//if end is < 0, end of block comment is on different line
+						if (!endOfCommentOnSameLine) {
+							setLineKind(HeaderSourceMap.COMMENT_START);
+						}
 						while (end < 0 && scan.hasNextLine()) {
 							fileContent.append(line);
-							fileContent.append('\n');
+							newLine(fileContent);
 							line = scan.nextLine();
 							incrementLineNumber();
-							end = line.indexOf("*/");
+							end = indexOf(line, "*/", 0);
+							setLineKind(end < 0 ? HeaderSourceMap.COMMENT : HeaderSourceMap.COMMENT_END);
 						}
 						if (end > 0 && !endOfCommentOnSameLine) {
 							//write the text that comes before */
@@ -292,23 +325,28 @@ class Preprocessor {
 						fileContent.append("*/");
 						//here, we have made it past the block comment
 						//now preprocess the rest of the line
-						String noCommentLine = line.substring(end + 2); //end + 2 to skip past */
-						preprocessText(noCommentLine, fileContent);
+						CharSequence noCommentLine = line.subSequence(end + 2, line.length()); //end + 2 to skip past */
+						preprocessLine(noCommentLine, fileContent);
 
-						fileContent.append('\n');
+						newLine(fileContent);
 					} else {
-						preprocessText(line, fileContent);
-						fileContent.append('\n');
+						preprocessLine(line, fileContent);
+						newLine(fileContent);
 					}
 				}
 				continue;
 			}
+			if (sourceMap != null && atRoot()) {
+				macroStartLine = currentState().lineNumber;
+			}
+			setLineKind(HeaderSourceMap.DIRECTIVE);
 			StringBuilder macroBuilder = new StringBuilder(line.length());
 			macroBuilder.append(line);
 			if (!startsWithIgnoreSpace(line, "#ifdef") && !startsWithIgnoreSpace(line, "#ifndef")) {
-				while (scan.hasNextLine() && line.endsWith("\\")) {
+				while (scan.hasNextLine() && line.length() > 0 && line.charAt(line.length() - 1) == '\\') {
 					line = scan.nextLine();
 					incrementLineNumber();
+					setLineKind(HeaderSourceMap.DIRECTIVE);
 					macroBuilder.append(line);
 				}
 			}
@@ -362,7 +400,10 @@ class Preprocessor {
 						error(String.format(bundle.getString("Error.Preprocessor.Parse.bad_file_path_f"), filePath));
 					}
 
-					processNow(f, processFile, fileContent);
+					if (sourceMap != null && atRoot()) {
+						sourceMap.addInclude(currentState().lineNumber);
+					}
+					processInclude(f, processFile, fileContent);
 					break;
 				}
 				case "#define": {
@@ -405,9 +446,9 @@ class Preprocessor {
 						error(bundle.getString("Error.Preprocessor.Parse.no_variable_define"));
 					}
 
-					defined.put(definedVar, value);
+					define(definedVar, value);
 
-					parserContext.getMacros().add(new HeaderMacro(HeaderMacro.MacroType.Define, new DefineMacroContent(definedVar, value)));
+					addMacro(new HeaderMacro(HeaderMacro.MacroType.Define, new DefineMacroContent(definedVar, value)));
 					break;
 				}
 				case "#undef": {
@@ -415,9 +456,9 @@ class Preprocessor {
 						error(bundle.getString("Error.Preprocessor.Parse.no_content_undef"));
 					}
 
-					defined.remove(macroContent);
+					define(macroContent, null);
 
-					parserContext.getMacros().add(new HeaderMacro(HeaderMacro.MacroType.Undefine, new UndefineMacroContent(macroContent)));
+					addMacro(new HeaderMacro(HeaderMacro.MacroType.Undefine, new UndefineMacroContent(macroContent)));
 					break;
 				}
 				case "#ifndef": { //intentional fall through
@@ -449,7 +490,7 @@ class Preprocessor {
 					} else {
 						macroType = HeaderMacro.MacroType.IfNDef;
 					}
-					parserContext.getMacros().add(new HeaderMacro(macroType, new ConditionalMacroContent(condition)));
+					addMacro(new HeaderMacro(macroType, new ConditionalMacroContent(condition)));
 
 					break;
 				}
@@ -476,9 +517,144 @@ class Preprocessor {
 				}
 			}
 		}
+		if (sourceMap != null && atRoot()) {
+			//what a line added to the end of the file would be
+			int lastLine = currentState().lineNumber;
+			byte lastKind = sourceMap.getLineKind(lastLine);
+			if (lastLine > 0 && (lastKind == HeaderSourceMap.COMMENT_START || lastKind == HeaderSourceMap.COMMENT)) {
+				sourceMap.setEndKind(HeaderSourceMap.COMMENT);
+			} else if (lastLine > 0 && lastKind == HeaderSourceMap.DIRECTIVE && line.length() > 0 && line.charAt(line.length() - 1) == '\\') {
+				sourceMap.setEndKind(HeaderSourceMap.DIRECTIVE);
+			} else if (ifCount <= 0 || useIfTrueCond != discoveredElse) {
+				sourceMap.setEndKind(HeaderSourceMap.TEXT);
+			} else {
+				sourceMap.setEndKind(HeaderSourceMap.INACTIVE);
+			}
+		}
 		scan.close();
 	}
 
+	/**
+	 Preprocess an #include'd file with {@link #processNow(HeaderFileTextProvider, HeaderFileTextProvider, StringBuilderReference)}.
+	 If the file's results are in {@link HeaderParserContext#getIncludeCache()}, the cached results will be used instead.
+	 Otherwise, the results will be placed in the cache, if possible.
+
+	 @param toProcess the #include'd file
+	 @param parentFile the file that has the #include
+	 @param builderReference where to write preprocess output
+	 @throws Exception when error occurred
+	 */
+	private void processInclude(@NotNull HeaderFileTextProvider toProcess, @NotNull HeaderFileTextProvider parentFile, @NotNull StringBuilderReference builderReference) throws Exception {
+		HeaderIncludeCache cache = parserContext.getIncludeCache();
+		HeaderIncludeCache.FileStamp stamp = null;
+		if (cache != null && !processingFiles.contains(toProcess.getFileName())) {
+			stamp = HeaderIncludeCache.FileStamp.of(toProcess);
+		}
+		if (stamp == null) {
+			//the results of the outer #include's would depend on a file that can't be cached
+			for (IncludeCapture capture : includeCaptures) {
+				capture.cacheable = false;
+			}
+			processNow(toProcess, parentFile, builderReference);
+			return;
+		}
+
+		//write everything before the #include
+		StringBuilder parentBuilder = builderReference.getBuilder();
+		writer.write(parentBuilder.toString());
+		parentBuilder.setLength(0);
+
+		HeaderIncludeCache.Key key = HeaderIncludeCache.newKey(stamp, defined);
+		HeaderIncludeCache.CachedInclude cached = cache.get(key);
+		if (cached != null) {
+			writer.write(cached.getText());
+			if (sourceMap != null) {
+				int lines = 0;
+				for (int i = 0; i < cached.getText().length(); i++) {
+					if (cached.getText().charAt(i) == '\n') {
+						lines++;
+					}
+				}
+				sourceMap.addOutputLines(rootLineNumber(), lines);
+			}
+			for (Entry<String, DefineValue> change : cached.getDefineChanges().entrySet()) {
+				define(change.getKey(), change.getValue());
+			}
+			for (HeaderMacro macro : cached.getMacros()) {
+				addMacro(macro);
+			}
+			for (IncludeCapture capture : includeCaptures) {
+				capture.files.addAll(cached.getFiles());
+			}
+			processedFiles.add(toProcess.getFileName());
+			return;
+		}
+
+		Writer parentWriter = writer;
+		IncludeCapture capture = new IncludeCapture();
+		includeCaptures.push(capture);
+		for (IncludeCapture c : includeCaptures) {
+			c.files.add(stamp);
+		}
+		writer = capture;
+		try {
+			processNow(toProcess, parentFile, builderReference);
+		} finally {
+			writer = parentWriter;
+			includeCaptures.pop();
+		}
+
+		String text = capture.text.toString();
+		writer.write(text);
+		if (capture.cacheable) {
+			cache.put(key, new HeaderIncludeCache.CachedInclude(text, capture.files, capture.defineChanges, capture.macros));
+		}
+	}
+
+	/**
+	 Define a macro, or undefine it if <code>value</code> is null
+
+	 @param key macro key
+	 @param value macro value, or null to undefine
+	 */
+	private void define(@NotNull String key, @Nullable DefineValue value) {
+		if (value == null) {
+			defined.remove(key);
+		} else {
+			defined.put(key, value);
+		}
+		for (IncludeCapture capture : includeCaptures) {
+			capture.defineChanges.put(key, value);
+		}
+	}
+
+	private void addMacro(@NotNull HeaderMacro macro) {
+		parserContext.getMacros().add(macro);
+		if (sourceMap != null) {
+			if (atRoot()) {
+				sourceMap.addMacro(macro, macroStartLine, rootLineNumber(), true);
+			} else {
+				sourceMap.addMacro(macro, rootLineNumber(), rootLineNumber(), false);
+			}
+		}
+		for (IncludeCapture capture : includeCaptures) {
+			capture.macros.add(macro);
+		}
+	}
+
+	/**
+	 Write the builder's contents to {@link #writer} and clear the builder if it has at least {@link #OUTPUT_CHUNK_LENGTH} chars.
+	 The builder is only ever appended to, so it is safe to write its contents early.
+	 */
+	private void writeIfFull(@NotNull StringBuilderReference fileContent) throws IOException {
+		StringBuilder b = fileContent.getBuilder();
+		if (b.length() < OUTPUT_CHUNK_LENGTH) {
+			return;
+		}
+		writer.write(b.toString());
+		b.setLength(0);
+	}
+
 	/**
 	 Fully preprocess the given text and write the result to <code>writeTo</code>
 
@@ -486,40 +662,36 @@ class Preprocessor {
 	 @param writeTo where to write results
 	 @throws HeaderParseException when error occurred
 	 */
-	private void preprocessText(@NotNull String base, @NotNull StringBuilderReference writeTo) throws HeaderParseException {
+	private void preprocessText(@NotNull CharSequence base, @NotNull StringBuilderReference writeTo) throws HeaderParseException {
 		if (defined.size() == 0) {
 			writeTo.append(base);
 			return;
 		}
 
-		Matcher m = macroReferencePattern.matcher(base);
+		MacroReferenceScanner scanner = new MacroReferenceScanner(base, true);
 
 		int baseInd = 0;
-		while (m.find()) {
+		while (scanner.find()) {
 
 			//write everything that precedes the matched input
-			if (baseInd < m.start()) {
-				writeTo.append(base, baseInd, m.start());
-				baseInd = m.start();
+			if (baseInd < scanner.start()) {
+				writeTo.append(base, baseInd, scanner.start());
+				baseInd = scanner.start();
 			}
 
-			String macroName = m.group("MACRO");
-			Entry<String, DefineValue> matchedEntry = null;
-			for (Entry<String, DefineValue> entry : defined.entrySet()) {
-				if (entry.getKey().equals(macroName)) {
-					matchedEntry = entry;
-					break;
-				}
-			}
+			String macroName = scanner.identifier();
+			DefineValue value = defined.get(macroName);
 
-			if (matchedEntry == null) {
+			if (value == null) {
 				continue;
 			}
+			if (sourceMap != null && atRoot()) {
+				sourceMap.addDependency(currentState().lineNumber, macroName);
+			}
 
-			String before = m.group("BEFORE");
-			String parameterText = m.group("PARAMS");
+			String parameterText = scanner.parametersText();
 
-			if (matchedEntry.getValue() instanceof ParameterDefineValue) {
+			if (value instanceof ParameterDefineValue) {
 				if (parameterText == null) {
 					continue;
 				}
@@ -527,25 +699,27 @@ class Preprocessor {
 
 			boolean quote = false;
 
-			if (before.equals("#")) {
-				quote = true;
-				writeTo.append('"');
-			} else if (!before.equals("##")) {
-				writeTo.append(before);
+			switch (scanner.beforeType()) {
+				case MacroReferenceScanner.BEFORE_QUOTE: {
+					quote = true;
+					writeTo.append('"');
+					break;
+				}
+				case MacroReferenceScanner.BEFORE_CHAR: {
+					writeTo.append(base, scanner.start(), scanner.identifierStart());
+					break;
+				}
+				//BEFORE_GLUE and BEFORE_NONE write nothing
 			}
 
 			//write replacement
-			writeDefineValue(matchedEntry, parameterText, writeTo);
+			writeDefineValue(macroName, value, parameterText, writeTo);
 
 			if (quote) {
 				writeTo.append('"');
 			}
 
-			if (parameterText != null) {
-				baseInd = m.end("PARAMS");
-			} else {
-				baseInd = m.end("MACRO");
-			}
+			baseInd = scanner.end();
 
 			//skip past ## if it exists
 			if (baseInd + 1 < base.length() && base.charAt(baseInd) == '#' && base.charAt(baseInd + 1) == '#') {
@@ -565,7 +739,8 @@ class Preprocessor {
 	 <li><code>#define D_ARG(ARG) #ARG</code> - body is #ARG. Macro key is D_ARG This is also a parameter macro.</li>
 	 </ul>
 
-	 @param entry the entry that contains the macro key and the macro body stored in a {@link DefineValue} instance
+	 @param key the macro key
+	 @param value the macro body
 	 @param parameterText the text that the user put inside the parameter macro.
 	 This value should be null if not writing a parameter macro and should not be null if writing a parameter macro.
 	 Example parameterText: (with D_ARG example above): D_ARG(42) and parameter text is (42)<br>
@@ -573,7 +748,7 @@ class Preprocessor {
 	 @param writeTo where to write the preprocessed body to
 	 @throws HeaderParseException when an error occurred
 	 */
-	private void writeDefineValue(@NotNull Entry<String, DefineValue> entry, @Nullable String parameterText, @NotNull StringBuilderReference writeTo) throws HeaderParseException {
+	private void writeDefineValue(@NotNull String key, @NotNull DefineValue value, @Nullable String parameterText, @NotNull StringBuilderReference writeTo) throws HeaderParseException {
 		//This method will write a macro's body and then recursively call preprocessText() on the macro body to handle any possible nested macro references.
 		//It will do that by having a "buffer" StringBuilderReference that this method will write to. Then the buffer's text content will be passed into preprocessText().
 		//There should not be stack overflow because preprocessText() will invoke this method only when a macro was matched in its input parameter
@@ -590,26 +765,24 @@ class Preprocessor {
 
 		StringBuilderReference buffer = new StringBuilderReference(new StringBuilder());
 
-		String entryValueText = entry.getValue().getResultTemplateText();
+		String entryValueText = value.getResultTemplateText();
 
-		if (entry.getValue() instanceof ParameterDefineValue) {
+		if (value instanceof ParameterDefineValue) {
 			if (parameterText == null) {
 				throw new IllegalArgumentException("parameterText should not be null if entry is a ParameterDefineValue");
 			}
 
-			if (entry.getKey().equals("__EXEC")) {
+			if (key.equals("__EXEC")) {
 				handle__Exec(get__ExecBody(parameterText));
 				return;
 			}
 
-			if (entry.getKey().equals("__EVAL")) {
+			if (key.equals("__EVAL")) {
 				handle__Eval(parameterText, writeTo);
 				return;
 			}
 
-			ParameterDefineValue paramDefineValue = (ParameterDefineValue) entry.getValue();
-
-			ParameterDefineValue parameterValue = (ParameterDefineValue) entry.getValue();
+			ParameterDefineValue parameterValue = (ParameterDefineValue) value;
 			String[] args = parameterText.substring(1, parameterText.length() - 1).split(",");
 			final int numParams = parameterValue.getParams().length;
 			if (args.length != numParams) {
@@ -620,25 +793,19 @@ class Preprocessor {
 				args[i] = args[i].trim();
 			}
 
-			Matcher m = macroParamOutputTextPattern.matcher(entryValueText);
+			MacroReferenceScanner scanner = new MacroReferenceScanner(entryValueText, false);
 
 			int ind = 0;
-			while (m.find()) {
-				String param = m.group("PARAM");
-				String before = m.group("BEFORE");
-
-				boolean quote = false;
-				if (before.equals("#")) {
-					quote = true;
-				}
+			while (scanner.find()) {
+				final int beforeType = scanner.beforeType();
+				boolean quote = beforeType == MacroReferenceScanner.BEFORE_QUOTE;
 
 				{
-					int start = m.start("PARAM");
+					int start = scanner.identifierStart();
 
 					if (ind < start) {
-						if (quote || before.equals("##")) {
-							int startBefore = m.start("BEFORE");
-							buffer.append(entryValueText, ind, startBefore);
+						if (quote || beforeType == MacroReferenceScanner.BEFORE_GLUE) {
+							buffer.append(entryValueText, ind, scanner.start());
 						} else {
 							buffer.append(entryValueText, ind, start);
 						}
@@ -646,9 +813,10 @@ class Preprocessor {
 					}
 				}
 
+				String param = scanner.identifier();
 				int paramInd = 0;
 				boolean found = false;
-				for (String paramDefined : paramDefineValue.getParams()) {
+				for (String paramDefined : parameterValue.getParams()) {
 					if (param.equals(paramDefined)) {
 						found = true;
 						break;
@@ -658,7 +826,7 @@ class Preprocessor {
 				if (!found) {
 					continue;
 				}
-				ind = m.end("PARAM");
+				ind = scanner.identifierEnd();
 
 				String paramArg = args[paramInd];
 				if (startsWithIgnoreSpace(paramArg, "__EVAL(")) {
@@ -666,14 +834,12 @@ class Preprocessor {
 					handle__Eval(get__EvalBody(paramArg), buffer);
 				} else {
 					//check if paramArg is a macro itself like: TEST(ANOTHER_MACRO)
-					for (Entry<String, DefineValue> entry1 : defined.entrySet()) {
-						if (entry1 instanceof ParameterDefineValue) {
-							continue;
-						}
-						if (entry1.getKey().equals(paramArg)) {
-							paramArg = entry1.getValue().getResultTemplateText();
-							break;
+					DefineValue argValue = defined.get(paramArg);
+					if (argValue != null) {
+						if (sourceMap != null && atRoot()) {
+							sourceMap.addDependency(currentState().lineNumber, paramArg);
 						}
+						paramArg = argValue.getResultTemplateText();
 					}
 					if (quote) {
 						buffer.append('"');
@@ -699,7 +865,7 @@ class Preprocessor {
 				error(bundle.getString("Error.Preprocessor.Parse.unexp_lparen"));
 			}
 
-			switch (entry.getKey()) {
+			switch (key) {
 				case "__LINE__": {
 					buffer.append(currentState().lineNumber + "");
 					break;
@@ -737,31 +903,83 @@ class Preprocessor {
 
 	/** Evaluate __EVAL(<code>parameterText</code>) and write it to <code>writeTo</code> */
 	private void handle__Eval(@Nullable String parameterText, @NotNull Preprocessor.StringBuilderReference writeTo) throws HeaderParseException {
+		markEvaluated();
 		try {
-			Value value = expressionInterpreter.evaluate(parameterText, preprocessorEnv).get(10, TimeUnit.SECONDS); //.get() to block until eval is done
+			Value value = expressionInterpreter.evaluateNow(parameterText, preprocessorEnv, MAX_EVALUATION_STEPS);
 			//if value is a decimal, the toString method should properly use DecimalFormat on the number for getting a String
 			writeTo.append(value.toString());
+		} catch (TerminateEvaluationException e) {
+			throw new HeaderParseException(String.format(bundle.getString("Error.Preprocessor.Parse.evaluate_timer_end_f"), parameterText), e);
 		} catch (Exception e) {
-			if (e instanceof InterruptedException) {
-				throw new HeaderParseException(String.format(bundle.getString("Error.Preprocessor.Parse.evaluate_timer_end_f"), parameterText));
-			}
 			throw new HeaderParseException(e.getMessage(), e);
 		}
 	}
 
 	/** Evaluate __EXEC(<code>parameterText</code>). This will not actually write anything */
 	private void handle__Exec(@Nullable String parameterText) throws HeaderParseException {
+		markEvaluated();
 		try {
-			expressionInterpreter.evaluateStatements(parameterText, preprocessorEnv).get(10, TimeUnit.SECONDS); //.get() to block until eval is done
+			expressionInterpreter.evaluateStatementsNow(parameterText, preprocessorEnv, MAX_EVALUATION_STEPS);
 			//write nothing
+		} catch (TerminateEvaluationException e) {
+			throw new HeaderParseException(String.format(bundle.getString("Error.Preprocessor.Parse.evaluate_timer_end_f"), parameterText), e);
 		} catch (Exception e) {
-			if (e instanceof InterruptedException) {
-				throw new HeaderParseException(String.format(bundle.getString("Error.Preprocessor.Parse.evaluate_timer_end_f"), parameterText));
-			}
 			throw new HeaderParseException(e.getMessage(), e);
 		}
 	}
 
+	/**
+	 __EVAL and __EXEC results depend on more than just the defined macros,
+	 so #include's that are currently being preprocessed can't be cached.
+	 */
+	private void markEvaluated() {
+		for (IncludeCapture capture : includeCaptures) {
+			capture.cacheable = false;
+		}
+		if (sourceMap != null) {
+			sourceMap.setEvaluated();
+		}
+	}
+
+	/**
+	 Preprocess a line of text (or the part of it that isn't a comment). If {@link #sourceMap} doesn't need the line's
+	 macros expanded, the line is written as is.
+
+	 @see #preprocessText(CharSequence, StringBuilderReference)
+	 */
+	private void preprocessLine(@NotNull CharSequence line, @NotNull StringBuilderReference writeTo) throws HeaderParseException {
+		if (sourceMap != null && atRoot() && !sourceMap.isExpanded(currentState().lineNumber)) {
+			writeTo.append(line);
+			return;
+		}
+		preprocessText(line, writeTo);
+	}
+
+	/** End the current line of output */
+	private void newLine(@NotNull StringBuilderReference fileContent) {
+		fileContent.append('\n');
+		if (sourceMap != null) {
+			sourceMap.addOutputLines(rootLineNumber(), 1);
+		}
+	}
+
+	/** Set the kind of the current line in {@link #sourceMap}, if the current line is in the root file */
+	private void setLineKind(byte kind) {
+		if (sourceMap != null && atRoot()) {
+			sourceMap.setLineKind(currentState().lineNumber, kind);
+		}
+	}
+
+	/** @return true if the root file is being preprocessed, rather than an #include'd file */
+	private boolean atRoot() {
+		return preprocessStack.size() == 1;
+	}
+
+	/** @return current line number of the root file. Inside an #include'd file, this is the line of the #include. */
+	private int rootLineNumber() {
+		return preprocessStack.getLast().lineNumber;
+	}
+
 	/** Increment the current state's line number */
 	private void incrementLineNumber() {
 		currentState().lineNumber++;
@@ -811,7 +1029,9 @@ class Preprocessor {
 	public class PreprocessorEnv extends SimpleEnv {
 
 		/** Instead of constantly computing a macro's body as an expression, cache the values calculated. */
-		private HashMap<Entry<String, DefineValue>, Value> cachedValues = new HashMap<>();
+		private HashMap<DefineValue, Value> cachedValues = new HashMap<>();
+		/** Macros whose bodies are currently being evaluated. Used to detect a macro that references itself. */
+		private final HashSet<DefineValue> evaluating = new HashSet<>();
 
 		public PreprocessorEnv() {
 			super(new ExpressionEnvManager.CommandProvider(new ArmaResolution(ScreenDimension.D1920)));
@@ -832,30 +1052,38 @@ class Preprocessor {
 		}
 
 		private Value getValueFromDefined(@NotNull String identifier) {
-			for (Entry<String, DefineValue> defined : defined.entrySet()) {
-				if (identifier.equals(defined.getKey())) {
-					Value value = cachedValues.computeIfAbsent(
-							defined,
-							stringDefineValueEntry -> {
-								if (defined.getValue() instanceof ParameterDefineValue) {
-									//a parameter macro should not exist inside __EVAL or __EXEC
-									throw new RuntimeException(parseException(bundle.getString("Error.Preprocessor.Parse.unexpected_parameter_macro")));
-								}
-								DefineMacroContent.StringDefineValue sdv = (DefineMacroContent.StringDefineValue) defined.getValue();
-								try {
-									return expressionInterpreter.evaluate(sdv.getResultTemplateText(), preprocessorEnv).get();
-								} catch (Exception e) {
-									throw new RuntimeException(
-											String.format(bundle.getString("Error.Preprocessor.Parse.couldnt_evaluate_macro_body_f"), sdv.getResultTemplateText()),
-											e
-									);
-								}
-							}
-					);
-					return value;
-				}
+			DefineValue definedValue = defined.get(identifier);
+			if (definedValue == null) {
+				return null;
 			}
-			return null;
+			Value cached = cachedValues.get(definedValue);
+			if (cached != null) {
+				return cached;
+			}
+			if (definedValue instanceof ParameterDefineValue) {
+				//a parameter macro should not exist inside __EVAL or __EXEC
+				throw new RuntimeException(parseException(bundle.getString("Error.Preprocessor.Parse.unexpected_parameter_macro")));
+			}
+			DefineMacroContent.StringDefineValue sdv = (DefineMacroContent.StringDefineValue) definedValue;
+			Value value;
+			if (!evaluating.add(definedValue)) {
+				throw new RuntimeException(
+						String.format(bundle.getString("Error.Preprocessor.Parse.couldnt_evaluate_macro_body_f"), sdv.getResultTemplateText())
+				);
+			}
+			try {
+				//evaluated on this thread, so the macro body may look up (and cache) other macros before this put
+				value = expressionInterpreter.evaluateNow(sdv.getResultTemplateText(), preprocessorEnv, MAX_EVALUATION_STEPS);
+			} catch (Exception e) {
+				throw new RuntimeException(
+						String.format(bundle.getString("Error.Preprocessor.Parse.couldnt_evaluate_macro_body_f"), sdv.getResultTemplateText()),
+						e
+				);
+			} finally {
+				evaluating.remove(definedValue);
+			}
+			cachedValues.put(definedValue, value);
+			return value;
 		}
 	}
 
@@ -873,7 +1101,7 @@ class Preprocessor {
 		}
 	}
 
-	private static boolean startsWithIgnoreSpace(@NotNull String s, @NotNull String prefix) {
+	private static boolean startsWithIgnoreSpace(@NotNull CharSequence s, @NotNull String prefix) {
 		int spaceInd = 0;
 		boolean found = false;
 		for (; spaceInd < s.length(); spaceInd++) {
@@ -883,9 +1111,37 @@ class Preprocessor {
 			}
 		}
 		if (found) {
-			return s.startsWith(prefix, spaceInd);
+			return startsWith(s, prefix, spaceInd);
 		}
-		return s.startsWith(prefix);
+		return startsWith(s, prefix, 0);
+	}
+
+	/** @see String#startsWith(String, int) */
+	private static boolean startsWith(@NotNull CharSequence s, @NotNull String prefix, int offset) {
+		if (offset < 0 || offset + prefix.length() > s.length()) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (s.charAt(offset + i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** @see String#indexOf(String, int) */
+	private static int indexOf(@NotNull CharSequence s, @NotNull String str, int fromIndex) {
+		if (s instanceof String) {
+			return ((String) s).indexOf(str, fromIndex);
+		}
+		final int last = s.length() - str.length();
+		final char first = str.charAt(0);
+		for (int i = Math.max(fromIndex, 0); i <= last; i++) {
+			if (s.charAt(i) == first && startsWith(s, str, i)) {
+				return i;
+			}
+		}
+		return -1;
 	}
 
 	static class StringBuilderReference {
@@ -910,12 +1166,18 @@ class Preprocessor {
 		}
 
 		/** @see StringBuilder#append(CharSequence) */
-		public void append(@NotNull String s) {
-			b.append(s);
+		public void append(@NotNull CharSequence s) {
+			append(s, 0, s.length());
 		}
 
 		/** @see StringBuilder#append(CharSequence, int, int) */
-		public void append(String s, int start, int end) {
+		public void append(CharSequence s, int start, int end) {
+			if (s instanceof CharBuffer && ((CharBuffer) s).hasArray()) {
+				//copy the chars in bulk rather than char by char
+				CharBuffer cb = (CharBuffer) s;
+				b.append(cb.array(), cb.arrayOffset() + cb.position() + start, end - start);
+				return;
+			}
 			b.append(s, start, end);
 		}
 
@@ -933,6 +1195,35 @@ class Preprocessor {
 		}
 	}
 
+	/**
+	 Collects the output of an #include'd file, as well as the changes it makes to the defined macros, for {@link HeaderIncludeCache}
+	 */
+	private static class IncludeCapture extends Writer {
+		private final StringBuilder text = new StringBuilder();
+		private final List<HeaderIncludeCache.FileStamp> files = new ArrayList<>();
+		private final LinkedHashMap<String, DefineValue> defineChanges = new LinkedHashMap<>();
+		private final List<HeaderMacro> macros = new ArrayList<>();
+		private boolean cacheable = true;
+
+		@Override
+		public void write(@NotNull char[] cbuf, int off, int len) {
+			text.append(cbuf, off, len);
+		}
+
+		@Override
+		public void write(@NotNull String str) {
+			text.append(str);
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
 	/**
 	 A simple wrapper {@link InputStream} so we can easily change how preprocessed results are stored,
 	 without changing how the results are read
@@ -0,0 +1,259 @@
+package com.armadialogcreator.arma.header;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.UnbufferedCharStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ An in memory, bounded pipe that sends {@link Preprocessor} output to the {@link HeaderParser} without writing a temporary file.
+ The preprocessor writes to {@link #getWriter()} on one thread and the parser reads from {@link #newCharStream(String)} on another.
+ Text is handed off in fixed size chunks. When all chunks are full, the writer will block until the reader catches up.
+ <p>
+ The writer must either be closed (end of text) or {@link #fail(Throwable)} must be invoked. Otherwise, the reader will block forever.
+
+ @author K
+ @since 10/18/2026 */
+class PreprocessorPipe {
+	/** Marks the end of the text. Compared by identity. */
+	private static final char[] END = new char[0];
+	private static final long POLL_MILLIS = 100;
+
+	private final ArrayBlockingQueue<char[]> chunks;
+	private final int chunkLength;
+	private final PipeWriter writer;
+	private final PipeReader reader;
+
+	private volatile Throwable writerError;
+	private volatile boolean readerClosed = false;
+
+	/** Create a pipe with 16 chunks of 8192 chars each */
+	public PreprocessorPipe() {
+		this(8192, 16);
+	}
+
+	/**
+	 @param chunkLength number of chars in each chunk
+	 @param maxChunks max number of chunks that can be waiting to be read
+	 */
+	public PreprocessorPipe(int chunkLength, int maxChunks) {
+		if (chunkLength <= 0 || maxChunks <= 0) {
+			throw new IllegalArgumentException("chunkLength and maxChunks must be > 0");
+		}
+		this.chunkLength = chunkLength;
+		this.chunks = new ArrayBlockingQueue<>(maxChunks);
+		this.writer = new PipeWriter();
+		this.reader = new PipeReader();
+	}
+
+	/** @return the writer that the preprocessor writes to. Closing the writer marks the end of the text. */
+	@NotNull
+	public Writer getWriter() {
+		return writer;
+	}
+
+	/** @return the reader that reads what was written to {@link #getWriter()}. Closing the reader will make the writer throw an exception. */
+	@NotNull
+	public Reader getReader() {
+		return reader;
+	}
+
+	/**
+	 Create a {@link CharStream} for {@link #getReader()}. The stream doesn't keep all text in memory,
+	 so tokens created from it must copy their text (see {@link org.antlr.v4.runtime.CommonTokenFactory#CommonTokenFactory(boolean)}).
+
+	 @param sourceName name of the source (file name)
+	 @return the stream
+	 */
+	@NotNull
+	public CharStream newCharStream(@NotNull String sourceName) {
+		UnbufferedCharStream stream = new UnbufferedCharStream(reader, chunkLength);
+		stream.name = sourceName;
+		return stream;
+	}
+
+	/**
+	 Mark the writer as failed. Once invoked, the reader will throw an {@link IOException} with <code>t</code> as the cause.
+
+	 @param t the reason the writer failed
+	 */
+	public void fail(@NotNull Throwable t) {
+		writerError = t;
+		chunks.offer(END);
+	}
+
+	/** @return the value passed into {@link #fail(Throwable)}, or null if the writer hasn't failed */
+	@Nullable
+	public Throwable getWriterError() {
+		return writerError;
+	}
+
+	private class PipeWriter extends Writer {
+		private char[] buf = new char[chunkLength];
+		private int count = 0;
+		private boolean closed = false;
+
+		@Override
+		public void write(int c) throws IOException {
+			checkOpen();
+			if (count == buf.length) {
+				sendFullChunk();
+			}
+			buf[count++] = (char) c;
+		}
+
+		@Override
+		public void write(@NotNull char[] cbuf, int off, int len) throws IOException {
+			checkOpen();
+			while (len > 0) {
+				if (count == buf.length) {
+					sendFullChunk();
+				}
+				int n = Math.min(len, buf.length - count);
+				System.arraycopy(cbuf, off, buf, count, n);
+				count += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		@Override
+		public void write(@NotNull String str, int off, int len) throws IOException {
+			checkOpen();
+			while (len > 0) {
+				if (count == buf.length) {
+					sendFullChunk();
+				}
+				int n = Math.min(len, buf.length - count);
+				str.getChars(off, off + n, buf, count);
+				count += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		/** Does nothing. Chunks are only sent when full or when the writer is closed. */
+		@Override
+		public void flush() throws IOException {
+			checkOpen();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			if (count > 0) {
+				char[] last = new char[count];
+				System.arraycopy(buf, 0, last, 0, count);
+				send(last);
+			}
+			send(END);
+			buf = null;
+			closed = true;
+		}
+
+		private void sendFullChunk() throws IOException {
+			send(buf);
+			buf = new char[chunkLength];
+			count = 0;
+		}
+
+		private void send(@NotNull char[] chunk) throws IOException {
+			try {
+				while (!chunks.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+					if (readerClosed) {
+						throw new IOException("pipe reader is closed");
+					}
+				}
+			} catch (InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+		}
+
+		private void checkOpen() throws IOException {
+			if (closed) {
+				throw new IOException("pipe writer is closed");
+			}
+			if (readerClosed) {
+				throw new IOException("pipe reader is closed");
+			}
+		}
+	}
+
+	private class PipeReader extends Reader {
+		private char[] current = END;
+		private int pos = 0;
+		private boolean eof = false;
+
+		@Override
+		public int read() throws IOException {
+			if (pos >= current.length && !nextChunk()) {
+				return -1;
+			}
+			return current[pos++];
+		}
+
+		@Override
+		public int read(@NotNull char[] cbuf, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (pos >= current.length && !nextChunk()) {
+				return -1;
+			}
+			int n = Math.min(len, current.length - pos);
+			System.arraycopy(current, pos, cbuf, off, n);
+			pos += n;
+			return n;
+		}
+
+		/** @return true if a new chunk is available, or false if the end of the text was reached */
+		private boolean nextChunk() throws IOException {
+			if (eof) {
+				return false;
+			}
+			if (readerClosed) {
+				throw new IOException("pipe reader is closed");
+			}
+			try {
+				while (true) {
+					if (writerError != null) {
+						throw new IOException(writerError);
+					}
+					char[] chunk = chunks.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+					if (chunk == null) {
+						continue;
+					}
+					if (chunk == END) {
+						if (writerError != null) {
+							throw new IOException(writerError);
+						}
+						eof = true;
+						current = END;
+						pos = 0;
+						return false;
+					}
+					current = chunk;
+					pos = 0;
+					return true;
+				}
+			} catch (InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+		}
+
+		@Override
+		public void close() {
+			readerClosed = true;
+			chunks.clear();
+		}
+	}
+}
@@ -2,7 +2,10 @@ package com.armadialogcreator.data.export;
 
 import com.armadialogcreator.core.FilePathUser;
 import com.armadialogcreator.core.PropertyType;
+import com.armadialogcreator.core.sv.SVExpression;
 import com.armadialogcreator.core.sv.SerializableValue;
+import com.armadialogcreator.data.ProjectSettings;
+import com.armadialogcreator.data.SettingsManager;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.file.Paths;
@@ -65,9 +68,25 @@ public class ProjectExporter {
 //		return configuration.getExportClassName() + configuration.getHeaderFileType().getExtension();
 //	}
 
+	/**
+	 Same as {@link #getExportValueString(SerializableValue, PropertyType, String, boolean)}, with expressions folded if
+	 {@link ProjectSettings#FoldExpressionsOnExportSetting} is true
+	 */
 	@NotNull
 	public static String getExportValueString(@NotNull SerializableValue value, @NotNull PropertyType type, @NotNull String exportDir) {
-		String[] arr = value.getAsStringArray();
+		boolean foldExpressions = SettingsManager.instance.getProjectSettings().FoldExpressionsOnExportSetting.isTrue();
+		return getExportValueString(value, type, exportDir, foldExpressions);
+	}
+
+	/**
+	 @param foldExpressions true if {@link SVExpression}s should be exported with constant subtrees folded
+	 ({@link SVExpression#getFoldedExpression()}) instead of how the user wrote them
+	 */
+	@NotNull
+	public static String getExportValueString(@NotNull SerializableValue value, @NotNull PropertyType type, @NotNull String exportDir,
+											  boolean foldExpressions) {
+		String[] arr = foldExpressions && value instanceof SVExpression
+				? new String[]{((SVExpression) value).getFoldedExpression()} : value.getAsStringArray();
 		StringBuilder ret = new StringBuilder();
 		String v;
 		int[] convertToFilePath = value instanceof FilePathUser ? ((FilePathUser) value).getIndicesThatUseFilePaths()
@@ -15,6 +15,7 @@ import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
+import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
@@ -50,6 +51,9 @@ public class ExpressionEvaluatorPopup extends StagePopup<VBox> {
 	private final TextArea taConsole = new TextArea();
 	private final StackPane stackPaneConsole = new StackPane();
 	private boolean showingConsole = false;
+	private final ProfilerPane profilerPane = new ProfilerPane();
+	private final StackPane stackPaneProfiler = new StackPane();
+	private boolean showingProfiler = false;
 	private Task activeEvaluateTask;
 	private final Button btnEval, btnTerminate;
 	private volatile long evaluateStartTime;
@@ -85,13 +89,16 @@ public class ExpressionEvaluatorPopup extends StagePopup<VBox> {
 			Button btnToggleConsole = new Button(bundle.getString("Toolbar.toggle_console"));
 			btnToggleConsole.setOnAction(event -> toggleConsole());
 
+			Button btnToggleProfiler = new Button(bundle.getString("Toolbar.toggle_profiler"));
+			btnToggleProfiler.setOnAction(event -> toggleProfiler());
+
 			Button btnHelp = new Button(Lang.ApplicationBundle().getString("Popups.btn_help"));
 			btnHelp.setOnAction(event -> help());
 
 			toolBar = new ToolBar(
 					btnEval, btnTerminate,
 					new Separator(Orientation.VERTICAL),
-					btnToggleConsole,
+					btnToggleConsole, btnToggleProfiler,
 					new Separator(Orientation.VERTICAL),
 					btnHelp
 			);
@@ -112,6 +119,7 @@ public class ExpressionEvaluatorPopup extends StagePopup<VBox> {
 		VBox.setVgrow(hbox, Priority.ALWAYS);
 		vboxAfterToolBar.getChildren().add(hbox);
 		vboxAfterToolBar.getChildren().add(stackPaneConsole);
+		vboxAfterToolBar.getChildren().add(stackPaneProfiler);
 
 		vboxAfterToolBar.getChildren().add(new HBox(
 				5,
@@ -140,6 +148,16 @@ public class ExpressionEvaluatorPopup extends StagePopup<VBox> {
 
 	}
 
+	private void toggleProfiler() {
+		if (showingProfiler) {
+			stackPaneProfiler.getChildren().clear();
+		} else {
+			profilerPane.refresh();
+			stackPaneProfiler.getChildren().add(profilerPane);
+		}
+		showingProfiler = !showingProfiler;
+	}
+
 	private void evaluateText() {
 		stackPaneResult.getChildren().clear();
 		stackPaneRunTime.getChildren().clear();
@@ -177,7 +195,8 @@ public class ExpressionEvaluatorPopup extends StagePopup<VBox> {
 					evaluateEndTime = System.currentTimeMillis();
 					if (e instanceof TerminateEvaluationException) {
 						returnValueString = bundle.getString("CodeArea.terminated");
-						consoleString = returnValueString;
+						//the message says why when the step limit was reached
+						consoleString = e.getMessage() != null ? e.getMessage() : returnValueString;
 					} else {
 						returnValueString = bundle.getString("CodeArea.error");
 						consoleString = e.getMessage();
@@ -198,6 +217,9 @@ public class ExpressionEvaluatorPopup extends StagePopup<VBox> {
 
 						btnTerminate.setDisable(true);
 						btnEval.setDisable(false);
+						if (showingProfiler) {
+							profilerPane.refresh();
+						}
 						stackPaneRunTime.getChildren().add(
 								footerValueLabel(
 										String.format(
@@ -329,4 +351,94 @@ public class ExpressionEvaluatorPopup extends StagePopup<VBox> {
 		}
 	}
 
+	/** Shows what {@link ExpressionProfiler} recorded for each text, one line per text */
+	private class ProfilerPane extends VBox {
+		private final String rowFormat = "%8s %8s %6s %10s %10s %10s %10s %10s %8s %10s  %s";
+		private final ListView<String> listView = new ListView<>();
+		private final ChoiceBox<ProfileSort> choiceBoxSort = new ChoiceBox<>();
+
+		public ProfilerPane() {
+			super(5);
+			CheckBox checkBoxEnabled = new CheckBox(bundle.getString("Profiler.enabled"));
+			checkBoxEnabled.setSelected(ExpressionProfiler.instance.isEnabled());
+			checkBoxEnabled.setOnAction(event -> ExpressionProfiler.instance.setEnabled(checkBoxEnabled.isSelected()));
+
+			choiceBoxSort.getItems().addAll(ProfileSort.values());
+			choiceBoxSort.setValue(ProfileSort.TotalTime);
+			choiceBoxSort.setOnAction(event -> refresh());
+
+			Button btnRefresh = new Button(bundle.getString("Profiler.refresh"));
+			btnRefresh.setOnAction(event -> refresh());
+			Button btnReset = new Button(bundle.getString("Profiler.reset"));
+			btnReset.setOnAction(event -> {
+				ExpressionProfiler.instance.reset();
+				refresh();
+			});
+
+			HBox hboxControls = new HBox(5, checkBoxEnabled, new Separator(Orientation.VERTICAL),
+					new Label(bundle.getString("Profiler.sort_by")), choiceBoxSort, btnRefresh, btnReset
+			);
+			hboxControls.setAlignment(Pos.CENTER_LEFT);
+
+			Label lblHeader = new Label(String.format(rowFormat,
+					bundle.getString("Profiler.column_count"), bundle.getString("Profiler.column_reused"),
+					bundle.getString("Profiler.column_errors"), bundle.getString("Profiler.column_total_ms"),
+					bundle.getString("Profiler.column_average_us"), bundle.getString("Profiler.column_p50_us"),
+					bundle.getString("Profiler.column_p99_us"), bundle.getString("Profiler.column_max_us"),
+					bundle.getString("Profiler.column_steps"), bundle.getString("Profiler.column_bytes"),
+					bundle.getString("Profiler.column_text")
+			));
+			lblHeader.setStyle("-fx-font-family:monospace");
+
+			listView.setPlaceholder(new Label(bundle.getString("Profiler.no_profiles")));
+			listView.setStyle("-fx-font-family:monospace");
+			listView.setPrefHeight(200);
+
+			getChildren().addAll(hboxControls, lblHeader, listView);
+		}
+
+		public void refresh() {
+			List<ExpressionProfile> profiles = ExpressionProfiler.instance.getProfiles();
+			profiles.sort(choiceBoxSort.getValue().comparator);
+			listView.getItems().clear();
+			for (ExpressionProfile p : profiles) {
+				listView.getItems().add(String.format(rowFormat,
+						p.getCount(), p.getReusedCount(), p.getErrorCount(),
+						String.format("%.2f", p.getTotalNanos() / 1e6),
+						String.format("%.1f", p.getAverageNanos() / 1e3),
+						String.format("%.1f", p.getPercentileNanos(50) / 1e3),
+						String.format("%.1f", p.getPercentileNanos(99) / 1e3),
+						String.format("%.1f", p.getMaxNanos() / 1e3),
+						String.format("%.1f", p.getAverageSteps()),
+						p.getAverageAllocatedBytes() < 0 ? "?" : p.getAverageAllocatedBytes(),
+						p.getText().replaceAll("\\s+", " ")
+				));
+			}
+		}
+	}
+
+	private enum ProfileSort {
+		TotalTime("Profiler.sort_total", Comparator.comparingLong(ExpressionProfile::getTotalNanos)),
+		AverageTime("Profiler.sort_average", Comparator.comparingLong(ExpressionProfile::getAverageNanos)),
+		P99Time("Profiler.sort_p99", Comparator.comparingLong(p -> p.getPercentileNanos(99))),
+		MaxTime("Profiler.sort_max", Comparator.comparingLong(ExpressionProfile::getMaxNanos)),
+		Count("Profiler.sort_count", Comparator.comparingLong(ExpressionProfile::getCount)),
+		Steps("Profiler.sort_steps", Comparator.comparingDouble(ExpressionProfile::getAverageSteps)),
+		Allocated("Profiler.sort_allocated", Comparator.comparingLong(ExpressionProfile::getAverageAllocatedBytes));
+
+		private final String bundleKey;
+		/** Sorts the highest first */
+		private final Comparator<ExpressionProfile> comparator;
+
+		ProfileSort(@NotNull String bundleKey, @NotNull Comparator<ExpressionProfile> comparator) {
+			this.bundleKey = bundleKey;
+			this.comparator = comparator.reversed();
+		}
+
+		@Override
+		public String toString() {
+			return Lang.getBundle("ExpressionEvaluatorPopupBundle").getString(bundleKey);
+		}
+	}
+
 }
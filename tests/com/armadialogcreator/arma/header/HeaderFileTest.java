@@ -0,0 +1,125 @@
+package com.armadialogcreator.arma.header;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class HeaderFileTest {
+
+	private static final String TEXT = "class Base {\n" +
+			"\tx = 1;\n" +
+			"\ty = 2;\n" +
+			"\tclass Inner {};\n" +
+			"};\n" +
+			"class Mid : Base {\n" +
+			"\tY = 3;\n" +
+			"};\n" +
+			"class Top : mid {\n" +
+			"\tz = 4;\n" +
+			"};\n" +
+			"class Broken : Missing {\n" +
+			"\tw = 5;\n" +
+			"};\n";
+
+	@Test
+	public void inheritedLookups() throws Exception {
+		HeaderFile file = parse();
+		HeaderClass base = file.getClasses().getByName("Base", true);
+		HeaderClass mid = file.getClasses().getByName("mid", false);
+		HeaderClass top = file.getClasses().getByName("TOP", false);
+		assertNotNull(base);
+		assertNotNull(mid);
+		assertNotNull(top);
+		assertNull(file.getClasses().getByName("mid", true));
+
+		//case insensitive resolves Top : mid
+		assertEquals("4", valueOf(file.getAssignmentByVarName(top, "z", false)));
+		assertEquals("3", valueOf(file.getAssignmentByVarName(top, "y", false)));
+		assertEquals("1", valueOf(file.getAssignmentByVarName(top, "X", false)));
+		assertNull(file.getAssignmentByVarName(top, "nothing", false));
+		assertSame(base.getNestedClasses().getByName("Inner", true), file.getNestedClassName(top, "inner", false));
+		assertSame(mid, file.getExtendClass(top, false));
+
+		//case sensitive lookups
+		assertEquals("2", valueOf(file.getAssignmentByVarName(mid, "y", true)));
+		assertEquals("3", valueOf(file.getAssignmentByVarName(mid, "Y", true)));
+		try {
+			file.getExtendClass(top, true);
+			fail("mid shouldn't match Mid with case sensitivity");
+		} catch (HeaderClassNotFoundException ignore) {
+		}
+
+		List<String> names = new ArrayList<>();
+		for (HeaderAssignment a : top.getAssignmentsIncludingInherited(false)) {
+			names.add(a.getVariableName());
+		}
+		assertEquals(List.of("z", "Y", "x", "y"), names);
+	}
+
+	@Test
+	public void missingExtendClass() throws Exception {
+		HeaderFile file = parse();
+		HeaderClass broken = file.getClasses().getByName("Broken", true);
+		assertNotNull(broken);
+
+		//found before reaching the missing class
+		assertEquals("5", valueOf(file.getAssignmentByVarName(broken, "w", true)));
+		try {
+			file.getAssignmentByVarName(broken, "x", true);
+			fail("expected missing class");
+		} catch (HeaderClassNotFoundException e) {
+			assertEquals("Missing", e.getMissing());
+		}
+	}
+
+	@Test
+	public void ignoreCaseKeyMatchesEqualsIgnoreCase() {
+		Random r = new Random(1234);
+		char[] chars = {'a', 'A', 'z', 'Z', '_', '1', '\u00e9', '\u00c9', '\u0130', '\u0131', 'i', 'I', '\u017f', 's', 'S', '\u212a', 'k', 'K'};
+		for (int i = 0; i < 20000; i++) {
+			String a = randomString(r, chars);
+			String b = randomString(r, chars);
+			boolean keysEqual = HeaderNameIndex.ignoreCaseKey(a).equals(HeaderNameIndex.ignoreCaseKey(b));
+			assertEquals(a + " vs " + b, a.equalsIgnoreCase(b), keysEqual);
+		}
+	}
+
+	@NotNull
+	private static String randomString(@NotNull Random r, @NotNull char[] chars) {
+		char[] s = new char[r.nextInt(3) + 1];
+		for (int i = 0; i < s.length; i++) {
+			s[i] = chars[r.nextInt(chars.length)];
+		}
+		return new String(s);
+	}
+
+	@NotNull
+	private static String valueOf(HeaderAssignment a) {
+		assertNotNull(a);
+		return a.getValue().getContent();
+	}
+
+	@NotNull
+	private static HeaderFile parse() throws IOException, HeaderParseException {
+		File dir = HeaderTestUtil.getTemporaryResultsFile();
+		if (!dir.exists() && !dir.mkdirs()) {
+			throw new IOException("couldn't create " + dir);
+		}
+		File f = new File(dir, "headerFileTest.h");
+		try (FileWriter fw = new FileWriter(f)) {
+			fw.write(TEXT);
+		}
+		return HeaderParser.parse(f, dir).getFile();
+	}
+}
@@ -0,0 +1,69 @@
+package com.armadialogcreator.arma.header;
+
+import com.armadialogcreator.arma.header.HeaderFileTextProvider.BasicFileInput;
+import com.armadialogcreator.arma.header.HeaderFileTextProvider.CharBufferLines;
+import com.armadialogcreator.arma.header.HeaderFileTextProvider.MappedFileInput;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class HeaderFileTextProviderTest {
+
+	@Test
+	public void charBufferLinesMatchScanner() {
+		String[] texts = {
+				"",
+				"a",
+				"\n",
+				"a\n",
+				"a\n\n",
+				"a\nb",
+				"a\r\nb\r\n",
+				"a\r\rb\r",
+				"\r\n\r\n",
+				"a\u2028b\u2029c\u0085d",
+				"class A {\n\tx = 1;\r\n};\n// comment\n",
+		};
+		for (String text : texts) {
+			assertEquals("text:" + text.replace("\r", "\\r").replace("\n", "\\n"), scannerLines(text), bufferLines(text));
+		}
+	}
+
+	@Test
+	public void mappedFileInputMatchesBasicFileInput() throws Exception {
+		File f = HeaderTestUtil.getFile("largeTest/test1Files/largeTestRoot.h");
+		String expected = HeaderParser.parse(new BasicFileInput(f), HeaderTestUtil.getTemporaryResultsFile()).getFile().getAsString(null);
+		String actual = HeaderParser.parse(new MappedFileInput(f), HeaderTestUtil.getTemporaryResultsFile()).getFile().getAsString(null);
+		assertEquals(expected, actual);
+	}
+
+	@NotNull
+	private static List<String> scannerLines(@NotNull String text) {
+		List<String> lines = new ArrayList<>();
+		Scanner scanner = new Scanner(text);
+		while (scanner.hasNextLine()) {
+			lines.add(scanner.nextLine());
+		}
+		return lines;
+	}
+
+	@NotNull
+	private static List<String> bufferLines(@NotNull String text) {
+		List<String> lines = new ArrayList<>();
+		CharBufferLines bufferLines = new CharBufferLines(CharBuffer.wrap(text.toCharArray()));
+		while (bufferLines.hasNextLine()) {
+			lines.add(bufferLines.nextLine().toString());
+		}
+		return lines;
+	}
+}
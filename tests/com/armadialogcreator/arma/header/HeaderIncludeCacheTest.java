@@ -0,0 +1,100 @@
+package com.armadialogcreator.arma.header;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static com.armadialogcreator.arma.header.HeaderParserHelpers.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class HeaderIncludeCacheTest {
+
+	private File dir;
+
+	@Before
+	public void setup() throws IOException {
+		dir = new File(HeaderTestUtil.getTemporaryResultsFile(), "includeCache");
+		if (!dir.exists() && !dir.mkdirs()) {
+			throw new IOException("couldn't create " + dir);
+		}
+		HeaderIncludeCache.instance.clear();
+	}
+
+	@Test
+	public void repeatedIncludeUsesCache() throws Exception {
+		File inc = write("inc.h", "#define VAL(x) x##_suffix\nincluded = 1;\n", 1000);
+		File root = write("root.h", "#include \"inc.h\"\na = VAL(first);\n#undef VAL\n#include \"inc.h\"\nb = VAL(second);\n", 1000);
+
+		HeaderFile headerFile = HeaderParser.parse(root, HeaderTestUtil.getTemporaryResultsFile()).getFile();
+		assertEquals(1, HeaderIncludeCache.instance.size());
+
+		HeaderClass expected = hClass("-root class", null,
+				assign("included", "1"),
+				assign("a", "first_suffix"),
+				assign("included", "1"),
+				assign("b", "second_suffix")
+		);
+		testEquivalence(headerFile, expected);
+
+		//parse again so that all includes come from the cache
+		testEquivalence(HeaderParser.parse(root, HeaderTestUtil.getTemporaryResultsFile()).getFile(), expected);
+		assertEquals(1, HeaderIncludeCache.instance.size());
+		assertTrue(inc.exists());
+	}
+
+	@Test
+	public void modifiedIncludeIsNotUsed() throws Exception {
+		write("nested.h", "#define VAL 1\n", 1000);
+		write("inc.h", "#include \"nested.h\"\n", 1000);
+		File root = write("root.h", "#include \"inc.h\"\na = VAL;\n", 1000);
+
+		HeaderClass expected = hClass("-root class", null, assign("a", "1"));
+		testEquivalence(HeaderParser.parse(root, HeaderTestUtil.getTemporaryResultsFile()).getFile(), expected);
+
+		write("nested.h", "#define VAL 22\n", 5000);
+
+		expected = hClass("-root class", null, assign("a", "22"));
+		testEquivalence(HeaderParser.parse(root, HeaderTestUtil.getTemporaryResultsFile()).getFile(), expected);
+
+		HeaderIncludeCache.instance.invalidate(new File(dir, "nested.h"));
+		assertEquals(0, HeaderIncludeCache.instance.size());
+	}
+
+	@Test
+	public void definesWithSameFingerprintAreNotConfused() throws Exception {
+		//"Aa" and "BB" have the same String.hashCode()
+		write("inc.h", "a = Aa;\nb = BB;\n", 1000);
+		File rootA = write("rootA.h", "#define Aa 1\n#include \"inc.h\"\n", 1000);
+		File rootB = write("rootB.h", "#define BB 1\n#include \"inc.h\"\n", 1000);
+
+		testEquivalence(
+				HeaderParser.parse(rootA, HeaderTestUtil.getTemporaryResultsFile()).getFile(),
+				hClass("-root class", null, assign("a", "1"), assign("b", "BB"))
+		);
+		testEquivalence(
+				HeaderParser.parse(rootB, HeaderTestUtil.getTemporaryResultsFile()).getFile(),
+				hClass("-root class", null, assign("a", "Aa"), assign("b", "1"))
+		);
+		assertEquals(2, HeaderIncludeCache.instance.size());
+	}
+
+	@NotNull
+	private File write(@NotNull String name, @NotNull String text, long lastModified) throws IOException {
+		File f = new File(dir, name);
+		try (FileWriter fw = new FileWriter(f)) {
+			fw.write(text);
+		}
+		if (!f.setLastModified(lastModified)) {
+			throw new IOException("couldn't set last modified for " + f);
+		}
+		return f;
+	}
+}
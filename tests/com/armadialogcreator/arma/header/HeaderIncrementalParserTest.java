@@ -0,0 +1,258 @@
+package com.armadialogcreator.arma.header;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class HeaderIncrementalParserTest {
+
+	private static final String TEXT = "#define W 1\n" +
+			"#define H 2\n" +
+			"class Base {\n" +
+			"\tw = W;\n" +
+			"};\n" +
+			"class Mid : Base {\n" +
+			"\th = H;\n" +
+			"};\n" +
+			"class Top : Mid {};\n" +
+			"version = 3;\n";
+
+	@Test
+	public void sameResultsAsFullParse() throws Exception {
+		String[] files = {
+				"largeTest/test1Files/largeTestRoot.h",
+				"largeTest/test2Files/largeTest2.h",
+				"largeTest/test3Files/largeTest3.h",
+				"largeTest/test4Files/largeTest4.h",
+		};
+		for (String fileName : files) {
+			File f = HeaderTestUtil.getFile(fileName);
+			HeaderIncrementalParser parser = new HeaderIncrementalParser(f, HeaderTestUtil.getTemporaryResultsFile());
+			HeaderFileDiff diff = parser.parse();
+			HeaderParseResult expected = HeaderParser.parse(f, HeaderTestUtil.getTemporaryResultsFile());
+			assertEquals(fileName, expected.getFile().getAsString(null), parser.getFile().getAsString(null));
+			assertEquals(fileName, expected.getDefineMacros(), parser.getDefineMacros());
+			assertEquals(0, diff.getReusedCount());
+
+			//nothing changed, so nothing is parsed
+			diff = parser.update(parser.getText());
+			assertTrue(diff.isEmpty());
+			assertEquals(0, diff.getReparsedCount());
+			assertEquals(expected.getFile().getAsString(null), parser.getFile().getAsString(null));
+		}
+	}
+
+	@Test
+	public void defineChangeReparsesDependentClass() throws Exception {
+		HeaderIncrementalParser parser = newParser();
+		HeaderFileDiff diff = parser.update(TEXT);
+		assertEquals(3, diff.getClassChanges().size());
+		assertEquals(HeaderFileDiff.ChangeType.Added, diff.getClassChanges().get(0).getType());
+		assertEquals(1, diff.getAssignmentChanges().size());
+
+		HeaderFile file = parser.getFile();
+		HeaderClass base = file.getClasses().getByName("Base", true);
+		HeaderClass mid = file.getClasses().getByName("Mid", true);
+		HeaderClass top = file.getClasses().getByName("Top", true);
+		assertEquals("2", file.getAssignmentByVarName(top, "h", true).getValue().getContent());
+
+		//only Mid uses H
+		int offset = parser.getText().indexOf("H 2") + 2;
+		diff = parser.applyDelta(offset, 1, "5");
+		assertEquals(List.of("H"), diff.getMacroChanges());
+		assertEquals(1, diff.getReparsedCount());
+		assertEquals(3, diff.getReusedCount());
+		//only the lines of Mid
+		assertEquals(3, diff.getExpandedLineCount());
+		assertEquals(1, diff.getClassChanges().size());
+		HeaderFileDiff.Change<HeaderClass> change = diff.getClassChanges().get(0);
+		assertEquals(HeaderFileDiff.ChangeType.Changed, change.getType());
+		assertSame(mid, change.getOldItem());
+		assertTrue(diff.getAssignmentChanges().isEmpty());
+
+		assertSame(base, file.getClasses().getByName("Base", true));
+		assertSame(top, file.getClasses().getByName("Top", true));
+		assertNotSame(mid, file.getClasses().getByName("Mid", true));
+		//memoized inheritance lookups were forgotten
+		assertEquals("5", file.getAssignmentByVarName(top, "h", true).getValue().getContent());
+		assertEquals("1", file.getAssignmentByVarName(top, "w", true).getValue().getContent());
+	}
+
+	@Test
+	public void addAndRemove() throws Exception {
+		HeaderIncrementalParser parser = newParser();
+		parser.update(TEXT);
+
+		HeaderFileDiff diff = parser.update(TEXT.replace("class Top : Mid {};\n", "") + "class Other {};\n");
+		assertEquals(2, diff.getClassChanges().size());
+		assertEquals(HeaderFileDiff.ChangeType.Added, diff.getClassChanges().get(0).getType());
+		assertEquals("Other", diff.getClassChanges().get(0).getName());
+		assertEquals(HeaderFileDiff.ChangeType.Removed, diff.getClassChanges().get(1).getType());
+		assertEquals("Top", diff.getClassChanges().get(1).getName());
+		assertNull(parser.getFile().getClasses().getByName("Top", true));
+		assertNotNull(parser.getFile().getClasses().getByName("Other", true));
+
+		HeaderIncrementalParser.Segment last = parser.getSegments().get(parser.getSegments().size() - 1);
+		assertEquals(10, last.getStartLine());
+		assertEquals(10, last.getEndLine());
+		assertEquals("class Other {};", last.getText());
+	}
+
+	@Test
+	public void textEditOnlyExpandsOverlappingSegment() throws Exception {
+		HeaderIncrementalParser parser = newParser();
+		parser.update(TEXT);
+		HeaderFile file = parser.getFile();
+		HeaderClass base = file.getClasses().getByName("Base", true);
+		HeaderClass mid = file.getClasses().getByName("Mid", true);
+		HeaderClass top = file.getClasses().getByName("Top", true);
+
+		int offset = parser.getText().indexOf("w = W") + 4;
+		HeaderFileDiff diff = parser.applyDelta(offset, 1, "4");
+		//only the lines of Base
+		assertEquals(3, diff.getExpandedLineCount());
+		assertEquals(1, diff.getReparsedCount());
+		assertEquals(3, diff.getReusedCount());
+		assertEquals(1, diff.getClassChanges().size());
+		assertSame(base, diff.getClassChanges().get(0).getOldItem());
+		assertSame(mid, file.getClasses().getByName("Mid", true));
+		assertSame(top, file.getClasses().getByName("Top", true));
+		assertEquals("4", file.getAssignmentByVarName(top, "w", true).getValue().getContent());
+
+		//a new line moves the segments after it
+		offset = parser.getText().indexOf("class Top");
+		diff = parser.applyDelta(offset, 0, "\n");
+		assertTrue(diff.isEmpty());
+		//the line of the edit and the line of Top
+		assertEquals(2, diff.getExpandedLineCount());
+		assertEquals(0, diff.getReparsedCount());
+		HeaderIncrementalParser.Segment last = parser.getSegments().get(parser.getSegments().size() - 1);
+		assertEquals(11, last.getStartLine());
+	}
+
+	@Test
+	public void segmentsAndMacrosHaveFileLines() throws Exception {
+		HeaderIncrementalParser parser = newParser();
+		parser.update(TEXT.replace("#define H 2", "#define H \\\n\t2"));
+
+		List<HeaderIncrementalParser.MacroSegment> macros = parser.getMacroSegments();
+		assertEquals(2, macros.size());
+		assertSame(parser.getMacros().get(0), macros.get(0).getMacro());
+		assertEquals(1, macros.get(0).getStartLine());
+		assertEquals(1, macros.get(0).getEndLine());
+		assertEquals(2, macros.get(1).getStartLine());
+		assertEquals(3, macros.get(1).getEndLine());
+
+		List<HeaderIncrementalParser.Segment> segments = parser.getSegments();
+		assertEquals(4, segments.size());
+		assertEquals(4, segments.get(0).getStartLine());
+		assertEquals(6, segments.get(0).getEndLine());
+		assertEquals(Set.of("W"), segments.get(0).getMacroDependencies());
+		assertEquals(7, segments.get(1).getStartLine());
+		assertEquals(9, segments.get(1).getEndLine());
+		assertEquals(Set.of("H"), segments.get(1).getMacroDependencies());
+		assertEquals(Set.of(), segments.get(2).getMacroDependencies());
+		assertEquals(11, segments.get(3).getStartLine());
+
+		//the #define keeps its lines
+		int offset = parser.getText().indexOf("\t2") + 1;
+		HeaderFileDiff diff = parser.applyDelta(offset, 1, "3");
+		assertEquals(List.of("H"), diff.getMacroChanges());
+		assertEquals(3, diff.getExpandedLineCount());
+		assertEquals(1, diff.getReparsedCount());
+		assertEquals(7, parser.getSegments().get(1).getStartLine());
+	}
+
+	@Test
+	public void editsHaveSameResultsAsFullParse() throws Exception {
+		File dir = HeaderTestUtil.getTemporaryResultsFile();
+		Files.write(new File(dir, "incrementalInclude.h").toPath(),
+				"#define INC 5\nclass FromInclude {\n\tv = W;\n};\n".getBytes(Charset.defaultCharset())
+		);
+		String text = TEXT + "#include \"incrementalInclude.h\"\nline = __LINE__;\ncolor = \"#(argb,8,8,3)\";\n";
+		HeaderIncrementalParser parser = newParser();
+		parser.update(text);
+		assertSameAsFullParse(dir, parser);
+
+		String[][] edits = {
+				//new class that uses a macro
+				{"class Top", "class New {\n\tn = W + INC;\n};\nclass Top"},
+				//#define on more lines
+				{"#define W 1", "#define W \\\n7"},
+				//__LINE__ moves
+				{"class Base", "\n\nclass Base"},
+				{"\n\nclass Base", "class Base"},
+				//the #define's body changes
+				{"#define W \\\n7", "#define W 8"},
+				//a block comment, a new macro, an #ifdef
+				{"class Mid", "/* comment\nstill comment */\nclass Mid"},
+				{"version = 3;", "#define V 4\nversion = V;"},
+				{"class New", "#ifdef V\nclass New"},
+				{"class Top", "#endif\nclass Top"},
+				{"#ifdef V", "#ifndef V"},
+				//text with # that isn't a macro
+				{"color = \"#(argb,8,8,3)\";", "color = \"#(argb,8,8,4)\";"},
+				//remove everything but the macros
+				{"class Base {\n\tw = W;\n};\n", ""},
+				{"class Top : Mid {};\n", ""},
+		};
+		for (String[] edit : edits) {
+			int offset = parser.getText().indexOf(edit[0]);
+			assertTrue(edit[0], offset >= 0);
+			parser.applyDelta(offset, edit[0].length(), edit[1]);
+			assertSameAsFullParse(dir, parser);
+		}
+	}
+
+	private static void assertSameAsFullParse(@NotNull File dir, @NotNull HeaderIncrementalParser parser) throws Exception {
+		File f = new File(dir, "incrementalTestExpected.h");
+		Files.write(f.toPath(), parser.getText().getBytes(Charset.defaultCharset()));
+		HeaderParseResult expected = HeaderParser.parse(f, dir);
+		assertEquals(parser.getText(), expected.getFile().getAsString(null), parser.getFile().getAsString(null));
+		assertEquals(expected.getDefineMacros(), parser.getDefineMacros());
+
+		HeaderIncrementalParser fresh = new HeaderIncrementalParser(f, dir);
+		fresh.update(parser.getText());
+		assertEquals(fresh.getSegments().size(), parser.getSegments().size());
+		for (int i = 0; i < fresh.getSegments().size(); i++) {
+			HeaderIncrementalParser.Segment segment = parser.getSegments().get(i);
+			HeaderIncrementalParser.Segment freshSegment = fresh.getSegments().get(i);
+			assertEquals(freshSegment.getText(), segment.getText());
+			assertEquals(freshSegment.getStartLine(), segment.getStartLine());
+			assertEquals(freshSegment.getEndLine(), segment.getEndLine());
+			assertEquals(parser.getText() + segment, freshSegment.getMacroDependencies(), segment.getMacroDependencies());
+		}
+	}
+
+	@Test
+	public void syntaxErrorKeepsPreviousVersion() throws Exception {
+		HeaderIncrementalParser parser = newParser();
+		parser.update(TEXT);
+		String before = parser.getFile().getAsString(null);
+		try {
+			parser.update(TEXT + "class Broken {\n");
+			fail("expected HeaderParseException");
+		} catch (HeaderParseException ignore) {
+		}
+		assertEquals(TEXT, parser.getText());
+		assertEquals(before, parser.getFile().getAsString(null));
+	}
+
+	@NotNull
+	private static HeaderIncrementalParser newParser() throws Exception {
+		File dir = HeaderTestUtil.getTemporaryResultsFile();
+		File f = new File(dir, "incrementalTest.h");
+		Files.write(f.toPath(), TEXT.getBytes(Charset.defaultCharset()));
+		return new HeaderIncrementalParser(f, dir);
+	}
+}
@@ -0,0 +1,37 @@
+package com.armadialogcreator.arma.header;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class HeaderSymbolTableTest {
+
+	@Test
+	public void sameInstanceForEqualText() {
+		HeaderSymbolTable table = new HeaderSymbolTable();
+		String idc = table.intern(new String("idc"));
+		assertSame(idc, table.intern(new String("idc")));
+		char[] chars = "x = idc;".toCharArray();
+		assertSame(idc, table.intern(chars, 4, 7));
+		assertEquals(1, table.size());
+		assertNull(table.intern(null));
+	}
+
+	@Test
+	public void grows() {
+		HeaderSymbolTable table = new HeaderSymbolTable();
+		for (int i = 0; i < 10000; i++) {
+			table.intern("s" + i);
+		}
+		assertEquals(10000, table.size());
+		for (int i = 0; i < 10000; i++) {
+			char[] chars = ("s" + i).toCharArray();
+			assertEquals("s" + i, table.intern(chars, 0, chars.length));
+		}
+		assertEquals(10000, table.size());
+		assertEquals("", table.intern(new char[0], 0, 0));
+	}
+}
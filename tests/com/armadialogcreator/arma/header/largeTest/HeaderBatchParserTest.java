@@ -0,0 +1,62 @@
+package com.armadialogcreator.arma.header.largeTest;
+
+import com.armadialogcreator.arma.header.HeaderBatchParser;
+import com.armadialogcreator.arma.header.HeaderParser;
+import com.armadialogcreator.arma.header.HeaderTestUtil;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ Checks that {@link HeaderBatchParser} creates the same results as parsing each file on its own
+
+ @author K
+ @since 10/18/2026 */
+public class HeaderBatchParserTest {
+
+	private static final String[] FILES = {
+			"largeTest/test1Files/largeTestRoot.h",
+			"largeTest/test2Files/largeTest2.h",
+			"largeTest/test3Files/largeTest3.h",
+			"largeTest/test4Files/largeTest4.h",
+	};
+
+	@Test
+	public void sameResultsAsSequential() throws Exception {
+		List<File> files = new ArrayList<>();
+		for (int repeat = 0; repeat < 3; repeat++) {
+			for (String fileName : FILES) {
+				files.add(HeaderTestUtil.getFile(fileName));
+			}
+		}
+		files.add(new File(HeaderTestUtil.getTemporaryResultsFile(), "batchParserMissingFile.h"));
+
+		HeaderBatchParser parser = new HeaderBatchParser(HeaderTestUtil.getTemporaryResultsFile());
+		parser.setThreadCount(4);
+		Set<Integer> reported = new HashSet<>();
+		List<HeaderBatchParser.FileResult> results = parser.parseAll(files, result -> {
+			assertTrue("reported twice", reported.add(result.getIndex()));
+		});
+
+		assertEquals(files.size(), reported.size());
+		assertEquals(files.size(), results.size());
+		for (int i = 0; i < FILES.length * 3; i++) {
+			HeaderBatchParser.FileResult result = results.get(i);
+			assertEquals(i, result.getIndex());
+			assertSame(files.get(i), result.getFile());
+			assertTrue(result.toString(), result.isSuccess());
+			assertTrue(result.getParseTimeNanos() > 0);
+			String expected = HeaderParser.parse(files.get(i), HeaderTestUtil.getTemporaryResultsFile()).getFile().getAsString(null);
+			assertEquals(expected, result.getResult().getFile().getAsString(null));
+		}
+		HeaderBatchParser.FileResult missing = results.get(results.size() - 1);
+		assertFalse(missing.isSuccess());
+		assertNotNull(missing.getError());
+	}
+}
@@ -0,0 +1,69 @@
+package com.armadialogcreator.arma.header.largeTest;
+
+import com.armadialogcreator.arma.header.HeaderFileTextProvider;
+import com.armadialogcreator.arma.header.HeaderParseException;
+import com.armadialogcreator.arma.header.HeaderParser;
+import com.armadialogcreator.arma.header.HeaderTestUtil;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ Checks that {@link HeaderParser.Backend#RecursiveDescent} creates the same results as {@link HeaderParser.Backend#Antlr}
+
+ @author K
+ @since 10/18/2026 */
+public class HeaderParserBackendTest {
+
+	@Test
+	public void largeTest1() throws Exception {
+		assertSameResults("largeTest/test1Files/largeTestRoot.h");
+	}
+
+	@Test
+	public void largeTest2() throws Exception {
+		assertSameResults("largeTest/test2Files/largeTest2.h");
+	}
+
+	@Test
+	public void largeTest3() throws Exception {
+		assertSameResults("largeTest/test3Files/largeTest3.h");
+	}
+
+	@Test
+	public void largeTest4() throws Exception {
+		assertSameResults("largeTest/test4Files/largeTest4.h");
+	}
+
+	@Test
+	public void syntaxError() throws Exception {
+		File f = new File(HeaderTestUtil.getTemporaryResultsFile(), "backendSyntaxError.h");
+		try (FileWriter fw = new FileWriter(f)) {
+			fw.write("class A {\n\tx = \"unterminated;\n};\n");
+		}
+		try {
+			parse(f, HeaderParser.Backend.RecursiveDescent);
+			fail("expected HeaderParseException");
+		} catch (HeaderParseException ignore) {
+		}
+	}
+
+	private static void assertSameResults(@NotNull String fileName) throws Exception {
+		File f = HeaderTestUtil.getFile(fileName);
+		assertEquals(parse(f, HeaderParser.Backend.Antlr), parse(f, HeaderParser.Backend.RecursiveDescent));
+	}
+
+	@NotNull
+	private static String parse(@NotNull File f, @NotNull HeaderParser.Backend backend) throws Exception {
+		return HeaderParser.parse(
+				HeaderFileTextProvider.forFile(f),
+				HeaderTestUtil.getTemporaryResultsFile(),
+				backend
+		).getFile().getAsString(null);
+	}
+}
@@ -0,0 +1,85 @@
+package com.armadialogcreator.arma.header.largeTest;
+
+import com.armadialogcreator.arma.header.HeaderFileTextProvider;
+import com.armadialogcreator.arma.header.HeaderIncludeCache;
+import com.armadialogcreator.arma.header.HeaderParseResult;
+import com.armadialogcreator.arma.header.HeaderParser;
+import com.armadialogcreator.arma.header.HeaderTestUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Compares the parse time and retained heap of each {@link HeaderParser.Backend} on the large test files. This isn't a unit test. Run it with:
+ <pre>java ... com.armadialogcreator.arma.header.largeTest.HeaderParserBenchmark [warmupIterations] [measuredIterations]</pre>
+ The include cache is cleared before each parse so that preprocessing is measured the same way for each backend.
+ Retained heap is the heap used by the {@link HeaderParseResult}s (measured after garbage collection), so it's approximate.
+
+ @author K
+ @since 10/18/2026 */
+public class HeaderParserBenchmark {
+	private static final String[] FILES = {
+			"largeTest/test1Files/largeTestRoot.h",
+			"largeTest/test2Files/largeTest2.h",
+			"largeTest/test3Files/largeTest3.h",
+			"largeTest/test4Files/largeTest4.h"
+	};
+
+	public static void main(String[] args) throws Exception {
+		int warmup = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int measured = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+		for (HeaderParser.Backend backend : HeaderParser.Backend.values()) {
+			run(backend, warmup);
+		}
+		for (HeaderParser.Backend backend : HeaderParser.Backend.values()) {
+			long start = System.nanoTime();
+			run(backend, measured);
+			double microsPerOp = (System.nanoTime() - start) / 1000.0 / (measured * FILES.length);
+			System.out.printf("%-16s %10.1f us/file%n", backend, microsPerOp);
+		}
+		for (HeaderParser.Backend backend : HeaderParser.Backend.values()) {
+			System.out.printf("%-16s %10.1f KB retained/file%n", backend, retainedKilobytes(backend, 200) / FILES.length);
+		}
+	}
+
+	/** @return approximate number of KB retained by the results of parsing {@link #FILES}, averaged over <code>copies</code> parses */
+	private static double retainedKilobytes(@NotNull HeaderParser.Backend backend, int copies) throws Exception {
+		File temp = HeaderTestUtil.getTemporaryResultsFile();
+		List<HeaderParseResult> results = new ArrayList<>(copies * FILES.length);
+		HeaderIncludeCache.instance.clear();
+		long before = usedHeap();
+		for (int i = 0; i < copies; i++) {
+			for (String file : FILES) {
+				results.add(HeaderParser.parse(HeaderFileTextProvider.forFile(HeaderTestUtil.getFile(file)), temp, backend));
+			}
+		}
+		HeaderIncludeCache.instance.clear();
+		long after = usedHeap();
+		if (results.size() != copies * FILES.length) {
+			throw new IllegalStateException(); //keeps the results reachable until after they are measured
+		}
+		return (after - before) / 1024.0 / copies;
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static void run(@NotNull HeaderParser.Backend backend, int iterations) throws Exception {
+		File temp = HeaderTestUtil.getTemporaryResultsFile();
+		for (int i = 0; i < iterations; i++) {
+			for (String file : FILES) {
+				HeaderIncludeCache.instance.clear();
+				HeaderParser.parse(HeaderFileTextProvider.forFile(HeaderTestUtil.getFile(file)), temp, backend);
+			}
+		}
+	}
+}
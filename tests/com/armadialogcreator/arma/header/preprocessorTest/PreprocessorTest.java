@@ -365,6 +365,21 @@ public class PreprocessorTest {
 		);
 	}
 
+	@Test
+	public void replaceParameterSemicolon() throws Exception {
+		/*
+		 * #define TEST(s) s
+		 */
+		String base = "msg=TEST(a;b)";
+		String expect = "msg=a;b";
+
+		HeaderParserHelpers.assertPreprocessLine(
+				expect,
+				createFileFromText(base),
+				mapParams("TEST", array("s"), "s")
+		);
+	}
+
 	@Test
 	public void __evalTest() throws Exception {
 		//#define REP_LAND_ARMOR 300
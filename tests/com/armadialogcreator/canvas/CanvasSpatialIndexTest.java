@@ -0,0 +1,227 @@
+package com.armadialogcreator.canvas;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class CanvasSpatialIndexTest {
+
+	@Test
+	public void topmostEnabledInRenderOrder() {
+		ListUINode root = new ListUINode("root");
+		ListUINode a = ListUINode.of("a", 0, 0, 100, 100);
+		ListUINode a1 = ListUINode.of("a1", 60, 60, 10, 10);
+		ListUINode b = ListUINode.of("b", 50, 50, 100, 100);
+		root.addChild(a);
+		a.addChild(a1);
+		root.addChild(b);
+		CanvasSpatialIndex index = new CanvasSpatialIndex();
+		index.setRootNode(root);
+
+		//render order is a, a1, b
+		assertSame(b, index.getTopmostEnabledAt(65, 65));
+		assertSame(a, index.getTopmostEnabledAt(10, 10));
+		assertNull(index.getTopmostEnabledAt(500, 500));
+
+		b.getComponent().setEnabled(false);
+		assertSame(a1, index.getTopmostEnabledAt(65, 65));
+		a1.getComponent().setEnabled(false);
+		assertSame(a, index.getTopmostEnabledAt(65, 65));
+	}
+
+	@Test
+	public void intersectingInRenderOrder() {
+		ListUINode root = new ListUINode("root");
+		ListUINode a = ListUINode.of("a", 0, 0, 100, 100);
+		ListUINode a1 = ListUINode.of("a1", 60, 60, 10, 10);
+		ListUINode b = ListUINode.of("b", 200, 0, 100, 100);
+		ListUINode c = ListUINode.of("c", 50, 50, 20, 20);
+		root.addChild(c);
+		root.addChild(a);
+		a.addChild(a1);
+		root.addChild(b);
+		CanvasSpatialIndex index = new CanvasSpatialIndex(32);
+		index.setRootNode(root);
+
+		SimpleCanvasComponent area = new SimpleCanvasComponent(40, 40, 200, 30);
+		assertEquals(Arrays.asList(c, a, a1, b), index.getIntersecting(area, true));
+
+		a.getComponent().setEnabled(false);
+		assertEquals(Arrays.asList(c, a1, b), index.getIntersecting(area, true));
+		assertEquals(Arrays.asList(c, a, a1, b), index.getIntersecting(area, false));
+
+		assertEquals(Collections.emptyList(), index.getIntersecting(new SimpleCanvasComponent(500, 500, 10, 10), false));
+	}
+
+	@Test
+	public void largeEntries() {
+		ListUINode root = new ListUINode("root");
+		//far more than MAX_CELLS cells
+		ListUINode background = ListUINode.of("background", 0, 0, 2000, 2000);
+		ListUINode small = ListUINode.of("small", 1500, 1500, 10, 10);
+		root.addChild(small);
+		root.addChild(background);
+		CanvasSpatialIndex index = new CanvasSpatialIndex();
+		index.setRootNode(root);
+
+		assertSame(background, index.getTopmostEnabledAt(1505, 1505));
+		assertSame(background, index.getTopmostEnabledAt(5, 5));
+		assertEquals(Arrays.asList(small, background), index.getIntersecting(new SimpleCanvasComponent(1490, 1490, 30, 30), true));
+
+		background.getComponent().setEnabled(false);
+		assertSame(small, index.getTopmostEnabledAt(1505, 1505));
+		background.getComponent().setEnabled(true);
+
+		background.getComponent().translate(3000, 0);
+		assertSame(small, index.getTopmostEnabledAt(1505, 1505));
+		assertNull(index.getTopmostEnabledAt(5, 5));
+		assertSame(background, index.getTopmostEnabledAt(3005, 5));
+
+		//no longer large
+		background.getComponent().setPositionWH(1500, 1500, 5, 5);
+		assertSame(background, index.getTopmostEnabledAt(1502, 1502));
+		assertSame(small, index.getTopmostEnabledAt(1508, 1508));
+		assertNull(index.getTopmostEnabledAt(3005, 5));
+	}
+
+	@Test
+	public void addAndRemove() {
+		ListUINode root = new ListUINode("root");
+		ListUINode a = ListUINode.of("a", 0, 0, 100, 100);
+		root.addChild(a);
+		CanvasSpatialIndex index = new CanvasSpatialIndex();
+		index.setRootNode(root);
+		assertEquals(1, index.size());
+
+		ListUINode b = ListUINode.of("b", 50, 50, 100, 100);
+		ListUINode b1 = ListUINode.of("b1", 120, 120, 10, 10);
+		b.addChild(b1);
+		root.addChild(b);
+		assertEquals(3, index.size());
+		assertSame(b, index.getTopmostEnabledAt(60, 60));
+		assertSame(b1, index.getTopmostEnabledAt(125, 125));
+
+		//added under a, so rendered under b
+		ListUINode a1 = ListUINode.of("a1", 55, 55, 10, 10);
+		a.addChild(a1);
+		assertSame(b, index.getTopmostEnabledAt(60, 60));
+		a.removeChild(a1);
+		root.addChild(a1, 2);
+		assertSame(a1, index.getTopmostEnabledAt(60, 60));
+
+		root.removeChild(b);
+		assertEquals(2, index.size());
+		assertSame(a1, index.getTopmostEnabledAt(60, 60));
+		assertNull(index.getTopmostEnabledAt(125, 125));
+		assertEquals(Arrays.asList(a, a1), index.getIntersecting(new SimpleCanvasComponent(0, 0, 500, 500), false));
+
+		//removed nodes are no longer listened to
+		b.addChild(ListUINode.of("b2", 0, 0, 10, 10));
+		b1.getComponent().translate(-120, -120);
+		assertSame(a, index.getTopmostEnabledAt(5, 5));
+		assertEquals(2, index.size());
+
+		index.setRootNode(null);
+		assertEquals(0, index.size());
+		assertNull(index.getTopmostEnabledAt(5, 5));
+	}
+
+	@Test
+	public void moveComponent() {
+		ListUINode root = new ListUINode("root");
+		ListUINode a = ListUINode.of("a", 0, 0, 100, 100);
+		ListUINode b = ListUINode.of("b", 300, 300, 10, 10);
+		root.addChild(a);
+		root.addChild(b);
+		CanvasSpatialIndex index = new CanvasSpatialIndex();
+		index.setRootNode(root);
+		List<CanvasComponent> changed = new ArrayList<>();
+		index.getChangeUpdateGroup().addListener((group, component) -> changed.add(component));
+
+		b.getComponent().setPositionWH(50, 50, 10, 10);
+		assertNull(index.getTopmostEnabledAt(305, 305));
+		assertSame(b, index.getTopmostEnabledAt(55, 55));
+		assertEquals(Collections.singletonList(b.getComponent()), changed);
+
+		b.getComponent().translate(-40, -40);
+		assertSame(a, index.getTopmostEnabledAt(55, 55));
+		assertSame(b, index.getTopmostEnabledAt(15, 15));
+	}
+
+	@Test
+	public void reparent() {
+		ListUINode root = new ListUINode("root");
+		ListUINode folder = new ListUINode("folder");
+		ListUINode a = ListUINode.of("a", 0, 0, 100, 100);
+		ListUINode b = ListUINode.of("b", 0, 0, 100, 100);
+		ListUINode b1 = ListUINode.of("b1", 10, 10, 10, 10);
+		root.addChild(folder);
+		folder.addChild(a);
+		root.addChild(b);
+		b.addChild(b1);
+		CanvasSpatialIndex index = new CanvasSpatialIndex();
+		index.setRootNode(root);
+		assertSame(b1, index.getTopmostEnabledAt(15, 15));
+		assertSame(b, index.getTopmostEnabledAt(50, 50));
+
+		//move b (and b1) under a, into the folder
+		root.moveChild(b, folder, 0);
+		assertSame(a, index.getTopmostEnabledAt(15, 15));
+		assertEquals(Arrays.asList(b, b1, a), index.getIntersecting(new SimpleCanvasComponent(0, 0, 50, 50), true));
+
+		//move out of the tree
+		ListUINode detached = new ListUINode("detached");
+		folder.moveChild(b, detached, 0);
+		assertEquals(1, index.size());
+		assertEquals(Collections.singletonList(a), index.getIntersecting(new SimpleCanvasComponent(0, 0, 50, 50), true));
+
+		//move back into the tree
+		detached.moveChild(b, root, 1);
+		assertEquals(3, index.size());
+		assertSame(b1, index.getTopmostEnabledAt(15, 15));
+	}
+
+	@Test
+	public void deepIterateVisitsEachNodeOnceDepthFirst() {
+		ListUINode root = new ListUINode("root");
+		ListUINode a = new ListUINode("a");
+		ListUINode a1 = new ListUINode("a1");
+		ListUINode a1x = new ListUINode("a1x");
+		ListUINode a2 = new ListUINode("a2");
+		ListUINode b = new ListUINode("b");
+		ListUINode c = new ListUINode("c");
+		ListUINode c1 = new ListUINode("c1");
+		root.addChild(a);
+		a.addChild(a1);
+		a1.addChild(a1x);
+		a.addChild(a2);
+		root.addChild(b);
+		root.addChild(c);
+		c.addChild(c1);
+
+		List<UINode> visited = new ArrayList<>();
+		for (UINode node : root.deepIterateChildren()) {
+			visited.add(node);
+		}
+		assertEquals(Arrays.asList(a, a1, a1x, a2, b, c, c1), visited);
+
+		//hasNext() doesn't advance
+		DeepUINodeIterable.MyIterator iterator = a.deepIterateChildren().iterator();
+		assertTrue(iterator.hasNext());
+		assertTrue(iterator.hasNext());
+		assertSame(a1, iterator.next());
+		assertSame(a1x, iterator.next());
+		assertSame(a2, iterator.next());
+		assertFalse(iterator.hasNext());
+
+		assertFalse(b.deepIterateChildren().iterator().hasNext());
+	}
+}
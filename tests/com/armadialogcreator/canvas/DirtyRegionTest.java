@@ -0,0 +1,81 @@
+package com.armadialogcreator.canvas;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class DirtyRegionTest {
+
+	@Test
+	public void emptyRectsIgnored() {
+		DirtyRegion region = new DirtyRegion();
+		region.add(0, 0, 0, 10);
+		region.add(0, 0, 10, 0);
+		region.add(10, 10, 5, 20);
+		assertTrue(region.isEmpty());
+		assertEquals(0, region.getArea());
+	}
+
+	@Test
+	public void containedRectSkipped() {
+		DirtyRegion region = new DirtyRegion();
+		region.add(0, 0, 100, 100);
+		region.add(10, 10, 20, 20);
+		region.add(0, 0, 100, 100);
+		assertEquals(100 * 100, region.getArea());
+
+		//not contained
+		region.add(90, 90, 110, 110);
+		assertEquals(100 * 100 + 20 * 20, region.getArea());
+	}
+
+	@Test
+	public void mergedAtMaxRects() {
+		DirtyRegion region = new DirtyRegion();
+		for (int i = 0; i < DirtyRegion.MAX_RECTS; i++) {
+			region.add(i * 20, 0, i * 20 + 10, 10);
+		}
+		assertEquals(DirtyRegion.MAX_RECTS * 100, region.getArea());
+		assertFalse(region.intersects(10, 0, 20, 10));
+
+		region.add(0, 100, 10, 110);
+		int right = (DirtyRegion.MAX_RECTS - 1) * 20 + 10;
+		assertEquals((long) right * 110, region.getArea());
+		//gaps are now dirty
+		assertTrue(region.intersects(10, 0, 20, 10));
+		assertTrue(region.intersects(0, 50, 10, 60));
+		assertFalse(region.intersects(right, 0, right + 10, 10));
+
+		//the merged rect counts as one, so more rects can be added before the next merge
+		region.add(1000, 1000, 1010, 1010);
+		assertEquals((long) right * 110 + 100, region.getArea());
+	}
+
+	@Test
+	public void intersectsIsHalfOpen() {
+		DirtyRegion region = new DirtyRegion();
+		region.add(10, 10, 20, 20);
+		//touching edges
+		assertFalse(region.intersects(20, 10, 30, 20));
+		assertFalse(region.intersects(0, 10, 10, 20));
+		assertFalse(region.intersects(10, 20, 20, 30));
+		assertFalse(region.intersects(10, 0, 20, 10));
+		//overlapping by one pixel
+		assertTrue(region.intersects(19, 19, 30, 30));
+		assertTrue(region.intersects(0, 0, 11, 11));
+		assertTrue(region.intersects(12, 12, 14, 14));
+	}
+
+	@Test
+	public void clear() {
+		DirtyRegion region = new DirtyRegion();
+		region.add(0, 0, 10, 10);
+		assertFalse(region.isEmpty());
+		region.clear();
+		assertTrue(region.isEmpty());
+		assertFalse(region.intersects(0, 0, 10, 10));
+	}
+}
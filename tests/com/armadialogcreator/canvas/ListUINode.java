@@ -0,0 +1,160 @@
+package com.armadialogcreator.canvas;
+
+import com.armadialogcreator.util.DataContext;
+import com.armadialogcreator.util.UpdateListenerGroup;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ A {@link UINode} that keeps its children in a list, for tests that need a node tree without controls.
+
+ @author K
+ @since 10/18/2026 */
+public class ListUINode implements UINode {
+	private final List<UINode> children = new LinkedList<>();
+	private final UpdateListenerGroup<UINodeChange> updateGroup = new UpdateListenerGroup<>();
+	private final UpdateListenerGroup<UpdateListenerGroup.NoData> renderUpdateGroup = new UpdateListenerGroup<>();
+	private final DataContext userData = new DataContext();
+	private final CanvasComponent component;
+	private final String name;
+	private UINode parentNode;
+
+	/** Create a node with no component */
+	public ListUINode(@NotNull String name) {
+		this(name, null);
+	}
+
+	public ListUINode(@NotNull String name, @Nullable CanvasComponent component) {
+		this.name = name;
+		this.component = component;
+	}
+
+	/** Create a node with a {@link SimpleCanvasComponent} of the given bounds */
+	@NotNull
+	public static ListUINode of(@NotNull String name, int x, int y, int width, int height) {
+		return new ListUINode(name, new SimpleCanvasComponent(x, y, width, height));
+	}
+
+	@Override
+	@NotNull
+	public Iterable<? extends UINode> iterateChildNodes() {
+		return children;
+	}
+
+	@Override
+	@NotNull
+	public UpdateListenerGroup<UpdateListenerGroup.NoData> renderUpdateGroup() {
+		return renderUpdateGroup;
+	}
+
+	@Override
+	public int getChildCount() {
+		return children.size();
+	}
+
+	@Override
+	public int indexOf(@NotNull UINode child) {
+		return children.indexOf(child);
+	}
+
+	@Override
+	public boolean containsChildNode(@NotNull UINode node) {
+		return children.contains(node);
+	}
+
+	@Override
+	public void addChild(@NotNull UINode node) {
+		children.add(node);
+		node.setParentNode(this);
+		updateGroup.update(new UINodeChange.AddChild(node));
+	}
+
+	@Override
+	public void addChild(@NotNull UINode node, int index) {
+		children.add(index, node);
+		node.setParentNode(this);
+		updateGroup.update(new UINodeChange.AddChild(node, index));
+	}
+
+	@Override
+	public boolean removeChild(@NotNull UINode node) {
+		node.setParentNode(null);
+		if (children.remove(node)) {
+			updateGroup.update(new UINodeChange.RemoveChild(node));
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	@Nullable
+	public UINode removeChild(int index) {
+		UINode removed = children.remove(index);
+		removed.setParentNode(null);
+		updateGroup.update(new UINodeChange.RemoveChild(removed));
+		return removed;
+	}
+
+	@Override
+	public void moveChild(@NotNull UINode child, @NotNull UINode newParent, int destIndex) {
+		children.remove(child);
+		updateGroup.update(new UINodeChange.MoveChild(child, this, newParent, destIndex, true));
+		newParent.acceptMovedChild(child, this, destIndex);
+	}
+
+	@Override
+	public void acceptMovedChild(@NotNull UINode child, @NotNull UINode oldParent, int destIndex) {
+		children.add(destIndex, child);
+		child.setParentNode(this);
+		updateGroup.update(new UINodeChange.MoveChild(child, oldParent, this, destIndex, false));
+	}
+
+	@Override
+	@NotNull
+	public DeepUINodeIterable deepIterateChildren() {
+		return new DeepUINodeIterable(children);
+	}
+
+	@Override
+	@Nullable
+	public CanvasComponent getComponent() {
+		return component;
+	}
+
+	@Override
+	@Nullable
+	public UINode getParentNode() {
+		return parentNode;
+	}
+
+	@Override
+	public void setParentNode(@Nullable UINode newParent) {
+		this.parentNode = newParent;
+	}
+
+	@Override
+	@NotNull
+	public UINode deepCopy() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	@NotNull
+	public DataContext getUserData() {
+		return userData;
+	}
+
+	@Override
+	@NotNull
+	public UpdateListenerGroup<UINodeChange> getUpdateGroup() {
+		return updateGroup;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,46 @@
+package com.armadialogcreator.canvas;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class UICanvasTest {
+
+	@Test
+	public void eachNodePaintedOnceInRenderOrder() {
+		ListUINode root = new ListUINode("root");
+		ListUINode folder = new ListUINode("folder");
+		ListUINode a = ListUINode.of("a", 0, 0, 10, 10);
+		ListUINode a1 = ListUINode.of("a1", 0, 0, 10, 10);
+		ListUINode a1x = ListUINode.of("a1x", 0, 0, 10, 10);
+		ListUINode b = ListUINode.of("b", 0, 0, 10, 10);
+		ListUINode c = ListUINode.of("c", 0, 0, 10, 10);
+		root.addChild(a);
+		a.addChild(a1);
+		a1.addChild(a1x);
+		root.addChild(folder);
+		folder.addChild(b);
+		root.addChild(c);
+
+		List<UINode> painted = new ArrayList<>();
+		UICanvas.forEachNodeToPaint(root, component -> true, painted::add);
+		//folder has no component
+		assertEquals(Arrays.asList(a, a1, a1x, b, c), painted);
+
+		painted.clear();
+		UICanvas.forEachNodeToPaint(root, component -> component != a1.getComponent(), painted::add);
+		//children of skipped nodes are still painted
+		assertEquals(Arrays.asList(a, a1x, b, c), painted);
+
+		painted.clear();
+		UICanvas.forEachNodeToPaint(new ListUINode("empty"), component -> true, painted::add);
+		assertTrue(painted.isEmpty());
+	}
+}
@@ -0,0 +1,70 @@
+package com.armadialogcreator.data;
+
+import com.armadialogcreator.control.ArmaResolution;
+import com.armadialogcreator.control.ArmaUIScale;
+import com.armadialogcreator.core.Macro;
+import com.armadialogcreator.core.sv.SVDouble;
+import com.armadialogcreator.expression.CompiledExpression;
+import com.armadialogcreator.expression.Env;
+import com.armadialogcreator.expression.Value;
+import com.armadialogcreator.util.ScreenDimension;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class ExpressionEnvManagerTest {
+
+	@Test
+	public void macroAndSafeZoneResultReusedUntilChanged() {
+		ExpressionEnvManager manager = ExpressionEnvManager.instance;
+		ArmaResolution resolution = new ArmaResolution(ScreenDimension.D960);
+		manager.setResolution(resolution);
+		Macro gridW = Macro.newMacro("TEST_GUI_GRID_W", new SVDouble(0.025));
+		MacroRegistry.instance.getApplicationMacros().addMacro(gridW);
+		try {
+			Env env = manager.getEnv();
+			CompiledExpression e = new CompiledExpression("safeZoneX + 2 * TEST_GUI_GRID_W", 0);
+
+			Value v = e.evaluate(env);
+			assertEquals(resolution.getSafeZoneX() + 0.05, ((Value.NumVal) v).v(), 0.000001);
+			assertSame(v, e.evaluate(env));
+
+			gridW.setValue(new SVDouble(0.05));
+			Value afterMacro = e.evaluate(env);
+			assertNotSame(v, afterMacro);
+			assertEquals(resolution.getSafeZoneX() + 0.1, ((Value.NumVal) afterMacro).v(), 0.000001);
+			assertSame(afterMacro, e.evaluate(env));
+
+			resolution.setUIScale(ArmaUIScale.LARGE);
+			Value afterResolution = e.evaluate(env);
+			assertNotSame(afterMacro, afterResolution);
+			assertEquals(resolution.getSafeZoneX() + 0.1, ((Value.NumVal) afterResolution).v(), 0.000001);
+			assertSame(afterResolution, e.evaluate(env));
+		} finally {
+			MacroRegistry.instance.getApplicationMacros().getMacros().remove(gridW);
+		}
+	}
+
+	@Test
+	public void unchangedMacroStaysReusedWhenOtherMacroChanges() {
+		ExpressionEnvManager manager = ExpressionEnvManager.instance;
+		manager.setResolution(new ArmaResolution(ScreenDimension.D960));
+		Macro a = Macro.newMacro("TEST_MACRO_A", new SVDouble(1));
+		Macro b = Macro.newMacro("TEST_MACRO_B", new SVDouble(2));
+		MacroRegistry.instance.getApplicationMacros().addMacro(a);
+		MacroRegistry.instance.getApplicationMacros().addMacro(b);
+		try {
+			Env env = manager.getEnv();
+			CompiledExpression e = new CompiledExpression("TEST_MACRO_A * 3", 0);
+			Value v = e.evaluate(env);
+			b.setValue(new SVDouble(4));
+			assertSame(v, e.evaluate(env));
+		} finally {
+			MacroRegistry.instance.getApplicationMacros().getMacros().remove(a);
+			MacroRegistry.instance.getApplicationMacros().getMacros().remove(b);
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package com.armadialogcreator.expression;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class AstCacheTest {
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		AstCache<String> cache = new AstCache<>("test", 2);
+		cache.put("a", "A");
+		cache.put("b", "B");
+		assertEquals("A", cache.get("a"));
+		cache.put("c", "C");
+		//b was used least recently
+		assertNull(cache.get("b"));
+		assertEquals("A", cache.get("a"));
+		assertEquals("C", cache.get("c"));
+
+		ExpressionCacheStats stats = cache.getStats();
+		assertEquals("test", stats.getName());
+		assertEquals(2, stats.getSize());
+		assertEquals(2, stats.getMaxSize());
+		assertEquals(3, stats.getHits());
+		assertEquals(1, stats.getMisses());
+		assertEquals(1, stats.getEvictions());
+		assertEquals(0.75, stats.getHitRate(), 0);
+
+		cache.clear();
+		assertEquals(0, cache.getStats().getSize());
+		assertEquals(3, cache.getStats().getHits());
+	}
+
+	@Test
+	public void concurrentGetAndPut() throws Exception {
+		AstCache<Integer> cache = new AstCache<>("test", 64);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 20000; i++) {
+						String key = "k" + (i % 128);
+						Integer v = cache.get(key);
+						if (v == null) {
+							cache.put(key, i % 128);
+						} else {
+							assertEquals(key, "k" + v);
+						}
+					}
+				}));
+			}
+			for (Future<?> f : futures) {
+				f.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		ExpressionCacheStats stats = cache.getStats();
+		assertEquals(80000, stats.getHits() + stats.getMisses());
+		assertTrue(stats.getSize() <= 64);
+	}
+}
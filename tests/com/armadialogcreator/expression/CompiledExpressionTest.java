@@ -0,0 +1,172 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class CompiledExpressionTest {
+
+	@Test
+	public void reusesResultUntilIdentifierChanges() {
+		CountingEnv env = new CountingEnv();
+		env.put("w", new Value.NumVal(2));
+		env.put("unused", new Value.NumVal(0));
+		CompiledExpression e = new CompiledExpression("1 + 3 * W", 0);
+
+		assertEquals(new Value.NumVal(7), e.evaluate(env));
+		assertEquals(1, env.reads);
+		assertEquals(new Value.NumVal(7), e.evaluate(env));
+		assertEquals(1, env.reads);
+
+		env.put("unused", new Value.NumVal(1));
+		assertEquals(new Value.NumVal(7), e.evaluate(env));
+		assertEquals(1, env.reads);
+
+		env.put("w", new Value.NumVal(3));
+		assertEquals(new Value.NumVal(10), e.evaluate(env));
+		assertEquals(2, env.reads);
+
+		//different env
+		CountingEnv env2 = new CountingEnv();
+		env2.put("w", new Value.NumVal(1));
+		assertEquals(new Value.NumVal(4), e.evaluate(env2));
+		assertEquals(1, env2.reads);
+	}
+
+	@Test
+	public void removedIdentifier() {
+		SimpleEnv env = new SimpleEnv();
+		env.put("a", new Value.NumVal(1));
+		CompiledExpression e = new CompiledExpression("a", 0);
+		assertEquals(new Value.NumVal(1), e.evaluate(env));
+		env.remove("a");
+		try {
+			e.evaluate(env);
+			fail("expected ExpressionEvaluationException");
+		} catch (ExpressionEvaluationException ignore) {
+		}
+	}
+
+	@Test
+	public void unknownVersionIsNotReused() {
+		CountingEnv env = new CountingEnv() {
+			@Override
+			public long getVersion(@NotNull String identifier) {
+				return UNKNOWN_VERSION;
+			}
+		};
+		env.put("a", new Value.NumVal(1));
+		CompiledExpression e = new CompiledExpression("a + 1", 0);
+		e.evaluate(env);
+		e.evaluate(env);
+		assertEquals(2, env.reads);
+	}
+
+	@Test
+	public void envChangesAreNotReused() {
+		CountingEnv env = new CountingEnv();
+		env.put("n", new Value.NumVal(3));
+		CompiledExpression e = new CompiledExpression("count [1,2,3,4] + n", 0);
+		assertEquals(new Value.NumVal(7), e.evaluate(env));
+		assertEquals(new Value.NumVal(7), e.evaluate(env));
+		assertEquals(1, env.reads);
+
+		e = new CompiledExpression("n + ({_x > 0} count [1, 2])", 0);
+		//count puts _x in the env
+		assertEquals(new Value.NumVal(5), e.evaluate(env));
+		int reads = env.reads;
+		assertEquals(new Value.NumVal(5), e.evaluate(env));
+		assertTrue(env.reads > reads);
+	}
+
+	@Test
+	public void nularCommandsReusedUntilProviderVersionChanges() {
+		VersionedProvider provider = new VersionedProvider();
+		CountingEnv env = new CountingEnv();
+		env.setUnaryCommandProvider(provider);
+		env.put("w", new Value.NumVal(2));
+		CompiledExpression e = new CompiledExpression("safeZoneX + w", 0);
+
+		Value v = e.evaluate(env);
+		assertEquals(new Value.NumVal(2.5), v);
+		assertSame(v, e.evaluate(env));
+
+		provider.safeZoneX = 1;
+		provider.version++;
+		assertEquals(new Value.NumVal(3), e.evaluate(env));
+
+		//default provider version is unknown
+		env.setUnaryCommandProvider(new VersionedProvider() {
+			@Override
+			public long _getVersion() {
+				return Env.UNKNOWN_VERSION;
+			}
+		});
+		v = e.evaluate(env);
+		assertNotSame(v, e.evaluate(env));
+	}
+
+	@Test
+	public void stepLimit() {
+		CompiledExpression e = new CompiledExpression("{_x > 0} count [1, 2, 3, 4, 5, 6, 7, 8, 9, 10]", 5);
+		try {
+			e.evaluate(new SimpleEnv());
+			fail("expected TerminateEvaluationException");
+		} catch (TerminateEvaluationException ignore) {
+		}
+	}
+
+	@Test(expected = ExpressionEvaluationException.class)
+	public void invalidText() {
+		new CompiledExpression("(1 +", 0);
+	}
+
+	private static class VersionedProvider implements NularCommandValueProvider {
+		double safeZoneX = 0.5;
+		long version = 1;
+
+		@Override
+		public Value safeZoneX() {
+			return new Value.NumVal(safeZoneX);
+		}
+
+		@Override
+		public Value safeZoneY() {
+			return new Value.NumVal(0);
+		}
+
+		@Override
+		public Value safeZoneW() {
+			return new Value.NumVal(1);
+		}
+
+		@Override
+		public Value safeZoneH() {
+			return new Value.NumVal(1);
+		}
+
+		@Override
+		public Value getResolution() {
+			return NularCommandValueProvider.helper_getResolution(1, 1, 1, 1, 1, 1);
+		}
+
+		@Override
+		public long _getVersion() {
+			return version;
+		}
+	}
+
+	private static class CountingEnv extends SimpleEnv {
+		int reads = 0;
+
+		@Override
+		public Value getValue(@NotNull String identifier) {
+			reads++;
+			return super.getValue(identifier);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class ConstantFolderTest {
+
+	private static final String[] EXPRESSIONS = {
+			"safeZoneX + (1 * 2) / 40",
+			"safezoneX + (1 * ((safezoneW / safezoneH) min 1.2) / 40)",
+			"-(2 * 3) + x",
+			"abs -2 max 3 min 1 + x",
+			"2 ^ 3 ^ 2 - x % 3",
+			"3000000 * 1000 + x",
+			"1 / 3 * x",
+			"[1 + 1, x, 'a'] select 0",
+			"{_x > 1 + 1} count [1, 2, 3]",
+			"if (x > 2 * 2) then {1 + 2} else {x}"
+	};
+
+	@Test
+	public void foldsConstantSubtrees() {
+		assertEquals("safeZoneX + 0.05", fold("safeZoneX + (1 * 2) / 40"));
+		assertEquals("(-6) + x", fold("-(2 * 3) + x"));
+		assertEquals("[2, x]", fold("[1 + 1, x]"));
+		assertEquals("3000000000.0 + x", fold("3000000 * 1000 + x"));
+		//nothing to fold, so the AST isn't copied
+		AST.Expr e = parse("x + (y * 2)");
+		assertSame(e, ConstantFolder.fold(e));
+		//infinity isn't folded
+		assertEquals("1 / 0 + x", fold("1 / 0 + x"));
+	}
+
+	@Test
+	public void foldedTextEvaluatesTheSame() {
+		SimpleEnv env = new SimpleEnv(new TestProvider());
+		env.put("x", new Value.NumVal(7));
+		for (String text : EXPRESSIONS) {
+			Value expected = new ExpressionEvaluator().evaluate(parse(text), env);
+			String folded = ConstantFolder.fold(parse(text)).toString();
+			assertEquals(text + " -> " + folded, expected, new ExpressionEvaluator().evaluate(parse(folded), env));
+			assertEquals(text, expected, new CompiledExpression(text, 0).evaluate(env));
+			assertEquals(text, folded, new CompiledExpression(text, 0).getFoldedText());
+		}
+	}
+
+	@Test
+	public void partiallyEvaluate() {
+		SimpleEnv frozen = new SimpleEnv();
+		frozen.put("w", new Value.NumVal(2));
+		frozen.put("h", new Value.NumVal(4));
+		frozen.put("x", new Value.NumVal(100));
+		frozen.put("s", new Value.StringLiteral("str"));
+
+		CompiledExpression e = new CompiledExpression("x + W / h * (w max 1)", 0);
+		CompiledExpression residual = e.partiallyEvaluate(frozen, List.of("X"));
+		//W / (h * (w max 1)), since * has higher precedence than / in the grammar
+		assertEquals("x + 0.25", residual.getText());
+
+		SimpleEnv env = new SimpleEnv();
+		env.put("x", new Value.NumVal(5));
+		assertEquals(new Value.NumVal(5.25), residual.evaluate(env));
+
+		//identifiers in code aren't replaced, and non-numbers aren't replaced
+		AST.Expr code = parse("({_x > w} count [1, 5]) + (count s)");
+		assertEquals("({ _x > w; } count [1, 5]) + (count s)", ConstantFolder.partiallyEvaluate(code, frozen, Collections.emptyList()).toString());
+	}
+
+	@NotNull
+	private static AST.Expr parse(@NotNull String text) {
+		//not ExpressionInterpreter.parseExpression since it folds
+		ExpressionParser p = new ExpressionParser(new org.antlr.v4.runtime.CommonTokenStream(
+				new ExpressionLexer(new org.antlr.v4.runtime.ANTLRInputStream(text)))
+		);
+		return p.expression().ast;
+	}
+
+	@NotNull
+	private static String fold(@NotNull String text) {
+		return ConstantFolder.fold(parse(text)).toString();
+	}
+
+	private static class TestProvider implements NularCommandValueProvider {
+		@Override
+		public Value safeZoneX() {
+			return new Value.NumVal(0.1);
+		}
+
+		@Override
+		public Value safeZoneY() {
+			return new Value.NumVal(0.2);
+		}
+
+		@Override
+		public Value safeZoneW() {
+			return new Value.NumVal(0.8);
+		}
+
+		@Override
+		public Value safeZoneH() {
+			return new Value.NumVal(0.6);
+		}
+
+		@Override
+		public Value getResolution() {
+			return NularCommandValueProvider.helper_getResolution(1920, 1080, 1920, 1080, 16 / 9.0, 0.55);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class DoubleArrayTest {
+
+	@Test
+	public void numValCache() {
+		assertSame(Value.NumVal.of(5), Value.NumVal.of(5.0));
+		assertSame(Value.NumVal.of(-128), Value.NumVal.of(-128));
+		assertNotSame(Value.NumVal.of(1025), Value.NumVal.of(1025));
+		assertNotSame(Value.NumVal.of(0.5), Value.NumVal.of(0.5));
+		assertEquals(new Value.NumVal(0.5), Value.NumVal.of(0.5));
+		//-0 isn't the cached 0
+		assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(Value.NumVal.of(-0.0).v()));
+		assertEquals(Double.doubleToRawLongBits(0.0), Double.doubleToRawLongBits(Value.NumVal.of(0.0).v()));
+	}
+
+	@Test
+	public void numericLiteralIsDoubleArray() {
+		SimpleEnv env = new SimpleEnv();
+		env.put("x", new Value.NumVal(3));
+		Value v = eval("[1, x * 2, -0.5, abs (1 - x)]", env);
+		assertTrue(v instanceof Value.DoubleArray);
+		Value.DoubleArray arr = (Value.DoubleArray) v;
+		assertTrue(arr.isNumeric());
+		assertArrayEquals(new double[]{1, 6, -0.5, 2}, arr.toDoubleArray(), 0);
+		assertEquals(new Value.Array(new Value.NumVal(1), new Value.NumVal(6), new Value.NumVal(-0.5), new Value.NumVal(2)), arr);
+		assertEquals("[1, 6, -0.5, 2]", arr.toString());
+
+		assertFalse(eval("[1, 'a']", env) instanceof Value.DoubleArray);
+		assertFalse(eval("[]", env) instanceof Value.DoubleArray);
+	}
+
+	@Test
+	public void addingNonNumberKeepsItems() {
+		Value.DoubleArray arr = new Value.DoubleArray(1, 2, 3);
+		List<Value> items = arr.getItems();
+		items.add(new Value.StringLiteral("a"));
+		assertFalse(arr.isNumeric());
+		assertEquals("[1, 2, 3, \"a\"]", arr.toString());
+		assertEquals(2, arr.getDouble(1), 0);
+
+		SimpleEnv env = new SimpleEnv();
+		assertEquals(eval("[1, 2, 'a', 3]", env), eval("[1, 2] + ['a', 3]", env));
+		assertEquals(eval("[1, 2, 3, 4]", env), eval("[1, 2] + [3, 4]", env));
+		assertEquals(eval("[1, 3]", env), eval("[1, 2, 3, 2] - [2]", env));
+	}
+
+	@Test
+	public void arrayCommands() {
+		SimpleEnv env = new SimpleEnv();
+		env.put("arr", eval("[0, 1, 2, 3, 4, 5, 6, 1500.5]", env));
+		assertEquals(new Value.NumVal(4), eval("{_x > 3} count arr", env));
+		Value selected = eval("arr select {_x % 2 == 0}", env);
+		assertTrue(selected instanceof Value.DoubleArray);
+		assertEquals(eval("[0, 2, 4, 6]", env), selected);
+		assertEquals(eval("[0, 1, 2]", env), eval("arr select [0, 3]", env));
+		assertEquals(new Value.NumVal(1500.5), eval("arr select 7", env));
+		assertEquals(new Value.NumVal(3), eval("((arr select [0, 3]) select 2) + 1", env));
+		//+ doesn't change the source of the view
+		eval("(arr select [0, 3]) + [7]", env);
+		assertEquals(new Value.NumVal(8), eval("count arr", env));
+		assertEquals(Value.True, eval("(arr select 2) < (arr select 3)", env));
+	}
+
+	@NotNull
+	@Test
+	public void sliceIsViewUntilChanged() {
+		Value.DoubleArray arr = new Value.DoubleArray(1, 2, 3, 4, 5);
+		Value.DoubleArray slice = (Value.DoubleArray) arr.slice(1, 3);
+		Value.DoubleArray sliceOfSlice = (Value.DoubleArray) slice.slice(1, 2);
+		assertArrayEquals(new double[]{2, 3}, slice.toDoubleArray(), 0);
+		assertArrayEquals(new double[]{3}, sliceOfSlice.toDoubleArray(), 0);
+
+		slice.getItems().set(0, Value.NumVal.of(7));
+		slice.getItems().add(Value.NumVal.of(8));
+		assertArrayEquals(new double[]{7, 3, 8}, slice.toDoubleArray(), 0);
+		assertArrayEquals(new double[]{1, 2, 3, 4, 5}, arr.toDoubleArray(), 0);
+		assertArrayEquals(new double[]{3}, sliceOfSlice.toDoubleArray(), 0);
+
+		Value.DoubleArray head = (Value.DoubleArray) arr.slice(0, 2);
+		arr.getItems().set(0, Value.NumVal.of(9));
+		arr.getItems().remove(1);
+		head.getItems().add(Value.NumVal.of(6));
+		assertArrayEquals(new double[]{9, 3, 4, 5}, arr.toDoubleArray(), 0);
+		assertArrayEquals(new double[]{1, 2, 6}, head.toDoubleArray(), 0);
+		assertEquals(new Value.DoubleArray(1, 2, 6), head);
+	}
+
+	private static Value eval(@NotNull String text, @NotNull Env env) {
+		return new ExpressionEvaluator().evaluate(ExpressionInterpreter.parseExpression(text), env);
+	}
+}
@@ -0,0 +1,129 @@
+package com.armadialogcreator.expression;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class EnvDependencyGraphTest {
+
+	@Test
+	public void onlyDependentsAreNotifiedOncePerBatch() {
+		EnvDependencyGraph graph = new EnvDependencyGraph();
+		SimpleEnv env = new SimpleEnv();
+		env.setDependencyGraph(graph);
+		env.put("w", new Value.NumVal(1));
+		env.put("h", new Value.NumVal(2));
+		env.put("other", new Value.NumVal(3));
+
+		CompiledExpression x = new CompiledExpression("0.5 * W + H", 0);
+		x.evaluate(env);
+		assertEquals(Arrays.asList("W", "H"), Arrays.asList(x.getDependencies()));
+		CountingDependent xDependent = new CountingDependent();
+		graph.setDependencies(xDependent, Arrays.asList(x.getDependencies()));
+		assertEquals(Arrays.asList("w", "h"), graph.getDependencies(xDependent));
+
+		CountingDependent otherDependent = new CountingDependent();
+		graph.setDependencies(otherDependent, List.of("other"));
+
+		//outside of a batch
+		env.put("w", new Value.NumVal(4));
+		assertEquals(1, xDependent.count);
+		assertEquals(0, otherDependent.count);
+
+		graph.batch(() -> {
+			env.put("w", new Value.NumVal(5));
+			env.put("H", new Value.NumVal(6));
+			graph.batch(() -> env.remove("w"));
+			assertEquals(1, xDependent.count);
+			assertTrue(graph.isDirty(xDependent));
+		});
+		assertEquals(2, xDependent.count);
+		assertFalse(graph.isDirty(xDependent));
+		assertEquals(0, otherDependent.count);
+
+		env.put("unused", new Value.NumVal(0));
+		assertEquals(2, xDependent.count);
+		assertEquals(0, otherDependent.count);
+	}
+
+	@Test
+	public void setAndRemoveDependencies() {
+		EnvDependencyGraph graph = new EnvDependencyGraph();
+		CountingDependent dependent = new CountingDependent();
+		graph.setDependencies(dependent, List.of("a", "A", "b"));
+		assertEquals(1, graph.getDependentCount("a"));
+		assertEquals(1, graph.getDependentCount("b"));
+
+		graph.setDependencies(dependent, List.of("c"));
+		assertEquals(0, graph.getDependentCount("a"));
+		graph.identifierChanged("a");
+		assertEquals(0, dependent.count);
+		graph.identifierChanged("C");
+		assertEquals(1, dependent.count);
+
+		graph.remove(dependent);
+		assertEquals(0, graph.getDependentCount("c"));
+		graph.identifierChanged("c");
+		assertEquals(1, dependent.count);
+	}
+
+	@Test
+	public void changesWhileNotifying() {
+		EnvDependencyGraph graph = new EnvDependencyGraph();
+		CountingDependent second = new CountingDependent();
+		graph.setDependencies(second, List.of("b"));
+		EnvDependencyGraph.Dependent first = () -> graph.identifierChanged("b");
+		graph.setDependencies(first, List.of("a"));
+
+		graph.identifierChanged("a");
+		assertEquals(1, second.count);
+	}
+
+	@Test
+	public void nularCommandDependency() {
+		SimpleEnv env = new SimpleEnv(new NularCommandValueProvider() {
+			@Override
+			public Value safeZoneX() {
+				return new Value.NumVal(0);
+			}
+
+			@Override
+			public Value safeZoneY() {
+				return new Value.NumVal(0);
+			}
+
+			@Override
+			public Value safeZoneW() {
+				return new Value.NumVal(1);
+			}
+
+			@Override
+			public Value safeZoneH() {
+				return new Value.NumVal(1);
+			}
+
+			@Override
+			public Value getResolution() {
+				return NularCommandValueProvider.helper_getResolution(1, 1, 1, 1, 1, 1);
+			}
+		});
+		CompiledExpression e = new CompiledExpression("safeZoneX + 2", 0);
+		e.evaluate(env);
+		assertEquals(List.of(EnvDependencyGraph.NULAR_COMMANDS), Arrays.asList(e.getDependencies()));
+	}
+
+	private static class CountingDependent implements EnvDependencyGraph.Dependent {
+		int count = 0;
+
+		@Override
+		public void dependenciesChanged() {
+			count++;
+		}
+	}
+}
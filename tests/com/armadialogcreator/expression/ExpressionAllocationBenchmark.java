@@ -0,0 +1,67 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ Measures how many bytes {@link ExpressionEvaluator} allocates per evaluation for arithmetic and for loops, count and select
+ over a large numeric array, and for building an array by appending to it in a loop. This isn't a unit test. Run it with:
+ <pre>java ... com.armadialogcreator.expression.ExpressionAllocationBenchmark [warmupIterations] [measuredIterations]</pre>
+ Allocated bytes are read from {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} for the benchmark
+ thread, so nothing else running in the JVM is counted.
+
+ @author K
+ @since 10/18/2026 */
+public class ExpressionAllocationBenchmark {
+	private static final int ARRAY_LENGTH = 5000;
+
+	private static final String[][] CASES = {
+			{"arithmetic", "(x * 2 + 3) / 4 - (x min 10) * 0.5 + abs (x - 100)"},
+			{"array literal", null},
+			{"for from to", "for \"_i\" from 0 to 999 do {_y = _i * 2 + 1}"},
+			{"count {}", "{_x > 2500} count arr"},
+			{"select {}", "count (arr select {_x % 2 == 0})"},
+			{"select index", "(arr select 10) + (arr select 4000)"},
+			{"array + array", "count ([0.5, 1.5, 2.5] + (arr select [0, 2500]))"},
+			{"append in loop", "if (true) then {_a = []; for \"_i\" from 0 to 1999 do {_a = _a + [_i, 'b']}; count _a}"}
+	};
+
+	public static void main(String[] args) {
+		int warmup = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int measured = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+		StringBuilder literal = new StringBuilder("[");
+		for (int i = 0; i < ARRAY_LENGTH; i++) {
+			literal.append(i == 0 ? "" : ", ").append(i);
+		}
+		literal.append(']');
+		CASES[1][1] = literal.toString();
+
+		SimpleEnv env = new SimpleEnv();
+		env.put("x", new Value.NumVal(7.5));
+		env.put("arr", new ExpressionEvaluator().evaluate(parse(literal.toString()), env));
+
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		for (String[] c : CASES) {
+			AST.Expr expr = parse(c[1]);
+			for (int i = 0; i < warmup; i++) {
+				new ExpressionEvaluator().evaluate(expr, env);
+			}
+			long bytes = bean.getThreadAllocatedBytes(thread);
+			long start = System.nanoTime();
+			for (int i = 0; i < measured; i++) {
+				new ExpressionEvaluator().evaluate(expr, env);
+			}
+			long nanos = System.nanoTime() - start;
+			bytes = bean.getThreadAllocatedBytes(thread) - bytes;
+			System.out.printf("%-15s %12.1f B/op %10.2f us/op%n", c[0], bytes / (double) measured, nanos / 1000.0 / measured);
+		}
+	}
+
+	@NotNull
+	private static AST.Expr parse(@NotNull String text) {
+		return ExpressionInterpreter.parseExpression(text);
+	}
+}
@@ -0,0 +1,70 @@
+package com.armadialogcreator.expression;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class ExpressionBatchTest {
+
+	@Test
+	public void errorsArePerIndex() {
+		SimpleEnv env = new SimpleEnv();
+		env.put("a", new Value.NumVal(2));
+		ExpressionBatch batch = new ExpressionBatch(0);
+		assertEquals(0, batch.add("a * 3", env));
+		assertEquals(1, batch.add("(1 +", env));
+		assertEquals(2, batch.add("'str'", env));
+		assertEquals(3, batch.add(new CompiledExpression("b", 0), env));
+		assertEquals(4, batch.add("{_x > 0} count [1, -1, 2]", env));
+
+		ExpressionBatch.Result result = batch.evaluate();
+		assertEquals(5, result.size());
+		assertTrue(result.hasErrors());
+		assertEquals(6, result.getValue(0), 0);
+		assertNull(result.getError(0));
+		for (int i = 1; i <= 3; i++) {
+			assertNotNull(result.getError(i));
+			assertTrue(Double.isNaN(result.getValues()[i]));
+		}
+		assertEquals(2, result.getValue(4), 0);
+		assertNull(result.getError(4));
+		assertTrue(result.isOk(4, 1));
+		assertFalse(result.isOk(0, 2));
+	}
+
+	@Test
+	public void largeBatchMatchesSingleEvaluations() {
+		SimpleEnv env = new SimpleEnv();
+		ExpressionBatch batch = new ExpressionBatch(0, 1);
+		int size = ExpressionBatch.PARALLEL_THRESHOLD * 4;
+		for (int i = 0; i < size; i++) {
+			env.put("v" + i, new Value.NumVal(i));
+			//every 100th entry reads an identifier that doesn't exist
+			String text = i % 100 == 0 ? "missing + " + i : "v" + i + " * 2 + (1 max v" + i + ")";
+			assertEquals(i, batch.add(text, env));
+		}
+		assertEquals(size, batch.size());
+
+		ExpressionBatch.Result result = batch.evaluate();
+		for (int i = 0; i < size; i++) {
+			if (i % 100 == 0) {
+				assertNotNull(result.getError(i));
+			} else {
+				assertNull(result.getError(i));
+				assertEquals(i * 2 + Math.max(1, i), result.getValue(i), 0);
+			}
+		}
+
+		//evaluating again reuses the compiled expressions
+		env.put("v1", new Value.NumVal(10));
+		result = batch.evaluate();
+		assertEquals(30, result.getValue(1), 0);
+
+		batch.clear();
+		assertEquals(0, batch.size());
+		assertEquals(0, batch.evaluate().size());
+	}
+}
@@ -0,0 +1,456 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+import org.json.simple.JSONValue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ Benchmark suite for the expression interpreter, for tracking the performance of {@link ExpressionEvaluator},
+ {@link ClosureCompiler} and the parser between releases. This isn't a unit test. Run it with:
+ <pre>java ... com.armadialogcreator.expression.ExpressionBenchmarks [-wi 5] [-i 10] [-r 500] [-t 4] [-rff results.json] [regex]</pre>
+ <ul>
+ <li>-wi: warmup iterations per benchmark</li>
+ <li>-i: measured iterations per benchmark</li>
+ <li>-r: milliseconds per iteration</li>
+ <li>-t: max number of threads for the concurrent benchmarks (the benchmarks are run with 1, 2, 4, ... threads up to it)</li>
+ <li>-rff: file to write the results to as JSON</li>
+ <li>regex: only run the benchmarks whose name (with parameters) contains a match</li>
+ </ul>
+ The benchmarks are:
+ <ul>
+ <li>parseMiss: parse expressions that aren't in the AST cache ({@link ExpressionInterpreter#parseExpression(String)})</li>
+ <li>parseHit: parse an expression that is in the AST cache</li>
+ <li>evaluate: evaluate a parsed expression with the given backend, without parsing</li>
+ <li>endToEnd: {@link ExpressionInterpreter#evaluateNow(String, Env, long)} with the given backend</li>
+ <li>compiledExpression: {@link CompiledExpression#evaluate(Env)} when an identifier it reads changed</li>
+ <li>concurrent: endToEnd on one interpreter from the given number of threads, in operations per second</li>
+ </ul>
+ The workloads are positional expressions with safeZone commands, for, select and count loops over an array,
+ and format and str.
+ <p>
+ The result file has the same layout as the JSON result file of JMH, so tools for comparing JMH results can read it.
+ The score error is the half-width of the 99.9% confidence interval from the normal distribution, so with few
+ iterations it is narrower than the error JMH reports. Allocated bytes per operation are reported as the secondary
+ metric <code>·gc.alloc.rate.norm</code> for the single thread benchmarks when the JVM can measure it.
+
+ @author K
+ @since 10/18/2026 */
+public class ExpressionBenchmarks {
+	private static final String[][] WORKLOADS = {
+			{"safeZoneX", "safeZoneX + x * (0.01 * safeZoneW)"},
+			{"safeZoneY", "safeZoneY + safeZoneH - (x * 0.04 * safeZoneH)"},
+			{"getResolution", "((getResolution select 2) * 0.5) max (x * 0.1)"},
+			{"forFromTo", "for \"_i\" from 0 to 99 do {_y = _i * x}"},
+			{"select", "count (arr select {_x % 2 == 0})"},
+			{"count", "{_x > x} count arr"},
+			{"format", "format ['%1 x %2 (%3)', x, x * 2, 'abc']"},
+			{"str", "str [x, 'a', [x * 2, safeZoneW]]"}
+	};
+	/**
+	 Workloads used by the concurrent benchmarks. Some of them assign magic variables (count sets _x), so each thread
+	 evaluates with its own env.
+	 */
+	private static final String[] CONCURRENT_WORKLOADS = {"safeZoneX", "count", "format"};
+	/** Templates for the texts of parseMiss. */
+	private static final String[] PARSE_TEMPLATES = {
+			"safeZoneX + %d * (0.01 * safeZoneW)",
+			"safeZoneY + safeZoneH - (%d * 0.04 * safeZoneH)",
+			"((getResolution select 2) * 0.5) max %d",
+			"{_x > %d} count arr",
+			"format ['%%1 x %%2', x, %d]"
+	};
+	/** Number of texts parsed by parseMiss. More than the AST cache holds, so the text being parsed is never cached. */
+	private static final int PARSE_TEXTS = 5000;
+	private static final int ARRAY_LENGTH = 500;
+	/** Number of operations between reading the clock */
+	private static final int BATCH = 16;
+	/** z-score for a 99.9% confidence interval */
+	private static final double Z_999 = 3.2905;
+
+	/** Results are added here so that the JIT can't remove the work */
+	private static volatile int sink;
+
+	private int warmupIterations = 5;
+	private int iterations = 10;
+	private long iterationMillis = 500;
+	private int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+	private Path resultFile;
+	private Pattern filter;
+
+	private final SimpleEnv env = new SimpleEnv(new Provider());
+	private final List<Map<String, Object>> results = new ArrayList<>();
+
+	public static void main(String[] args) throws Exception {
+		ExpressionBenchmarks b = new ExpressionBenchmarks();
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "-wi": {
+					b.warmupIterations = Integer.parseInt(args[++i]);
+					break;
+				}
+				case "-i": {
+					b.iterations = Integer.parseInt(args[++i]);
+					break;
+				}
+				case "-r": {
+					b.iterationMillis = Long.parseLong(args[++i]);
+					break;
+				}
+				case "-t": {
+					b.maxThreads = Integer.parseInt(args[++i]);
+					break;
+				}
+				case "-rff": {
+					b.resultFile = Paths.get(args[++i]);
+					break;
+				}
+				default: {
+					b.filter = Pattern.compile(args[i]);
+					break;
+				}
+			}
+		}
+		b.run();
+	}
+
+	private void run() throws IOException, InterruptedException {
+		StringBuilder array = new StringBuilder("[");
+		for (int i = 0; i < ARRAY_LENGTH; i++) {
+			array.append(i == 0 ? "" : ", ").append(i);
+		}
+		array.append(']');
+		env.put("x", new Value.NumVal(7.5));
+		env.put("arr", ExpressionInterpreter.newInstance().evaluateNow(array.toString(), env, 0));
+		ExpressionInterpreter.warmUp();
+
+		System.out.printf("%-60s %5s %4s %14s %12s  %-6s %12s%n", "Benchmark", "Mode", "Cnt", "Score", "Error", "Units", "B/op");
+
+		String[] parseTexts = new String[PARSE_TEXTS];
+		for (int i = 0; i < parseTexts.length; i++) {
+			parseTexts[i] = String.format(PARSE_TEMPLATES[i % PARSE_TEMPLATES.length], i);
+		}
+		averageTime("parseMiss", params(), () -> {
+			int[] next = {0};
+			return () -> {
+				int i = next[0];
+				next[0] = i + 1 == PARSE_TEXTS ? 0 : i + 1;
+				return ExpressionInterpreter.parseExpression(parseTexts[i]);
+			};
+		});
+
+		for (String[] workload : WORKLOADS) {
+			String text = workload[1];
+			averageTime("parseHit", params("workload", workload[0]), () -> () -> ExpressionInterpreter.parseExpression(text));
+		}
+
+		for (String[] workload : WORKLOADS) {
+			String text = workload[1];
+			AST.Expr expr = ExpressionInterpreter.parseExpression(text);
+			ClosureCompiler.Program program = ExpressionInterpreter.compileExpression(text);
+			averageTime("evaluate", params("backend", ExpressionInterpreter.Backend.TreeWalking, "workload", workload[0]),
+					() -> () -> new ExpressionEvaluator().evaluate(expr, env)
+			);
+			averageTime("evaluate", params("backend", ExpressionInterpreter.Backend.Closure, "workload", workload[0]),
+					() -> () -> program.evaluate(new ExpressionEvaluator(), env)
+			);
+		}
+
+		for (String[] workload : WORKLOADS) {
+			String text = workload[1];
+			for (ExpressionInterpreter.Backend backend : ExpressionInterpreter.Backend.values()) {
+				ExpressionInterpreter interpreter = ExpressionInterpreter.newInstance(backend);
+				averageTime("endToEnd", params("backend", backend, "workload", workload[0]),
+						() -> () -> interpreter.evaluateNow(text, env, 0)
+				);
+				interpreter.shutdownAndDisable();
+			}
+		}
+
+		for (String[] workload : WORKLOADS) {
+			if (workload[0].equals("forFromTo")) {
+				continue; //assigns _y, which would change the env too
+			}
+			CompiledExpression compiled = new CompiledExpression(workload[1], 0);
+			SimpleEnv changing = new SimpleEnv(new Provider());
+			changing.put("arr", env.getValue("arr"));
+			double[] x = {0};
+			averageTime("compiledExpression", params("workload", workload[0]), () -> () -> {
+				changing.put("x", Value.NumVal.of(x[0] = x[0] == 0 ? 1 : 0));
+				return compiled.evaluate(changing);
+			});
+		}
+
+		for (String name : CONCURRENT_WORKLOADS) {
+			String text = workload(name);
+			for (ExpressionInterpreter.Backend backend : ExpressionInterpreter.Backend.values()) {
+				ExpressionInterpreter interpreter = ExpressionInterpreter.newInstance(backend);
+				for (int threads = 1; threads <= maxThreads; threads *= 2) {
+					throughput("concurrent", params("backend", backend, "threads", threads, "workload", name), threads,
+							() -> {
+								SimpleEnv threadEnv = new SimpleEnv(new Provider());
+								threadEnv.put("x", env.getValue("x"));
+								threadEnv.put("arr", env.getValue("arr"));
+								return () -> interpreter.evaluateNow(text, threadEnv, 0);
+							}
+					);
+				}
+				interpreter.shutdownAndDisable();
+			}
+		}
+
+		if (resultFile != null) {
+			try (Writer w = Files.newBufferedWriter(resultFile, StandardCharsets.UTF_8)) {
+				w.write(JSONValue.toJSONString(results));
+			}
+			System.out.println("Results written to " + resultFile.toAbsolutePath());
+		}
+	}
+
+	/** Measure the average time of one operation on one thread, in microseconds */
+	private void averageTime(@NotNull String name, @NotNull Map<String, Object> params, @NotNull Supplier<Operation> operations) {
+		String fullName = fullName(name, params);
+		if (filter != null && !filter.matcher(fullName).find()) {
+			return;
+		}
+		Operation op = operations.get();
+		com.sun.management.ThreadMXBean bean = allocationBean();
+		long thread = Thread.currentThread().getId();
+
+		for (int i = 0; i < warmupIterations; i++) {
+			runFor(op, iterationMillis * 1_000_000L, new long[2]);
+		}
+		double[] scores = new double[iterations];
+		long totalOps = 0;
+		long totalBytes = 0;
+		long[] opsAndNanos = new long[2];
+		for (int i = 0; i < iterations; i++) {
+			long bytes = bean == null ? 0 : bean.getThreadAllocatedBytes(thread);
+			runFor(op, iterationMillis * 1_000_000L, opsAndNanos);
+			if (bean != null) {
+				totalBytes += bean.getThreadAllocatedBytes(thread) - bytes;
+			}
+			totalOps += opsAndNanos[0];
+			scores[i] = opsAndNanos[1] / 1000.0 / opsAndNanos[0];
+		}
+		double bytesPerOp = bean == null ? Double.NaN : totalBytes / (double) totalOps;
+		addResult(name, params, "avgt", 1, "us/op", scores, bytesPerOp);
+	}
+
+	/**
+	 Measure the number of operations per second done by all threads together
+
+	 @param operations called once for each thread, on the calling thread
+	 */
+	private void throughput(@NotNull String name, @NotNull Map<String, Object> params, int threads,
+							@NotNull Supplier<Operation> operations) throws InterruptedException {
+		String fullName = fullName(name, params);
+		if (filter != null && !filter.matcher(fullName).find()) {
+			return;
+		}
+		long iterationNanos = iterationMillis * 1_000_000L;
+		int count = warmupIterations + iterations;
+		long[][] opsAndNanos = new long[threads][count * 2];
+		CountDownLatch done = new CountDownLatch(threads);
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			long[] mine = opsAndNanos[t];
+			Operation op = operations.get();
+			workers[t] = new Thread(() -> {
+				long[] iteration = new long[2];
+				for (int i = 0; i < count; i++) {
+					runFor(op, iterationNanos, iteration);
+					mine[i * 2] = iteration[0];
+					mine[i * 2 + 1] = iteration[1];
+				}
+				done.countDown();
+			}, "benchmark-" + t);
+		}
+		for (Thread worker : workers) {
+			worker.start();
+		}
+		done.await();
+
+		double[] scores = new double[iterations];
+		for (int i = 0; i < iterations; i++) {
+			int iteration = warmupIterations + i;
+			for (long[] thread : opsAndNanos) {
+				scores[i] += thread[iteration * 2] / (thread[iteration * 2 + 1] / 1e9);
+			}
+		}
+		addResult(name, params, "thrpt", threads, "ops/s", scores, Double.NaN);
+	}
+
+	/**
+	 Run the operation until the given time has passed.
+
+	 @param opsAndNanos where the number of operations and the time it took (in nanoseconds) are set
+	 */
+	private static void runFor(@NotNull Operation op, long nanos, @NotNull long[] opsAndNanos) {
+		long ops = 0;
+		int hash = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			for (int i = 0; i < BATCH; i++) {
+				hash += op.run().hashCode();
+			}
+			ops += BATCH;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < nanos);
+		sink += hash;
+		opsAndNanos[0] = ops;
+		opsAndNanos[1] = elapsed;
+	}
+
+	private void addResult(@NotNull String name, @NotNull Map<String, Object> params, @NotNull String mode, int threads,
+						   @NotNull String unit, @NotNull double[] scores, double bytesPerOp) {
+		double mean = 0;
+		for (double s : scores) {
+			mean += s;
+		}
+		mean /= scores.length;
+		double variance = 0;
+		for (double s : scores) {
+			variance += (s - mean) * (s - mean);
+		}
+		variance = scores.length > 1 ? variance / (scores.length - 1) : 0;
+		double error = scores.length > 1 ? Z_999 * Math.sqrt(variance / scores.length) : Double.NaN;
+
+		System.out.printf("%-60s %5s %4d %14.3f %12s  %-6s %12s%n", fullName(name, params), mode, scores.length, mean,
+				Double.isNaN(error) ? "" : String.format("± %.3f", error), unit,
+				Double.isNaN(bytesPerOp) ? "" : String.format("%.1f", bytesPerOp)
+		);
+
+		Map<String, Object> primary = new LinkedHashMap<>();
+		primary.put("score", mean);
+		primary.put("scoreError", Double.isNaN(error) ? "NaN" : error);
+		primary.put("scoreConfidence", Double.isNaN(error) ? Arrays.asList(mean, mean) : Arrays.asList(mean - error, mean + error));
+		primary.put("scoreUnit", unit);
+		List<Double> raw = new ArrayList<>(scores.length);
+		for (double s : scores) {
+			raw.add(s);
+		}
+		primary.put("rawData", List.of(raw));
+
+		Map<String, Object> secondary = new LinkedHashMap<>();
+		if (!Double.isNaN(bytesPerOp)) {
+			Map<String, Object> alloc = new LinkedHashMap<>();
+			alloc.put("score", bytesPerOp);
+			alloc.put("scoreUnit", "B/op");
+			secondary.put("·gc.alloc.rate.norm", alloc);
+		}
+
+		Map<String, Object> paramStrings = new LinkedHashMap<>();
+		for (Map.Entry<String, Object> e : params.entrySet()) {
+			paramStrings.put(e.getKey(), String.valueOf(e.getValue()));
+		}
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("benchmark", ExpressionBenchmarks.class.getName() + "." + name);
+		result.put("mode", mode);
+		result.put("threads", threads);
+		result.put("forks", 1);
+		result.put("jvm", System.getProperty("java.home"));
+		result.put("jdkVersion", System.getProperty("java.version"));
+		result.put("warmupIterations", warmupIterations);
+		result.put("warmupTime", iterationMillis + " ms");
+		result.put("measurementIterations", scores.length);
+		result.put("measurementTime", iterationMillis + " ms");
+		if (!paramStrings.isEmpty()) {
+			result.put("params", paramStrings);
+		}
+		result.put("primaryMetric", primary);
+		result.put("secondaryMetrics", secondary);
+		results.add(result);
+	}
+
+	@NotNull
+	private static String fullName(@NotNull String name, @NotNull Map<String, Object> params) {
+		StringBuilder sb = new StringBuilder(name);
+		for (Map.Entry<String, Object> e : params.entrySet()) {
+			sb.append(':').append(e.getKey()).append('=').append(e.getValue());
+		}
+		return sb.toString();
+	}
+
+	/** @return a map of the given name and value pairs, in the given order */
+	@NotNull
+	private static Map<String, Object> params(@NotNull Object... namesAndValues) {
+		Map<String, Object> params = new LinkedHashMap<>();
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			params.put((String) namesAndValues[i], namesAndValues[i + 1]);
+		}
+		return params;
+	}
+
+	@NotNull
+	private static String workload(@NotNull String name) {
+		for (String[] workload : WORKLOADS) {
+			if (workload[0].equals(name)) {
+				return workload[1];
+			}
+		}
+		throw new IllegalArgumentException(name);
+	}
+
+	private static com.sun.management.ThreadMXBean allocationBean() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+				return sunBean;
+			}
+		}
+		return null;
+	}
+
+	/** One benchmark operation. Each thread gets its own instance. */
+	private interface Operation {
+		@NotNull Object run();
+	}
+
+	private static class Provider implements NularCommandValueProvider {
+		private final Value resolution = NularCommandValueProvider.helper_getResolution(1920, 1080, 1920, 1080, 16 / 9.0, 0.55);
+
+		@Override
+		public Value safeZoneX() {
+			return new Value.NumVal(-0.1);
+		}
+
+		@Override
+		public Value safeZoneY() {
+			return new Value.NumVal(0.05);
+		}
+
+		@Override
+		public Value safeZoneW() {
+			return new Value.NumVal(1.2);
+		}
+
+		@Override
+		public Value safeZoneH() {
+			return new Value.NumVal(0.9);
+		}
+
+		@Override
+		public Value getResolution() {
+			return resolution;
+		}
+	}
+}
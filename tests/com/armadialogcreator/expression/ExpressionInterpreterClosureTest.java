@@ -0,0 +1,16 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ Runs {@link ExpressionInterpreterTest} with {@link ExpressionInterpreter.Backend#Closure}
+
+ @author K
+ @since 10/18/2026 */
+public class ExpressionInterpreterClosureTest extends ExpressionInterpreterTest {
+	@Override
+	@NotNull
+	protected ExpressionInterpreter.Backend getBackend() {
+		return ExpressionInterpreter.Backend.Closure;
+	}
+}
@@ -38,7 +38,13 @@ public class ExpressionInterpreterTest {
 
 	@Before
 	public void setUp() throws Exception {
-		interpreter = ExpressionInterpreter.newInstance();
+		interpreter = ExpressionInterpreter.newInstance(getBackend());
+	}
+
+	/** @return the backend the tests are run with */
+	@NotNull
+	protected ExpressionInterpreter.Backend getBackend() {
+		return ExpressionInterpreter.Backend.TreeWalking;
 	}
 
 	@Test
@@ -745,4 +751,9 @@ public class ExpressionInterpreterTest {
 		Value ret = interpreter.evaluate(eval, env).get();
 		assertEquals(new Value.NumVal(1), ret);
 	}
+
+	@Test(expected = TerminateEvaluationException.class)
+	public void defaultStepLimit() throws Exception {
+		interpreter.evaluateStatements("for \"_i\" from 0 to 1000000000 do {_i + 1}", new SimpleEnv()).get();
+	}
 }
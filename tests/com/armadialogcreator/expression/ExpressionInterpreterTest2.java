@@ -1,5 +1,6 @@
 package com.armadialogcreator.expression;
 
+import org.jetbrains.annotations.NotNull;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -10,7 +11,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 /**
  @author Kayler
@@ -27,7 +28,13 @@ public class ExpressionInterpreterTest2 {
 
 	@Before
 	public void setUp() throws Exception {
-		interpreter = ExpressionInterpreter.newInstance();
+		interpreter = ExpressionInterpreter.newInstance(getBackend());
+	}
+
+	/** @return the backend the tests are run with */
+	@NotNull
+	protected ExpressionInterpreter.Backend getBackend() {
+		return ExpressionInterpreter.Backend.TreeWalking;
 	}
 
 	@Test
@@ -503,7 +510,7 @@ public class ExpressionInterpreterTest2 {
 		//test if the interpreter is actually multithreaded and terminateAll() works correctly
 
 		String evalInfinite = "for [{},{true},{}] do {};";
-		ExpressionInterpreter interpreter = ExpressionInterpreter.newInstance();
+		ExpressionInterpreter interpreter = ExpressionInterpreter.newInstance(getBackend());
 
 		int createCount = 10;
 		List<FutureEvaluatedValue> listCreated = new ArrayList<>();
@@ -537,6 +544,103 @@ public class ExpressionInterpreterTest2 {
 		assertEquals(String.format("Attempted to terminate %d infinite loop evaluations.", createCount), createCount, cancels.get());
 	}
 
+	@Test
+	public void evaluateNow() throws Exception {
+		SimpleEnv env = new SimpleEnv();
+		Value ret = interpreter.evaluateStatementsNow("a = 2; b = a * 3; b + 1", env, 0);
+		assertEquals(new Value.NumVal(7), ret);
+		assertEquals(new Value.NumVal(6), interpreter.evaluateNow("a * b / 2", env, 0));
+	}
+
+	@Test
+	public void evaluateNowStepLimit() throws Exception {
+		String eval = "for [{_a = 0},{_a < 100},{_a = _a + 1}] do {};_a";
+		assertEquals(new Value.NumVal(100), interpreter.evaluateStatementsNow(eval, new SimpleEnv(), 100000));
+		try {
+			interpreter.evaluateStatementsNow(eval, new SimpleEnv(), 100);
+			fail("Expected the step limit to be reached");
+		} catch (TerminateEvaluationException ignore) {
+		}
+		try {
+			interpreter.evaluateStatementsNow("for [{},{true},{}] do {};", new SimpleEnv(), 10000);
+			fail("Expected the step limit to be reached");
+		} catch (TerminateEvaluationException ignore) {
+		}
+	}
+
+	@Test
+	public void evaluateStepLimitOnSharedExecutor() throws Exception {
+		long completed = ExpressionExecutor.instance.getCompletedCount();
+		FutureEvaluatedValue infinite = interpreter.evaluateStatements("for [{},{true},{}] do {};", new SimpleEnv(), 10000);
+		FutureEvaluatedValue finite = interpreter.evaluate("1 + 2", new SimpleEnv(), 10000);
+		try {
+			infinite.get();
+			fail("Expected the step limit to be reached");
+		} catch (TerminateEvaluationException ignore) {
+		}
+		assertEquals(new Value.NumVal(3), finite.get());
+		assertTrue(ExpressionExecutor.instance.getCompletedCount() >= completed + 2);
+		assertTrue(ExpressionExecutor.instance.getAverageRunNanos() > 0);
+
+		//shutting down an interpreter doesn't shut down the shared executor
+		ExpressionInterpreter other = ExpressionInterpreter.newInstance(getBackend());
+		other.shutdownAndDisable();
+		try {
+			other.evaluate("1", new SimpleEnv());
+			fail("Expected a shutdown interpreter to not be usable");
+		} catch (IllegalStateException ignore) {
+		}
+		assertEquals(new Value.NumVal(1), interpreter.evaluate("1", new SimpleEnv()).get());
+	}
+
+	@Test
+	public void parsedTextIsCached() throws Exception {
+		String eval = "x = 1; x + 1";
+		assertSame(ExpressionInterpreter.parseStatements(eval), ExpressionInterpreter.parseStatements(eval));
+		assertSame(ExpressionInterpreter.parseExpression("1 + 2"), ExpressionInterpreter.parseExpression("1 + 2"));
+		try {
+			ExpressionInterpreter.parseExpression("(1 +");
+			fail("Expected a parse error");
+		} catch (ExpressionEvaluationException ignore) {
+		}
+	}
+
+	@Test
+	public void parseOnManyThreads() throws Exception {
+		ExpressionInterpreter.warmUp();
+		List<Thread> threads = new ArrayList<>();
+		List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+		for (int t = 0; t < 4; t++) {
+			int offset = t;
+			threads.add(new Thread(() -> {
+				try {
+					for (int i = 0; i < 200; i++) {
+						int n = offset * 1000 + i;
+						//not cached yet, so each is parsed by this thread's parser
+						AST.Expr e = ExpressionInterpreter.parseExpression(n + " + 0.5 * w");
+						SimpleEnv env = new SimpleEnv();
+						env.put("w", new Value.NumVal(1));
+						assertEquals(new Value.NumVal(n + 0.5), new ExpressionEvaluator().evaluate(e, env));
+						try {
+							ExpressionInterpreter.parseStatements("x = ;" + n);
+							fail("Expected a parse error");
+						} catch (ExpressionEvaluationException ignore) {
+						}
+					}
+				} catch (Throwable e) {
+					errors.add(e);
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(Collections.emptyList(), errors);
+	}
+
 	//for [{_a = 0; _b = 1},{_a <= 100000},{_a = _a + 1;}] do {};
 
 }
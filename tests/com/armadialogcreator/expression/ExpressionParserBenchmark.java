@@ -0,0 +1,75 @@
+package com.armadialogcreator.expression;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ Compares the per-parse latency of creating a new lexer and parser with full LL prediction for each text (how the interpreter
+ used to parse) with {@link ExpressionInterpreter#parseExpression(String)}, which reuses the thread's parser and tries
+ SLL prediction first. This isn't a unit test. Run it with:
+ <pre>java ... com.armadialogcreator.expression.ExpressionParserBenchmark [warmupIterations] [measuredIterations]</pre>
+ There are more texts than the AST cache can hold and they are parsed in the same order each iteration, so the cache never
+ has the text being parsed.
+
+ @author K
+ @since 10/18/2026 */
+public class ExpressionParserBenchmark {
+	private static final String[] TEMPLATES = {
+			"safeZoneX + %d * (0.01 * safeZoneW)",
+			"safeZoneY + safeZoneH - (%d * 0.04 * safeZoneH)",
+			"((getResolution select 2) * 0.5) max %d",
+			"-0.%d + abs (x - 2) / 3",
+			"if (x > %d) then {1} else {2}",
+			"{_x > %d} count [1, 2, 3]"
+	};
+
+	public static void main(String[] args) {
+		int warmup = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		int measured = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+		String[] texts = new String[5000];
+		for (int i = 0; i < texts.length; i++) {
+			texts[i] = String.format(TEMPLATES[i % TEMPLATES.length], i);
+		}
+
+		ExpressionInterpreter.warmUp();
+		for (int i = 0; i < warmup; i++) {
+			parseFreshLL(texts);
+			parseInterpreter(texts);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < measured; i++) {
+			parseFreshLL(texts);
+		}
+		print("fresh parser, LL", start, measured * texts.length);
+
+		start = System.nanoTime();
+		for (int i = 0; i < measured; i++) {
+			parseInterpreter(texts);
+		}
+		print("reused, SLL first", start, measured * texts.length);
+	}
+
+	private static void print(@NotNull String name, long start, int parses) {
+		System.out.printf("%-20s %10.2f us/parse%n", name, (System.nanoTime() - start) / 1000.0 / parses);
+	}
+
+	private static void parseFreshLL(@NotNull String[] texts) {
+		for (String text : texts) {
+			ExpressionLexer l = new ExpressionLexer(new ANTLRInputStream(text));
+			ExpressionParser p = new ExpressionParser(new CommonTokenStream(l));
+			l.getErrorListeners().clear();
+			p.getErrorListeners().clear();
+			if (p.expression().ast == null) {
+				throw new IllegalStateException();
+			}
+		}
+	}
+
+	private static void parseInterpreter(@NotNull String[] texts) {
+		for (String text : texts) {
+			ExpressionInterpreter.parseExpression(text);
+		}
+	}
+}
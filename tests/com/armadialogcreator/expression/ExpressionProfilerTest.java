@@ -0,0 +1,96 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class ExpressionProfilerTest {
+	private final ExpressionProfiler profiler = ExpressionProfiler.instance;
+
+	@Before
+	public void setUp() {
+		profiler.reset();
+		profiler.setEnabled(true);
+	}
+
+	@After
+	public void tearDown() {
+		profiler.setEnabled(false);
+		profiler.reset();
+	}
+
+	@Test
+	public void recordsEvaluations() {
+		ExpressionInterpreter interpreter = ExpressionInterpreter.newInstance();
+		SimpleEnv env = new SimpleEnv();
+		env.put("x", new Value.NumVal(2));
+		for (int i = 0; i < 3; i++) {
+			assertEquals(new Value.NumVal(3), interpreter.evaluateNow("x + 1", env, 0));
+		}
+		interpreter.evaluateStatementsNow("y = 0; for \"_i\" from 1 to 10 do {y = y + _i}; y", env, 0);
+		try {
+			interpreter.evaluateNow("x + 'a'", env, 0);
+			fail("should have thrown");
+		} catch (ExpressionEvaluationException ignore) {
+		}
+
+		ExpressionProfile add = get("x + 1");
+		assertEquals(3, add.getCount());
+		assertEquals(0, add.getErrorCount());
+		assertTrue(add.getTotalNanos() > 0);
+		assertTrue(add.getMaxNanos() >= add.getPercentileNanos(99));
+		assertTrue(add.getPercentileNanos(99) >= add.getPercentileNanos(50));
+		assertTrue(add.getPercentileNanos(50) >= add.getPercentileNanos(0));
+
+		ExpressionProfile loop = get("y = 0; for \"_i\" from 1 to 10 do {y = y + _i}; y");
+		assertEquals(1, loop.getCount());
+		//the statement list and its 3 statements, then the code block and its statement for each of the 10 iterations
+		assertEquals(1 + 3 + 10 * 2, loop.getTotalSteps());
+		if (ExpressionProfiler.isAllocationMeasured()) {
+			assertTrue(loop.getAllocatedBytes() > 0);
+		} else {
+			assertEquals(-1, loop.getAllocatedBytes());
+		}
+
+		assertEquals(1, get("x + 'a'").getErrorCount());
+	}
+
+	@Test
+	public void recordsCompiledExpressionReuse() {
+		SimpleEnv env = new SimpleEnv();
+		env.put("x", new Value.NumVal(2));
+		CompiledExpression e = new CompiledExpression("x * 4", 0);
+		e.evaluate(env);
+		e.evaluate(env);
+		env.put("x", new Value.NumVal(3));
+		e.evaluate(env);
+
+		ExpressionProfile p = get("x * 4");
+		assertEquals(2, p.getCount());
+		assertEquals(1, p.getReusedCount());
+	}
+
+	@Test
+	public void disabledRecordsNothing() {
+		profiler.setEnabled(false);
+		ExpressionInterpreter.newInstance().evaluateNow("1 + 2", new SimpleEnv(), 0);
+		new CompiledExpression("4 * 4", 0).evaluate(new SimpleEnv());
+		assertTrue(profiler.getProfiles().isEmpty());
+	}
+
+	@NotNull
+	private ExpressionProfile get(@NotNull String text) {
+		for (ExpressionProfile p : profiler.getProfiles()) {
+			if (p.getText().equals(text)) {
+				return p;
+			}
+		}
+		throw new AssertionError("no profile for " + text);
+	}
+}
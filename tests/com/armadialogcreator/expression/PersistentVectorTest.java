@@ -0,0 +1,120 @@
+package com.armadialogcreator.expression;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ @author K
+ @since 10/18/2026 */
+public class PersistentVectorTest {
+
+	@Test
+	public void appendKeepsOldVersions() {
+		List<Value> expected = new ArrayList<>();
+		List<PersistentVector> versions = new ArrayList<>();
+		PersistentVector v = PersistentVector.EMPTY;
+		//enough for 3 levels in the tree
+		for (int i = 0; i < 40000; i++) {
+			versions.add(v);
+			Value item = new Value.StringLiteral("s" + i);
+			expected.add(item);
+			v = v.append(item);
+		}
+		assertEquals(expected, v);
+		for (int i = 0; i < versions.size(); i += 997) {
+			assertEquals(expected.subList(0, i), versions.get(i));
+		}
+		Iterator<Value> iter = v.iterator();
+		for (Value item : expected) {
+			assertSame(item, iter.next());
+		}
+		assertFalse(iter.hasNext());
+	}
+
+	@Test
+	public void appendAll() {
+		List<Value> expected = new ArrayList<>();
+		PersistentVector v = PersistentVector.EMPTY;
+		int next = 0;
+		for (int count : new int[]{0, 1, 31, 32, 33, 1, 64, 1000, 5, 2000}) {
+			List<Value> items = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				items.add(Value.NumVal.of(next++));
+			}
+			PersistentVector before = v;
+			int beforeSize = before.size();
+			v = v.appendAll(items);
+			expected.addAll(items);
+			assertEquals(expected, v);
+			assertEquals(beforeSize, before.size());
+		}
+		assertEquals(expected.subList(100, 1200), v.subList(100, 1200));
+		try {
+			v.add(Value.Void);
+			fail("vector should be immutable");
+		} catch (UnsupportedOperationException ignore) {
+		}
+	}
+
+	@Test
+	public void arrayOperatorsDontChangeOperands() {
+		SimpleEnv env = new SimpleEnv();
+		eval("a = [1, 'a']; b = a + [2]; c = b - [1]; d = [1, 2, 3]; e = d + [4]; f = d - [2]", env);
+		assertEquals("[1, \"a\"]", env.getValue("a").toString());
+		assertEquals("[1, \"a\", 2]", env.getValue("b").toString());
+		assertEquals("[\"a\", 2]", env.getValue("c").toString());
+		assertEquals("[1, 2, 3]", env.getValue("d").toString());
+		assertEquals("[1, 2, 3, 4]", env.getValue("e").toString());
+		assertEquals("[1, 3]", env.getValue("f").toString());
+
+		eval("g = []; for \"_i\" from 0 to 999 do {g = g + [_i, 'b']}; h = g select [0, 20]", env);
+		Value.Array g = (Value.Array) env.getValue("g");
+		assertEquals(2000, g.length());
+		assertEquals(Value.NumVal.of(999), g.get(1998));
+		assertEquals(new Value.StringLiteral("b"), g.get(1999));
+		assertEquals(20, ((Value.Array) env.getValue("h")).length());
+	}
+
+	@Test
+	public void sharedItemsCanBeChanged() {
+		SimpleEnv env = new SimpleEnv();
+		eval("a = [1, 'a']; b = a + [2]; c = b + [3]; d = c - ['a']; e = c select [0, 2]", env);
+		Value.Array b = (Value.Array) env.getValue("b");
+		Value.Array c = (Value.Array) env.getValue("c");
+		Value.Array d = (Value.Array) env.getValue("d");
+		Value.Array e = (Value.Array) env.getValue("e");
+
+		b.getItems().add(new Value.StringLiteral("b"));
+		b.getItems().remove(0);
+		assertEquals("[\"a\", 2, \"b\"]", b.toString());
+		assertEquals("[1, \"a\", 2, 3]", c.toString());
+
+		d.getItems().set(0, Value.NumVal.of(5));
+		assertEquals("[5, 2, 3]", d.toString());
+
+		e.getItems().add(Value.NumVal.of(4));
+		assertEquals("[1, \"a\", 4]", e.toString());
+		c.getItems().clear();
+		assertEquals("[1, \"a\", 4]", e.toString());
+		assertEquals("[]", c.toString());
+		assertEquals("[1, \"a\"]", env.getValue("a").toString());
+
+		eval("f = [1, 2, 3, 4]; g = f select [0, 2]", env);
+		Value.Array f = (Value.Array) env.getValue("f");
+		Value.Array g = (Value.Array) env.getValue("g");
+		f.getItems().set(0, Value.NumVal.of(9));
+		g.getItems().add(Value.NumVal.of(5));
+		assertEquals("[9, 2, 3, 4]", f.toString());
+		assertEquals("[1, 2, 5]", g.toString());
+	}
+
+	private static void eval(@NotNull String text, @NotNull Env env) {
+		new ExpressionEvaluator().evaluate(ExpressionInterpreter.parseStatements(text), env);
+	}
+}